@@ -25,6 +25,8 @@ import com.google.common.collect.Sets;
 import com.netflix.genie.common.external.dtos.v4.Criterion;
 import com.netflix.genie.common.external.util.GenieObjectMapper;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 
 import java.io.File;
 import java.io.IOException;
@@ -164,6 +166,27 @@ final class ArgumentConverters {
         }
     }
 
+    static final class RevalidationTtlConverter implements IStringConverter<Pair<String, Long>> {
+        @Override
+        public Pair<String, Long> convert(final String value) {
+            final String[] schemeAndSeconds = StringUtils.split(value, "=");
+            if (schemeAndSeconds == null
+                || schemeAndSeconds.length != 2
+                || StringUtils.isBlank(schemeAndSeconds[0])
+                || !StringUtils.isNumeric(schemeAndSeconds[1])) {
+                throw new ParameterException("Invalid revalidation TTL (expected SCHEME=SECONDS): " + value);
+            }
+            try {
+                return new ImmutablePair<>(
+                    schemeAndSeconds[0].trim().toLowerCase(),
+                    Long.parseLong(schemeAndSeconds[1])
+                );
+            } catch (final NumberFormatException e) {
+                throw new ParameterException("Invalid revalidation TTL (expected SCHEME=SECONDS): " + value, e);
+            }
+        }
+    }
+
     static final class JSONConverter implements IStringConverter<JsonNode> {
         @Override
         public JsonNode convert(final String value) {
@@ -23,6 +23,7 @@ import com.netflix.genie.common.external.dtos.v4.Criterion;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -52,6 +53,18 @@ public interface ArgumentDelegates {
 
         File getCacheDirectory();
 
+        int getMaxConcurrentDownloads();
+
+        int getMaxConcurrentDownloadsPerSource();
+
+        boolean isLinkCachedResources();
+
+        int getMaxCacheSizeMegabytes();
+
+        Map<String, Long> getRevalidationTtlSeconds();
+
+        List<String> getImmutableUriPrefixes();
+
     }
 
     /**
@@ -71,6 +84,8 @@ public interface ArgumentDelegates {
 
         String getJobId();
 
+        void setJobId(String jobId);
+
         List<Criterion> getClusterCriteria();
 
         Criterion getCommandCriterion();
@@ -97,6 +112,8 @@ public interface ArgumentDelegates {
 
         boolean isJobRequestedViaAPI();
 
+        boolean isJobIdFromStandardInput();
+
         List<String> getJobConfigurations();
 
         List<String> getJobDependencies();
@@ -18,10 +18,17 @@
 package com.netflix.genie.agent.cli;
 
 import com.beust.jcommander.Parameter;
+import com.beust.jcommander.validators.PositiveInteger;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.apache.commons.lang3.tuple.Pair;
 
 import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of CacheArguments delegate.
@@ -34,6 +41,10 @@ class CacheArgumentsImpl implements ArgumentDelegates.CacheArguments {
 
     @VisibleForTesting
     static final String DEFAULT_CACHE_PATH = "/tmp/genie/cache";
+    @VisibleForTesting
+    static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS = 8;
+    @VisibleForTesting
+    static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS_PER_SOURCE = 4;
 
     @Parameter(
         names = {"--cacheDirectory", "--cache-directory"},
@@ -42,4 +53,63 @@ class CacheArgumentsImpl implements ArgumentDelegates.CacheArguments {
         validateWith = ArgumentValidators.StringValidator.class
     )
     private File cacheDirectory = new File(DEFAULT_CACHE_PATH);
+
+    @Parameter(
+        names = {"--maxConcurrentDownloads", "--max-concurrent-downloads"},
+        description = "Maximum number of dependencies downloaded in parallel",
+        validateWith = PositiveInteger.class
+    )
+    private int maxConcurrentDownloads = DEFAULT_MAX_CONCURRENT_DOWNLOADS;
+
+    @Parameter(
+        names = {"--maxConcurrentDownloadsPerSource", "--max-concurrent-downloads-per-source"},
+        description = "Maximum number of dependencies downloaded in parallel from the same source (e.g. S3 bucket)",
+        validateWith = PositiveInteger.class
+    )
+    private int maxConcurrentDownloadsPerSource = DEFAULT_MAX_CONCURRENT_DOWNLOADS_PER_SOURCE;
+
+    @Parameter(
+        names = {"--maxCacheSizeMegabytes", "--max-cache-size-megabytes"},
+        description = "Maximum size of the dependencies cache, least recently used entries are evicted beyond it."
+            + " Zero means unbounded",
+        validateWith = PositiveInteger.class
+    )
+    private int maxCacheSizeMegabytes;
+
+    @Parameter(
+        names = {"--linkCachedResources", "--link-cached-resources"},
+        description = "Hard link cached resources into the job directory instead of copying them when possible."
+            + " Linked files are read-only"
+    )
+    private boolean linkCachedResources;
+
+    @Parameter(
+        names = {"--revalidationTtl", "--revalidation-ttl"},
+        description = "How long a cached resource is used without checking the remote version, for a given URI scheme"
+            + " (e.g. s3=300 for 5 minutes), can be repeated",
+        converter = ArgumentConverters.RevalidationTtlConverter.class,
+        splitter = NoopParameterSplitter.class
+    )
+    @Getter(AccessLevel.NONE)
+    private List<Pair<String, Long>> revalidationTtlSeconds = Lists.newArrayList();
+
+    @Parameter(
+        names = {"--immutableUriPrefix", "--immutable-uri-prefix"},
+        description = "Prefix of URIs whose content never changes (e.g. versioned paths), cached resources matching it"
+            + " are used without checking the remote version, can be repeated",
+        validateWith = ArgumentValidators.StringValidator.class,
+        splitter = NoopParameterSplitter.class
+    )
+    private List<String> immutableUriPrefixes = Lists.newArrayList();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getRevalidationTtlSeconds() {
+        // Last value wins if a scheme is repeated
+        return revalidationTtlSeconds.stream().collect(
+            Collectors.toMap(Pair::getKey, Pair::getValue, (first, second) -> second)
+        );
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.cli;
+
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import com.netflix.genie.agent.execution.services.FetchingCacheService;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+/**
+ * Command to evict the least recently used resources from the dependencies cache.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+class CleanupCommand implements AgentCommand {
+
+    private final CleanupCommandArguments cleanupCommandArguments;
+    private final FetchingCacheService fetchingCacheService;
+
+    CleanupCommand(
+        final CleanupCommandArguments cleanupCommandArguments,
+        final FetchingCacheService fetchingCacheService
+    ) {
+        this.cleanupCommandArguments = cleanupCommandArguments;
+        this.fetchingCacheService = fetchingCacheService;
+    }
+
+    @Override
+    public ExitCode run() {
+        final ArgumentDelegates.CacheArguments cacheArguments = cleanupCommandArguments.getCacheArguments();
+
+        if (cacheArguments.getMaxCacheSizeMegabytes() <= 0) {
+            throw new ParameterException("A maximum cache size is required");
+        }
+
+        log.info(
+            "Evicting resources from cache: {} (maximum size: {}MB)",
+            cacheArguments.getCacheDirectory(),
+            cacheArguments.getMaxCacheSizeMegabytes()
+        );
+
+        final long bytesReclaimed;
+        try {
+            bytesReclaimed = fetchingCacheService.evictLeastRecentlyUsed();
+        } catch (final IOException e) {
+            throw new RuntimeException("Cache cleanup failed", e);
+        }
+
+        System.out.println("Reclaimed bytes: " + bytesReclaimed);
+
+        return ExitCode.SUCCESS;
+    }
+
+    @Parameters(
+        commandNames = CommandNames.CLEANUP,
+        commandDescription = "Evict the least recently used resources from the dependencies cache"
+    )
+    static class CleanupCommandArguments implements AgentCommandArguments {
+
+        @ParametersDelegate
+        @Getter
+        private final ArgumentDelegates.CacheArguments cacheArguments;
+
+        CleanupCommandArguments(
+            final ArgumentDelegates.CacheArguments cacheArguments
+        ) {
+            this.cacheArguments = cacheArguments;
+        }
+
+        @Override
+        public Class<? extends AgentCommand> getConsumerClass() {
+            return CleanupCommand.class;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.netflix.genie.agent.AgentMetadata;
 import com.netflix.genie.agent.execution.services.AgentHeartBeatService;
 import com.netflix.genie.agent.execution.services.AgentJobService;
 import com.netflix.genie.agent.execution.services.DownloadService;
+import com.netflix.genie.agent.execution.services.FetchingCacheService;
 import com.netflix.genie.agent.execution.services.KillService;
 import com.netflix.genie.agent.execution.statemachine.JobExecutionStateMachine;
 import com.netflix.genie.proto.PingServiceGrpc;
@@ -50,6 +51,35 @@ public class CliAutoConfiguration {
         return new CacheArgumentsImpl();
     }
 
+    /**
+     * Provide a bean for arguments for a cleanup command.
+     *
+     * @param cacheArguments Any arguments that were provided for the cache of this agent instance
+     * @return An instance of {@link com.netflix.genie.agent.cli.CleanupCommand.CleanupCommandArguments}
+     */
+    @Bean
+    public CleanupCommand.CleanupCommandArguments cleanupCommandArguments(
+        final ArgumentDelegates.CacheArguments cacheArguments
+    ) {
+        return new CleanupCommand.CleanupCommandArguments(cacheArguments);
+    }
+
+    /**
+     * Provide a lazy bean definition for a {@link CleanupCommand}.
+     *
+     * @param cleanupCommandArguments The cleanup command arguments to use
+     * @param fetchingCacheService    The cache service to use
+     * @return An instance of {@link CleanupCommand}
+     */
+    @Bean
+    @Lazy
+    public CleanupCommand cleanupCommand(
+        final CleanupCommand.CleanupCommandArguments cleanupCommandArguments,
+        final FetchingCacheService fetchingCacheService
+    ) {
+        return new CleanupCommand(cleanupCommandArguments, fetchingCacheService);
+    }
+
     /**
      * Provide a bean for arguments for a download command.
      *
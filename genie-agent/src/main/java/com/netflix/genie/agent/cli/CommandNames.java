@@ -49,6 +49,8 @@ final class CommandNames {
 
     static final String HEARTBEAT = "heartbeat";
 
+    static final String CLEANUP = "cleanup";
+
     private static final Set<Field> COMMAND_NAMES_FIELDS;
 
     static {
@@ -27,7 +27,14 @@ import com.netflix.genie.agent.execution.statemachine.JobExecutionStateMachine;
 import com.netflix.genie.common.external.dtos.v4.JobStatus;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -49,18 +56,46 @@ class ExecCommand implements AgentCommand {
         new sun.misc.Signal("TERM")
     ));
 
+    private final InputStream jobIdInputStream;
+
     ExecCommand(
         final ExecCommandArguments execCommandArguments,
         final JobExecutionStateMachine stateMachine,
         final KillService killService
+    ) {
+        this(execCommandArguments, stateMachine, killService, System.in);
+    }
+
+    @VisibleForTesting
+    ExecCommand(
+        final ExecCommandArguments execCommandArguments,
+        final JobExecutionStateMachine stateMachine,
+        final KillService killService,
+        final InputStream jobIdInputStream
     ) {
         this.execCommandArguments = execCommandArguments;
         this.stateMachine = stateMachine;
         this.killService = killService;
+        this.jobIdInputStream = jobIdInputStream;
     }
 
     @Override
     public ExitCode run() {
+        final ArgumentDelegates.JobRequestArguments jobRequestArguments =
+            this.execCommandArguments.getJobRequestArguments();
+
+        if (jobRequestArguments.isJobIdFromStandardInput()) {
+            // Started ahead of time by the server, everything is initialized, wait to be handed a job.
+            // Signals are left alone until then so an idle agent can be terminated right away.
+            final String jobId = this.awaitJobId();
+            if (jobId == null) {
+                log.info("Standard input closed before a job id was received, nothing to execute");
+                return ExitCode.SUCCESS;
+            }
+            log.info("Received job id: {}", jobId);
+            jobRequestArguments.setJobId(jobId);
+        }
+
         for (final sun.misc.Signal s : signalsToIntercept) {
             sun.misc.Signal.handle(s, signal -> handleTerminationSignal());
         }
@@ -119,6 +154,19 @@ class ExecCommand implements AgentCommand {
         return exitCode;
     }
 
+    @Nullable
+    private String awaitJobId() {
+        log.info("Waiting for job id on standard input");
+        try {
+            final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(this.jobIdInputStream, StandardCharsets.UTF_8)
+            );
+            return StringUtils.trimToNull(reader.readLine());
+        } catch (final IOException e) {
+            throw new RuntimeException("Failed to read job id from standard input", e);
+        }
+    }
+
     @VisibleForTesting
     void handleTerminationSignal() {
         UserConsole.getLogger().info("Kill requested, terminating job");
@@ -25,6 +25,7 @@ import com.google.common.collect.Sets;
 import com.netflix.genie.common.external.dtos.v4.Criterion;
 import com.netflix.genie.common.external.util.GenieObjectMapper;
 import lombok.Getter;
+import lombok.Setter;
 
 import java.io.File;
 import java.util.List;
@@ -74,6 +75,7 @@ class JobRequestArgumentsImpl implements ArgumentDelegates.JobRequestArguments {
         names = {"--jobId", "--job-id"},
         description = "Unique job identifier"
     )
+    @Setter
     private String jobId;
 
     @Parameter(
@@ -161,6 +163,13 @@ class JobRequestArgumentsImpl implements ArgumentDelegates.JobRequestArguments {
     )
     private boolean jobRequestedViaAPI;
 
+    @Parameter(
+        names = {"--jobIdFromStdin", "--job-id-from-stdin"},
+        description = "Whether the agent was started ahead of time and should wait for the job id on standard input",
+        hidden = true // Do not expose this option via CLI to users
+    )
+    private boolean jobIdFromStandardInput;
+
     @Parameter(
         names = {"--jobConfiguration", "--job-configuration"},
         description = "URI or path of a job-level configuration file to attach, can be repeated",
@@ -449,6 +449,7 @@ public class ExecutionAutoConfiguration {
 
     /**
      * Create a {@link ArchiveJobOutputsStage} bean if one is not already defined.
+     * The job archive service (and the storage clients behind it) is only created if a job has outputs to archive.
      *
      * @param jobArchiveService the job archive service
      */
@@ -456,7 +457,7 @@ public class ExecutionAutoConfiguration {
     @Lazy
     @Order(220)
     @ConditionalOnMissingBean(ArchiveJobOutputsStage.class)
-    ArchiveJobOutputsStage archiveJobOutputsStage(final JobArchiveService jobArchiveService) {
+    ArchiveJobOutputsStage archiveJobOutputsStage(@Lazy final JobArchiveService jobArchiveService) {
         return new ArchiveJobOutputsStage(jobArchiveService);
     }
 
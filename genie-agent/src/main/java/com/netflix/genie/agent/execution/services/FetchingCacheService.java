@@ -51,4 +51,14 @@ public interface FetchingCacheService {
      * @throws IOException       if downloading or copying the file to destination fails
      */
     void get(Set<Pair<URI, File>> sourceDestinationPairs) throws DownloadException, IOException;
+
+    /**
+     * Evict the least recently used resources until the cache no longer exceeds its maximum size.
+     * Does nothing if the cache size is not bounded.
+     *
+     * @return the number of bytes freed on disk, evicted files still hard linked elsewhere (e.g. into job
+     * directories) are not counted
+     * @throws IOException if the contents of the cache cannot be listed
+     */
+    long evictLeastRecentlyUsed() throws IOException;
 }
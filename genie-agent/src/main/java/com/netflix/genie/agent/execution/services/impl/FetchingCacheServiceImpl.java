@@ -18,6 +18,9 @@
 package com.netflix.genie.agent.execution.services.impl;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.io.Files;
 import com.netflix.genie.agent.cli.ArgumentDelegates;
 import com.netflix.genie.agent.execution.exceptions.DownloadException;
@@ -26,6 +29,7 @@ import com.netflix.genie.agent.execution.services.FetchingCacheService;
 import com.netflix.genie.agent.utils.locks.CloseableLock;
 import com.netflix.genie.agent.utils.locks.impl.FileLockFactory;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
@@ -34,6 +38,7 @@ import org.springframework.util.DigestUtils;
 import org.springframework.util.FileCopyUtils;
 import org.springframework.util.FileSystemUtils;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -41,7 +46,25 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 /**
  * A cache on local disk that uses URIs as keys and transparently downloads
@@ -54,7 +77,12 @@ import java.util.Set;
  * Recovers from partial downloads of resources in case an agent gets killed in the middle of a download
  * or a download fails for any other reason
  * <p>
- * Does NOT handle concurrency within the same agent (not an issue at the moment)
+ * File locks are held on behalf of the whole agent process, so the same resource must not be fetched by two
+ * threads of the same agent at once. A set of resources is fetched in parallel on the download executor, with each
+ * distinct URI fetched exactly once and copied to all of its destinations. The number of parallel downloads from a
+ * single source (scheme and authority, e.g. an S3 bucket) is capped separately from the size of the executor.
+ * Fetches over the cap wait in a queue for their source and are only handed to the executor once a fetch from the
+ * same source completes, so a busy source never holds executor threads needed by other sources.
  * <p>
  * Cache structure on local disk
  * Each resource has a hash to represent it. The version of the resource is the remote last modified
@@ -66,8 +94,27 @@ import java.util.Set;
  * {base_dir}/6d331abc92bc8244bc5d41e2107f303a/1525456404/data
  * {base_dir}/6d331abc92bc8244bc5d41e2107f303a/1525456404/lock
  * <p>
+ * Revalidation
+ * By default the remote resource is looked up every time to find its latest version. For URIs with a revalidation
+ * TTL (by scheme), the version found is recorded with a timestamp in a validated file in the resource directory,
+ * and is reused without any remote call until the TTL expires. URIs matching an immutable prefix never expire.
+ * <p>
+ * Materialization
+ * Cached data is copied to the destination. Optionally it is hard linked instead, which requires the cache and the
+ * destination to be on the same file system and falls back to copying otherwise. A linked data file is marked
+ * read-only first, since the destination shares it with the cache and with other jobs.
+ * <p>
  * Deletion of older versions
  * Once a version is successfully downloaded, any older versions are deleted as a best effort
+ * <p>
+ * Eviction
+ * If a maximum cache size is set, the least recently used resource versions are deleted once a set of resources
+ * has been fetched, until the cache fits the maximum size again. The lock file of a version is touched each time
+ * the version is looked up, its modification time is the last access time. The data, the lock file and the
+ * directory are deleted while holding the lock. An agent waiting on the lock of an evicted version may then end up
+ * holding the lock on a deleted file while another agent locks the lock file recreated at the same path. To avoid
+ * this, the key of the lock file is read before opening it and compared to the file at the path once the lock is
+ * held, and the lock is taken again if they differ.
  * TODO:Use shared file lock for reading and exclusive lock for writing to the cache
  *
  * @author standon
@@ -80,21 +127,38 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
     private static final String DATA_FILE_NAME = "data";
     private static final String DATA_DOWNLOAD_FILE_NAME = "data.tmp";
     private static final String DUMMY_FILE_NAME = "_";
+    private static final String VALIDATED_FILE_NAME = "validated";
     private final ResourceLoader resourceLoader;
     private final File cacheDirectory;
     private final FileLockFactory fileLockFactory;
     private final TaskExecutor cleanUpTaskExecutor;
+    private final TaskExecutor downloadTaskExecutor;
+    private final int maxConcurrentDownloadsPerSource;
+    private final boolean linkCachedResources;
+    private final long maxCacheSizeBytes;
+    private final Map<String, Long> revalidationTtlMillis;
+    private final List<String> immutableUriPrefixes;
+    private final ConcurrentMap<String, SourceQueue> sourceQueues = new ConcurrentHashMap<>();
 
     FetchingCacheServiceImpl(
         final ResourceLoader resourceLoader,
         final ArgumentDelegates.CacheArguments cacheArguments,
         final FileLockFactory fileLockFactory,
-        final TaskExecutor cleanUpTaskExecutor
+        final TaskExecutor cleanUpTaskExecutor,
+        final TaskExecutor downloadTaskExecutor
     ) throws IOException {
         this.resourceLoader = resourceLoader;
         this.cacheDirectory = cacheArguments.getCacheDirectory();
         this.fileLockFactory = fileLockFactory;
         this.cleanUpTaskExecutor = cleanUpTaskExecutor;
+        this.downloadTaskExecutor = downloadTaskExecutor;
+        this.maxConcurrentDownloadsPerSource = Math.max(1, cacheArguments.getMaxConcurrentDownloadsPerSource());
+        this.linkCachedResources = cacheArguments.isLinkCachedResources();
+        this.maxCacheSizeBytes = cacheArguments.getMaxCacheSizeMegabytes() * 1024L * 1024L;
+        this.revalidationTtlMillis = cacheArguments.getRevalidationTtlSeconds().entrySet().stream().collect(
+            Collectors.toMap(Map.Entry::getKey, entry -> TimeUnit.SECONDS.toMillis(entry.getValue()))
+        );
+        this.immutableUriPrefixes = ImmutableList.copyOf(cacheArguments.getImmutableUriPrefixes());
         createDirectoryStructureIfNotExists(cacheDirectory);
     }
 
@@ -103,7 +167,7 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
      */
     @Override
     public void get(final URI sourceFileUri, final File destinationFile) throws DownloadException, IOException {
-        lookupOrDownload(sourceFileUri, destinationFile);
+        lookupOrDownload(sourceFileUri, Collections.singletonList(destinationFile));
     }
 
     /**
@@ -111,25 +175,228 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
      */
     @Override
     public void get(final Set<Pair<URI, File>> sourceDestinationPairs) throws DownloadException, IOException {
+        // Fetch each distinct URI once, no matter how many destinations it has
+        final Map<URI, List<File>> destinationsBySource = Maps.newLinkedHashMap();
         for (final Pair<URI, File> sourceDestinationPair : sourceDestinationPairs) {
-            get(sourceDestinationPair.getKey(), sourceDestinationPair.getValue());
+            destinationsBySource
+                .computeIfAbsent(sourceDestinationPair.getKey(), uri -> Lists.newArrayList())
+                .add(sourceDestinationPair.getValue());
+        }
+
+        // Set after the first failure so fetches that did not start yet are skipped
+        final AtomicBoolean aborted = new AtomicBoolean(false);
+        final List<FutureTask<Void>> fetches = Lists.newArrayList();
+        for (final Map.Entry<URI, List<File>> entry : destinationsBySource.entrySet()) {
+            final long queuedTime = System.nanoTime();
+            final FutureTask<Void> fetch = new FutureTask<>(
+                () -> {
+                    if (!aborted.get()) {
+                        try {
+                            fetch(entry.getKey(), entry.getValue(), queuedTime);
+                        } catch (final Throwable t) {
+                            aborted.set(true);
+                            throw t;
+                        }
+                    }
+                    return null;
+                }
+            );
+            fetches.add(fetch);
+            submitFetch(entry.getKey(), fetch);
+        }
+
+        // Wait for all the fetches, even after a failure, so nothing is left writing into the destinations
+        Throwable firstFailure = null;
+        for (final FutureTask<Void> fetch : fetches) {
+            try {
+                fetch.get();
+            } catch (final ExecutionException e) {
+                if (firstFailure == null) {
+                    firstFailure = e.getCause();
+                }
+            } catch (final CancellationException e) {
+                if (firstFailure == null) {
+                    firstFailure = new DownloadException("Download could not be started", e);
+                }
+            } catch (final InterruptedException e) {
+                aborted.set(true);
+                Thread.currentThread().interrupt();
+                throw new DownloadException("Interrupted while waiting for downloads to complete", e);
+            }
+        }
+
+        if (maxCacheSizeBytes > 0) {
+            cleanUpTaskExecutor.execute(new EvictionTask());
+        }
+
+        if (firstFailure instanceof DownloadException) {
+            throw (DownloadException) firstFailure;
+        } else if (firstFailure instanceof IOException) {
+            throw (IOException) firstFailure;
+        } else if (firstFailure instanceof RuntimeException) {
+            throw (RuntimeException) firstFailure;
+        } else if (firstFailure != null) {
+            throw new DownloadException("Error downloading dependency", firstFailure);
         }
     }
 
-    /* Get a handle to the resource represented by the sourceFileURI.
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long evictLeastRecentlyUsed() throws IOException {
+        if (maxCacheSizeBytes <= 0) {
+            return 0;
+        }
+
+        final File[] resourceDirs = cacheDirectory.listFiles(File::isDirectory);
+        if (resourceDirs == null) {
+            throw new IOException("Failed to list cache directory: " + cacheDirectory.getAbsolutePath());
+        }
+
+        // Snapshot sizes and access times, other agents may be using the cache meanwhile
+        final List<CacheEntry> entries = Lists.newArrayList();
+        long cacheSize = 0;
+        for (final File resourceDir : resourceDirs) {
+            final File[] resourceVersionDirs = resourceDir.listFiles(File::isDirectory);
+            if (resourceVersionDirs == null) {
+                continue;
+            }
+            for (final File resourceVersionDir : resourceVersionDirs) {
+                final long size = getCacheResourceVersionDataFile(resourceVersionDir).length()
+                    + getCacheResourceVersionDownloadFile(resourceVersionDir).length();
+                if (size > 0) {
+                    entries.add(
+                        new CacheEntry(
+                            resourceVersionDir,
+                            size,
+                            getCacheResourceVersionLockFile(resourceVersionDir).lastModified()
+                        )
+                    );
+                    cacheSize += size;
+                }
+            }
+        }
+
+        entries.sort(Comparator.comparingLong(entry -> entry.lastAccessTime));
+
+        // Bytes no longer counted against the cache size, and bytes actually freed on disk. The two differ when
+        // evicted data files are still hard linked into job directories
+        long bytesEvicted = 0;
+        long bytesReclaimed = 0;
+        for (final CacheEntry entry : entries) {
+            if (cacheSize - bytesEvicted <= maxCacheSizeBytes) {
+                break;
+            }
+            try {
+                final long bytesUnlinked = evictResourceVersion(entry.resourceVersionDir);
+                bytesEvicted += entry.size;
+                bytesReclaimed += bytesUnlinked;
+                log.debug(
+                    "Evicted {} ({} bytes, {} bytes reclaimed)",
+                    entry.resourceVersionDir,
+                    entry.size,
+                    bytesUnlinked
+                );
+            } catch (final LockException | IOException e) {
+                log.warn("Failed to evict {}: {}", entry.resourceVersionDir, e.getMessage());
+            }
+        }
+
+        log.info(
+            "Cache size {} bytes, maximum {} bytes, evicted {} bytes, reclaimed {} bytes",
+            cacheSize,
+            maxCacheSizeBytes,
+            bytesEvicted,
+            bytesReclaimed
+        );
+        return bytesReclaimed;
+    }
+
+    /* Returns the source of a URI, its scheme and authority (e.g. an S3 bucket). */
+    private static String getSource(final URI sourceFileUri) {
+        return sourceFileUri.getScheme() + "://" + Objects.toString(sourceFileUri.getAuthority(), "");
+    }
+
+    /* Queue a fetch behind the other fetches from the same source and start as many as the source allows. */
+    private void submitFetch(final URI sourceFileUri, final FutureTask<Void> fetch) {
+        final SourceQueue sourceQueue = sourceQueues.computeIfAbsent(
+            getSource(sourceFileUri),
+            key -> new SourceQueue(maxConcurrentDownloadsPerSource)
+        );
+        sourceQueue.pendingFetches.add(fetch);
+        startPendingFetches(sourceQueue);
+    }
+
+    /* Hand pending fetches of a source to the executor while permits are available. Called whenever a fetch is
+     * queued and whenever a permit is released, so a pending fetch always finds a permit eventually.
+     */
+    private void startPendingFetches(final SourceQueue sourceQueue) {
+        while (!sourceQueue.pendingFetches.isEmpty() && sourceQueue.permits.tryAcquire()) {
+            final FutureTask<Void> fetch = sourceQueue.pendingFetches.poll();
+            if (fetch == null) {
+                // Taken by another thread meanwhile
+                sourceQueue.permits.release();
+                continue;
+            }
+            try {
+                downloadTaskExecutor.execute(
+                    () -> {
+                        try {
+                            fetch.run();
+                        } finally {
+                            sourceQueue.permits.release();
+                            startPendingFetches(sourceQueue);
+                        }
+                    }
+                );
+            } catch (final RuntimeException e) {
+                // Fail the fetch rather than leave it pending forever
+                log.warn("Failed to start fetch: {}", e.getMessage());
+                sourceQueue.permits.release();
+                fetch.cancel(false);
+            }
+        }
+    }
+
+    /* Fetch a resource into its destinations, queued at the given time waiting for a permit for its source. */
+    private void fetch(
+        final URI sourceFileUri,
+        final List<File> destinationFiles,
+        final long queuedTime
+    ) throws DownloadException, IOException {
+        final String source = getSource(sourceFileUri);
+        final long fetchStart = System.nanoTime();
+        final long bytesLinked = lookupOrDownload(sourceFileUri, destinationFiles);
+        final long fetchEnd = System.nanoTime();
+
+        log.info(
+            "Fetched {} to {} destination(s) in {}ms (waited {}ms for {}), {} bytes linked instead of copied",
+            sourceFileUri,
+            destinationFiles.size(),
+            TimeUnit.NANOSECONDS.toMillis(fetchEnd - fetchStart),
+            TimeUnit.NANOSECONDS.toMillis(fetchStart - queuedTime),
+            source,
+            bytesLinked
+        );
+    }
+
+    /* Get a handle to the resource represented by the sourceFileURI, unless a version of it validated recently
+     * enough is in the cache, in which case that version is used directly.
      * The lastModifedTimeStamp represents the version number of the resource.
      * Create the directory structure with resourceCacheId/version(lastModifiedTimeStamp)
      * if it does not exist. Touch an empty lock file. Use this file to grab a lock on it.
      * While under the lock check for the cache data file resourceCacheId/version/DATA_FILE_NAME.
      * If it exists copy to the target file and release the lock. Else,
      * download the file to resourceCacheId/version/DATA_DOWNLOAD_FILE_NAME download file. Move it
-     * to the data file(this operation is guaranteed to be atomic by the OS). Copy data
-     * file to target file and release the lock.
+     * to the data file(this operation is guaranteed to be atomic by the OS). Copy (or link) data
+     * file to target files and release the lock.
      * Before exiting delete the previous versions of the resource
+     * Returns the number of bytes that were linked rather than copied.
      */
-    private void lookupOrDownload(
+    private long lookupOrDownload(
         final URI sourceFileUri,
-        final File destinationFile
+        final List<File> destinationFiles
     ) throws DownloadException, IOException {
 
         final String uriString = sourceFileUri.toASCIIString();
@@ -139,6 +406,23 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
         // Unique id to store the resource on local disk
         final String resourceCacheId = getResourceCacheId(sourceFileUri);
 
+        // Skip the remote lookup if the cached version was validated recently enough
+        final long revalidationTtl = getRevalidationTtlMillis(sourceFileUri);
+        if (revalidationTtl > 0) {
+            final Long validatedVersion = getValidatedVersion(resourceCacheId, revalidationTtl);
+            if (validatedVersion != null) {
+                final Long bytesLinked = materializeCachedVersion(resourceCacheId, validatedVersion, destinationFiles);
+                if (bytesLinked != null) {
+                    log.debug(
+                        "Cache hit without revalidation: {} (id: {})",
+                        uriString,
+                        resourceCacheId
+                    );
+                    return bytesLinked;
+                }
+            }
+        }
+
         // Get a handle to the resource
         final Resource resource;
         try {
@@ -165,19 +449,11 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
             resourceLastModified
         );
 
-        //Create the resource version dir in cache if it does not exist
-        createDirectoryStructureIfNotExists(cacheResourceVersionDir);
+        long bytesLinked = 0;
 
-        try (
-            CloseableLock lock = fileLockFactory.getLock(
-                touchCacheResourceVersionLockFile(
-                    resourceCacheId,
-                    resourceLastModified
-                )
-            )
-        ) {
+        //Lock the resource version, its dir in cache is created if it does not exist
+        try (CloseableLock lock = lockResourceVersion(cacheResourceVersionDir)) {
             //Critical section begin
-            lock.lock();
 
             //Handle to the resource cached locally
             final File cachedResourceVersionDataFile = getCacheResourceVersionDataFile(
@@ -213,17 +489,137 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
                 );
             }
 
-            //Copy from cache data file resourceCacheId/version/DATA_FILE_NAME to targetFile
-            Files.copy(cachedResourceVersionDataFile, destinationFile);
+            //Copy from cache data file resourceCacheId/version/DATA_FILE_NAME to target files
+            for (final File destinationFile : destinationFiles) {
+                if (materialize(cachedResourceVersionDataFile, destinationFile)) {
+                    bytesLinked += cachedResourceVersionDataFile.length();
+                }
+            }
             //Critical section end
         } catch (LockException e) {
             throw new DownloadException("Error downloading dependency", e);
         }
 
+        if (revalidationTtl > 0) {
+            markValidated(resourceCacheId, resourceLastModified);
+        }
+
         //Clean up any older versions
         cleanUpTaskExecutor.execute(
             new CleanupOlderVersionsTask(resourceCacheId, resourceLastModified)
         );
+
+        return bytesLinked;
+    }
+
+    /* Returns the revalidation TTL of a URI in milliseconds, zero if it should always be revalidated. */
+    private long getRevalidationTtlMillis(final URI sourceFileUri) {
+        final String uriString = sourceFileUri.toASCIIString();
+        for (final String immutableUriPrefix : immutableUriPrefixes) {
+            if (uriString.startsWith(immutableUriPrefix)) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return revalidationTtlMillis.getOrDefault(StringUtils.lowerCase(sourceFileUri.getScheme()), 0L);
+    }
+
+    /* Returns the version of a resource last validated within the given TTL, or null if there is none. */
+    @Nullable
+    private Long getValidatedVersion(final String resourceCacheId, final long revalidationTtl) {
+        final File validatedFile = getCacheResourceValidatedFile(resourceCacheId);
+        // Zero if the file does not exist
+        final long validatedTimestamp = validatedFile.lastModified();
+        if (validatedTimestamp == 0 || System.currentTimeMillis() - validatedTimestamp > revalidationTtl) {
+            return null;
+        }
+        try {
+            return Long.parseLong(Files.asCharSource(validatedFile, StandardCharsets.UTF_8).read().trim());
+        } catch (final IOException | NumberFormatException e) {
+            log.debug("Failed to read validated version of {}: {}", resourceCacheId, e.getMessage());
+            return null;
+        }
+    }
+
+    /* Record the latest remote version of a resource. The file is replaced atomically, as other agents may read it
+     * without holding any lock.
+     */
+    private void markValidated(final String resourceCacheId, final long resourceLastModified) {
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile(VALIDATED_FILE_NAME, ".tmp", getCacheResourceDir(resourceCacheId));
+            Files.asCharSink(tempFile, StandardCharsets.UTF_8).write(Long.toString(resourceLastModified));
+            Files.move(tempFile, getCacheResourceValidatedFile(resourceCacheId));
+        } catch (final IOException e) {
+            log.warn("Failed to record validated version of {}: {}", resourceCacheId, e.getMessage());
+            if (tempFile != null && !tempFile.delete()) {
+                log.debug("Failed to delete {}", tempFile);
+            }
+        }
+    }
+
+    /* Copy (or link) a cached version of a resource to the destinations without looking up the remote resource.
+     * Returns the number of bytes linked, or null if the version is no longer in the cache.
+     */
+    @Nullable
+    private Long materializeCachedVersion(
+        final String resourceCacheId,
+        final long resourceLastModified,
+        final List<File> destinationFiles
+    ) throws DownloadException, IOException {
+        final File cachedResourceVersionDataFile = getCacheResourceVersionDataFile(
+            resourceCacheId,
+            resourceLastModified
+        );
+        if (!cachedResourceVersionDataFile.exists()) {
+            return null;
+        }
+
+        long bytesLinked = 0;
+        final File cacheResourceVersionDir = getCacheResourceVersionDir(resourceCacheId, resourceLastModified);
+        try (CloseableLock lock = lockResourceVersion(cacheResourceVersionDir)) {
+            //Critical section begin
+
+            // May have been evicted meanwhile
+            if (!cachedResourceVersionDataFile.exists()) {
+                return null;
+            }
+
+            for (final File destinationFile : destinationFiles) {
+                if (materialize(cachedResourceVersionDataFile, destinationFile)) {
+                    bytesLinked += cachedResourceVersionDataFile.length();
+                }
+            }
+            //Critical section end
+        } catch (LockException e) {
+            throw new DownloadException("Error downloading dependency", e);
+        }
+        return bytesLinked;
+    }
+
+    /* Hard link the cached data file to the destination if enabled, copy it otherwise or if linking fails.
+     * Returns true if the file was linked.
+     */
+    private boolean materialize(final File cachedDataFile, final File destinationFile) throws IOException {
+        if (linkCachedResources) {
+            // Jobs must not be able to modify the cache entry through the link
+            if (cachedDataFile.canWrite() && !cachedDataFile.setReadOnly()) {
+                log.warn("Failed to make cached file read-only, copying it instead: {}", cachedDataFile);
+            } else {
+                try {
+                    java.nio.file.Files.createLink(destinationFile.toPath(), cachedDataFile.toPath());
+                    return true;
+                } catch (final IOException | UnsupportedOperationException | SecurityException e) {
+                    log.debug(
+                        "Failed to link {} to {}, copying it instead: {}",
+                        destinationFile,
+                        cachedDataFile,
+                        e.getMessage()
+                    );
+                }
+            }
+        }
+        Files.copy(cachedDataFile, destinationFile);
+        return false;
     }
 
     @VisibleForTesting
@@ -269,7 +665,7 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
     ) throws IOException, LockException {
 
         //Get all versions of a resource in the cache
-        final File[] files = getCacheResourceDir(resourceCacheId).listFiles();
+        final File[] files = getCacheResourceDir(resourceCacheId).listFiles(File::isDirectory);
 
         //Remove all the versions older than the supplied version - lastDownloadedResourceModifiedTimestamp
         if (files != null) {
@@ -299,13 +695,8 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
          * Acquire a lock on the lock file for the resource version being deleted.
          * Delete the entire directory for the resource version
          */
-        try (
-            CloseableLock lock = fileLockFactory.getLock(
-                touchCacheResourceVersionLockFile(resourceVersionDir)
-            )
-        ) {
+        try (CloseableLock lock = lockResourceVersion(resourceVersionDir)) {
             //critical section begin
-            lock.lock();
 
             //Remove the data file. If last download was successful for the resource, only
             //data file would exist
@@ -319,11 +710,127 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
         }
     }
 
+    /**
+     * Delete a resource version after taking appropriate lock, along with its lock file and directory.
+     * Agents waiting on the lock notice the lock file was deleted or replaced and take the lock again.
+     *
+     * @param resourceVersionDir Directory to be deleted
+     * @return the number of bytes freed on disk, which excludes data files still hard linked elsewhere
+     * @throws IOException in case deleting the files has an issue
+     */
+    private long evictResourceVersion(final File resourceVersionDir) throws LockException, IOException {
+        long bytesUnlinked = 0;
+        try (CloseableLock lock = lockResourceVersion(resourceVersionDir)) {
+            //critical section begin
+
+            for (
+                final File file : ImmutableList.of(
+                    getCacheResourceVersionDataFile(resourceVersionDir),
+                    getCacheResourceVersionDownloadFile(resourceVersionDir)
+                )
+            ) {
+                if (file.exists()) {
+                    final long unlinkedLength = getLinkCount(file) > 1 ? 0 : file.length();
+                    if (FileSystemUtils.deleteRecursively(file)) {
+                        bytesUnlinked += unlinkedLength;
+                    }
+                }
+            }
+
+            // Leave nothing behind, other agents may be waiting on the lock file but they check it was not replaced
+            if (!getCacheResourceVersionLockFile(resourceVersionDir).delete() || !resourceVersionDir.delete()) {
+                log.debug("Failed to delete evicted resource version directory {}", resourceVersionDir);
+            }
+            //critical section end
+        }
+        return bytesUnlinked;
+    }
+
+    /**
+     * Lock a resource version, creating its directory and lock file if needed.
+     * Eviction deletes the lock file while holding the lock, and the path may be recreated by another agent before
+     * a waiting agent gets the lock on the deleted file. The key of the lock file is read before the file is opened,
+     * so that if it still identifies the file at the path once the lock is held, the lock held is on that file.
+     * Otherwise the lock is released and taken again.
+     *
+     * @param resourceVersionDir Directory of the resource version
+     * @return the lock held, to be closed by the caller
+     * @throws LockException in case of a problem locking the lock file
+     * @throws IOException   in case the lock file cannot be created
+     */
+    private CloseableLock lockResourceVersion(final File resourceVersionDir) throws LockException, IOException {
+        while (true) {
+            final File lockFile;
+            try {
+                lockFile = touchCacheResourceVersionLockFile(resourceVersionDir);
+            } catch (final IOException e) {
+                if (resourceVersionDir.exists()) {
+                    throw e;
+                }
+                log.debug("Resource version {} evicted while creating its lock file, retrying", resourceVersionDir);
+                continue;
+            }
+
+            final Object lockFileKey = getFileKey(lockFile);
+            if (lockFileKey == null) {
+                continue;
+            }
+
+            final CloseableLock lock = fileLockFactory.getLock(lockFile);
+            try {
+                lock.lock();
+                if (lockFileKey.equals(getFileKey(lockFile))) {
+                    return lock;
+                }
+            } catch (final LockException | IOException | RuntimeException e) {
+                try {
+                    lock.close();
+                } catch (final IOException | RuntimeException closeException) {
+                    e.addSuppressed(closeException);
+                }
+                throw e;
+            }
+            lock.close();
+            log.debug("Lock file {} replaced while waiting for the lock, retrying", lockFile);
+        }
+    }
+
+    /* Returns the key identifying a file (e.g. device and inode), or null if the file does not exist.
+     * Falls back to the path if the file system does not provide keys, which only tells whether the file exists.
+     */
+    @Nullable
+    private Object getFileKey(final File file) throws IOException {
+        try {
+            final Object fileKey = java.nio.file.Files.readAttributes(
+                file.toPath(),
+                BasicFileAttributes.class
+            ).fileKey();
+            return fileKey != null ? fileKey : file.getAbsolutePath();
+        } catch (final NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /* Returns the number of hard links to a file, or 1 if the file system does not expose it. */
+    private int getLinkCount(final File file) throws IOException {
+        try {
+            return (Integer) java.nio.file.Files.getAttribute(file.toPath(), "unix:nlink");
+        } catch (final UnsupportedOperationException | IllegalArgumentException e) {
+            return 1;
+        }
+    }
+
     /* Returns a handle to the directory for a resource */
     private File getCacheResourceDir(final String resourceCacheId) {
         return new File(cacheDirectory, resourceCacheId);
     }
 
+    /* Returns a handle to the file holding the last validated version of a resource */
+    @VisibleForTesting
+    File getCacheResourceValidatedFile(final String resourceCacheId) {
+        return new File(getCacheResourceDir(resourceCacheId), VALIDATED_FILE_NAME);
+    }
+
     /* Returns a handle to the directory for a resource version */
     @VisibleForTesting
     File getCacheResourceVersionDir(final String resourceCacheId, final long lastModifiedTimestamp) {
@@ -388,10 +895,56 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
     /* Touch the lock file of a resource version and return a handle to it */
     private File touchCacheResourceVersionLockFile(final File resourceVersionDir) throws IOException {
         final File lockFile = getCacheResourceVersionLockFile(resourceVersionDir);
+        // The directory is gone if the version was evicted
+        createDirectoryStructureIfNotExists(resourceVersionDir);
         Files.touch(lockFile);
         return lockFile;
     }
 
+    /**
+     * The fetches from a source waiting for one of its permits.
+     */
+    private static final class SourceQueue {
+
+        private final Semaphore permits;
+        private final Queue<FutureTask<Void>> pendingFetches = new ConcurrentLinkedQueue<>();
+
+        SourceQueue(final int maxConcurrentFetches) {
+            this.permits = new Semaphore(maxConcurrentFetches);
+        }
+    }
+
+    /**
+     * A resource version in the cache considered for eviction.
+     */
+    private static final class CacheEntry {
+
+        private final File resourceVersionDir;
+        private final long size;
+        private final long lastAccessTime;
+
+        CacheEntry(final File resourceVersionDir, final long size, final long lastAccessTime) {
+            this.resourceVersionDir = resourceVersionDir;
+            this.size = size;
+            this.lastAccessTime = lastAccessTime;
+        }
+    }
+
+    /**
+     * Task to evict the least recently used resources.
+     */
+    private class EvictionTask implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                evictLeastRecentlyUsed();
+            } catch (Throwable throwable) {
+                log.error("Error evicting resources from cache", throwable);
+            }
+        }
+    }
+
     /**
      * Task to clean up the older versions of a resource.
      */
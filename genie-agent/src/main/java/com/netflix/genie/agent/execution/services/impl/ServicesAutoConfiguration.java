@@ -34,6 +34,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.io.IOException;
 
@@ -65,10 +66,11 @@ public class ServicesAutoConfiguration {
     /**
      * Provide a lazy {@link FetchingCacheService} instance if one hasn't already been defined.
      *
-     * @param resourceLoader  The Spring Resource loader to use
-     * @param cacheArguments  The cache command line arguments to use
-     * @param fileLockFactory The file lock factory to use
-     * @param taskExecutor    The task executor to use
+     * @param resourceLoader       The Spring Resource loader to use
+     * @param cacheArguments       The cache command line arguments to use
+     * @param fileLockFactory      The file lock factory to use
+     * @param taskExecutor         The task executor to use
+     * @param downloadTaskExecutor The task executor to run downloads on
      * @return A {@link FetchingCacheServiceImpl} instance
      * @throws IOException On error creating the instance
      */
@@ -79,16 +81,39 @@ public class ServicesAutoConfiguration {
         final ResourceLoader resourceLoader,
         final ArgumentDelegates.CacheArguments cacheArguments,
         final FileLockFactory fileLockFactory,
-        @Qualifier("sharedAgentTaskExecutor") final TaskExecutor taskExecutor
+        @Qualifier("sharedAgentTaskExecutor") final TaskExecutor taskExecutor,
+        @Qualifier("fetchingCacheServiceDownloadTaskExecutor") final TaskExecutor downloadTaskExecutor
     ) throws IOException {
         return new FetchingCacheServiceImpl(
             resourceLoader,
             cacheArguments,
             fileLockFactory,
-            taskExecutor
+            taskExecutor,
+            downloadTaskExecutor
         );
     }
 
+    /**
+     * Provide a lazy {@link TaskExecutor} bounding the number of parallel dependency downloads if one hasn't already
+     * been defined.
+     *
+     * @param cacheArguments The cache command line arguments to use
+     * @return A {@link ThreadPoolTaskExecutor} instance
+     */
+    @Bean
+    @Lazy
+    @ConditionalOnMissingBean(name = "fetchingCacheServiceDownloadTaskExecutor")
+    public TaskExecutor fetchingCacheServiceDownloadTaskExecutor(
+        final ArgumentDelegates.CacheArguments cacheArguments
+    ) {
+        final int maxConcurrentDownloads = Math.max(1, cacheArguments.getMaxConcurrentDownloads());
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentDownloads);
+        executor.setMaxPoolSize(maxConcurrentDownloads);
+        executor.setThreadNamePrefix("agent-download-");
+        return executor;
+    }
+
     /**
      * Provide a lazy {@link KillService} bean if one hasn't already been defined.
      *
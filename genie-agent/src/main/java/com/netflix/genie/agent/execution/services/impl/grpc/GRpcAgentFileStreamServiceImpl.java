@@ -20,8 +20,9 @@ package com.netflix.genie.agent.execution.services.impl.grpc;
 import com.google.common.collect.Sets;
 import com.google.protobuf.ByteString;
 import com.netflix.genie.agent.execution.services.AgentFileStreamService;
+import com.netflix.genie.agent.properties.FileStreamServiceProperties;
+import com.netflix.genie.common.internal.dtos.DirectoryManifest;
 import com.netflix.genie.common.internal.dtos.v4.converters.JobDirectoryManifestProtoConverter;
-import com.netflix.genie.common.internal.exceptions.checked.GenieConversionException;
 import com.netflix.genie.common.internal.services.JobDirectoryManifestCreatorService;
 import com.netflix.genie.common.internal.util.ExponentialBackOffTrigger;
 import com.netflix.genie.proto.AgentFileMessage;
@@ -49,13 +50,17 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Implementation of {@link AgentFileStreamService} over gRPC.
  * Sets up a persistent 2-way stream ('sync') to push manifest updates and receive file requests.
- * When a file request is received, a creates a new 2 way stream ('transmit') and pushes file chunks, waits for ACK,
- * sends the next chunk, ... until the file range requested is transmitted. Then the stream is shut down.
+ * The first update sent over a stream is a full snapshot of the manifest, following ones only contain the entries
+ * that changed since the previous update. A full snapshot is sent again periodically, or if the server requests it.
+ * When a file request is received, a creates a new 2 way stream ('transmit') and pushes file chunks as long as it has
+ * credits (the window size granted by the server with the request), then waits for ACKs granting more credits, ...
+ * until the file range requested is transmitted. Then the stream is shut down.
  *
  * @author mprimi
  * @since 4.0.0
@@ -63,7 +68,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @Slf4j
 public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
     private static final boolean ENABLE_COMPRESSION = true; //TODO make configurable
-    private static final int MAX_DATA_CHUNK_SIZE = 1024 * 1024; //TODO make configurable
+    private static final int DEFAULT_DATA_CHUNK_SIZE = 1024 * 1024;
+    // Keep chunks well below the default gRPC maximum inbound message size (4MB)
+    private static final int MAX_DATA_CHUNK_SIZE = 3 * 1024 * 1024;
     private static final int MAX_CONCURRENT_TRANSMIT_STREAMS = 5;  //TODO make configurable
 
     private final FileStreamServiceGrpc.FileStreamServiceStub fileStreamServiceStub;
@@ -74,23 +81,29 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
     private final Semaphore concurrentTransfersSemaphore;
     private final Set<FileTransfer> activeFileTransfers;
     private final JobDirectoryManifestCreatorService jobDirectoryManifestCreatorService;
+    private final FileStreamServiceProperties properties;
 
     private StreamObserver<AgentManifestMessage> controlStreamObserver;
     private String jobId;
     private Path jobDirectoryPath;
     private AtomicBoolean started = new AtomicBoolean();
     private ScheduledFuture<?> scheduledTask;
+    private DirectoryManifest lastManifestSent;
+    private long manifestSequence;
+    private int updatesSinceSnapshot;
 
     GRpcAgentFileStreamServiceImpl(
         final FileStreamServiceGrpc.FileStreamServiceStub fileStreamServiceStub,
         final TaskScheduler taskScheduler,
         final JobDirectoryManifestProtoConverter manifestProtoConverter,
-        final JobDirectoryManifestCreatorService jobDirectoryManifestCreatorService
+        final JobDirectoryManifestCreatorService jobDirectoryManifestCreatorService,
+        final FileStreamServiceProperties properties
     ) {
         this.fileStreamServiceStub = fileStreamServiceStub;
         this.taskScheduler = taskScheduler;
         this.manifestProtoConverter = manifestProtoConverter;
         this.jobDirectoryManifestCreatorService = jobDirectoryManifestCreatorService;
+        this.properties = properties;
         this.trigger = new ExponentialBackOffTrigger(
             ExponentialBackOffTrigger.DelayType.FROM_PREVIOUS_EXECUTION_BEGIN,
             1000, //TODO make configurable
@@ -157,18 +170,12 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
 
     private synchronized void pushManifest() {
         if (started.get()) {
-            final AgentManifestMessage jobFileManifest;
+            final DirectoryManifest manifest;
             try {
-                jobFileManifest = manifestProtoConverter.manifestToProtoMessage(
-                    this.jobId,
-                    this.jobDirectoryManifestCreatorService.getDirectoryManifest(this.jobDirectoryPath)
-                );
+                manifest = this.jobDirectoryManifestCreatorService.getDirectoryManifest(this.jobDirectoryPath);
             } catch (final IOException e) {
                 log.error("Failed to construct manifest", e);
                 return;
-            } catch (GenieConversionException e) {
-                log.error("Failed to serialize manifest", e);
-                return;
             }
 
             if (this.controlStreamObserver == null) {
@@ -176,9 +183,48 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
                 if (this.controlStreamObserver instanceof ClientCallStreamObserver) {
                     ((ClientCallStreamObserver) this.controlStreamObserver).setMessageCompression(ENABLE_COMPRESSION);
                 }
+                // New stream, the server has no manifest to apply updates to
+                this.lastManifestSent = null;
             }
 
+            final AgentManifestMessage jobFileManifest;
+            final long sequence = ++this.manifestSequence;
+            if (
+                this.lastManifestSent == null
+                    || this.updatesSinceSnapshot >= this.properties.getMaxUpdatesBetweenSnapshots()
+            ) {
+                jobFileManifest = this.manifestProtoConverter.manifestSnapshotToProtoMessage(
+                    this.jobId,
+                    sequence,
+                    manifest
+                );
+                this.updatesSinceSnapshot = 0;
+            } else {
+                jobFileManifest = this.manifestProtoConverter.manifestUpdateToProtoMessage(
+                    this.jobId,
+                    sequence,
+                    this.lastManifestSent,
+                    manifest
+                );
+                this.updatesSinceSnapshot++;
+            }
+
+            log.debug(
+                "Sending manifest update {} ({} entries, {} removed)",
+                sequence,
+                jobFileManifest.getManifestUpdate().getEntriesCount(),
+                jobFileManifest.getManifestUpdate().getRemovedPathsCount()
+            );
             this.controlStreamObserver.onNext(jobFileManifest);
+            this.lastManifestSent = manifest;
+        }
+    }
+
+    private synchronized void handleManifestResyncRequest() {
+        log.info("Server requested a full manifest");
+        this.lastManifestSent = null;
+        if (this.started.get()) {
+            this.taskScheduler.schedule(this::pushManifest, Instant.now());
         }
     }
 
@@ -200,19 +246,24 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
             }
             this.controlStreamObserver = null;
         }
+        this.lastManifestSent = null;
     }
 
     private synchronized void handleFileRequest(
         final String streamId,
         final String relativePath,
-        final int startOffset,
-        final int endOffset
+        final long startOffset,
+        final long endOffset,
+        final int requestedChunkSize,
+        final int windowSize
     ) {
         log.info(
-            "Server is requesting file {} (range: [{}, {}), streamId: {})",
+            "Server is requesting file {} (range: [{}, {}), chunk size: {}, window: {}, streamId: {})",
             relativePath,
             startOffset,
             endOffset,
+            requestedChunkSize,
+            windowSize,
             streamId
         );
 
@@ -235,7 +286,19 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
             return;
         }
 
-        final FileTransfer fileTransfer = new FileTransfer(this, streamId, absolutePath, startOffset, endOffset);
+        final int chunkSize = requestedChunkSize > 0
+            ? Math.min(requestedChunkSize, MAX_DATA_CHUNK_SIZE)
+            : DEFAULT_DATA_CHUNK_SIZE;
+
+        final FileTransfer fileTransfer = new FileTransfer(
+            this,
+            streamId,
+            absolutePath,
+            startOffset,
+            endOffset,
+            chunkSize,
+            Math.max(0, windowSize)
+        );
         this.activeFileTransfers.add(fileTransfer);
         fileTransfer.start();
     }
@@ -260,8 +323,12 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
                     fileRequest.getStreamId(),
                     fileRequest.getRelativePath(),
                     fileRequest.getStartOffset(),
-                    fileRequest.getEndOffset()
+                    fileRequest.getEndOffset(),
+                    fileRequest.getChunkSize(),
+                    fileRequest.getWindowSize()
                 );
+            } else if (value.getMessageCase() == ServerControlMessage.MessageCase.SERVER_MANIFEST_RESYNC) {
+                this.gRpcAgentFileManifestService.handleManifestResyncRequest();
             } else {
                 log.warn("Unknown message type: " + value.getMessageCase().name());
             }
@@ -282,41 +349,60 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
         private final GRpcAgentFileStreamServiceImpl gRpcAgentFileStreamService;
         private final String streamId;
         private final Path absolutePath;
-        private final int startOffset;
-        private final int endOffset;
+        private final long startOffset;
+        private final long endOffset;
+        private final int windowSize;
         private final StreamObserver<AgentFileMessage> outboundStreamObserver;
         private final ByteBuffer readBuffer;
         private final AtomicBoolean completed = new AtomicBoolean();
-        private int watermark;
+        private final long startTime = System.nanoTime();
+        private FileChannel channel;
+        private long watermark;
+        private int credits;
+        private boolean windowSizeSent;
 
         FileTransfer(
             final GRpcAgentFileStreamServiceImpl gRpcAgentFileStreamService,
             final String streamId,
             final Path absolutePath,
-            final int startOffset,
-            final int endOffset
+            final long startOffset,
+            final long endOffset,
+            final int chunkSize,
+            final int windowSize
         ) {
             this.gRpcAgentFileStreamService = gRpcAgentFileStreamService;
             this.streamId = streamId;
             this.absolutePath = absolutePath;
             this.startOffset = startOffset;
             this.endOffset = endOffset;
+            this.windowSize = windowSize;
+            // Without a window, behave as if each acknowledgement grants a single chunk
+            this.credits = Math.max(1, windowSize);
             this.outboundStreamObserver = this.gRpcAgentFileStreamService.fileStreamServiceStub.transmit(this);
             this.watermark = startOffset;
-            this.readBuffer = ByteBuffer.allocate(GRpcAgentFileStreamServiceImpl.MAX_DATA_CHUNK_SIZE);
+            this.readBuffer = ByteBuffer.allocate(chunkSize);
         }
 
-        void start() {
+        synchronized void start() {
             try {
-                this.sendChunk();
+                this.channel = FileChannel.open(this.absolutePath, StandardOpenOption.READ);
+                this.sendChunks();
             } catch (IOException e) {
                 log.warn("Failed to send first chunk");
                 this.completeTransfer(true, e);
             }
         }
 
-        private void completeTransfer(final boolean shutdownStream, @Nullable final Exception error) {
+        private synchronized void completeTransfer(final boolean shutdownStream, @Nullable final Exception error) {
             if (this.completed.compareAndSet(false, true)) {
+                if (this.channel != null) {
+                    try {
+                        this.channel.close();
+                    } catch (IOException e) {
+                        log.warn("Failed to close file: {}", this.absolutePath, e);
+                    }
+                }
+
                 if (shutdownStream) {
                     if (error != null) {
                         this.outboundStreamObserver.onError(error);
@@ -325,39 +411,63 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
                     }
                 }
 
+                final long bytesSent = this.watermark - this.startOffset;
+                final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startTime);
+                log.info(
+                    "Transfer {} {}: {} bytes in {}ms ({} KB/s)",
+                    this.streamId,
+                    error == null ? "completed" : "failed",
+                    bytesSent,
+                    elapsedMillis,
+                    elapsedMillis > 0 ? bytesSent / elapsedMillis : bytesSent
+                );
+
                 this.gRpcAgentFileStreamService.handleTransferComplete(this);
             }
         }
 
-        private void sendChunk() throws IOException {
-
-            if (this.watermark < this.endOffset - 1) {
-                final int bytesRead;
-                try (FileChannel channel = FileChannel.open(this.absolutePath, StandardOpenOption.READ)) {
-                    channel.position(this.watermark);
-                    bytesRead = channel.read(readBuffer);
+        private synchronized void sendChunks() throws IOException {
+            // Keep sending as long as the server granted credits. The channel stays open for the whole transfer.
+            while (!this.completed.get() && this.credits > 0 && this.watermark < this.endOffset) {
+                // Never read past the end of the requested range
+                this.readBuffer.clear();
+                this.readBuffer.limit((int) Math.min(this.readBuffer.capacity(), this.endOffset - this.watermark));
+
+                final int bytesRead = this.channel.read(this.readBuffer, this.watermark);
+                if (bytesRead <= 0) {
+                    // File is shorter than the requested range (i.e. truncated since the manifest was created)
+                    break;
                 }
 
-                // Reset mark before reading!
-                readBuffer.rewind();
+                this.readBuffer.flip();
 
-                final AgentFileMessage chunkMessage = AgentFileMessage.newBuilder()
+                final AgentFileMessage.Builder chunkMessageBuilder = AgentFileMessage.newBuilder()
                     .setStreamId(this.streamId)
-                    .setData(ByteString.copyFrom(readBuffer, bytesRead))
-                    .build();
+                    .setData(ByteString.copyFrom(this.readBuffer));
+
+                if (!this.windowSizeSent) {
+                    // Let the server know this agent pipelines chunks rather than waiting for each ACK
+                    chunkMessageBuilder.setWindowSize(this.windowSize);
+                    this.windowSizeSent = true;
+                }
 
-                this.outboundStreamObserver.onNext(chunkMessage);
+                this.outboundStreamObserver.onNext(chunkMessageBuilder.build());
 
                 this.watermark += bytesRead;
-            } else {
+                this.credits--;
+            }
+
+            if (!this.completed.get() && (this.watermark >= this.endOffset || this.credits > 0)) {
+                // Either the whole range was sent or the file ended early. No need to wait for the last ACK.
                 this.completeTransfer(true, null);
             }
         }
 
         @Override
-        public void onNext(final ServerAckMessage value) {
+        public synchronized void onNext(final ServerAckMessage value) {
+            this.credits += Math.max(1, value.getCredits());
             try {
-                sendChunk();
+                this.sendChunks();
             } catch (IOException e) {
                 log.warn("Failed to send chunk");
                 this.completeTransfer(true, e);
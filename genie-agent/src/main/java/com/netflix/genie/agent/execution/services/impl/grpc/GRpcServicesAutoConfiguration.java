@@ -22,6 +22,7 @@ import com.netflix.genie.agent.execution.services.AgentHeartBeatService;
 import com.netflix.genie.agent.execution.services.AgentJobKillService;
 import com.netflix.genie.agent.execution.services.AgentJobService;
 import com.netflix.genie.agent.execution.services.KillService;
+import com.netflix.genie.agent.properties.FileStreamServiceProperties;
 import com.netflix.genie.common.internal.dtos.v4.converters.JobDirectoryManifestProtoConverter;
 import com.netflix.genie.common.internal.dtos.v4.converters.JobServiceProtoConverter;
 import com.netflix.genie.common.internal.services.JobDirectoryManifestCreatorService;
@@ -31,6 +32,7 @@ import com.netflix.genie.proto.JobKillServiceGrpc;
 import com.netflix.genie.proto.JobServiceGrpc;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -44,6 +46,11 @@ import org.springframework.scheduling.TaskScheduler;
  * @since 4.0.0
  */
 @Configuration
+@EnableConfigurationProperties(
+    {
+        FileStreamServiceProperties.class
+    }
+)
 public class GRpcServicesAutoConfiguration {
 
     /**
@@ -106,6 +113,7 @@ public class GRpcServicesAutoConfiguration {
      * @param taskScheduler                      The task scheduler to use
      * @param jobDirectoryManifestProtoConverter The converter to serialize manifests into messages
      * @param jobDirectoryManifestCreatorService The job directory manifest service
+     * @param fileStreamServiceProperties        The properties of the file stream service
      * @return A {@link AgentFileStreamService} instance
      */
     @Bean
@@ -115,13 +123,15 @@ public class GRpcServicesAutoConfiguration {
         final FileStreamServiceGrpc.FileStreamServiceStub fileStreamServiceStub,
         @Qualifier("sharedAgentTaskScheduler") final TaskScheduler taskScheduler,
         final JobDirectoryManifestProtoConverter jobDirectoryManifestProtoConverter,
-        final JobDirectoryManifestCreatorService jobDirectoryManifestCreatorService
+        final JobDirectoryManifestCreatorService jobDirectoryManifestCreatorService,
+        final FileStreamServiceProperties fileStreamServiceProperties
     ) {
         return new GRpcAgentFileStreamServiceImpl(
             fileStreamServiceStub,
             taskScheduler,
             jobDirectoryManifestProtoConverter,
-            jobDirectoryManifestCreatorService
+            jobDirectoryManifestCreatorService,
+            fileStreamServiceProperties
         );
     }
 }
@@ -31,6 +31,8 @@ import com.netflix.genie.common.external.dtos.v4.JobStatus;
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieRuntimeException;
 import lombok.extern.slf4j.Slf4j;
 
+import java.lang.management.ManagementFactory;
+
 /**
  * Claim the job, so no other agent can execute it.
  *
@@ -72,7 +74,12 @@ public class ClaimJobStage extends ExecutionStage {
             throw createFatalException(e);
         }
 
-        UserConsole.getLogger().info("Successfully claimed job: {}", jobId);
+        // Time from the start of the JVM, which is what it takes to get a job going from the point of view of a client
+        UserConsole.getLogger().info(
+            "Successfully claimed job: {} ({}ms after agent start)",
+            jobId,
+            ManagementFactory.getRuntimeMXBean().getUptime()
+        );
 
         // Update context
         executionContext.setCurrentJobStatus(JobStatus.CLAIMED);
@@ -21,20 +21,31 @@ import com.netflix.genie.common.internal.util.PropertySourceUtils;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.env.EnvironmentPostProcessor;
 import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Profiles;
 import org.springframework.core.env.PropertySource;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 
 /**
  * Adds default properties to the Spring environment before application refresh.
+ * <p>
+ * When the {@value #FAST_START_PROFILE} profile is active, properties trading eager initialization for a faster
+ * start (e.g. lazy bean initialization) are added on top of the defaults.
  *
  * @author tgianos
  * @since 4.0.0
  */
 public class GenieDefaultPropertiesPostProcessor implements EnvironmentPostProcessor {
 
+    /**
+     * The profile enabling the fast-start properties.
+     */
+    public static final String FAST_START_PROFILE = "fast-start";
+
     static final String DEFAULT_PROPERTY_SOURCE_NAME = "genie-agent-defaults";
+    static final String FAST_START_PROPERTY_SOURCE_NAME = "genie-agent-fast-start";
     private static final String DEFAULT_PROPERTIES_FILE = "genie-agent-defaults.yml";
+    private static final String FAST_START_PROPERTIES_FILE = "genie-agent-fast-start.yml";
 
     /**
      * {@inheritDoc}
@@ -45,5 +56,12 @@ public class GenieDefaultPropertiesPostProcessor implements EnvironmentPostProce
         final PropertySource<?> defaultSource
             = PropertySourceUtils.loadYamlPropertySource(DEFAULT_PROPERTY_SOURCE_NAME, defaultProperties);
         environment.getPropertySources().addLast(defaultSource);
+
+        if (environment.acceptsProfiles(Profiles.of(FAST_START_PROFILE))) {
+            final Resource fastStartProperties = new ClassPathResource(FAST_START_PROPERTIES_FILE);
+            final PropertySource<?> fastStartSource
+                = PropertySourceUtils.loadYamlPropertySource(FAST_START_PROPERTY_SOURCE_NAME, fastStartProperties);
+            environment.getPropertySources().addBefore(DEFAULT_PROPERTY_SOURCE_NAME, fastStartSource);
+        }
     }
 }
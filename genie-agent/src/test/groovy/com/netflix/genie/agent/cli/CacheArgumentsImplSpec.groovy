@@ -41,16 +41,55 @@ class CacheArgumentsImplSpec extends Specification {
 
         then:
         CacheArgumentsImpl.DEFAULT_CACHE_PATH == options.cacheArguments.getCacheDirectory().getAbsolutePath()
+        CacheArgumentsImpl.DEFAULT_MAX_CONCURRENT_DOWNLOADS == options.cacheArguments.getMaxConcurrentDownloads()
+        CacheArgumentsImpl.DEFAULT_MAX_CONCURRENT_DOWNLOADS_PER_SOURCE == options.cacheArguments.getMaxConcurrentDownloadsPerSource()
+        !options.cacheArguments.isLinkCachedResources()
+        0 == options.cacheArguments.getMaxCacheSizeMegabytes()
+        options.cacheArguments.getRevalidationTtlSeconds().isEmpty()
+        options.cacheArguments.getImmutableUriPrefixes().isEmpty()
     }
 
     def "Parse"() {
         when:
         jCommander.parse(
-            "--cache-directory", "/foo/bar"
+            "--cache-directory", "/foo/bar",
+            "--max-concurrent-downloads", "16",
+            "--max-concurrent-downloads-per-source", "2",
+            "--link-cached-resources",
+            "--max-cache-size-megabytes", "1024",
+            "--revalidation-ttl", "s3=300",
+            "--revalidation-ttl", "HTTPS=60",
+            "--immutable-uri-prefix", "s3://bucket/releases/"
         )
 
         then:
         "/foo/bar" == options.cacheArguments.getCacheDirectory().getAbsolutePath()
+        16 == options.cacheArguments.getMaxConcurrentDownloads()
+        2 == options.cacheArguments.getMaxConcurrentDownloadsPerSource()
+        options.cacheArguments.isLinkCachedResources()
+        1024 == options.cacheArguments.getMaxCacheSizeMegabytes()
+        [s3: 300L, https: 60L] == options.cacheArguments.getRevalidationTtlSeconds()
+        ["s3://bucket/releases/"] == options.cacheArguments.getImmutableUriPrefixes()
+    }
+
+    def "InvalidRevalidationTtl"() {
+        when:
+        jCommander.parse(
+            "--revalidation-ttl", "s3:300",
+        )
+
+        then:
+        thrown(ParameterException)
+    }
+
+    def "InvalidConcurrency"() {
+        when:
+        jCommander.parse(
+            "--max-concurrent-downloads", "-1",
+        )
+
+        then:
+        thrown(ParameterException)
     }
 
     def "InvalidLocation"() {
@@ -0,0 +1,94 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.cli
+
+import com.beust.jcommander.JCommander
+import com.beust.jcommander.ParameterException
+import com.netflix.genie.agent.execution.services.FetchingCacheService
+import spock.lang.Specification
+
+class CleanupCommandSpec extends Specification {
+
+    CleanupCommand.CleanupCommandArguments args
+    ArgumentDelegates.CacheArguments cacheArguments
+    FetchingCacheService fetchingCacheService
+
+    void setup() {
+        this.args = Mock(CleanupCommand.CleanupCommandArguments)
+        this.cacheArguments = Mock(ArgumentDelegates.CacheArguments)
+        this.fetchingCacheService = Mock(FetchingCacheService)
+    }
+
+    def "Run"() {
+        setup:
+        def command = new CleanupCommand(args, fetchingCacheService)
+
+        when:
+        ExitCode exitCode = command.run()
+
+        then:
+        1 * args.getCacheArguments() >> cacheArguments
+        _ * cacheArguments.getMaxCacheSizeMegabytes() >> 1024
+        1 * fetchingCacheService.evictLeastRecentlyUsed() >> 12345L
+        exitCode == ExitCode.SUCCESS
+    }
+
+    def "Run without maximum size"() {
+        setup:
+        def command = new CleanupCommand(args, fetchingCacheService)
+
+        when:
+        command.run()
+
+        then:
+        1 * args.getCacheArguments() >> cacheArguments
+        _ * cacheArguments.getMaxCacheSizeMegabytes() >> 0
+        0 * fetchingCacheService.evictLeastRecentlyUsed()
+        thrown(ParameterException)
+    }
+
+    def "Run with error"() {
+        setup:
+        def command = new CleanupCommand(args, fetchingCacheService)
+
+        when:
+        command.run()
+
+        then:
+        1 * args.getCacheArguments() >> cacheArguments
+        _ * cacheArguments.getMaxCacheSizeMegabytes() >> 1024
+        1 * fetchingCacheService.evictLeastRecentlyUsed() >> { throw new IOException("...") }
+        thrown(RuntimeException)
+    }
+
+    def "Parse arguments"() {
+        setup:
+        def commandArgs = new CleanupCommand.CleanupCommandArguments(new CacheArgumentsImpl())
+
+        when:
+        new JCommander(commandArgs).parse(
+            "--cache-directory", "/foo/bar",
+            "--max-cache-size-megabytes", "512"
+        )
+
+        then:
+        commandArgs.getCacheArguments().getCacheDirectory() == new File("/foo/bar")
+        commandArgs.getCacheArguments().getMaxCacheSizeMegabytes() == 512
+        commandArgs.getConsumerClass() == CleanupCommand
+    }
+}
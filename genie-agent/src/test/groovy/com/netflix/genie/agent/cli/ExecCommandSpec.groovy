@@ -26,14 +26,20 @@ import com.netflix.genie.common.external.dtos.v4.JobStatus
 import spock.lang.Specification
 import spock.lang.Unroll
 
+import java.nio.charset.StandardCharsets
+
 class ExecCommandSpec extends Specification {
     ExecCommand.ExecCommandArguments args
     JobExecutionStateMachine stateMachine;
     ExecutionContext execContext
     KillService killService
+    ArgumentDelegates.JobRequestArguments jobRequestArgs
 
     void setup() {
-        this.args = Mock(ExecCommand.ExecCommandArguments)
+        this.jobRequestArgs = Mock(ArgumentDelegates.JobRequestArguments)
+        this.args = Mock(ExecCommand.ExecCommandArguments) {
+            getJobRequestArguments() >> this.jobRequestArgs
+        }
         this.stateMachine = Mock(JobExecutionStateMachine)
         this.execContext = Mock(ExecutionContext)
         this.killService = Mock(KillService)
@@ -53,6 +59,41 @@ class ExecCommandSpec extends Specification {
         exitCode == ExitCode.SUCCESS
     }
 
+    def "Run with job id from standard input"() {
+        setup:
+        def jobId = UUID.randomUUID().toString()
+        def input = new ByteArrayInputStream((jobId + "\n").getBytes(StandardCharsets.UTF_8))
+        def execCommand = new ExecCommand(args, stateMachine, killService, input)
+
+        when:
+        ExitCode exitCode = execCommand.run()
+
+        then:
+        1 * jobRequestArgs.isJobIdFromStandardInput() >> true
+        1 * jobRequestArgs.setJobId(jobId)
+
+        then:
+        1 * stateMachine.run()
+        1 * stateMachine.getExecutionContext() >> execContext
+        1 * execContext.getCurrentJobStatus() >> JobStatus.SUCCEEDED
+        exitCode == ExitCode.SUCCESS
+    }
+
+    def "Run without job id from standard input"() {
+        setup:
+        def input = new ByteArrayInputStream(new byte[0])
+        def execCommand = new ExecCommand(args, stateMachine, killService, input)
+
+        when:
+        ExitCode exitCode = execCommand.run()
+
+        then:
+        1 * jobRequestArgs.isJobIdFromStandardInput() >> true
+        0 * jobRequestArgs.setJobId(_)
+        0 * stateMachine.run()
+        exitCode == ExitCode.SUCCESS
+    }
+
     def "Run with no final job status"() {
         setup:
         def execCommand = new ExecCommand(args, stateMachine, killService)
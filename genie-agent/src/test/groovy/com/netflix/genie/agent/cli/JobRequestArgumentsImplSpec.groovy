@@ -66,6 +66,7 @@ class JobRequestArgumentsImplSpec extends Specification {
         options.jobRequestArguments.getJobVersion() == null
         options.jobRequestArguments.getJobMetadata() == GenieObjectMapper.getMapper().createObjectNode()
         !options.jobRequestArguments.isJobRequestedViaAPI()
+        !options.jobRequestArguments.isJobIdFromStandardInput()
         options.jobRequestArguments.getJobConfigurations().isEmpty()
         options.jobRequestArguments.getJobDependencies().isEmpty()
         options.jobRequestArguments.getJobSetup() == null
@@ -108,6 +109,7 @@ class JobRequestArgumentsImplSpec extends Specification {
             "--job-version", "1.0",
             "--job-metadata", "{\"foo\": false}",
             "--api-job",
+            "--job-id-from-stdin",
             "--job-configuration", cfg1.getPath().toString(),
             "--job-configuration", cfg2.getPath().toString(),
             "--job-dependency", dep1.getPath().toString(),
@@ -140,9 +142,16 @@ class JobRequestArgumentsImplSpec extends Specification {
         options.jobRequestArguments.getJobVersion() == "1.0"
         options.jobRequestArguments.getJobMetadata() == GenieObjectMapper.getMapper().createObjectNode().put("foo", false)
         options.jobRequestArguments.isJobRequestedViaAPI()
+        options.jobRequestArguments.isJobIdFromStandardInput()
         options.jobRequestArguments.getJobConfigurations().containsAll([fileResource(cfg1), fileResource(cfg2)])
         options.jobRequestArguments.getJobDependencies().containsAll([fileResource(dep1), fileResource(dep2)])
         options.jobRequestArguments.getJobSetup() == fileResource(setup)
+
+        when:
+        options.jobRequestArguments.setJobId("BarFoo")
+
+        then:
+        options.jobRequestArguments.getJobId() == "BarFoo"
     }
 
     String fileResource(final File file) {
@@ -30,8 +30,14 @@ import org.springframework.core.io.ResourceLoader
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor
 import spock.lang.Shared
 import spock.lang.Specification
+import spock.lang.Unroll
 
 import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.nio.file.attribute.PosixFilePermission
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 import java.util.concurrent.locks.ReentrantLock
 
 class FetchingCacheServiceImplSpec extends Specification {
@@ -52,26 +58,35 @@ class FetchingCacheServiceImplSpec extends Specification {
     @Shared
     def fetchingCacheServiceCleanUpTaskExecutor = new ThreadPoolTaskExecutor()
 
+    @Shared
+    def downloadTaskExecutor = new ThreadPoolTaskExecutor()
+
     def setupSpec() {
         this.fetchingCacheServiceCleanUpTaskExecutor.setCorePoolSize(1)
         this.fetchingCacheServiceCleanUpTaskExecutor.initialize()
+        this.downloadTaskExecutor.setCorePoolSize(3)
+        this.downloadTaskExecutor.initialize()
     }
 
     def cleanupSpec() {
         this.fetchingCacheServiceCleanUpTaskExecutor.shutdown()
+        this.downloadTaskExecutor.shutdown()
     }
 
     void setup() {
         resourceLoader = Mock()
         cacheArguments = Mock()
         cacheArguments.getCacheDirectory() >> temporaryFolder.getRoot()
+        cacheArguments.getRevalidationTtlSeconds() >> [:]
+        cacheArguments.getImmutableUriPrefixes() >> []
+        cacheArguments.getMaxConcurrentDownloadsPerSource() >> 2
         resource = Mock()
         fileLockFactory = Mock();
         lock = Mock()
         fileLockFactory.getLock(_ as File) >> lock
         lock.lock() >> reentrantLock.lock()
         lock.close() >> reentrantLock.unlock()
-        cache = new FetchingCacheServiceImpl(resourceLoader, cacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor)
+        cache = new FetchingCacheServiceImpl(resourceLoader, cacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor, downloadTaskExecutor)
         uri = new URI("https://my-server.com/path/to/config/config.xml")
     }
 
@@ -233,6 +248,360 @@ class FetchingCacheServiceImplSpec extends Specification {
         targetFiles[2].getText(StandardCharsets.UTF_8.toString()) == uris[2].toString()
     }
 
+    def "GetAll with duplicate URIs"() {
+        setup:
+        URI otherUri = new URI("s3://my-bucket/path/to/setup/setup.sh")
+        File[] targetFiles = [
+            new File(temporaryFolder.getRoot(), "config1.xml"),
+            new File(temporaryFolder.getRoot(), "config2.xml"),
+            new File(temporaryFolder.getRoot(), "setup.sh")
+        ]
+        Resource otherResource = Mock(Resource)
+
+        when:
+        cache.get(Sets.newHashSet([
+            Pair.of(uri, targetFiles[0]),
+            Pair.of(uri, targetFiles[1]),
+            Pair.of(otherUri, targetFiles[2]),
+        ]))
+
+        then:
+        1 * resourceLoader.getResource(uri.toString()) >> resource
+        1 * resourceLoader.getResource(otherUri.toString()) >> otherResource
+        1 * resource.exists() >> true
+        1 * otherResource.exists() >> true
+        1 * resource.lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * otherResource.lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resource.getInputStream() >> new ByteArrayInputStream(uri.toString().getBytes(StandardCharsets.UTF_8))
+        1 * otherResource.getInputStream() >> new ByteArrayInputStream(otherUri.toString().getBytes(StandardCharsets.UTF_8))
+        targetFiles[0].getText(StandardCharsets.UTF_8.toString()) == uri.toString()
+        targetFiles[1].getText(StandardCharsets.UTF_8.toString()) == uri.toString()
+        targetFiles[2].getText(StandardCharsets.UTF_8.toString()) == otherUri.toString()
+    }
+
+    def "GetAll does not hold download threads for fetches waiting on their source"() {
+        setup:
+        // One more fetch than the source allows at once, followed by a fetch from another source. The first two
+        // downloads wait until the download from the other source starts.
+        URI[] uris = [
+            new URI("https://my-server.com/path/to/config/config.xml"),
+            new URI("https://my-server.com/path/to/setup/setup.sh"),
+            new URI("https://my-server.com/path/to/dependencies/bin.tar.gz"),
+            new URI("s3://my-bucket/path/to/setup/setup.sh")
+        ]
+        File[] targetFiles = [
+            new File(temporaryFolder.getRoot(), "config.xml"),
+            new File(temporaryFolder.getRoot(), "setup.sh"),
+            new File(temporaryFolder.getRoot(), "bin.tar.gz"),
+            new File(temporaryFolder.getRoot(), "other-setup.sh")
+        ]
+        Resource[] resources = [
+            Mock(Resource),
+            Mock(Resource),
+            Mock(Resource),
+            Mock(Resource)
+        ]
+        CountDownLatch otherSourceDownloadStarted = new CountDownLatch(1)
+        List<Boolean> otherSourceDownloadStartedInTime = [].asSynchronized()
+        Closure<InputStream> waitForOtherSource = { URI sourceUri ->
+            otherSourceDownloadStartedInTime.add(otherSourceDownloadStarted.await(10, TimeUnit.SECONDS))
+            return new ByteArrayInputStream(sourceUri.toString().getBytes(StandardCharsets.UTF_8))
+        }
+
+        when:
+        cache.get(new LinkedHashSet<>([
+            Pair.of(uris[0], targetFiles[0]),
+            Pair.of(uris[1], targetFiles[1]),
+            Pair.of(uris[2], targetFiles[2]),
+            Pair.of(uris[3], targetFiles[3]),
+        ]))
+
+        then:
+        1 * resourceLoader.getResource(uris[0].toString()) >> resources[0]
+        1 * resourceLoader.getResource(uris[1].toString()) >> resources[1]
+        1 * resourceLoader.getResource(uris[2].toString()) >> resources[2]
+        1 * resourceLoader.getResource(uris[3].toString()) >> resources[3]
+        1 * resources[0].exists() >> true
+        1 * resources[1].exists() >> true
+        1 * resources[2].exists() >> true
+        1 * resources[3].exists() >> true
+        1 * resources[0].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resources[1].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resources[2].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resources[3].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resources[0].getInputStream() >> { waitForOtherSource(uris[0]) }
+        1 * resources[1].getInputStream() >> { waitForOtherSource(uris[1]) }
+        1 * resources[2].getInputStream() >> { waitForOtherSource(uris[2]) }
+        1 * resources[3].getInputStream() >> {
+            otherSourceDownloadStarted.countDown()
+            return new ByteArrayInputStream(uris[3].toString().getBytes(StandardCharsets.UTF_8))
+        }
+        otherSourceDownloadStartedInTime == [true, true, true]
+        (0..3).every { int i -> targetFiles[i].getText(StandardCharsets.UTF_8.toString()) == uris[i].toString() }
+    }
+
+    def "GetAll with a missing resource"() {
+        setup:
+        URI otherUri = new URI("https://my-server.com/path/to/setup/setup.sh")
+        File targetFile = new File(temporaryFolder.getRoot(), "config.xml")
+        File otherTargetFile = new File(temporaryFolder.getRoot(), "setup.sh")
+        Resource otherResource = Mock(Resource)
+
+        when:
+        cache.get(Sets.newHashSet([
+            Pair.of(uri, targetFile),
+            Pair.of(otherUri, otherTargetFile),
+        ]))
+
+        then:
+        1 * resourceLoader.getResource(uri.toString()) >> resource
+        (0..1) * resourceLoader.getResource(otherUri.toString()) >> otherResource
+        1 * resource.exists() >> false
+        (0..1) * otherResource.exists() >> true
+        (0..1) * otherResource.lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        (0..1) * otherResource.getInputStream() >> new ByteArrayInputStream(new byte[0])
+        thrown(DownloadException)
+        !targetFile.exists()
+    }
+
+    def "Link cached resources"() {
+        setup:
+        String fileContents = "example file contents\n"
+        ArgumentDelegates.CacheArguments linkCacheArguments = Mock(ArgumentDelegates.CacheArguments) {
+            getCacheDirectory() >> temporaryFolder.getRoot()
+            getRevalidationTtlSeconds() >> [:]
+            getImmutableUriPrefixes() >> []
+            isLinkCachedResources() >> true
+        }
+        FetchingCacheServiceImpl linkingCache = new FetchingCacheServiceImpl(
+            resourceLoader,
+            linkCacheArguments,
+            fileLockFactory,
+            fetchingCacheServiceCleanUpTaskExecutor,
+            downloadTaskExecutor
+        )
+        File targetFile = new File(temporaryFolder.getRoot(), "target")
+        File targetFile2 = new File(temporaryFolder.getRoot(), "target2")
+        File cachedFile = linkingCache.getCacheResourceVersionDataFile(
+            linkingCache.getResourceCacheId(uri),
+            DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        )
+
+        when:
+        linkingCache.get(uri, targetFile)
+        linkingCache.get(uri, targetFile2)
+
+        then:
+        2 * resourceLoader.getResource(_ as String) >> resource
+        2 * resource.exists() >> true
+        2 * resource.lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resource.getInputStream() >> new ByteArrayInputStream(fileContents.getBytes())
+        targetFile.getText(StandardCharsets.UTF_8.toString()) == fileContents
+        targetFile2.getText(StandardCharsets.UTF_8.toString()) == fileContents
+        !Files.getPosixFilePermissions(cachedFile.toPath()).contains(PosixFilePermission.OWNER_WRITE)
+        Files.isSameFile(cachedFile.toPath(), targetFile.toPath())
+        Files.isSameFile(cachedFile.toPath(), targetFile2.toPath())
+    }
+
+    def "Evict least recently used"() {
+        setup:
+        ArgumentDelegates.CacheArguments boundedCacheArguments = Mock(ArgumentDelegates.CacheArguments) {
+            getCacheDirectory() >> temporaryFolder.getRoot()
+            getRevalidationTtlSeconds() >> [:]
+            getImmutableUriPrefixes() >> []
+            getMaxCacheSizeMegabytes() >> 1
+        }
+        FetchingCacheServiceImpl boundedCache = new FetchingCacheServiceImpl(
+            resourceLoader,
+            boundedCacheArguments,
+            fileLockFactory,
+            fetchingCacheServiceCleanUpTaskExecutor,
+            downloadTaskExecutor
+        )
+        byte[] contents = new byte[600 * 1024]
+        String[] resourceIds = ["old", "recent", "new"]
+        File[] dataFiles = resourceIds.collect { String resourceId ->
+            boundedCache.getCacheResourceVersionDataFile(resourceId, DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+        }
+        resourceIds.eachWithIndex { String resourceId, int i ->
+            dataFiles[i].getParentFile().mkdirs()
+            dataFiles[i].bytes = contents
+            File lockFile = boundedCache.touchCacheResourceVersionLockFile(resourceId, DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+            lockFile.setLastModified(System.currentTimeMillis() - (3 - i) * 60_000)
+        }
+
+        when:
+        long bytesReclaimed = boundedCache.evictLeastRecentlyUsed()
+
+        then:
+        bytesReclaimed == 2 * contents.length
+        !dataFiles[0].exists()
+        !dataFiles[1].exists()
+        !dataFiles[0].getParentFile().exists()
+        !dataFiles[1].getParentFile().exists()
+        dataFiles[2].exists()
+        boundedCache.getCacheResourceVersionLockFile("new", DEFAULT_RESOURCE_LAST_MODIFIED_TS).exists()
+    }
+
+    def "Evict does not count hard linked files as reclaimed"() {
+        setup:
+        ArgumentDelegates.CacheArguments boundedCacheArguments = Mock(ArgumentDelegates.CacheArguments) {
+            getCacheDirectory() >> temporaryFolder.getRoot()
+            getRevalidationTtlSeconds() >> [:]
+            getImmutableUriPrefixes() >> []
+            getMaxCacheSizeMegabytes() >> 1
+        }
+        FetchingCacheServiceImpl boundedCache = new FetchingCacheServiceImpl(
+            resourceLoader,
+            boundedCacheArguments,
+            fileLockFactory,
+            fetchingCacheServiceCleanUpTaskExecutor,
+            downloadTaskExecutor
+        )
+        byte[] contents = new byte[600 * 1024]
+        String[] resourceIds = ["old", "new"]
+        File[] dataFiles = resourceIds.collect { String resourceId ->
+            boundedCache.getCacheResourceVersionDataFile(resourceId, DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+        }
+        resourceIds.eachWithIndex { String resourceId, int i ->
+            dataFiles[i].getParentFile().mkdirs()
+            dataFiles[i].bytes = contents
+            File lockFile = boundedCache.touchCacheResourceVersionLockFile(resourceId, DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+            lockFile.setLastModified(System.currentTimeMillis() - (2 - i) * 60_000)
+        }
+        File jobFile = new File(temporaryFolder.newFolder(), "job-file")
+        Files.createLink(jobFile.toPath(), dataFiles[0].toPath())
+
+        when:
+        long bytesReclaimed = boundedCache.evictLeastRecentlyUsed()
+
+        then:
+        bytesReclaimed == 0
+        !dataFiles[0].exists()
+        !dataFiles[0].getParentFile().exists()
+        dataFiles[1].exists()
+        jobFile.bytes == contents
+    }
+
+    def "Lock is taken again if the lock file is replaced while waiting for it"() {
+        setup:
+        String fileContents = "example file contents\n"
+        File targetFile = new File(temporaryFolder.getRoot(), "target")
+        String resourceCacheId = cache.getResourceCacheId(uri)
+        File lockFile = cache.getCacheResourceVersionLockFile(resourceCacheId, DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+        CloseableLock staleLock = Mock(CloseableLock)
+
+        when:
+        cache.get(uri, targetFile)
+
+        then:
+        1 * resource.exists() >> true
+        1 * resource.lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resourceLoader.getResource(_ as String) >> resource
+        2 * fileLockFactory.getLock(lockFile) >>> [staleLock, lock]
+        // Another agent evicts the version and recreates the lock file meanwhile. Replace it by a rename, so the
+        // new file cannot reuse the inode of the old one
+        1 * staleLock.lock() >> {
+            File newLockFile = new File(lockFile.getParentFile(), "lock.new")
+            newLockFile.createNewFile()
+            Files.move(newLockFile.toPath(), lockFile.toPath(), StandardCopyOption.REPLACE_EXISTING)
+        }
+        1 * staleLock.close()
+        1 * resource.getInputStream() >> new ByteArrayInputStream(fileContents.getBytes())
+        targetFile.getText(StandardCharsets.UTF_8.toString()) == fileContents
+        lockFile.exists()
+    }
+
+    def "Evict does nothing if cache is unbounded"() {
+        setup:
+        File dataFile = cache.getCacheResourceVersionDataFile("id", DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+        dataFile.getParentFile().mkdirs()
+        dataFile.bytes = new byte[1024]
+
+        when:
+        long bytesReclaimed = cache.evictLeastRecentlyUsed()
+
+        then:
+        bytesReclaimed == 0
+        dataFile.exists()
+    }
+
+    @Unroll
+    def "Skip revalidation (TTLs: #ttls, immutable prefixes: #prefixes)"() {
+        setup:
+        String fileContents = "example file contents\n"
+        ArgumentDelegates.CacheArguments revalidationCacheArguments = Mock(ArgumentDelegates.CacheArguments) {
+            getCacheDirectory() >> temporaryFolder.getRoot()
+            getRevalidationTtlSeconds() >> ttls
+            getImmutableUriPrefixes() >> prefixes
+        }
+        FetchingCacheServiceImpl revalidatingCache = new FetchingCacheServiceImpl(
+            resourceLoader,
+            revalidationCacheArguments,
+            fileLockFactory,
+            fetchingCacheServiceCleanUpTaskExecutor,
+            downloadTaskExecutor
+        )
+        File targetFile = new File(temporaryFolder.getRoot(), "target")
+        File targetFile2 = new File(temporaryFolder.getRoot(), "target2")
+
+        when:
+        revalidatingCache.get(uri, targetFile)
+
+        then:
+        1 * resourceLoader.getResource(_ as String) >> resource
+        1 * resource.exists() >> true
+        1 * resource.lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resource.getInputStream() >> new ByteArrayInputStream(fileContents.getBytes())
+        targetFile.getText(StandardCharsets.UTF_8.toString()) == fileContents
+        revalidatingCache.getCacheResourceValidatedFile(revalidatingCache.getResourceCacheId(uri)).exists()
+
+        when:
+        revalidatingCache.get(uri, targetFile2)
+
+        then:
+        0 * resourceLoader.getResource(_ as String)
+        0 * resource._
+        targetFile2.getText(StandardCharsets.UTF_8.toString()) == fileContents
+
+        where:
+        ttls           | prefixes
+        [https: 300L]  | []
+        [:]            | ["https://my-server.com/path/"]
+    }
+
+    def "Revalidate after the TTL expires"() {
+        setup:
+        String fileContents = "example file contents\n"
+        ArgumentDelegates.CacheArguments revalidationCacheArguments = Mock(ArgumentDelegates.CacheArguments) {
+            getCacheDirectory() >> temporaryFolder.getRoot()
+            getRevalidationTtlSeconds() >> [https: 300L]
+            getImmutableUriPrefixes() >> []
+        }
+        FetchingCacheServiceImpl revalidatingCache = new FetchingCacheServiceImpl(
+            resourceLoader,
+            revalidationCacheArguments,
+            fileLockFactory,
+            fetchingCacheServiceCleanUpTaskExecutor,
+            downloadTaskExecutor
+        )
+        File targetFile = new File(temporaryFolder.getRoot(), "target")
+        File targetFile2 = new File(temporaryFolder.getRoot(), "target2")
+        File validatedFile = revalidatingCache.getCacheResourceValidatedFile(revalidatingCache.getResourceCacheId(uri))
+
+        when:
+        revalidatingCache.get(uri, targetFile)
+        validatedFile.setLastModified(System.currentTimeMillis() - 600_000)
+        revalidatingCache.get(uri, targetFile2)
+
+        then:
+        2 * resourceLoader.getResource(_ as String) >> resource
+        2 * resource.exists() >> true
+        2 * resource.lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resource.getInputStream() >> new ByteArrayInputStream(fileContents.getBytes())
+        targetFile2.getText(StandardCharsets.UTF_8.toString()) == fileContents
+    }
+
     def "Construct: fail to create cache dir"() {
         setup:
         ArgumentDelegates.CacheArguments badCacheArguments = Mock()
@@ -240,10 +609,12 @@ class FetchingCacheServiceImplSpec extends Specification {
         File cacheDir = new File("/", "genie")
 
         when:
-        new FetchingCacheServiceImpl(resourceLoader, badCacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor)
+        new FetchingCacheServiceImpl(resourceLoader, badCacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor, downloadTaskExecutor)
 
         then:
         1 * badCacheArguments.getCacheDirectory() >> cacheDir
+        _ * badCacheArguments.getRevalidationTtlSeconds() >> [:]
+        _ * badCacheArguments.getImmutableUriPrefixes() >> []
         thrown(IOException)
     }
 
@@ -253,10 +624,12 @@ class FetchingCacheServiceImplSpec extends Specification {
         File cacheDir = new File(temporaryFolder.getRoot(), "genie-cache")
 
         when:
-        new FetchingCacheServiceImpl(resourceLoader, goodCacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor)
+        new FetchingCacheServiceImpl(resourceLoader, goodCacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor, downloadTaskExecutor)
 
         then:
         1 * goodCacheArguments.getCacheDirectory() >> cacheDir
+        _ * goodCacheArguments.getRevalidationTtlSeconds() >> [:]
+        _ * goodCacheArguments.getImmutableUriPrefixes() >> []
         cacheDir.exists()
     }
 
@@ -265,10 +638,12 @@ class FetchingCacheServiceImplSpec extends Specification {
         ArgumentDelegates.CacheArguments badCacheArguments = Mock()
 
         when:
-        new FetchingCacheServiceImpl(resourceLoader, badCacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor)
+        new FetchingCacheServiceImpl(resourceLoader, badCacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor, downloadTaskExecutor)
 
         then:
         1 * badCacheArguments.getCacheDirectory() >> temporaryFolder.newFile()
+        _ * badCacheArguments.getRevalidationTtlSeconds() >> [:]
+        _ * badCacheArguments.getImmutableUriPrefixes() >> []
         thrown(IOException)
     }
 }
@@ -19,9 +19,9 @@ package com.netflix.genie.agent.execution.services.impl.grpc
 
 import com.google.common.collect.Maps
 import com.netflix.genie.agent.execution.services.AgentFileStreamService
+import com.netflix.genie.agent.properties.FileStreamServiceProperties
 import com.netflix.genie.common.internal.dtos.DirectoryManifest
 import com.netflix.genie.common.internal.dtos.v4.converters.JobDirectoryManifestProtoConverter
-import com.netflix.genie.common.internal.exceptions.checked.GenieConversionException
 import com.netflix.genie.common.internal.services.JobDirectoryManifestCreatorService
 import com.netflix.genie.proto.AgentFileMessage
 import com.netflix.genie.proto.AgentManifestMessage
@@ -29,6 +29,7 @@ import com.netflix.genie.proto.FileStreamServiceGrpc
 import com.netflix.genie.proto.ServerAckMessage
 import com.netflix.genie.proto.ServerControlMessage
 import com.netflix.genie.proto.ServerFileRequestMessage
+import com.netflix.genie.proto.ServerManifestResyncMessage
 import io.grpc.stub.StreamObserver
 import io.grpc.testing.GrpcServerRule
 import org.assertj.core.util.Lists
@@ -54,6 +55,7 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
     TaskScheduler taskScheduler
     JobDirectoryManifestProtoConverter converter
     JobDirectoryManifestCreatorService jobDirectoryManifestService
+    FileStreamServiceProperties properties
     String jobId
     ScheduledFuture<?> scheduledTask
     RemoteService remoteService
@@ -67,6 +69,7 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         this.taskScheduler = Mock(TaskScheduler)
         this.converter = Mock(JobDirectoryManifestProtoConverter)
         this.jobDirectoryManifestService = Mock(JobDirectoryManifestCreatorService)
+        this.properties = new FileStreamServiceProperties()
 
         this.remoteService = new RemoteService()
         this.grpcServerRule.getServiceRegistry().addService(remoteService)
@@ -75,7 +78,8 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
             client,
             taskScheduler,
             converter,
-            jobDirectoryManifestService
+            jobDirectoryManifestService,
+            properties
         )
     }
 
@@ -137,9 +141,9 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         when:
         runnableCapture.run()
 
-        then: "A sync channel is open and a manifest is transmitted"
+        then: "A sync channel is open and a manifest snapshot is transmitted"
         1 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder.getRoot().toPath()) >> manifest
-        1 * converter.manifestToProtoMessage(jobId, manifest) >> manifestMessage
+        1 * converter.manifestSnapshotToProtoMessage(jobId, 1L, manifest) >> manifestMessage
         1 == remoteService.activeSyncStreams.size()
         1 == remoteService.manifestMessageReceived.size()
         manifestMessage == remoteService.manifestMessageReceived.get(0)
@@ -148,29 +152,41 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         runnableCapture.run()
 
         then: "Handle manifest creation exception"
-        1 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder.getRoot().toPath()) >> manifest
-        1 * converter.manifestToProtoMessage(jobId, manifest) >> { throw new IOException("...") }
+        1 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder.getRoot().toPath()) >> {
+            throw new IOException("...")
+        }
+        0 * converter._
         1 == remoteService.activeSyncStreams.size()
+        1 == remoteService.manifestMessageReceived.size()
 
         when:
         runnableCapture.run()
 
-        then: "Handle manifest message conversion exception"
+        then: "An incremental update is transmitted over the existing sync channel"
         1 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder.getRoot().toPath()) >> manifest
-        1 * converter.manifestToProtoMessage(jobId, manifest) >> {
-            throw new GenieConversionException("...")
-        }
+        1 * converter.manifestUpdateToProtoMessage(jobId, 2L, manifest, manifest) >> manifestMessage
         1 == remoteService.activeSyncStreams.size()
+        2 == remoteService.manifestMessageReceived.size()
+        manifestMessage == remoteService.manifestMessageReceived.get(1)
+
+        when: "Server requests a new snapshot"
+        remoteService.activeSyncStreams.values().iterator().next().onNext(
+            ServerControlMessage.newBuilder()
+                .setServerManifestResync(ServerManifestResyncMessage.getDefaultInstance())
+                .build()
+        )
+
+        then:
+        1 * this.taskScheduler.schedule(_ as Runnable, _ as Instant)
 
         when:
         runnableCapture.run()
 
-        then: "Another manifest is transmitted over the existing sync channel"
+        then: "A snapshot is transmitted over the existing sync channel"
         1 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder.getRoot().toPath()) >> manifest
-        1 * converter.manifestToProtoMessage(jobId, manifest) >> manifestMessage
+        1 * converter.manifestSnapshotToProtoMessage(jobId, 3L, manifest) >> manifestMessage
         1 == remoteService.activeSyncStreams.size()
-        2 == remoteService.manifestMessageReceived.size()
-        manifestMessage == remoteService.manifestMessageReceived.get(1)
+        3 == remoteService.manifestMessageReceived.size()
 
         when:
         agentFileStreamService.forceServerSync()
@@ -185,7 +201,7 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
 
         then:
         1 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder.getRoot().toPath()) >> manifest
-        1 * converter.manifestToProtoMessage(jobId, manifest) >> manifestMessage
+        1 * converter._ >> manifestMessage
 
         when:
         agentFileStreamService.stop()
@@ -197,6 +213,43 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         1 == remoteService.erroredSyncStreams.size()
     }
 
+    def "Send a snapshot after the maximum number of updates"() {
+
+        setup:
+        Runnable runnableCapture
+        AgentManifestMessage manifestMessage = AgentManifestMessage.getDefaultInstance()
+        this.properties.setMaxUpdatesBetweenSnapshots(1)
+
+        when:
+        agentFileStreamService.start(jobId, temporaryFolder.getRoot().toPath())
+
+        then:
+        1 * this.taskScheduler.schedule(_ as Runnable, _ as Trigger) >> {
+            args ->
+                runnableCapture = args[0] as Runnable
+                return scheduledTask
+        }
+        runnableCapture != null
+
+        when:
+        runnableCapture.run()
+        runnableCapture.run()
+        runnableCapture.run()
+
+        then: "A snapshot, a single update and another snapshot are transmitted"
+        3 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder.getRoot().toPath()) >> manifest
+        1 * converter.manifestSnapshotToProtoMessage(jobId, 1L, manifest) >> manifestMessage
+        1 * converter.manifestUpdateToProtoMessage(jobId, 2L, manifest, manifest) >> manifestMessage
+        1 * converter.manifestSnapshotToProtoMessage(jobId, 3L, manifest) >> manifestMessage
+        3 == remoteService.manifestMessageReceived.size()
+
+        when:
+        agentFileStreamService.stop()
+
+        then:
+        1 * scheduledTask.cancel(false)
+    }
+
     def "Reconnect after stream closed from server"() {
 
         setup:
@@ -219,7 +272,7 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
 
         then: "A sync channel is open and a manifest is transmitted"
         1 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder.getRoot().toPath()) >> manifest
-        1 * converter.manifestToProtoMessage(jobId, manifest) >> manifestMessage
+        1 * converter.manifestSnapshotToProtoMessage(jobId, 1L, manifest) >> manifestMessage
         1 == remoteService.activeSyncStreams.size()
         1 == remoteService.manifestMessageReceived.size()
         manifestMessage == remoteService.manifestMessageReceived.get(0)
@@ -246,7 +299,7 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         temporaryFolder.newFile("file.txt")
         File smallFile = temporaryFolder.newFile("small-file.txt")
         for (int i = 0; i < 10; i++) {
-            smallFile.write("Hello world!\n")
+            smallFile.append("Hello world!\n")
         }
 
         Runnable runnableCapture
@@ -268,7 +321,7 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
 
         then: "A sync channel is open and a manifest is transmitted"
         1 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder.getRoot().toPath()) >> manifest
-        1 * converter.manifestToProtoMessage(jobId, manifest) >> manifestMessage
+        1 * converter.manifestSnapshotToProtoMessage(jobId, 1L, manifest) >> manifestMessage
         1 == remoteService.activeSyncStreams.size()
         1 == remoteService.manifestMessageReceived.size()
         manifestMessage == remoteService.manifestMessageReceived.get(0)
@@ -326,20 +379,56 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
                 .build()
         )
 
-        then: "Expect a new chunk on a new transmit stream"
-        1 == remoteService.completedTransmitStreams.size()
-        1 == remoteService.activeTransmitStreams.size()
+        then: "Expect a single chunk containing only the requested range and the transfer to complete right away"
+        2 == remoteService.completedTransmitStreams.size()
+        0 == remoteService.activeTransmitStreams.size()
         1 == remoteService.fileMessageReceived.size()
+        "Hello worl" == remoteService.fileMessageReceived.get(0).getData().toStringUtf8()
+
+        when: "An file is requested with a window of 2 chunks"
+        observer.onNext(
+            ServerControlMessage.newBuilder()
+                .setServerFileRequest(
+                    ServerFileRequestMessage.newBuilder()
+                        .setRelativePath("small-file.txt")
+                        .setStreamId(UUID.randomUUID().toString())
+                        .setStartOffset(0)
+                        .setEndOffset(50)
+                        .setChunkSize(10)
+                        .setWindowSize(2)
+                        .build()
+                )
+                .build()
+        )
+
+        then: "Expect the agent to send as many chunks as the window allows without waiting for an ACK"
+        2 == remoteService.completedTransmitStreams.size()
+        1 == remoteService.activeTransmitStreams.size()
+        3 == remoteService.fileMessageReceived.size()
+        2 == remoteService.fileMessageReceived.get(1).getWindowSize()
+        0 == remoteService.fileMessageReceived.get(2).getWindowSize()
+        "Hello world!\nHello w" == remoteService.fileMessageReceived.get(1).getData().toStringUtf8()
+            + remoteService.fileMessageReceived.get(2).getData().toStringUtf8()
 
-        when: "Acknowledge the chunk received"
+        when: "The server grants 2 more credits"
         remoteService.activeTransmitStreams.values().iterator().next().onNext(
-            ServerAckMessage.newBuilder().build()
+            ServerAckMessage.newBuilder().setCredits(2).build()
         )
 
-        then: "Expect the transfer to be completed without further messages"
+        then: "Expect 2 more chunks"
         2 == remoteService.completedTransmitStreams.size()
+        1 == remoteService.activeTransmitStreams.size()
+        5 == remoteService.fileMessageReceived.size()
+
+        when: "The server acknowledges without explicit credits"
+        remoteService.activeTransmitStreams.values().iterator().next().onNext(
+            ServerAckMessage.newBuilder().build()
+        )
+
+        then: "Expect the last chunk and the transfer to be completed"
+        3 == remoteService.completedTransmitStreams.size()
         0 == remoteService.activeTransmitStreams.size()
-        1 == remoteService.fileMessageReceived.size()
+        6 == remoteService.fileMessageReceived.size()
 
         when: "More files are requested than the service is allowed to stream concurrently"
         for (int i = 0; i < GRpcAgentFileStreamServiceImpl.MAX_CONCURRENT_TRANSMIT_STREAMS; i++) {
@@ -350,7 +439,8 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
                             .setRelativePath("small-file.txt")
                             .setStreamId(UUID.randomUUID().toString())
                             .setStartOffset(0)
-                            .setEndOffset(10)
+                            .setEndOffset(20)
+                            .setChunkSize(10)
                             .build()
                     )
                     .build()
@@ -358,9 +448,9 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         }
 
         then: "Expect the transfers to start"
-        2 == remoteService.completedTransmitStreams.size()
+        3 == remoteService.completedTransmitStreams.size()
         5 == remoteService.activeTransmitStreams.size()
-        6 == remoteService.fileMessageReceived.size()
+        11 == remoteService.fileMessageReceived.size()
 
         when: "Yet another file is requested"
         observer.onNext(
@@ -371,15 +461,16 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
                         .setStreamId(UUID.randomUUID().toString())
                         .setStartOffset(0)
                         .setEndOffset(20)
+                        .setChunkSize(10)
                         .build()
                 )
                 .build()
         )
 
         then: "Expect the request to be ignored"
-        2 == remoteService.completedTransmitStreams.size()
+        3 == remoteService.completedTransmitStreams.size()
         5 == remoteService.activeTransmitStreams.size()
-        6 == remoteService.fileMessageReceived.size()
+        11 == remoteService.fileMessageReceived.size()
 
         when: "One transfer is completed"
         remoteService.activeTransmitStreams.values().iterator().next().onNext(
@@ -387,9 +478,9 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         )
 
         then:
-        3 == remoteService.completedTransmitStreams.size()
+        4 == remoteService.completedTransmitStreams.size()
         4 == remoteService.activeTransmitStreams.size()
-        6 == remoteService.fileMessageReceived.size()
+        12 == remoteService.fileMessageReceived.size()
 
         when: "Another transfer can be started"
         observer.onNext(
@@ -400,22 +491,23 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
                         .setStreamId(UUID.randomUUID().toString())
                         .setStartOffset(0)
                         .setEndOffset(20)
+                        .setChunkSize(10)
                         .build()
                 )
                 .build()
         )
 
         then:
-        3 == remoteService.completedTransmitStreams.size()
+        4 == remoteService.completedTransmitStreams.size()
         5 == remoteService.activeTransmitStreams.size()
-        7 == remoteService.fileMessageReceived.size()
+        13 == remoteService.fileMessageReceived.size()
 
         when:
         agentFileStreamService.stop()
 
         then:
         1 * scheduledTask.cancel(false)
-        3 == remoteService.completedTransmitStreams.size()
+        4 == remoteService.completedTransmitStreams.size()
         5 == remoteService.erroredTransmitStreams.size()
         0 == remoteService.activeTransmitStreams.size()
         1 == remoteService.completedSyncStreams.size()
@@ -76,6 +76,8 @@ public class FetchingCacheServiceImplTest {
 
     private ThreadPoolTaskExecutor cleanUpTaskExecutor;
 
+    private ThreadPoolTaskExecutor downloadTaskExecutor;
+
     /**
      * Set up.
      *
@@ -92,6 +94,9 @@ public class FetchingCacheServiceImplTest {
         cleanUpTaskExecutor = new ThreadPoolTaskExecutor();
         cleanUpTaskExecutor.setCorePoolSize(1);
         cleanUpTaskExecutor.initialize();
+        downloadTaskExecutor = new ThreadPoolTaskExecutor();
+        downloadTaskExecutor.setCorePoolSize(2);
+        downloadTaskExecutor.initialize();
     }
 
     /**
@@ -100,6 +105,7 @@ public class FetchingCacheServiceImplTest {
     @After
     public void cleanUp() {
         cleanUpTaskExecutor.shutdown();
+        downloadTaskExecutor.shutdown();
     }
 
     /**
@@ -162,7 +168,8 @@ public class FetchingCacheServiceImplTest {
             resourceLoader,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            downloadTaskExecutor
         );
 
         //Set up the second cache
@@ -185,7 +192,8 @@ public class FetchingCacheServiceImplTest {
             resourceLoader2,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            downloadTaskExecutor
         );
 
         //Before submitting make sure conditions are set correctly
@@ -303,7 +311,8 @@ public class FetchingCacheServiceImplTest {
             resourceLoader,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            downloadTaskExecutor
         );
 
         //Set up the second cache
@@ -333,7 +342,8 @@ public class FetchingCacheServiceImplTest {
             resourceLoader2,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            downloadTaskExecutor
         );
 
         //Before submitting make sure conditions are set correctly
@@ -458,7 +468,8 @@ public class FetchingCacheServiceImplTest {
             resourceLoader,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            downloadTaskExecutor
         );
 
         final String resourceCacheId = cache1.getResourceCacheId(uri);
@@ -469,7 +480,8 @@ public class FetchingCacheServiceImplTest {
             resourceLoader2,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            downloadTaskExecutor
         );
 
         //Before submitting make sure conditions are set correctly
@@ -602,7 +614,8 @@ public class FetchingCacheServiceImplTest {
             resourceLoader,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            downloadTaskExecutor
         );
 
         final String resourceCacheId = cache1.getResourceCacheId(uri);
@@ -613,7 +626,8 @@ public class FetchingCacheServiceImplTest {
             resourceLoader2,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            downloadTaskExecutor
         );
 
         //Download the resource which needs to be deleted, else deletion will be a no op
@@ -642,7 +656,8 @@ public class FetchingCacheServiceImplTest {
             resourceLoader3,
             cacheArguments,
             new FileLockFactory(),
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            downloadTaskExecutor
         );
 
         cache3.get(uri, targetFile);
@@ -63,6 +63,37 @@ public class GenieDefaultPropertiesPostProcessorTest {
                             .contains(GenieDefaultPropertiesPostProcessor.DEFAULT_PROPERTY_SOURCE_NAME)
                     );
                     Assert.assertTrue(environment.getProperty("genie.smoke", Boolean.class, false));
+                    Assert.assertFalse(
+                        environment
+                            .getPropertySources()
+                            .contains(GenieDefaultPropertiesPostProcessor.FAST_START_PROPERTY_SOURCE_NAME)
+                    );
+                    Assert.assertThat(environment.getProperty("spring.main.lazy-initialization"), Matchers.nullValue());
+                }
+            );
+    }
+
+    /**
+     * Test to make sure the fast-start properties are added on top of the defaults when the profile is active.
+     */
+    @Test
+    public void testFastStartProperties() {
+        this.contextRunner
+            .withPropertyValues("spring.profiles.active=" + GenieDefaultPropertiesPostProcessor.FAST_START_PROFILE)
+            .run(
+                context -> {
+                    final SpringApplication application = Mockito.mock(SpringApplication.class);
+                    final ConfigurableEnvironment environment = context.getEnvironment();
+                    this.processor.postProcessEnvironment(environment, application);
+                    Assert.assertTrue(
+                        environment
+                            .getPropertySources()
+                            .contains(GenieDefaultPropertiesPostProcessor.FAST_START_PROPERTY_SOURCE_NAME)
+                    );
+                    Assert.assertTrue(environment.getProperty("genie.smoke", Boolean.class, false));
+                    Assert.assertTrue(
+                        environment.getProperty("spring.main.lazy-initialization", Boolean.class, false)
+                    );
                 }
             );
     }
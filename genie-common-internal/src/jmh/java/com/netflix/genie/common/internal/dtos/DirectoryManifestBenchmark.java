@@ -0,0 +1,129 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.common.internal.dtos;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares creating a checksummed {@link DirectoryManifest} (as done during archival) by walking a synthetic job
+ * directory sequentially and in parallel.
+ * <p>
+ * Run with {@code ./gradlew :genie-common-internal:jmh}. The tree with a million files takes a while to create.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DirectoryManifestBenchmark {
+
+    private static final int FILES_PER_DIRECTORY = 100;
+    private static final int DIRECTORIES_PER_DIRECTORY = 100;
+    private static final int FILE_SIZE = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    private int numFiles;
+
+    private Path root;
+    private ForkJoinPool walkerPool;
+    private final DirectoryManifest.Filter filter = new DirectoryManifest.Filter() {
+    };
+
+    /**
+     * Create the directory tree.
+     *
+     * @throws IOException if the tree can't be created
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.root = Files.createTempDirectory("directory-manifest-benchmark");
+        this.walkerPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        final Random random = new Random(0);
+        final byte[] data = new byte[FILE_SIZE];
+        for (int i = 0; i < this.numFiles; i++) {
+            // Files are spread over a two level tree: d<i>/d<j>/f<k>
+            final int directory = i / FILES_PER_DIRECTORY;
+            final Path parent = this.root
+                .resolve("d" + directory / DIRECTORIES_PER_DIRECTORY)
+                .resolve("d" + directory % DIRECTORIES_PER_DIRECTORY);
+            if (i % FILES_PER_DIRECTORY == 0) {
+                Files.createDirectories(parent);
+            }
+            random.nextBytes(data);
+            Files.write(parent.resolve("f" + i), data);
+        }
+    }
+
+    /**
+     * Delete the directory tree.
+     *
+     * @throws IOException if the tree can't be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.walkerPool.shutdown();
+        try (Stream<Path> paths = Files.walk(this.root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Walk the tree with the calling thread.
+     *
+     * @return the manifest
+     * @throws IOException if the walk fails
+     */
+    @Benchmark
+    public DirectoryManifest sequentialWalk() throws IOException {
+        // A new factory each time, so nothing is reused from previous walks
+        return new DirectoryManifest.Factory(this.filter, new SimpleMeterRegistry(), null)
+            .getDirectoryManifest(this.root, true);
+    }
+
+    /**
+     * Walk the tree with the fork/join pool.
+     *
+     * @return the manifest
+     * @throws IOException if the walk fails
+     */
+    @Benchmark
+    public DirectoryManifest parallelWalk() throws IOException {
+        // A new factory each time, so nothing is reused from previous walks
+        return new DirectoryManifest.Factory(this.filter, new SimpleMeterRegistry(), this.walkerPool)
+            .getDirectoryManifest(this.root, true);
+    }
+}
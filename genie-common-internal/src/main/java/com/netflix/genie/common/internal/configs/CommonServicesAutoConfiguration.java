@@ -21,14 +21,19 @@ import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.netflix.genie.common.internal.dtos.DirectoryManifest;
 import com.netflix.genie.common.internal.jobs.JobConstants;
+import com.netflix.genie.common.internal.properties.DirectoryManifestProperties;
 import com.netflix.genie.common.internal.services.JobArchiveService;
 import com.netflix.genie.common.internal.services.JobArchiver;
 import com.netflix.genie.common.internal.services.JobDirectoryManifestCreatorService;
 import com.netflix.genie.common.internal.services.impl.FileSystemJobArchiverImpl;
 import com.netflix.genie.common.internal.services.impl.JobArchiveServiceImpl;
 import com.netflix.genie.common.internal.services.impl.JobDirectoryManifestCreatorServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
@@ -37,7 +42,10 @@ import org.springframework.core.annotation.Order;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 /**
@@ -47,6 +55,11 @@ import java.util.regex.Pattern;
  * @since 4.0.0
  */
 @Configuration
+@EnableConfigurationProperties(
+    {
+        DirectoryManifestProperties.class
+    }
+)
 public class CommonServicesAutoConfiguration {
 
     /**
@@ -56,6 +69,8 @@ public class CommonServicesAutoConfiguration {
      */
     public static final int FILE_SYSTEM_JOB_ARCHIVER_PRECEDENCE = Ordered.LOWEST_PRECEDENCE - 20;
 
+    private static final String DIRECTORY_MANIFEST_WALKER_THREAD_NAME_PREFIX = "genie-manifest-walker-";
+
     /**
      * Provide a {@link JobArchiver} implementation that will copy from one place on the filesystem to another.
      *
@@ -119,14 +134,49 @@ public class CommonServicesAutoConfiguration {
      * Provide a {@link DirectoryManifest.Factory} if no override is defined.
      *
      * @param directoryManifestFilter the filter used during manifest creation
+     * @param meterRegistryProvider   the metrics registry, if one is available
+     * @param walkerPool              the pool used to walk directories
+     * @param properties              the directory manifest properties
      * @return a directory manifest factory
      */
     @Bean
     @ConditionalOnMissingBean(DirectoryManifest.Factory.class)
     public DirectoryManifest.Factory directoryManifestFactory(
-        final DirectoryManifest.Filter directoryManifestFilter
+        final DirectoryManifest.Filter directoryManifestFilter,
+        final ObjectProvider<MeterRegistry> meterRegistryProvider,
+        @Qualifier("directoryManifestWalkerPool") final ForkJoinPool walkerPool,
+        final DirectoryManifestProperties properties
     ) {
-        return new DirectoryManifest.Factory(directoryManifestFilter);
+        return new DirectoryManifest.Factory(
+            directoryManifestFilter,
+            meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry),
+            walkerPool,
+            properties.getMaxCachedFiles(),
+            properties.getCachedFileExpiration()
+        );
+    }
+
+    /**
+     * Provide a {@link ForkJoinPool} named "directoryManifestWalkerPool" if no override is defined.
+     * Used to walk directories and hash files concurrently when creating manifests (for example during archival).
+     *
+     * @param properties the directory manifest properties
+     * @return a {@link ForkJoinPool}
+     */
+    @Bean(name = "directoryManifestWalkerPool", destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = "directoryManifestWalkerPool")
+    public ForkJoinPool directoryManifestWalkerPool(final DirectoryManifestProperties properties) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return new ForkJoinPool(
+            properties.getWalkerThreads(),
+            pool -> {
+                final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName(DIRECTORY_MANIFEST_WALKER_THREAD_NAME_PREFIX + threadNumber.incrementAndGet());
+                return thread;
+            },
+            null,
+            false
+        );
     }
 
     /**
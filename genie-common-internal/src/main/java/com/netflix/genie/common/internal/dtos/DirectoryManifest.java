@@ -21,9 +21,18 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
@@ -40,12 +49,15 @@ import javax.annotation.Nullable;
 import javax.validation.constraints.Min;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryIteratorException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystemLoopException;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
@@ -54,8 +66,17 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A manifest of all the files and subdirectories in a directory.
@@ -65,9 +86,11 @@ import java.util.Set;
  */
 @ToString(doNotUseGetters = true)
 @EqualsAndHashCode(doNotUseGetters = true)
+@Slf4j
 public class DirectoryManifest {
     private static final String ENTRIES_KEY = "entries";
     private static final String EMPTY_STRING = "";
+    private static final long MODIFIED_TIME_GRANULARITY_SECONDS = 2;
 
     private final ImmutableMap<String, ManifestEntry> entries;
     private final ImmutableSet<ManifestEntry> files;
@@ -79,19 +102,31 @@ public class DirectoryManifest {
     private DirectoryManifest(
         final Path directory,
         final boolean calculateFileChecksums,
-        final Filter filter
+        final Filter filter,
+        final Cache<Path, FileMetadata> fileMetadataCache,
+        final WalkStatistics walkStatistics,
+        @Nullable final ForkJoinPool walkerPool
     ) throws IOException {
-        // Walk the directory
-        final ImmutableMap.Builder<String, ManifestEntry> builder = ImmutableMap.builder();
-        final ManifestVisitor manifestVisitor = new ManifestVisitor(
+        final EntryBuilder entryBuilder = new EntryBuilder(
             directory,
-            builder,
             calculateFileChecksums,
-            filter
+            fileMetadataCache,
+            walkStatistics
         );
-        final EnumSet<FileVisitOption> options = EnumSet.of(FileVisitOption.FOLLOW_LINKS);
-        Files.walkFileTree(directory, options, Integer.MAX_VALUE, manifestVisitor);
-        this.entries = builder.build();
+
+        // Walk the directory
+        if (walkerPool != null) {
+            final Map<String, ManifestEntry> walkedEntries = new ParallelManifestWalker(filter, entryBuilder)
+                .walk(directory, walkerPool);
+            // Sort for a stable iteration order regardless of the order entries were visited in
+            this.entries = ImmutableMap.copyOf(new TreeMap<>(walkedEntries));
+        } else {
+            final ImmutableMap.Builder<String, ManifestEntry> builder = ImmutableMap.builder();
+            final ManifestVisitor manifestVisitor = new ManifestVisitor(builder, filter, entryBuilder);
+            final EnumSet<FileVisitOption> options = EnumSet.of(FileVisitOption.FOLLOW_LINKS);
+            Files.walkFileTree(directory, options, Integer.MAX_VALUE, manifestVisitor);
+            this.entries = builder.build();
+        }
 
         final ImmutableSet.Builder<ManifestEntry> filesBuilder = ImmutableSet.builder();
         final ImmutableSet.Builder<ManifestEntry> directoriesBuilder = ImmutableSet.builder();
@@ -273,12 +308,49 @@ public class DirectoryManifest {
 
     /**
      * Factory that encapsulates directory manifest creation.
+     * <p>
+     * The factory remembers the mime type and checksum computed for each file it visits. As long as the size,
+     * modification time and file key (inode) of a file don't change, subsequent manifests reuse them rather than
+     * reading the file again.
+     * <p>
+     * If given a {@link ForkJoinPool}, sub-directories are walked and files are hashed concurrently. The manifest
+     * produced is the same either way.
      */
     public static class Factory {
 
+        /**
+         * Time taken to walk a directory and create its manifest.
+         */
+        public static final String WALK_TIMER_NAME = "genie.jobs.directoryManifest.walk.timer";
+        /**
+         * Number of bytes read to compute checksums while creating a manifest.
+         */
+        public static final String HASHED_BYTES_DISTRIBUTION_NAME = "genie.jobs.directoryManifest.hashedBytes.summary";
+        /**
+         * Number of files whose cached metadata was reused or had to be computed.
+         */
+        public static final String FILE_METADATA_CACHE_COUNTER_NAME =
+            "genie.jobs.directoryManifest.fileMetadataCache.counter";
+
+        private static final String CHECKSUM_TAG = "checksum";
+        private static final String RESULT_TAG = "result";
+        private static final String HIT = "hit";
+        private static final String MISS = "miss";
+        /**
+         * The default maximum number of files whose metadata is remembered between manifests.
+         */
+        public static final long DEFAULT_MAX_CACHED_FILES = 100_000L;
+        /**
+         * The default time in milliseconds after which the metadata of a file not seen by any manifest is forgotten.
+         */
+        public static final long DEFAULT_CACHED_FILE_EXPIRATION = TimeUnit.MINUTES.toMillis(30);
+
         private static final Filter ACCEPT_ALL_FILTER = new DirectoryManifest.Filter() {
         };
         private final Filter filter;
+        private final MeterRegistry registry;
+        private final Cache<Path, FileMetadata> fileMetadataCache;
+        private final ForkJoinPool walkerPool;
 
         /**
          * Constructor with no filters.
@@ -293,7 +365,78 @@ public class DirectoryManifest {
          * @param filter the manifest filter
          */
         public Factory(final Filter filter) {
+            this(filter, Metrics.globalRegistry);
+        }
+
+        /**
+         * Constructor with filter and metrics registry.
+         *
+         * @param filter   the manifest filter
+         * @param registry the metrics registry
+         */
+        public Factory(final Filter filter, final MeterRegistry registry) {
+            this(filter, registry, null);
+        }
+
+        /**
+         * Constructor with filter, metrics registry and a pool to walk directories with.
+         *
+         * @param filter     the manifest filter
+         * @param registry   the metrics registry
+         * @param walkerPool the pool used to visit directories and hash files concurrently, if null directories are
+         *                   walked by the calling thread
+         */
+        public Factory(final Filter filter, final MeterRegistry registry, @Nullable final ForkJoinPool walkerPool) {
+            this(filter, registry, walkerPool, DEFAULT_MAX_CACHED_FILES);
+        }
+
+        /**
+         * Constructor with filter, metrics registry, a pool to walk directories with and a limit on the number of files
+         * whose metadata is remembered.
+         *
+         * @param filter         the manifest filter
+         * @param registry       the metrics registry
+         * @param walkerPool     the pool used to visit directories and hash files concurrently, if null directories are
+         *                       walked by the calling thread
+         * @param maxCachedFiles the maximum number of files whose mime type and checksum are remembered between
+         *                       manifests
+         */
+        public Factory(
+            final Filter filter,
+            final MeterRegistry registry,
+            @Nullable final ForkJoinPool walkerPool,
+            final long maxCachedFiles
+        ) {
+            this(filter, registry, walkerPool, maxCachedFiles, DEFAULT_CACHED_FILE_EXPIRATION);
+        }
+
+        /**
+         * Constructor with filter, metrics registry, a pool to walk directories with and limits on the number of files
+         * whose metadata is remembered and for how long.
+         *
+         * @param filter               the manifest filter
+         * @param registry             the metrics registry
+         * @param walkerPool           the pool used to visit directories and hash files concurrently, if null
+         *                             directories are walked by the calling thread
+         * @param maxCachedFiles       the maximum number of files whose mime type and checksum are remembered between
+         *                             manifests
+         * @param cachedFileExpiration the time in milliseconds after which the metadata of a file not seen by any
+         *                             manifest is forgotten
+         */
+        public Factory(
+            final Filter filter,
+            final MeterRegistry registry,
+            @Nullable final ForkJoinPool walkerPool,
+            final long maxCachedFiles,
+            final long cachedFileExpiration
+        ) {
             this.filter = filter;
+            this.registry = registry;
+            this.walkerPool = walkerPool;
+            this.fileMetadataCache = Caffeine.newBuilder()
+                .maximumSize(maxCachedFiles)
+                .expireAfterAccess(cachedFileExpiration, TimeUnit.MILLISECONDS)
+                .build();
         }
 
         /**
@@ -308,31 +451,101 @@ public class DirectoryManifest {
             final Path directory,
             final boolean includeChecksum
         ) throws IOException {
-            return new DirectoryManifest(directory, includeChecksum, this.filter);
+            final long start = System.nanoTime();
+            final WalkStatistics walkStatistics = new WalkStatistics();
+            final Set<Tag> tags = Sets.newHashSet(Tag.of(CHECKSUM_TAG, String.valueOf(includeChecksum)));
+            try {
+                return new DirectoryManifest(
+                    directory,
+                    includeChecksum,
+                    this.filter,
+                    this.fileMetadataCache,
+                    walkStatistics,
+                    this.walkerPool
+                );
+            } finally {
+                this.registry
+                    .timer(WALK_TIMER_NAME, tags)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (includeChecksum) {
+                    this.registry
+                        .summary(HASHED_BYTES_DISTRIBUTION_NAME, tags)
+                        .record(walkStatistics.bytesHashed.sum());
+                }
+                this.registry
+                    .counter(FILE_METADATA_CACHE_COUNTER_NAME, Tags.of(RESULT_TAG, HIT))
+                    .increment(walkStatistics.cacheHits.sum());
+                this.registry
+                    .counter(FILE_METADATA_CACHE_COUNTER_NAME, Tags.of(RESULT_TAG, MISS))
+                    .increment(walkStatistics.cacheMisses.sum());
+            }
+        }
+    }
+
+    /*
+     * Metadata of a file computed from its content, and the attributes used to tell whether the file changed since.
+     */
+    private static final class FileMetadata {
+        private final long size;
+        private final Instant lastModifiedTime;
+        private final Object fileKey;
+        private final String mimeType;
+        private final String md5;
+
+        private FileMetadata(
+            final BasicFileAttributes attributes,
+            final String mimeType,
+            @Nullable final String md5
+        ) {
+            this.size = attributes.size();
+            this.lastModifiedTime = attributes.lastModifiedTime().toInstant();
+            this.fileKey = attributes.fileKey();
+            this.mimeType = mimeType;
+            this.md5 = md5;
+        }
+
+        private boolean isCurrent(final BasicFileAttributes attributes) {
+            return this.size == attributes.size()
+                && this.lastModifiedTime.equals(attributes.lastModifiedTime().toInstant())
+                && Objects.equals(this.fileKey, attributes.fileKey());
         }
     }
 
+    /*
+     * Statistics about a single walk, reported as metrics by the factory. Updated concurrently by parallel walks.
+     */
+    private static final class WalkStatistics {
+        private final LongAdder bytesHashed = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder cacheMisses = new LongAdder();
+    }
+
+    /*
+     * Creates manifest entries for the files and directories found by a walk. Safe to use from multiple threads.
+     */
     @Slf4j
-    private static class ManifestVisitor extends SimpleFileVisitor<Path> {
+    private static class EntryBuilder {
 
         private final Path root;
-        private final ImmutableMap.Builder<String, ManifestEntry> builder;
-        private final Metadata metadata;
         private final TikaConfig tikaConfig;
         private final boolean checksumFiles;
-        private final Filter filter;
+        private final Cache<Path, FileMetadata> fileMetadataCache;
+        private final WalkStatistics walkStatistics;
+        private final Instant cacheableModifiedTimeLimit;
 
-        ManifestVisitor(
+        EntryBuilder(
             final Path root,
-            final ImmutableMap.Builder<String, ManifestEntry> builder,
             final boolean checksumFiles,
-            final Filter filter
+            final Cache<Path, FileMetadata> fileMetadataCache,
+            final WalkStatistics walkStatistics
         ) throws IOException {
             this.root = root;
-            this.builder = builder;
             this.checksumFiles = checksumFiles;
-            this.filter = filter;
-            this.metadata = new Metadata();
+            this.fileMetadataCache = fileMetadataCache;
+            this.walkStatistics = walkStatistics;
+            // Files modified this recently may change again without their modification time changing (coarse
+            // timestamp granularity), so their metadata is not cached
+            this.cacheableModifiedTimeLimit = Instant.now().minusSeconds(MODIFIED_TIME_GRANULARITY_SECONDS);
             try {
                 this.tikaConfig = new TikaConfig();
             } catch (final TikaException te) {
@@ -341,66 +554,29 @@ public class DirectoryManifest {
             }
         }
 
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
-            final ManifestEntry entry = this.buildEntry(dir, attrs, true);
-            if (this.filter.includeDirectory(dir, attrs)) {
-                this.builder.put(entry.getPath(), entry);
-                log.debug("Created manifest entry for directory {}", entry);
-                if (this.filter.walkDirectory(dir, attrs)) {
-                    return FileVisitResult.CONTINUE;
+        private ManifestEntry buildEntry(
+            final Path entry,
+            final BasicFileAttributes attributes,
+            final boolean directory
+        ) throws IOException {
+            Set<String> children = null;
+            if (directory) {
+                children = Sets.newHashSet();
+                try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(entry)) {
+                    for (final Path child : directoryStream) {
+                        children.add(this.root.relativize(child).toString());
+                    }
                 }
             }
-            log.debug("Skipping directory: {}", dir.toAbsolutePath());
-            return FileVisitResult.SKIP_SUBTREE;
-
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
-            if (this.filter.includeFile(file, attrs)) {
-                final ManifestEntry entry = this.buildEntry(file, attrs, false);
-                log.debug("Created manifest entry for file {}", entry);
-                this.builder.put(entry.getPath(), entry);
-            } else {
-                log.debug("Skipped manifest entry for file {}", file.toAbsolutePath());
-            }
-
-            return FileVisitResult.CONTINUE;
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public FileVisitResult visitFileFailed(final Path file, final IOException ioe) {
-            if (ioe instanceof FileSystemLoopException) {
-                log.warn("Detected file system cycle visiting while visiting {}. Skipping.", file);
-                return FileVisitResult.SKIP_SUBTREE;
-            } else if (ioe instanceof AccessDeniedException) {
-                log.warn("Access denied for file {}. Skipping", file);
-                return FileVisitResult.SKIP_SUBTREE;
-            } else if (ioe instanceof NoSuchFileException) {
-                log.warn("File or directory disappeared while visiting {}. Skipping", file);
-                return FileVisitResult.SKIP_SUBTREE;
-            } else {
-                log.error("Got unknown error {} while visiting {}. Terminating visitor", ioe.getMessage(), file, ioe);
-                // TODO: Not sure if we should do this or skip subtree or just continue and ignore it?
-                return FileVisitResult.TERMINATE;
-            }
+            return this.buildEntry(entry, attributes, children);
         }
 
         private ManifestEntry buildEntry(
             final Path entry,
             final BasicFileAttributes attributes,
-            final boolean directory
-        ) throws IOException {
+            @Nullable final Set<String> directoryChildren
+        ) {
+            final boolean directory = directoryChildren != null;
             final String path = this.root.relativize(entry).toString();
             final Path fileName = entry.getFileName();
             final String name = fileName == null
@@ -414,23 +590,35 @@ public class DirectoryManifest {
             String md5 = null;
             String mimeType = null;
             if (!directory) {
-                if (this.checksumFiles) {
+                final Path cacheKey = entry.toAbsolutePath();
+                final FileMetadata cachedMetadata = this.fileMetadataCache.getIfPresent(cacheKey);
+                final boolean cacheHit = cachedMetadata != null && cachedMetadata.isCurrent(attributes);
+                if (cacheHit) {
+                    mimeType = cachedMetadata.mimeType;
+                    // Only include a checksum if requested, even if one is known
+                    md5 = this.checksumFiles ? cachedMetadata.md5 : null;
+                }
+
+                if (this.checksumFiles && md5 == null) {
                     try (InputStream data = Files.newInputStream(entry, StandardOpenOption.READ)) {
                         md5 = DigestUtils.md5Hex(data);
+                        this.walkStatistics.bytesHashed.add(size);
                     } catch (final IOException ioe) {
                         // For now MD5 isn't critical or required so we'll swallow errors here
                         log.error("Unable to create MD5 for {} due to error", entry, ioe);
                     }
                 }
 
-                mimeType = this.getMimeType(name, entry);
-            }
+                if (mimeType == null) {
+                    mimeType = this.getMimeType(name, entry);
+                }
 
-            final Set<String> children = Sets.newHashSet();
-            if (directory) {
-                try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(entry)) {
-                    for (final Path child : directoryStream) {
-                        children.add(this.root.relativize(child).toString());
+                if (cacheHit && (md5 == null || md5.equals(cachedMetadata.md5))) {
+                    this.walkStatistics.cacheHits.increment();
+                } else {
+                    this.walkStatistics.cacheMisses.increment();
+                    if (lastModifiedTime.isBefore(this.cacheableModifiedTimeLimit)) {
+                        this.fileMetadataCache.put(cacheKey, new FileMetadata(attributes, mimeType, md5));
                     }
                 }
             }
@@ -452,7 +640,7 @@ public class DirectoryManifest {
                 md5,
                 mimeType,
                 parent,
-                children
+                directory ? directoryChildren : Sets.newHashSet()
             );
         }
 
@@ -466,7 +654,8 @@ public class DirectoryManifest {
                     return MediaType.TEXT_PLAIN.toString();
                 default:
                     try (TikaInputStream inputStream = TikaInputStream.get(path)) {
-                        return this.tikaConfig.getDetector().detect(inputStream, this.metadata).toString();
+                        // Metadata is not thread safe, use a new instance for each detection
+                        return this.tikaConfig.getDetector().detect(inputStream, new Metadata()).toString();
                     } catch (final IOException ioe) {
                         log.error("Unable to detect mime type for {} due to error", path, ioe);
                         return MediaType.OCTET_STREAM.toString();
@@ -475,6 +664,287 @@ public class DirectoryManifest {
         }
     }
 
+    @Slf4j
+    private static class ManifestVisitor extends SimpleFileVisitor<Path> {
+
+        private final ImmutableMap.Builder<String, ManifestEntry> builder;
+        private final Filter filter;
+        private final EntryBuilder entryBuilder;
+
+        ManifestVisitor(
+            final ImmutableMap.Builder<String, ManifestEntry> builder,
+            final Filter filter,
+            final EntryBuilder entryBuilder
+        ) {
+            this.builder = builder;
+            this.filter = filter;
+            this.entryBuilder = entryBuilder;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+            final ManifestEntry entry = this.entryBuilder.buildEntry(dir, attrs, true);
+            if (this.filter.includeDirectory(dir, attrs)) {
+                this.builder.put(entry.getPath(), entry);
+                log.debug("Created manifest entry for directory {}", entry);
+                if (this.filter.walkDirectory(dir, attrs)) {
+                    return FileVisitResult.CONTINUE;
+                }
+            }
+            log.debug("Skipping directory: {}", dir.toAbsolutePath());
+            return FileVisitResult.SKIP_SUBTREE;
+
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+            if (this.filter.includeFile(file, attrs)) {
+                final ManifestEntry entry = this.entryBuilder.buildEntry(file, attrs, false);
+                log.debug("Created manifest entry for file {}", entry);
+                this.builder.put(entry.getPath(), entry);
+            } else {
+                log.debug("Skipped manifest entry for file {}", file.toAbsolutePath());
+            }
+
+            return FileVisitResult.CONTINUE;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public FileVisitResult visitFileFailed(final Path file, final IOException ioe) {
+            return handleVisitFailure(file, ioe);
+        }
+    }
+
+    /*
+     * Shared by the sequential and parallel walks so both skip (or give up on) the same failures.
+     */
+    private static FileVisitResult handleVisitFailure(final Path file, final IOException ioe) {
+        if (ioe instanceof FileSystemLoopException) {
+            log.warn("Detected file system cycle visiting while visiting {}. Skipping.", file);
+            return FileVisitResult.SKIP_SUBTREE;
+        } else if (ioe instanceof AccessDeniedException) {
+            log.warn("Access denied for file {}. Skipping", file);
+            return FileVisitResult.SKIP_SUBTREE;
+        } else if (ioe instanceof NoSuchFileException) {
+            log.warn("File or directory disappeared while visiting {}. Skipping", file);
+            return FileVisitResult.SKIP_SUBTREE;
+        } else {
+            log.error("Got unknown error {} while visiting {}. Terminating visitor", ioe.getMessage(), file, ioe);
+            // TODO: Not sure if we should do this or skip subtree or just continue and ignore it?
+            return FileVisitResult.TERMINATE;
+        }
+    }
+
+    /*
+     * Walks a directory tree using a fork/join pool. Each directory is a task, which forks a task for each
+     * sub-directory and for each batch of files in it (so that files are hashed concurrently as well).
+     * Produces the same entries as ManifestVisitor with Files.walkFileTree and FOLLOW_LINKS.
+     */
+    private static final class ParallelManifestWalker {
+        private static final int FILE_BATCH_SIZE = 32;
+
+        private final Filter filter;
+        private final EntryBuilder entryBuilder;
+        private final Map<String, ManifestEntry> entries = Maps.newConcurrentMap();
+        private final AtomicBoolean terminated = new AtomicBoolean();
+
+        private ParallelManifestWalker(final Filter filter, final EntryBuilder entryBuilder) {
+            this.filter = filter;
+            this.entryBuilder = entryBuilder;
+        }
+
+        private Map<String, ManifestEntry> walk(final Path root, final ForkJoinPool pool) throws IOException {
+            try {
+                pool.invoke(new VisitTask(root, null, ImmutableList.of()));
+            } catch (final UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return this.entries;
+        }
+
+        @Nullable
+        private BasicFileAttributes readAttributes(final Path path) {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (final IOException followLinksException) {
+                // Possibly a broken link, which is visited as a file
+                try {
+                    return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (final IOException e) {
+                    this.handleFailure(path, followLinksException);
+                    return null;
+                }
+            }
+        }
+
+        private void handleFailure(final Path path, final IOException ioe) {
+            if (handleVisitFailure(path, ioe) == FileVisitResult.TERMINATE) {
+                this.terminated.set(true);
+            }
+        }
+
+        private boolean isLoop(final Path directory, final BasicFileAttributes attrs, final List<Ancestor> ancestors) {
+            final Object fileKey = attrs.fileKey();
+            for (final Ancestor ancestor : ancestors) {
+                if (fileKey != null && ancestor.fileKey != null) {
+                    if (fileKey.equals(ancestor.fileKey)) {
+                        return true;
+                    }
+                } else {
+                    try {
+                        if (Files.isSameFile(directory, ancestor.path)) {
+                            return true;
+                        }
+                    } catch (final IOException | SecurityException e) {
+                        // Assume it's not a loop, as walkFileTree does
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void visitFile(final Path file, final BasicFileAttributes attrs) {
+            if (this.filter.includeFile(file, attrs)) {
+                final ManifestEntry entry = this.entryBuilder.buildEntry(file, attrs, null);
+                log.debug("Created manifest entry for file {}", entry);
+                this.entries.put(entry.getPath(), entry);
+            } else {
+                log.debug("Skipped manifest entry for file {}", file.toAbsolutePath());
+            }
+        }
+
+        private static final class Ancestor {
+            private final Path path;
+            private final Object fileKey;
+
+            private Ancestor(final Path path, @Nullable final Object fileKey) {
+                this.path = path;
+                this.fileKey = fileKey;
+            }
+        }
+
+        /*
+         * Visits a path (as walkFileTree would) and, if it's a directory, its contents.
+         */
+        private final class VisitTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            private final Path path;
+            private final BasicFileAttributes knownAttrs;
+            private final List<Ancestor> ancestors;
+
+            private VisitTask(
+                final Path path,
+                @Nullable final BasicFileAttributes knownAttrs,
+                final List<Ancestor> ancestors
+            ) {
+                this.path = path;
+                this.knownAttrs = knownAttrs;
+                this.ancestors = ancestors;
+            }
+
+            @Override
+            protected void compute() {
+                if (terminated.get()) {
+                    return;
+                }
+                final BasicFileAttributes attrs = this.knownAttrs != null ? this.knownAttrs : readAttributes(this.path);
+                if (attrs == null) {
+                    return;
+                }
+                if (!attrs.isDirectory()) {
+                    visitFile(this.path, attrs);
+                    return;
+                }
+                if (isLoop(this.path, attrs, this.ancestors)) {
+                    handleFailure(this.path, new FileSystemLoopException(this.path.toString()));
+                    return;
+                }
+
+                final List<Path> children = Lists.newArrayList();
+                try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(this.path)) {
+                    for (final Path child : directoryStream) {
+                        children.add(child);
+                    }
+                } catch (final IOException e) {
+                    handleFailure(this.path, e);
+                    return;
+                } catch (final DirectoryIteratorException e) {
+                    // Fails the walk, as walkFileTree does
+                    throw new UncheckedIOException(e.getCause());
+                }
+
+                if (!filter.includeDirectory(this.path, attrs)) {
+                    log.debug("Skipping directory: {}", this.path.toAbsolutePath());
+                    return;
+                }
+                final Set<String> childPaths = Sets.newHashSet();
+                for (final Path child : children) {
+                    childPaths.add(entryBuilder.root.relativize(child).toString());
+                }
+                final ManifestEntry entry = entryBuilder.buildEntry(this.path, attrs, childPaths);
+                entries.put(entry.getPath(), entry);
+                log.debug("Created manifest entry for directory {}", entry);
+                if (!filter.walkDirectory(this.path, attrs)) {
+                    log.debug("Skipping directory: {}", this.path.toAbsolutePath());
+                    return;
+                }
+
+                final List<Ancestor> childAncestors = ImmutableList.<Ancestor>builder()
+                    .addAll(this.ancestors)
+                    .add(new Ancestor(this.path, attrs.fileKey()))
+                    .build();
+                final List<RecursiveAction> tasks = Lists.newArrayList();
+                for (final List<Path> batch : Lists.partition(children, FILE_BATCH_SIZE)) {
+                    tasks.add(new VisitBatchTask(batch, childAncestors));
+                }
+                invokeAll(tasks);
+            }
+        }
+
+        /*
+         * Visits a batch of entries of the same directory. Directories are forked into their own task.
+         */
+        private final class VisitBatchTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            private final List<Path> paths;
+            private final List<Ancestor> ancestors;
+
+            private VisitBatchTask(final List<Path> paths, final List<Ancestor> ancestors) {
+                this.paths = paths;
+                this.ancestors = ancestors;
+            }
+
+            @Override
+            protected void compute() {
+                final List<VisitTask> directoryTasks = Lists.newArrayList();
+                for (final Path path : this.paths) {
+                    if (terminated.get()) {
+                        break;
+                    }
+                    final BasicFileAttributes attrs = readAttributes(path);
+                    if (attrs == null) {
+                        continue;
+                    }
+                    if (attrs.isDirectory()) {
+                        directoryTasks.add(new VisitTask(path, attrs, this.ancestors));
+                    } else {
+                        visitFile(path, attrs);
+                    }
+                }
+                invokeAll(directoryTasks);
+            }
+        }
+    }
+
     /**
      * Representation of the metadata for a job file on a given underlying storage system.
      *
@@ -19,17 +19,30 @@ package com.netflix.genie.common.internal.dtos.v4.converters;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.protobuf.StringValue;
+import com.google.protobuf.Timestamp;
 import com.netflix.genie.common.internal.dtos.DirectoryManifest;
 import com.netflix.genie.common.internal.exceptions.checked.GenieConversionException;
 import com.netflix.genie.proto.AgentManifestMessage;
+import com.netflix.genie.proto.ManifestEntryMessage;
+import com.netflix.genie.proto.ManifestUpdateMessage;
 import org.springframework.validation.annotation.Validated;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotBlank;
 import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Map;
 
 /**
  * Converts {@link DirectoryManifest} from/to {@link AgentManifestMessage} in order to transport manifests
  * over gRPC.
+ * <p>
+ * Manifests are transported either as a JSON string or as a {@link ManifestUpdateMessage}. The latter carries either
+ * a full snapshot of the entries, or only the entries added, changed and removed since the previous update.
  *
  * @author mprimi
  * @since 4.0.0
@@ -74,18 +87,180 @@ public class JobDirectoryManifestProtoConverter {
             .build();
     }
 
+    /**
+     * Construct a {@link AgentManifestMessage} containing a snapshot of all the entries of the given
+     * {@link DirectoryManifest}.
+     *
+     * @param claimedJobId the id of the job this file manifest belongs to
+     * @param sequence     the sequence number of this update
+     * @param manifest     the manifest
+     * @return a {@link AgentManifestMessage}
+     */
+    public AgentManifestMessage manifestSnapshotToProtoMessage(
+        @NotBlank final String claimedJobId,
+        final long sequence,
+        final DirectoryManifest manifest
+    ) {
+        final ManifestUpdateMessage.Builder builder = ManifestUpdateMessage.newBuilder()
+            .setSequence(sequence)
+            .setSnapshot(true);
+        for (final DirectoryManifest.ManifestEntry entry : getEntries(manifest)) {
+            builder.addEntries(this.toEntryProto(entry));
+        }
+        return AgentManifestMessage.newBuilder()
+            .setJobId(claimedJobId)
+            .setManifestUpdate(builder)
+            .build();
+    }
+
+    /**
+     * Construct a {@link AgentManifestMessage} containing only the differences between two manifests of the same
+     * directory.
+     *
+     * @param claimedJobId     the id of the job this file manifest belongs to
+     * @param sequence         the sequence number of this update
+     * @param previousManifest the manifest previously sent
+     * @param manifest         the current manifest
+     * @return a {@link AgentManifestMessage}
+     */
+    public AgentManifestMessage manifestUpdateToProtoMessage(
+        @NotBlank final String claimedJobId,
+        final long sequence,
+        final DirectoryManifest previousManifest,
+        final DirectoryManifest manifest
+    ) {
+        final ManifestUpdateMessage.Builder builder = ManifestUpdateMessage.newBuilder()
+            .setSequence(sequence)
+            .setSnapshot(false);
+        for (final DirectoryManifest.ManifestEntry entry : getEntries(manifest)) {
+            final DirectoryManifest.ManifestEntry previousEntry =
+                previousManifest.getEntry(entry.getPath()).orElse(null);
+            if (previousEntry == null || isContentChanged(entry, previousEntry)) {
+                builder.addEntries(this.toEntryProto(entry));
+            }
+        }
+        for (final DirectoryManifest.ManifestEntry previousEntry : getEntries(previousManifest)) {
+            if (!manifest.hasEntry(previousEntry.getPath())) {
+                builder.addRemovedPaths(previousEntry.getPath());
+            }
+        }
+        return AgentManifestMessage.newBuilder()
+            .setJobId(claimedJobId)
+            .setManifestUpdate(builder)
+            .build();
+    }
+
     /**
      * Load a {@link DirectoryManifest} from a {@link AgentManifestMessage}.
      *
      * @param message the message
      * @return a {@link DirectoryManifest}
-     * @throws GenieConversionException if loading fails
+     * @throws GenieConversionException if loading fails, or if the message is an incremental update
      */
     public DirectoryManifest toManifest(final AgentManifestMessage message) throws GenieConversionException {
-        try {
-            return objectMapper.readValue(message.getManifestJson(), DirectoryManifest.class);
-        } catch (final IOException e) {
-            throw new GenieConversionException("Failed to load manifest", e);
+        return this.toManifest(null, message);
+    }
+
+    /**
+     * Load a {@link DirectoryManifest} from a {@link AgentManifestMessage}, applying it on top of the previous
+     * manifest if the message is an incremental update.
+     *
+     * @param previousManifest the manifest the update applies to, if any
+     * @param message          the message
+     * @return a {@link DirectoryManifest}
+     * @throws GenieConversionException if loading fails, or if the message is an incremental update and no previous
+     *                                  manifest is provided
+     */
+    public DirectoryManifest toManifest(
+        @Nullable final DirectoryManifest previousManifest,
+        final AgentManifestMessage message
+    ) throws GenieConversionException {
+        if (!message.hasManifestUpdate()) {
+            try {
+                return objectMapper.readValue(message.getManifestJson(), DirectoryManifest.class);
+            } catch (final IOException e) {
+                throw new GenieConversionException("Failed to load manifest", e);
+            }
+        }
+
+        final ManifestUpdateMessage update = message.getManifestUpdate();
+        final Map<String, DirectoryManifest.ManifestEntry> entries = Maps.newLinkedHashMap();
+        if (!update.getSnapshot()) {
+            if (previousManifest == null) {
+                throw new GenieConversionException(
+                    "Cannot apply manifest update " + update.getSequence() + " without a previous manifest"
+                );
+            }
+            for (final DirectoryManifest.ManifestEntry entry : getEntries(previousManifest)) {
+                entries.put(entry.getPath(), entry);
+            }
+            for (final String removedPath : update.getRemovedPathsList()) {
+                entries.remove(removedPath);
+            }
+        }
+        for (final ManifestEntryMessage entryMessage : update.getEntriesList()) {
+            entries.put(entryMessage.getPath(), this.toManifestEntry(entryMessage));
         }
+        return new DirectoryManifest(new LinkedHashSet<>(entries.values()));
+    }
+
+    /* Access times are left out, they change whenever a file is read, including by the server transferring it. */
+    private static boolean isContentChanged(
+        final DirectoryManifest.ManifestEntry entry,
+        final DirectoryManifest.ManifestEntry previousEntry
+    ) {
+        return entry.isDirectory() != previousEntry.isDirectory()
+            || entry.getSize() != previousEntry.getSize()
+            || !entry.getLastModifiedTime().equals(previousEntry.getLastModifiedTime())
+            || !entry.getMd5().equals(previousEntry.getMd5())
+            || !entry.getMimeType().equals(previousEntry.getMimeType())
+            || !entry.getChildren().equals(previousEntry.getChildren());
+    }
+
+    private static Iterable<DirectoryManifest.ManifestEntry> getEntries(final DirectoryManifest manifest) {
+        return Iterables.concat(manifest.getDirectories(), manifest.getFiles());
+    }
+
+    private ManifestEntryMessage toEntryProto(final DirectoryManifest.ManifestEntry entry) {
+        final ManifestEntryMessage.Builder builder = ManifestEntryMessage.newBuilder()
+            .setPath(entry.getPath())
+            .setName(entry.getName())
+            .setLastModifiedTime(toTimestamp(entry.getLastModifiedTime()))
+            .setLastAccessTime(toTimestamp(entry.getLastAccessTime()))
+            .setCreationTime(toTimestamp(entry.getCreationTime()))
+            .setDirectory(entry.isDirectory())
+            .setSize(entry.getSize())
+            .addAllChildren(entry.getChildren());
+        entry.getMd5().ifPresent(md5 -> builder.setMd5(StringValue.of(md5)));
+        entry.getMimeType().ifPresent(mimeType -> builder.setMimeType(StringValue.of(mimeType)));
+        entry.getParent().ifPresent(parent -> builder.setParent(StringValue.of(parent)));
+        return builder.build();
+    }
+
+    private DirectoryManifest.ManifestEntry toManifestEntry(final ManifestEntryMessage entryMessage) {
+        return new DirectoryManifest.ManifestEntry(
+            entryMessage.getPath(),
+            entryMessage.getName(),
+            toInstant(entryMessage.getLastModifiedTime()),
+            toInstant(entryMessage.getLastAccessTime()),
+            toInstant(entryMessage.getCreationTime()),
+            entryMessage.getDirectory(),
+            entryMessage.getSize(),
+            entryMessage.hasMd5() ? entryMessage.getMd5().getValue() : null,
+            entryMessage.hasMimeType() ? entryMessage.getMimeType().getValue() : null,
+            entryMessage.hasParent() ? entryMessage.getParent().getValue() : null,
+            new LinkedHashSet<>(entryMessage.getChildrenList())
+        );
+    }
+
+    private static Timestamp toTimestamp(final Instant instant) {
+        return Timestamp.newBuilder()
+            .setSeconds(instant.getEpochSecond())
+            .setNanos(instant.getNano())
+            .build();
+    }
+
+    private static Instant toInstant(final Timestamp timestamp) {
+        return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
     }
 }
@@ -0,0 +1,63 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.common.internal.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties controlling how directory manifests are created.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = DirectoryManifestProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class DirectoryManifestProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.directory-manifest";
+
+    /**
+     * The maximum number of files whose mime type and checksum are remembered between manifests so unchanged files
+     * aren't read again.
+     */
+    @Min(0)
+    private long maxCachedFiles = 100_000L;
+
+    /**
+     * The time in milliseconds after which the mime type and checksum of a file not seen by any manifest are
+     * forgotten.
+     */
+    @Min(1)
+    private long cachedFileExpiration = 1_800_000L;
+
+    /**
+     * The number of threads walking directories and hashing files concurrently when creating manifests.
+     * Defaults to the number of available processors, up to 8.
+     */
+    @Min(1)
+    private int walkerThreads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+}
@@ -18,6 +18,9 @@
 package com.netflix.genie.common.internal.dtos
 
 import com.netflix.genie.common.external.util.GenieObjectMapper
+import io.micrometer.core.instrument.DistributionSummary
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import org.apache.commons.codec.digest.DigestUtils
 import org.junit.Rule
 import org.junit.rules.TemporaryFolder
@@ -29,6 +32,10 @@ import java.nio.charset.StandardCharsets
 import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.attribute.BasicFileAttributes
+import java.nio.file.attribute.FileTime
+import java.time.Instant
+import java.time.temporal.ChronoUnit
+import java.util.concurrent.ForkJoinPool
 
 /**
  * Specifications for {@link DirectoryManifest}.
@@ -164,6 +171,147 @@ class DirectoryManifestSpec extends Specification {
         false      | _
     }
 
+    def "can reuse cached file metadata and report metrics"() {
+        setup:
+        MeterRegistry registry = new SimpleMeterRegistry()
+        DirectoryManifest.Factory factory = new DirectoryManifest.Factory(
+            new DirectoryManifest.Filter() {
+            },
+            registry
+        )
+        // Recently modified files are not cached
+        FileTime modifiedTime = FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS))
+        [
+            this.stdoutPath,
+            this.stderrPath,
+            this.envFilePath,
+            this.exitFilePath,
+            this.clusterSetupScriptPath,
+            this.applicationSetupScriptPath,
+            this.symLinkFileRealPath
+        ].forEach({ Files.setLastModifiedTime(it, modifiedTime) })
+
+        when: "First walk without checksums"
+        def manifest = factory.getDirectoryManifest(this.rootPath, false)
+
+        then:
+        verifyManifest(manifest, false)
+        cacheCount(registry, "hit") == 0
+        cacheCount(registry, "miss") == manifest.getNumFiles()
+        registry.find(DirectoryManifest.Factory.WALK_TIMER_NAME).tag("checksum", "false").timer().count() == 1
+        registry.find(DirectoryManifest.Factory.HASHED_BYTES_DISTRIBUTION_NAME).summary() == null
+
+        when: "Walk with checksums reuses mime types but hashes all files"
+        manifest = factory.getDirectoryManifest(this.rootPath, true)
+
+        then:
+        verifyManifest(manifest, true)
+        cacheCount(registry, "hit") == 0
+        cacheCount(registry, "miss") == 2 * manifest.getNumFiles()
+        hashedBytes(registry).count() == 1
+        hashedBytes(registry).totalAmount() == this.sizeOfFiles
+
+        when: "Walk with checksums again reuses checksums"
+        manifest = factory.getDirectoryManifest(this.rootPath, true)
+
+        then:
+        verifyManifest(manifest, true)
+        cacheCount(registry, "hit") == manifest.getNumFiles()
+        hashedBytes(registry).count() == 2
+        hashedBytes(registry).totalAmount() == this.sizeOfFiles
+
+        when: "A file changes"
+        Files.write(this.envFilePath, "#!/bin/dash".getBytes(StandardCharsets.UTF_8))
+        Files.setLastModifiedTime(this.envFilePath, FileTime.from(modifiedTime.toInstant().plusSeconds(60)))
+        manifest = factory.getDirectoryManifest(this.rootPath, true)
+
+        then:
+        verifyManifest(manifest, true)
+        cacheCount(registry, "hit") == 2 * manifest.getNumFiles() - 1
+        hashedBytes(registry).count() == 3
+        hashedBytes(registry).totalAmount() == this.sizeOfFiles + Files.size(this.envFilePath)
+        registry.find(DirectoryManifest.Factory.WALK_TIMER_NAME).tag("checksum", "true").timer().count() == 3
+    }
+
+    private static double cacheCount(final MeterRegistry registry, final String result) {
+        return registry
+            .find(DirectoryManifest.Factory.FILE_METADATA_CACHE_COUNTER_NAME)
+            .tag("result", result)
+            .counter()
+            .count()
+    }
+
+    private static DistributionSummary hashedBytes(final MeterRegistry registry) {
+        return registry.find(DirectoryManifest.Factory.HASHED_BYTES_DISTRIBUTION_NAME).summary()
+    }
+
+    @Unroll
+    def "can create the same manifest walking in parallel (md5: #includeMd5)"() {
+        setup:
+        ForkJoinPool pool = new ForkJoinPool(4)
+        DirectoryManifest.Filter filter = new DirectoryManifest.Filter() {
+        }
+
+        // Read everything once so access times don't change between the walks compared
+        new DirectoryManifest.Factory().getDirectoryManifest(this.rootPath, true)
+
+        when:
+        def manifest = new DirectoryManifest.Factory(filter, new SimpleMeterRegistry(), pool)
+            .getDirectoryManifest(this.rootPath, includeMd5)
+        def sequentialManifest = new DirectoryManifest.Factory(filter, new SimpleMeterRegistry(), null)
+            .getDirectoryManifest(this.rootPath, includeMd5)
+
+        then:
+        verifyManifest(manifest, includeMd5)
+        manifest == sequentialManifest
+
+        cleanup:
+        pool.shutdown()
+
+        where:
+        includeMd5 | _
+        true       | _
+        false      | _
+    }
+
+    def "can create the same manifest with filter walking in parallel"() {
+        setup:
+        ForkJoinPool pool = new ForkJoinPool(4)
+        DirectoryManifest.Filter filter = new DirectoryManifest.Filter() {
+            @Override
+            boolean includeFile(final Path filePath, final BasicFileAttributes attrs) {
+                return filePath.getFileName().toString() != "env.sh"
+            }
+
+            @Override
+            boolean includeDirectory(final Path dirPath, final BasicFileAttributes attrs) {
+                return dirPath.getFileName().toString() != "cluster"
+            }
+
+            @Override
+            boolean walkDirectory(final Path dirPath, final BasicFileAttributes attrs) {
+                return dirPath.getFileName().toString() != "application"
+            }
+        }
+
+        // Read everything once so access times don't change between the walks compared
+        new DirectoryManifest.Factory().getDirectoryManifest(this.rootPath, true)
+
+        when:
+        def manifest = new DirectoryManifest.Factory(filter, new SimpleMeterRegistry(), pool)
+            .getDirectoryManifest(this.rootPath, false)
+        def sequentialManifest = new DirectoryManifest.Factory(filter, new SimpleMeterRegistry(), null)
+            .getDirectoryManifest(this.rootPath, false)
+
+        then:
+        manifest.getNumFiles() == 5
+        manifest.getNumDirectories() == 4
+        manifest == sequentialManifest
+
+        cleanup:
+        pool.shutdown()
+    }
+
     def "can create a manifest with filter"() {
         when:
         def manifest = new DirectoryManifest.Factory(new DirectoryManifest.Filter() {
@@ -22,9 +22,17 @@ import com.fasterxml.jackson.databind.ObjectMapper
 import com.netflix.genie.common.internal.dtos.DirectoryManifest
 import com.netflix.genie.common.internal.exceptions.checked.GenieConversionException
 import com.netflix.genie.proto.AgentManifestMessage
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
 import spock.lang.Specification
 
+import java.nio.file.Path
+import java.time.Instant
+
 class DirectoryManifestProtoConverterSpec extends Specification {
+    @Rule
+    TemporaryFolder temporaryFolder = new TemporaryFolder()
+
     ObjectMapper objectMapper
     JobDirectoryManifestProtoConverter converter
     static final String JSON_MANIFEST = "{ fake json serialization of manifest }"
@@ -81,4 +89,112 @@ class DirectoryManifestProtoConverterSpec extends Specification {
         Exception e = thrown(GenieConversionException)
         e.getCause() == exception
     }
+
+    def "Manifest snapshot and updates"() {
+        setup:
+        String jobId = "123456"
+        DirectoryManifest.Factory factory = new DirectoryManifest.Factory()
+        Path root = this.temporaryFolder.getRoot().toPath()
+        this.temporaryFolder.newFile("foo.txt").write("foo")
+        this.temporaryFolder.newFile("bar.txt").write("bar")
+        this.temporaryFolder.newFolder("baz")
+        DirectoryManifest manifest1 = factory.getDirectoryManifest(root, true)
+
+        when:
+        AgentManifestMessage snapshotMessage = this.converter.manifestSnapshotToProtoMessage(jobId, 1, manifest1)
+
+        then:
+        0 * objectMapper._
+        snapshotMessage.getJobId() == jobId
+        snapshotMessage.hasManifestUpdate()
+        snapshotMessage.getManifestUpdate().getSequence() == 1
+        snapshotMessage.getManifestUpdate().getSnapshot()
+        snapshotMessage.getManifestUpdate().getEntriesCount() == 4
+        snapshotMessage.getManifestUpdate().getRemovedPathsCount() == 0
+        this.converter.toManifest(snapshotMessage) == manifest1
+
+        when:
+        new File(this.temporaryFolder.getRoot(), "bar.txt").delete()
+        new File(this.temporaryFolder.getRoot(), "baz/qux.txt").write("qux")
+        DirectoryManifest manifest2 = factory.getDirectoryManifest(root, true)
+        AgentManifestMessage updateMessage = this.converter.manifestUpdateToProtoMessage(
+            jobId,
+            2,
+            manifest1,
+            manifest2
+        )
+
+        then:
+        updateMessage.getManifestUpdate().getSequence() == 2
+        !updateMessage.getManifestUpdate().getSnapshot()
+        updateMessage.getManifestUpdate().getRemovedPathsList() == ["bar.txt"]
+        updateMessage.getManifestUpdate().getEntriesList()*.getPath().contains("baz/qux.txt")
+        // Access times of unchanged entries are not sent
+        contentOf(this.converter.toManifest(manifest1, updateMessage)) == contentOf(manifest2)
+
+        when:
+        AgentManifestMessage emptyUpdateMessage = this.converter.manifestUpdateToProtoMessage(
+            jobId,
+            3,
+            manifest2,
+            manifest2
+        )
+
+        then:
+        emptyUpdateMessage.getManifestUpdate().getEntriesCount() == 0
+        emptyUpdateMessage.getManifestUpdate().getRemovedPathsCount() == 0
+        this.converter.toManifest(manifest2, emptyUpdateMessage) == manifest2
+
+        when: "Update without a previous manifest"
+        this.converter.toManifest(updateMessage)
+
+        then:
+        thrown(GenieConversionException)
+    }
+
+    def "Manifest update leaves out entries whose access time changed"() {
+        setup:
+        Instant time = Instant.now()
+        DirectoryManifest.ManifestEntry root = new DirectoryManifest.ManifestEntry(
+            "", "", time, time, time, true, 0L, null, null, null, ["foo.txt", "bar.txt"] as Set
+        )
+        DirectoryManifest.ManifestEntry foo = new DirectoryManifest.ManifestEntry(
+            "foo.txt", "foo.txt", time, time, time, false, 3L, "md5", "text/plain", "", [] as Set
+        )
+        DirectoryManifest.ManifestEntry bar = new DirectoryManifest.ManifestEntry(
+            "bar.txt", "bar.txt", time, time, time, false, 3L, "md5", "text/plain", "", [] as Set
+        )
+        DirectoryManifest.ManifestEntry readFoo = new DirectoryManifest.ManifestEntry(
+            "foo.txt", "foo.txt", time, time.plusSeconds(1), time, false, 3L, "md5", "text/plain", "", [] as Set
+        )
+        DirectoryManifest.ManifestEntry modifiedBar = new DirectoryManifest.ManifestEntry(
+            "bar.txt", "bar.txt", time.plusSeconds(1), time, time, false, 6L, "md5", "text/plain", "", [] as Set
+        )
+
+        when:
+        AgentManifestMessage updateMessage = this.converter.manifestUpdateToProtoMessage(
+            "123456",
+            2,
+            new DirectoryManifest([root, foo, bar] as Set),
+            new DirectoryManifest([root, readFoo, modifiedBar] as Set)
+        )
+
+        then:
+        updateMessage.getManifestUpdate().getEntriesList()*.getPath() == ["bar.txt"]
+        updateMessage.getManifestUpdate().getRemovedPathsCount() == 0
+    }
+
+    private static List<List<Object>> contentOf(final DirectoryManifest manifest) {
+        return (manifest.getDirectories() + manifest.getFiles()).collect { DirectoryManifest.ManifestEntry entry ->
+            [
+                entry.getPath(),
+                entry.isDirectory(),
+                entry.getSize(),
+                entry.getLastModifiedTime(),
+                entry.getMd5(),
+                entry.getMimeType(),
+                entry.getChildren()
+            ]
+        }.sort { it[0] }
+    }
 }
@@ -0,0 +1,44 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.common.internal.properties
+
+import com.netflix.genie.common.internal.dtos.DirectoryManifest
+import spock.lang.Specification
+
+class DirectoryManifestPropertiesSpec extends Specification {
+    def "testDefaultsSettersAndGetters"() {
+        setup:
+        DirectoryManifestProperties properties = new DirectoryManifestProperties()
+
+        expect:
+        properties.getMaxCachedFiles() == DirectoryManifest.Factory.DEFAULT_MAX_CACHED_FILES
+        properties.getCachedFileExpiration() == DirectoryManifest.Factory.DEFAULT_CACHED_FILE_EXPIRATION
+        properties.getWalkerThreads() >= 1
+        properties.getWalkerThreads() <= 8
+
+        when:
+        properties.setMaxCachedFiles(500L)
+        properties.setCachedFileExpiration(60_000L)
+        properties.setWalkerThreads(2)
+
+        then:
+        properties.getMaxCachedFiles() == 500L
+        properties.getCachedFileExpiration() == 60_000L
+        properties.getWalkerThreads() == 2
+    }
+}
@@ -18,6 +18,7 @@
 package com.netflix.genie.common.internal.configs;
 
 import com.netflix.genie.common.internal.dtos.DirectoryManifest;
+import com.netflix.genie.common.internal.properties.DirectoryManifestProperties;
 import com.netflix.genie.common.internal.services.JobArchiveService;
 import com.netflix.genie.common.internal.services.JobArchiver;
 import com.netflix.genie.common.internal.services.JobDirectoryManifestCreatorService;
@@ -31,6 +32,8 @@ import org.springframework.cloud.aws.autoconfigure.context.ContextCredentialsAut
 import org.springframework.cloud.aws.autoconfigure.context.ContextRegionProviderAutoConfiguration;
 import org.springframework.cloud.aws.autoconfigure.context.ContextResourceLoaderAutoConfiguration;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Tests for behavior of {@link CommonServicesAutoConfiguration}.
  *
@@ -124,9 +127,40 @@ class CommonServicesAutoConfigurationTest {
      */
     @Test
     void testDirectoryManifestFactory() {
-        this.contextRunner.run(
-            context -> Assertions.assertThat(context).hasSingleBean(DirectoryManifest.Factory.class)
-        );
+        this.contextRunner
+            .withPropertyValues(
+                DirectoryManifestProperties.PROPERTY_PREFIX + ".max-cached-files=10",
+                DirectoryManifestProperties.PROPERTY_PREFIX + ".cached-file-expiration=60000"
+            )
+            .run(
+                context -> {
+                    Assertions.assertThat(context).hasSingleBean(DirectoryManifest.Factory.class);
+                    Assertions
+                        .assertThat(context.getBean(DirectoryManifestProperties.class).getMaxCachedFiles())
+                        .isEqualTo(10L);
+                    Assertions
+                        .assertThat(context.getBean(DirectoryManifestProperties.class).getCachedFileExpiration())
+                        .isEqualTo(60_000L);
+                }
+            );
+    }
+
+    /**
+     * Make sure the directory manifest walker pool bean is configured as expected.
+     */
+    @Test
+    void testDirectoryManifestWalkerPool() {
+        this.contextRunner
+            .withPropertyValues(DirectoryManifestProperties.PROPERTY_PREFIX + ".walker-threads=3")
+            .run(
+                context -> {
+                    final ForkJoinPool pool = context.getBean("directoryManifestWalkerPool", ForkJoinPool.class);
+                    Assertions.assertThat(pool.getParallelism()).isEqualTo(3);
+                    Assertions
+                        .assertThat(pool.submit(() -> Thread.currentThread().getName()).get())
+                        .startsWith("genie-manifest-walker-");
+                }
+            );
     }
 
     /**
@@ -31,6 +31,7 @@ import com.netflix.genie.common.dto.JobExecution;
 import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.common.dto.JobStatusMessages;
+import com.netflix.genie.common.dto.search.JobSearchResult;
 import com.netflix.genie.common.external.dtos.v4.Criterion;
 import com.netflix.genie.common.external.util.GenieObjectMapper;
 import com.netflix.genie.web.introspection.GenieWebHostInfo;
@@ -346,6 +347,7 @@ public class JobRestControllerIntegrationTest extends RestControllerIntegrationT
         this.checkJobCommand(documentationId, id);
         this.checkJobApplications(documentationId, id);
         this.checkFindJobs(documentationId, id, JOB_USER);
+        this.checkExportJobs(id, JOB_USER);
         this.checkJobArchive(id, archiveJob);
 
         Assert.assertThat(this.jobRepository.count(), Matchers.is(1L));
@@ -964,6 +966,35 @@ public class JobRestControllerIntegrationTest extends RestControllerIntegrationT
             .body(JOBS_LIST_PATH + "[0].id", Matchers.is(id));
     }
 
+    private void checkExportJobs(final String id, final String user) throws IOException {
+        final String export = RestAssured
+            .given(this.getRequestSpecification())
+            .param("user", user)
+            .when()
+            .port(this.port)
+            .get(JOB_EXPORT_API)
+            .then()
+            .statusCode(Matchers.is(HttpStatus.OK.value()))
+            .contentType(Matchers.containsString("application/x-ndjson"))
+            .extract()
+            .asString();
+
+        final String[] lines = export.split("\n");
+        Assert.assertThat(lines.length, Matchers.is(1));
+        final JobSearchResult result = GenieObjectMapper.getMapper().readValue(lines[0], JobSearchResult.class);
+        Assert.assertThat(result.getId(), Matchers.is(id));
+
+        RestAssured
+            .given(this.getRequestSpecification())
+            .param("user", UUID.randomUUID().toString())
+            .when()
+            .port(this.port)
+            .get(JOB_EXPORT_API)
+            .then()
+            .statusCode(Matchers.is(HttpStatus.OK.value()))
+            .body(Matchers.isEmptyString());
+    }
+
     private void testForConflicts(
         final String id,
         final List<String> commandArgs,
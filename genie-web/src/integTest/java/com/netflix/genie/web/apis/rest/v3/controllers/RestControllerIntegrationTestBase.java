@@ -78,6 +78,7 @@ public abstract class RestControllerIntegrationTestBase {
     static final String CLUSTERS_API = "/api/v3/clusters";
     static final String COMMANDS_API = "/api/v3/commands";
     static final String JOBS_API = "/api/v3/jobs";
+    static final String JOB_EXPORT_API = "/api/v3/exports/jobs";
     static final String ID_PATH = "id";
     static final String CREATED_PATH = "created";
     static final String UPDATED_PATH = "updated";
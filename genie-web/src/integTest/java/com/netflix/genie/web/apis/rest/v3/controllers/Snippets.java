@@ -422,6 +422,17 @@ final class Snippets {
             RequestDocumentation
                 .parameterWithName("groupingInstance")
                 .description("The grouping instance the job should be a member of. Use % symbol for regex like search.")
+                .optional(),
+            RequestDocumentation
+                .parameterWithName("after")
+                .description(
+                    "Seek through the jobs instead of paging. Empty for the first page then the id of the last job of"
+                        + " the previous page as found in the next link. Only supported when sorting on created."
+                )
+                .optional(),
+            RequestDocumentation
+                .parameterWithName("count")
+                .description("Whether to count the total number of matching jobs. Defaults to true. Not when seeking.")
                 .optional()
         )
     );
@@ -18,11 +18,16 @@
 package com.netflix.genie.web.data.services.jpa;
 
 import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import com.google.common.collect.Sets;
 import org.apache.commons.lang3.tuple.Pair;
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import javax.persistence.EntityManagerFactory;
+
 /**
  * Integration tests for the {@link JpaAgentConnectionPersistenceServiceImpl} class.
  *
@@ -38,11 +43,15 @@ class JpaAgentConnectionPersistenceServiceImplIntegrationTest extends DBIntegrat
     private static final String HOST2 = "host2";
     private static final String JOB3 = "job3";
     private static final String HOST3 = "host3";
+    private static final String JOB4 = "job4";
 
     // This needs to be injected as a Spring Bean otherwise transactions don't work as there is no proxy
     @Autowired
     private JpaAgentConnectionPersistenceServiceImpl agentConnectionPersistenceService;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     /**
      * Perform assorted operations on persisted connections.
      */
@@ -113,6 +122,80 @@ class JpaAgentConnectionPersistenceServiceImplIntegrationTest extends DBIntegrat
         this.verifyExpectedConnections();
     }
 
+    /**
+     * Save and remove connections in batches.
+     */
+    @Test
+    void batchCreateUpdateDelete() {
+        this.agentConnectionPersistenceService.saveAgentConnection(JOB1, HOST2);
+
+        // Create new connections and migrate an existing one
+        this.agentConnectionPersistenceService.saveAgentConnections(Sets.newHashSet(JOB1, JOB2, JOB3), HOST1);
+        this.verifyExpectedConnections(Pair.of(JOB1, HOST1), Pair.of(JOB2, HOST1), Pair.of(JOB3, HOST1));
+        this.verifyAgentConnectionsOnServer(HOST1, 3L);
+        this.verifyAgentConnectionsOnServer(HOST2, 0L);
+
+        // Connections owned by other servers are not removed
+        this.agentConnectionPersistenceService.saveAgentConnection(JOB3, HOST2);
+        Assertions
+            .assertThat(
+                this.agentConnectionPersistenceService.removeAgentConnections(Sets.newHashSet(JOB1, JOB3), HOST1)
+            )
+            .isEqualTo(1);
+        this.verifyExpectedConnections(Pair.of(JOB2, HOST1), Pair.of(JOB3, HOST2));
+
+        Assertions
+            .assertThat(
+                this.agentConnectionPersistenceService.removeAgentConnections(Sets.newHashSet(JOB2, JOB3), HOST2)
+            )
+            .isEqualTo(1);
+        this.verifyExpectedConnections(Pair.of(JOB2, HOST1));
+    }
+
+    /**
+     * Make sure a batch of new, moved and unchanged connections is saved with one statement of each kind.
+     */
+    @Test
+    void batchSaveUsesBulkStatements() {
+        this.agentConnectionPersistenceService.saveAgentConnection(JOB1, HOST1);
+        this.agentConnectionPersistenceService.saveAgentConnection(JOB2, HOST2);
+
+        final Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            // JOB1 stays, JOB2 moves, JOB3 and JOB4 are new
+            this.agentConnectionPersistenceService.saveAgentConnections(Sets.newHashSet(JOB1, JOB2, JOB3, JOB4), HOST1);
+
+            // One query for the existing connections, one update and one multi-row insert
+            Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(3L);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+        this.verifyExpectedConnections(
+            Pair.of(JOB1, HOST1),
+            Pair.of(JOB2, HOST1),
+            Pair.of(JOB3, HOST1),
+            Pair.of(JOB4, HOST1)
+        );
+        this.verifyAgentConnectionsOnServer(HOST2, 0L);
+
+        // Nothing to move or insert
+        this.agentConnectionPersistenceService.saveAgentConnections(Sets.newHashSet(JOB3, JOB4), HOST1);
+        this.verifyAgentConnectionsOnServer(HOST1, 4L);
+
+        // Removal of a mix of owned and unknown connections
+        Assertions
+            .assertThat(
+                this.agentConnectionPersistenceService.removeAgentConnections(
+                    Sets.newHashSet(JOB2, JOB4, "unknown"),
+                    HOST1
+                )
+            )
+            .isEqualTo(2);
+        this.verifyExpectedConnections(Pair.of(JOB1, HOST1), Pair.of(JOB3, HOST1));
+    }
+
     @SafeVarargs
     private final void verifyExpectedConnections(final Pair<String, String>... expectedConnections) {
         Assertions.assertThat(this.agentConnectionRepository.count()).isEqualTo(expectedConnections.length);
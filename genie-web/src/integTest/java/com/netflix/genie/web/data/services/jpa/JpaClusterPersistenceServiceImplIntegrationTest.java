@@ -814,6 +814,16 @@ class JpaClusterPersistenceServiceImplIntegrationTest extends DBIntegrationTestB
             .containsExactly(COMMAND_1_ID, COMMAND_3_ID, COMMAND_2_ID);
     }
 
+    @Test
+    @DatabaseSetup("JpaClusterPersistenceServiceImplIntegrationTest/init.xml")
+    void testGetCommandIdsForAllClusters() {
+        Assertions
+            .assertThat(this.service.getCommandIdsForAllClusters())
+            .hasSize(2)
+            .containsEntry(CLUSTER_1_ID, Lists.newArrayList(COMMAND_1_ID, COMMAND_3_ID, COMMAND_2_ID))
+            .containsEntry(CLUSTER_2_ID, Lists.newArrayList(COMMAND_4_ID, COMMAND_1_ID, COMMAND_2_ID, COMMAND_3_ID));
+    }
+
     @Test
     void testGetCommandsForClusterNoId() {
         Assertions
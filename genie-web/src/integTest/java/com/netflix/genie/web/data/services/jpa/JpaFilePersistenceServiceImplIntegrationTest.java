@@ -26,6 +26,7 @@ import com.netflix.genie.common.external.dtos.v4.ApplicationStatus;
 import com.netflix.genie.common.external.dtos.v4.ExecutionEnvironment;
 import com.netflix.genie.web.data.entities.FileEntity;
 import com.netflix.genie.web.data.services.ApplicationPersistenceService;
+import com.netflix.genie.web.dtos.BatchDeletionResult;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -118,7 +119,9 @@ class JpaFilePersistenceServiceImplIntegrationTest extends DBIntegrationTestBase
         Assertions.assertThat(this.fileRepository.existsByFile(file4)).isTrue();
         Assertions.assertThat(this.fileRepository.existsByFile(file5)).isTrue();
 
-        Assertions.assertThat(this.filePersistenceService.deleteUnusedFiles(Instant.now())).isEqualTo(2L);
+        final BatchDeletionResult result = this.filePersistenceService.deleteUnusedFiles(Instant.now(), 0L, 1_000);
+        Assertions.assertThat(result.getNumDeleted()).isEqualTo(2L);
+        Assertions.assertThat(result.isLastBatch()).isTrue();
 
         Assertions.assertThat(this.fileRepository.existsByFile(file1)).isFalse();
         Assertions.assertThat(this.fileRepository.existsByFile(file2)).isTrue();
@@ -150,4 +153,29 @@ class JpaFilePersistenceServiceImplIntegrationTest extends DBIntegrationTestBase
         files = this.filePersistenceService.getFiles(Sets.newHashSet(file1, UUID.randomUUID().toString()));
         Assertions.assertThat(files).hasSize(1).contains(fileEntity1);
     }
+
+    @Test
+    void canCreateAndGetFiles() {
+        Assertions.assertThat(this.fileRepository.count()).isEqualTo(0L);
+        final String file1 = UUID.randomUUID().toString();
+        final String file2 = UUID.randomUUID().toString();
+        final String file3 = UUID.randomUUID().toString();
+        this.filePersistenceService.createFileIfNotExists(file1);
+
+        Set<FileEntity> files = this.filePersistenceService.createAndGetFiles(Sets.newHashSet(file1, file2, file3));
+        Assertions
+            .assertThat(files)
+            .hasSize(3)
+            .extracting(FileEntity::getFile)
+            .containsExactlyInAnyOrder(file1, file2, file3);
+        Assertions.assertThat(files).allMatch(fileEntity -> fileEntity.getId() > 0);
+        Assertions.assertThat(this.fileRepository.count()).isEqualTo(3L);
+
+        // Everything exists now so nothing new should be created
+        files = this.filePersistenceService.createAndGetFiles(Sets.newHashSet(file2, file3));
+        Assertions.assertThat(files).extracting(FileEntity::getFile).containsExactlyInAnyOrder(file2, file3);
+        Assertions.assertThat(this.fileRepository.count()).isEqualTo(3L);
+
+        Assertions.assertThat(this.filePersistenceService.createAndGetFiles(Sets.newHashSet())).isEmpty();
+    }
 }
@@ -184,7 +184,12 @@ class JpaJobPersistenceServiceImplIntegrationTest extends DBIntegrationTestBase
             .of(2016, Month.JANUARY.getValue(), 1, 0, 0, 0, 0, ZoneId.of("UTC"))
             .toInstant();
 
-        final long deleted = this.jobPersistenceService.deleteJobsCreatedBefore(cal, JobStatus.getActiveStatuses(), 10);
+        final long deleted = this.jobPersistenceService.deleteJobsCreatedBetween(
+            Instant.EPOCH,
+            cal,
+            JobStatus.getActiveStatuses(),
+            10
+        );
 
         Assertions.assertThat(deleted).isEqualTo(1L);
         Assertions.assertThat(this.jobRepository.count()).isEqualTo(2L);
@@ -200,13 +205,70 @@ class JpaJobPersistenceServiceImplIntegrationTest extends DBIntegrationTestBase
             .of(2016, Month.JANUARY.getValue(), 1, 0, 0, 0, 0, ZoneId.of("UTC"))
             .toInstant();
 
-        final long deleted = this.jobPersistenceService.deleteJobsCreatedBefore(cal, JobStatus.getActiveStatuses(), 1);
+        final long deleted = this.jobPersistenceService.deleteJobsCreatedBetween(
+            Instant.EPOCH,
+            cal,
+            JobStatus.getActiveStatuses(),
+            1
+        );
 
         Assertions.assertThat(deleted).isEqualTo(1L);
         Assertions.assertThat(this.jobRepository.count()).isEqualTo(2L);
         Assertions.assertThat(this.jobRepository.existsByUniqueId(JOB_3_ID)).isTrue();
     }
 
+    @Test
+    @DatabaseSetup("JpaJobPersistenceServiceImplIntegrationTest/init.xml")
+    void canDeleteJobsCreatedBetweenDates() {
+        final Instant from = ZonedDateTime
+            .of(2015, Month.AUGUST.getValue(), 1, 0, 0, 0, 0, ZoneId.of("UTC"))
+            .toInstant();
+        final Instant to = ZonedDateTime
+            .of(2016, Month.JANUARY.getValue(), 1, 0, 0, 0, 0, ZoneId.of("UTC"))
+            .toInstant();
+
+        Assertions
+            .assertThat(
+                this.jobPersistenceService.deleteJobsCreatedBetween(from, to, JobStatus.getActiveStatuses(), 10)
+            )
+            .isEqualTo(1L);
+        Assertions.assertThat(this.jobRepository.count()).isEqualTo(2L);
+        Assertions.assertThat(this.jobRepository.existsByUniqueId(JOB_1_ID)).isFalse();
+        Assertions.assertThat(this.jobRepository.existsByUniqueId(JOB_2_ID)).isTrue();
+        Assertions.assertThat(this.jobRepository.existsByUniqueId(JOB_3_ID)).isTrue();
+
+        // Nothing left in the range which isn't active
+        Assertions
+            .assertThat(
+                this.jobPersistenceService.deleteJobsCreatedBetween(from, to, JobStatus.getActiveStatuses(), 10)
+            )
+            .isEqualTo(0L);
+        Assertions.assertThat(this.jobRepository.count()).isEqualTo(2L);
+    }
+
+    @Test
+    @DatabaseSetup("JpaJobPersistenceServiceImplIntegrationTest/init.xml")
+    void canGetOldestJobCreatedBefore() {
+        final Instant threshold = ZonedDateTime
+            .of(2016, Month.JANUARY.getValue(), 1, 0, 0, 0, 0, ZoneId.of("UTC"))
+            .toInstant();
+        final Instant dayAfterOldestJob = ZonedDateTime
+            .of(2015, Month.AUGUST.getValue(), 12, 0, 0, 0, 0, ZoneId.of("UTC"))
+            .toInstant();
+
+        Assertions
+            .assertThat(this.jobPersistenceService.getOldestJobCreatedBefore(threshold, JobStatus.getActiveStatuses()))
+            .hasValueSatisfying(created -> Assertions.assertThat(created).isBefore(dayAfterOldestJob));
+        Assertions
+            .assertThat(
+                this.jobPersistenceService.getOldestJobCreatedBefore(
+                    threshold.minus(365L, ChronoUnit.DAYS),
+                    JobStatus.getActiveStatuses()
+                )
+            )
+            .isEmpty();
+    }
+
     @Test
     @DatabaseSetup("JpaJobPersistenceServiceImplIntegrationTest/init.xml")
     void canDeleteJobsRegardlessOfStatus() {
@@ -214,7 +276,12 @@ class JpaJobPersistenceServiceImplIntegrationTest extends DBIntegrationTestBase
             .of(2016, Month.JANUARY.getValue(), 1, 0, 0, 0, 0, ZoneId.of("UTC"))
             .toInstant();
 
-        final long deleted = this.jobPersistenceService.deleteJobsCreatedBefore(cal, Sets.newHashSet(), 10);
+        final long deleted = this.jobPersistenceService.deleteJobsCreatedBetween(
+            Instant.EPOCH,
+            cal,
+            Sets.newHashSet(),
+            10
+        );
 
         Assertions.assertThat(deleted).isEqualTo(2L);
         Assertions.assertThat(this.jobRepository.count()).isEqualTo(1L);
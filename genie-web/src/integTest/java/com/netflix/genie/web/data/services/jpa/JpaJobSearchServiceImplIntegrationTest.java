@@ -37,6 +37,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -79,6 +81,8 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
             null,
             null,
             null,
+            null,
+            true,
             page
         );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(5L);
@@ -99,6 +103,8 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
             null,
             null,
             null,
+            null,
+            true,
             page
         );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(3L);
@@ -120,6 +126,8 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
             null,
             null,
             null,
+            null,
+            true,
             page
         );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(1L);
@@ -141,6 +149,8 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
             null,
             "job3Grouping",
             null,
+            null,
+            true,
             page
         );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(1L);
@@ -162,6 +172,8 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
             null,
             null,
             "job2%",
+            null,
+            true,
             page
         );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(1L);
@@ -183,6 +195,8 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
             null,
             "job1%",
             "job2%",
+            null,
+            true,
             page
         );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(0L);
@@ -213,6 +227,8 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
             null,
             null,
             null,
+            null,
+            true,
             page
         );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(0L);
@@ -234,6 +250,8 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
             null,
             null,
             null,
+            null,
+            true,
             page
         );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(0L);
@@ -255,6 +273,8 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
             null,
             null,
             null,
+            null,
+            true,
             page
         );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(5L);
@@ -277,6 +297,8 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
                 null,
                 null,
                 null,
+                null,
+                true,
                 page
             );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(5L);
@@ -298,6 +320,8 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
             null,
             null,
             null,
+            null,
+            true,
             page
         );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(5L);
@@ -319,6 +343,8 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
             null,
             null,
             null,
+            null,
+            true,
             page
         );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(5L);
@@ -340,6 +366,8 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
             null,
             null,
             null,
+            null,
+            true,
             page
         );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(0L);
@@ -361,12 +389,196 @@ class JpaJobSearchServiceImplIntegrationTest extends DBIntegrationTestBase {
             null,
             null,
             null,
+            null,
+            true,
             page
         );
         Assertions.assertThat(jobs.getTotalElements()).isEqualTo(0L);
         Assertions.assertThat(jobs.getContent()).isEmpty();
     }
 
+    @Test
+    @DatabaseSetup("JpaJobSearchServiceImplIntegrationTest/init.xml")
+    void canSeekThroughJobs() {
+        final Pageable page = PageRequest.of(0, 2, Sort.Direction.DESC, "created");
+        Page<JobSearchResult> jobs = this.service.findJobs(
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            true,
+            page
+        );
+        Assertions.assertThat(jobs.getTotalElements()).isEqualTo(5L);
+        Assertions
+            .assertThat(jobs.getContent())
+            .extracting(BaseSearchResult::getId)
+            .containsExactly("agentJob2", "agentJob1");
+
+        jobs = this.service.findJobs(
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            false,
+            page
+        );
+        Assertions.assertThat(jobs.hasNext()).isTrue();
+        Assertions
+            .assertThat(jobs.getContent())
+            .extracting(BaseSearchResult::getId)
+            .containsExactly("agentJob2", "agentJob1");
+
+        jobs = this.service.findJobs(
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            "agentJob1",
+            false,
+            page
+        );
+        Assertions.assertThat(jobs.hasNext()).isTrue();
+        Assertions
+            .assertThat(jobs.getContent())
+            .extracting(BaseSearchResult::getId)
+            .containsExactly(JOB_3_ID, JOB_2_ID);
+
+        jobs = this.service.findJobs(
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            JOB_2_ID,
+            true,
+            page
+        );
+        Assertions.assertThat(jobs.hasNext()).isFalse();
+        Assertions.assertThat(jobs.getContent()).extracting(BaseSearchResult::getId).containsExactly(JOB_1_ID);
+
+        jobs = this.service.findJobs(
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            UUID.randomUUID().toString(),
+            true,
+            page
+        );
+        Assertions.assertThat(jobs.hasNext()).isFalse();
+        Assertions.assertThat(jobs.getContent()).isEmpty();
+    }
+
+    @Test
+    @DatabaseSetup("JpaJobSearchServiceImplIntegrationTest/init.xml")
+    void canExportJobs() {
+        final List<JobSearchResult> exported = new ArrayList<>();
+        Assertions.assertThat(
+            this.service.exportJobs(
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                exported::add
+            )
+        ).isEqualTo(5L);
+        Assertions
+            .assertThat(exported)
+            .extracting(BaseSearchResult::getId)
+            .containsExactly(JOB_1_ID, JOB_2_ID, JOB_3_ID, "agentJob1", "agentJob2");
+
+        exported.clear();
+        Assertions.assertThat(
+            this.service.exportJobs(
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                UUID.randomUUID().toString(),
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                exported::add
+            )
+        ).isEqualTo(0L);
+        Assertions.assertThat(exported).isEmpty();
+    }
+
     @Test
     @DatabaseSetup("JpaJobSearchServiceImplIntegrationTest/init.xml")
     void canFindActiveJobsByHostName() {
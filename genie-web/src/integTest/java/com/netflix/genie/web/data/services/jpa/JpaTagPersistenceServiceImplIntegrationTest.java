@@ -25,6 +25,7 @@ import com.netflix.genie.common.external.dtos.v4.ApplicationRequest;
 import com.netflix.genie.common.external.dtos.v4.ApplicationStatus;
 import com.netflix.genie.web.data.entities.TagEntity;
 import com.netflix.genie.web.data.services.ApplicationPersistenceService;
+import com.netflix.genie.web.dtos.BatchDeletionResult;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -105,7 +106,20 @@ class JpaTagPersistenceServiceImplIntegrationTest extends DBIntegrationTestBase
         Assertions.assertThat(this.tagRepository.existsByTag(tag1)).isTrue();
         Assertions.assertThat(this.tagRepository.existsByTag(tag2)).isTrue();
 
-        Assertions.assertThat(this.tagPersistenceService.deleteUnusedTags(Instant.now())).isEqualTo(1L);
+        final Instant threshold = Instant.now();
+        final BatchDeletionResult firstBatch = this.tagPersistenceService.deleteUnusedTags(threshold, 0L, 1);
+        Assertions.assertThat(firstBatch.getNumDeleted()).isEqualTo(1L);
+        Assertions.assertThat(firstBatch.isLastBatch()).isFalse();
+        final BatchDeletionResult secondBatch
+            = this.tagPersistenceService.deleteUnusedTags(threshold, firstBatch.getLastId(), 1);
+        Assertions.assertThat(secondBatch.getNumDeleted()).isEqualTo(0L);
+        Assertions.assertThat(secondBatch.getLastId()).isGreaterThan(firstBatch.getLastId());
+        Assertions.assertThat(secondBatch.isLastBatch()).isFalse();
+        final BatchDeletionResult lastBatch
+            = this.tagPersistenceService.deleteUnusedTags(threshold, secondBatch.getLastId(), 1);
+        Assertions.assertThat(lastBatch.getNumDeleted()).isEqualTo(0L);
+        Assertions.assertThat(lastBatch.getLastId()).isEqualTo(secondBatch.getLastId());
+        Assertions.assertThat(lastBatch.isLastBatch()).isTrue();
 
         Assertions.assertThat(this.tagRepository.existsByTag(tag1)).isFalse();
         Assertions.assertThat(this.tagRepository.existsByTag(tag2)).isTrue();
@@ -130,4 +144,29 @@ class JpaTagPersistenceServiceImplIntegrationTest extends DBIntegrationTestBase
         tags = this.tagPersistenceService.getTags(Sets.newHashSet(tag1, UUID.randomUUID().toString()));
         Assertions.assertThat(tags).hasSize(1).contains(tagEntity1);
     }
+
+    @Test
+    void canCreateAndGetTags() {
+        Assertions.assertThat(this.tagRepository.count()).isEqualTo(0L);
+        final String tag1 = UUID.randomUUID().toString();
+        final String tag2 = UUID.randomUUID().toString();
+        final String tag3 = UUID.randomUUID().toString();
+        this.tagPersistenceService.createTagIfNotExists(tag1);
+
+        Set<TagEntity> tags = this.tagPersistenceService.createAndGetTags(Sets.newHashSet(tag1, tag2, tag3));
+        Assertions
+            .assertThat(tags)
+            .hasSize(3)
+            .extracting(TagEntity::getTag)
+            .containsExactlyInAnyOrder(tag1, tag2, tag3);
+        Assertions.assertThat(tags).allMatch(tagEntity -> tagEntity.getId() > 0);
+        Assertions.assertThat(this.tagRepository.count()).isEqualTo(3L);
+
+        // Everything exists now so nothing new should be created
+        tags = this.tagPersistenceService.createAndGetTags(Sets.newHashSet(tag2, tag3));
+        Assertions.assertThat(tags).extracting(TagEntity::getTag).containsExactlyInAnyOrder(tag2, tag3);
+        Assertions.assertThat(this.tagRepository.count()).isEqualTo(3L);
+
+        Assertions.assertThat(this.tagPersistenceService.createAndGetTags(Sets.newHashSet())).isEmpty();
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.util;
+
+import com.google.protobuf.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of {@link StreamBuffer} against {@link LegacyStreamBuffer} with one writer thread handing
+ * chunks (as received from an agent) to one reader thread.
+ * <p>
+ * Run with {@code ./gradlew :genie-web:jmh}.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StreamBufferBenchmark {
+
+    private static final int TOTAL_BYTES = 64 * 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    @Param({"4096", "65536", "1048576"})
+    private int chunkSize;
+
+    private ExecutorService writerExecutor;
+    private ByteString chunk;
+    private byte[] readBuffer;
+
+    /**
+     * Set up the writer thread and the data written.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.writerExecutor = Executors.newSingleThreadExecutor();
+        final byte[] data = new byte[this.chunkSize];
+        new Random(0).nextBytes(data);
+        this.chunk = ByteString.copyFrom(data);
+        this.readBuffer = new byte[READ_BUFFER_SIZE];
+    }
+
+    /**
+     * Shut down the writer thread.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.writerExecutor.shutdownNow();
+    }
+
+    /**
+     * Transfer through the previous implementation.
+     *
+     * @return the number of bytes read
+     * @throws Exception if the transfer fails
+     */
+    @Benchmark
+    public long legacyStreamBuffer() throws Exception {
+        final LegacyStreamBuffer buffer = new LegacyStreamBuffer();
+        final Future<?> writer = this.writerExecutor.submit(
+            () -> {
+                for (int written = 0; written < TOTAL_BYTES; written += this.chunkSize) {
+                    buffer.write(this.chunk);
+                }
+                buffer.closeForCompleted();
+            }
+        );
+        final long bytesRead = this.drain(buffer.getInputStream());
+        writer.get();
+        return bytesRead;
+    }
+
+    /**
+     * Transfer through the current implementation.
+     *
+     * @return the number of bytes read
+     * @throws Exception if the transfer fails
+     */
+    @Benchmark
+    public long ringStreamBuffer() throws Exception {
+        final StreamBuffer buffer = new StreamBuffer();
+        final Future<?> writer = this.writerExecutor.submit(
+            () -> {
+                for (int written = 0; written < TOTAL_BYTES; written += this.chunkSize) {
+                    buffer.write(this.chunk);
+                }
+                buffer.closeForCompleted();
+                return null;
+            }
+        );
+        final long bytesRead = this.drain(buffer.getInputStream());
+        writer.get();
+        return bytesRead;
+    }
+
+    private long drain(final InputStream inputStream) throws IOException {
+        long bytesRead = 0;
+        int read;
+        while ((read = inputStream.read(this.readBuffer, 0, READ_BUFFER_SIZE)) != -1) {
+            bytesRead += read;
+        }
+        return bytesRead;
+    }
+}
@@ -27,14 +27,19 @@ import com.netflix.genie.common.internal.exceptions.checked.GenieConversionExcep
 import com.netflix.genie.proto.AgentFileMessage;
 import com.netflix.genie.proto.AgentManifestMessage;
 import com.netflix.genie.proto.FileStreamServiceGrpc;
+import com.netflix.genie.proto.ManifestUpdateMessage;
 import com.netflix.genie.proto.ServerAckMessage;
 import com.netflix.genie.proto.ServerControlMessage;
 import com.netflix.genie.proto.ServerFileRequestMessage;
+import com.netflix.genie.proto.ServerManifestResyncMessage;
 import com.netflix.genie.web.agent.resources.AgentFileResourceImpl;
 import com.netflix.genie.web.agent.services.AgentFileStreamService;
+import com.netflix.genie.web.properties.AgentFileStreamProperties;
+import com.netflix.genie.web.util.MetricsUtils;
 import com.netflix.genie.web.util.StreamBuffer;
 import io.grpc.stub.StreamObserver;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.scheduling.TaskScheduler;
@@ -48,6 +53,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -58,9 +64,13 @@ import java.util.concurrent.atomic.AtomicReference;
  * <p>
  * Implementation overview:
  * Each agent maintains a single 'sync' channel, through which manifests are pushed to the server.
+ * Agents may push a full snapshot followed by incremental updates. If an update can't be applied to the latest
+ * manifest (for example because one was missed), the server asks the agent for a new snapshot.
  * On top of the same channel, the server can request a file.
  * When a file is requested, the agent opens a separate 'transmit' stream and sends the file in chunks.
- * The server acknowledges a chunk in order to request the next one.
+ * The request tells the agent how many chunks it can send ahead (the window). As chunks are consumed, the server
+ * acknowledges them in batches, granting the agent credit to send more. Agents which don't advertise support for a
+ * window are acknowledged after every chunk.
  * <p>
  * This service returns a resource immediately, but maintains a handle on a buffer where data is written as it is
  * received.
@@ -76,6 +86,10 @@ public class GRpcAgentFileStreamServiceImpl
     private static final long FILE_TRANSFER_BEGIN_TIMEOUT_MILLIS = 3000;
     private static final String PENDING_TRANSFERS_GAUGE_NAME = "genie.agents.fileTransfers.pending.gauge";
     private static final String IN_PROGRESS_TRANSFERS_GAUGE_NAME = "genie.agents.fileTransfers.inProgress.gauge";
+    private static final String TRANSFER_TIMER_NAME = "genie.agents.fileTransfers.transfer.timer";
+    private static final String TRANSFER_SIZE_DISTRIBUTION_NAME = "genie.agents.fileTransfers.transferSize.summary";
+    private static final String TRANSFER_THROUGHPUT_DISTRIBUTION_NAME
+        = "genie.agents.fileTransfers.throughput.summary";
 
     private final Map<String, ControlStreamObserver> jobIdControlStreamMap = Maps.newConcurrentMap();
     private final Map<String, StreamBuffer> pendingTransferBuffersMap = Maps.newConcurrentMap();
@@ -83,6 +97,7 @@ public class GRpcAgentFileStreamServiceImpl
     private final Map<String, StreamBuffer> inProgressTransferBuffersMap = Maps.newConcurrentMap();
     private final JobDirectoryManifestProtoConverter converter;
     private final TaskScheduler taskScheduler;
+    private final AgentFileStreamProperties properties;
     private final MeterRegistry registry;
 
     /**
@@ -90,15 +105,18 @@ public class GRpcAgentFileStreamServiceImpl
      *
      * @param converter     The {@link JobDirectoryManifestProtoConverter} instance to use
      * @param taskScheduler A {@link TaskScheduler} instance to use
+     * @param properties    The {@link AgentFileStreamProperties} controlling chunk size and window of transfers
      * @param registry      The meter registry
      */
     public GRpcAgentFileStreamServiceImpl(
         final JobDirectoryManifestProtoConverter converter,
         final TaskScheduler taskScheduler,
+        final AgentFileStreamProperties properties,
         final MeterRegistry registry
     ) {
         this.converter = converter;
         this.taskScheduler = taskScheduler;
+        this.properties = properties;
         this.registry = registry;
         this.registry.gaugeMapSize(PENDING_TRANSFERS_GAUGE_NAME, Sets.newHashSet(), pendingTransferBuffersMap);
         this.registry.gaugeMapSize(IN_PROGRESS_TRANSFERS_GAUGE_NAME, Sets.newHashSet(), inProgressTransferBuffersMap);
@@ -109,6 +127,25 @@ public class GRpcAgentFileStreamServiceImpl
      */
     @Override
     public Optional<AgentFileResource> getResource(final String jobId, final Path relativePath, final URI uri) {
+        return this.getResource(jobId, relativePath, uri, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<AgentFileResource> getResource(
+        final String jobId,
+        final Path relativePath,
+        final URI uri,
+        final long startOffset,
+        final long endOffset
+    ) {
+        if (startOffset < 0 || endOffset < startOffset) {
+            throw new IllegalArgumentException(
+                "Invalid range [" + startOffset + ", " + endOffset + ") requested for " + relativePath
+            );
+        }
 
         final ControlStreamObserver streamObserver = this.jobIdControlStreamMap.get(jobId);
         if (streamObserver == null) {
@@ -144,33 +181,35 @@ public class GRpcAgentFileStreamServiceImpl
             jobId
         );
 
-        // TODO: code upstream of here assumes files is requested in its entirety.
-        // But rest of the code downstream actually treats everything as a range request.
-        final int startOffset = 0;
-        final int endOffset = Math.toIntExact(manifestEntry.getSize());
+        // Clamp the requested range to the size of the file as per latest manifest
+        final long fileSize = manifestEntry.getSize();
+        final long rangeStart = Math.min(startOffset, fileSize);
+        final long rangeEnd = Math.min(endOffset, fileSize);
 
         // Allocate and park the buffer that will store the data in transit.
-        final StreamBuffer buffer = new StreamBuffer();
+        final StreamBuffer buffer = new StreamBuffer(this.properties.getBufferCapacity());
 
-        if (endOffset - startOffset == 0) {
+        if (rangeEnd - rangeStart == 0) {
             log.debug("Transfer {} file is empty, completing", fileTransferId);
             // When requesting an empty file (or a range of 0 bytes), short-circuit and just return an empty resource.
             buffer.closeForCompleted();
         } else {
-            log.debug("Transfer {} initiating (offsets: ({}-{}])", fileTransferId, startOffset, endOffset);
+            log.debug("Transfer {} initiating (offsets: [{}-{}))", fileTransferId, rangeStart, rangeEnd);
 
             // Expecting some data. Track this stream and its buffer so incoming chunks can be appended.
             this.pendingTransferBuffersMap.put(fileTransferId, buffer);
 
             // Request file over control channel
-            streamObserver.responseObserver.onNext(
+            streamObserver.sendControlMessage(
                 ServerControlMessage.newBuilder()
                     .setServerFileRequest(
                         ServerFileRequestMessage.newBuilder()
                             .setStreamId(fileTransferId)
                             .setRelativePath(relativePath.toString())
-                            .setStartOffset(startOffset)
-                            .setEndOffset(endOffset)
+                            .setStartOffset(rangeStart)
+                            .setEndOffset(rangeEnd)
+                            .setChunkSize(this.properties.getChunkSize())
+                            .setWindowSize(this.properties.getWindowSize())
                             .build()
                     )
                     .build()
@@ -193,7 +232,7 @@ public class GRpcAgentFileStreamServiceImpl
 
         final AgentFileResource resource = AgentFileResourceImpl.forAgentFile(
             uri,
-            manifestEntry.getSize(),
+            rangeEnd - rangeStart,
             manifestEntry.getLastModifiedTime(),
             Paths.get(manifestEntry.getPath()),
             jobId,
@@ -292,7 +331,14 @@ public class GRpcAgentFileStreamServiceImpl
         // Write into it, if the stream is still there
         if (streamBuffer != null) {
             log.debug("Writing {} bytes into stream of transfer {}", data.size(), streamId);
-            streamBuffer.write(data);
+            try {
+                streamBuffer.write(data);
+            } catch (final InterruptedException e) {
+                log.warn("Interrupted while writing into stream of transfer {}", streamId);
+                Thread.currentThread().interrupt();
+                this.inProgressTransferBuffersMap.remove(streamId);
+                streamBuffer.closeForError(e);
+            }
         }
     }
 
@@ -302,6 +348,7 @@ public class GRpcAgentFileStreamServiceImpl
         final Throwable t
     ) {
         log.error("Error in file transfer stream: {}: {}", streamId, t.getMessage(), t);
+        this.recordTransferMetrics(fileTransferStreamObserver, MetricsUtils.newFailureTagsSetForException(t));
 
         this.pendingTransferObserversSet.remove(fileTransferStreamObserver);
 
@@ -323,6 +370,7 @@ public class GRpcAgentFileStreamServiceImpl
         @Nullable final String streamId
     ) {
         log.info("Completed file transfer: {}", streamId);
+        this.recordTransferMetrics(fileTransferStreamObserver, MetricsUtils.newSuccessTagsSet());
         this.pendingTransferObserversSet.remove(fileTransferStreamObserver);
 
         final StreamBuffer pendingTransferBuffer = this.pendingTransferBuffersMap.remove(streamId);
@@ -336,11 +384,34 @@ public class GRpcAgentFileStreamServiceImpl
         }
     }
 
+    private void recordTransferMetrics(
+        final FileTransferStreamObserver fileTransferStreamObserver,
+        final Set<Tag> tags
+    ) {
+        final long elapsedNanos = System.nanoTime() - fileTransferStreamObserver.startTime;
+        final long bytesReceived = fileTransferStreamObserver.bytesReceived;
+        this.registry
+            .timer(TRANSFER_TIMER_NAME, tags)
+            .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        this.registry
+            .summary(TRANSFER_SIZE_DISTRIBUTION_NAME, tags)
+            .record(bytesReceived);
+        if (elapsedNanos > 0) {
+            // Bytes per second
+            this.registry
+                .summary(TRANSFER_THROUGHPUT_DISTRIBUTION_NAME, tags)
+                .record(bytesReceived * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        }
+    }
+
     private static class ControlStreamObserver implements StreamObserver<AgentManifestMessage> {
         private final GRpcAgentFileStreamServiceImpl gRpcAgentFileStreamService;
         private final StreamObserver<ServerControlMessage> responseObserver;
         private final AtomicReference<DirectoryManifest> manifestRef = new AtomicReference<>();
         private final AtomicReference<String> jobIdRef = new AtomicReference<>();
+        // Only accessed from gRPC callbacks, which are serialized for a given call
+        private long lastSequence;
+        private boolean resyncRequested;
 
         ControlStreamObserver(
             final GRpcAgentFileStreamServiceImpl gRpcAgentFileStreamService,
@@ -362,13 +433,45 @@ public class GRpcAgentFileStreamServiceImpl
                 this.gRpcAgentFileStreamService.registerControlStream(jobId, this);
             }
 
-            // Save the manifest just received
+            if (!value.hasManifestUpdate()) {
+                // Save the manifest just received
+                try {
+                    manifestRef.set(
+                        this.gRpcAgentFileStreamService.converter.toManifest(value)
+                    );
+                } catch (GenieConversionException e) {
+                    log.warn("Failed to parse manifest for job id: {}", jobId, e);
+                }
+                return;
+            }
+
+            final ManifestUpdateMessage update = value.getManifestUpdate();
+            if (!update.getSnapshot()) {
+                if (this.resyncRequested) {
+                    // Updates are useless until the requested snapshot arrives
+                    return;
+                } else if (update.getSequence() != this.lastSequence + 1) {
+                    log.warn(
+                        "Missed manifest updates for job id: {} (expected: {}, received: {})",
+                        jobId,
+                        this.lastSequence + 1,
+                        update.getSequence()
+                    );
+                    this.requestResync();
+                    return;
+                }
+            }
+
+            // Apply the update to the latest manifest
             try {
                 manifestRef.set(
-                    this.gRpcAgentFileStreamService.converter.toManifest(value)
+                    this.gRpcAgentFileStreamService.converter.toManifest(manifestRef.get(), value)
                 );
+                this.lastSequence = update.getSequence();
+                this.resyncRequested = false;
             } catch (GenieConversionException e) {
-                log.warn("Failed to parse manifest for job id: {}", jobId, e);
+                log.warn("Failed to apply manifest update for job id: {}", jobId, e);
+                this.requestResync();
             }
         }
 
@@ -384,6 +487,20 @@ public class GRpcAgentFileStreamServiceImpl
             this.unregisterStream();
         }
 
+        private void requestResync() {
+            this.resyncRequested = true;
+            this.sendControlMessage(
+                ServerControlMessage.newBuilder()
+                    .setServerManifestResync(ServerManifestResyncMessage.getDefaultInstance())
+                    .build()
+            );
+        }
+
+        // Messages are sent from gRPC callbacks and from request threads, and the response observer is not thread safe
+        private synchronized void sendControlMessage(final ServerControlMessage message) {
+            this.responseObserver.onNext(message);
+        }
+
         private void unregisterStream() {
             final String jobId = jobIdRef.get();
             if (jobId != null) {
@@ -397,6 +514,11 @@ public class GRpcAgentFileStreamServiceImpl
         private final GRpcAgentFileStreamServiceImpl gRpcAgentFileStreamService;
         private final StreamObserver<ServerAckMessage> responseObserver;
         private final AtomicReference<String> streamId = new AtomicReference<>();
+        private final long startTime = System.nanoTime();
+        // Only accessed from gRPC callbacks, which are serialized for a given call
+        private long bytesReceived;
+        private int windowSize;
+        private int unacknowledgedChunks;
 
         FileTransferStreamObserver(
             final GRpcAgentFileStreamServiceImpl gRpcAgentFileStreamService,
@@ -417,6 +539,8 @@ public class GRpcAgentFileStreamServiceImpl
 
             if (streamId.compareAndSet(null, messageStreamId)) {
                 log.debug("Received first chunk for transfer: {}", messageStreamId);
+                // Agents advertise the window they honor in the first chunk. Older agents wait for each ACK.
+                this.windowSize = value.getWindowSize();
             }
 
             if (!messageStreamId.equals(streamId.get())) {
@@ -435,10 +559,19 @@ public class GRpcAgentFileStreamServiceImpl
                 value.getData()
             );
 
-            // Send ACK after successfully enqueuing chunk for consumption
-            this.responseObserver.onNext(
-                ServerAckMessage.newBuilder().build()
-            );
+            this.bytesReceived += value.getData().size();
+
+            // Send ACK after successfully enqueuing chunk(s) for consumption.
+            // Credits are granted in batches of half the window so the agent never runs dry while waiting for them.
+            this.unacknowledgedChunks++;
+            if (this.unacknowledgedChunks >= Math.max(1, this.windowSize / 2)) {
+                this.responseObserver.onNext(
+                    ServerAckMessage.newBuilder()
+                        .setCredits(this.unacknowledgedChunks)
+                        .build()
+                );
+                this.unacknowledgedChunks = 0;
+            }
         }
 
         @Override
@@ -449,6 +582,7 @@ public class GRpcAgentFileStreamServiceImpl
         @Override
         public void onCompleted() {
             this.gRpcAgentFileStreamService.handleFileTransferCompletion(this, streamId.get());
+            this.responseObserver.onCompleted();
         }
     }
 
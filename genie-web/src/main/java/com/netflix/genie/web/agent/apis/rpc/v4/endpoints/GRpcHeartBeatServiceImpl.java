@@ -17,12 +17,14 @@
  */
 package com.netflix.genie.web.agent.apis.rpc.v4.endpoints;
 
-import com.google.common.collect.Maps;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.netflix.genie.proto.AgentHeartBeat;
 import com.netflix.genie.proto.HeartBeatServiceGrpc;
 import com.netflix.genie.proto.ServerHeartBeat;
 import com.netflix.genie.web.agent.services.AgentRoutingService;
+import com.netflix.genie.web.properties.AgentHeartBeatProperties;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
@@ -30,14 +32,25 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.scheduling.TaskScheduler;
 
 import javax.annotation.PreDestroy;
-import java.util.Map;
+import java.time.Instant;
+import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An edge gRPC service that uses bi-directional streaming.
  * This is useful to reliably track which connection is handled by which server and to detect disconnections on both
  * ends.
+ * <p>
+ * Streams are tracked in a concurrent map and heartbeats are sent without holding any global lock, skipping streams
+ * whose transport is not ready to accept more messages. Connections and disconnections are not reported to the
+ * {@link AgentRoutingService} from gRPC threads, they are queued and dispatched in order, in batches, by a task
+ * running on the heartbeat scheduler.
  *
  * @author mprimi
  * @since 4.0.0
@@ -45,10 +58,13 @@ import java.util.concurrent.ScheduledFuture;
 @Slf4j
 public class GRpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServiceImplBase {
 
-    private static final long HEART_BEAT_PERIOD_MILLIS = 5_000L; // TODO make configurable
     private static final String HEARTBEATING_GAUGE_NAME = "genie.agents.heartbeating.gauge";
-    private final Map<String, AgentStreamRecord> activeStreamsMap = Maps.newHashMap();
+    private final ConcurrentMap<String, AgentStreamRecord> activeStreamsMap = new ConcurrentHashMap<>();
+    private final Queue<ConnectionEvent> connectionEvents = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean connectionEventsDispatchScheduled = new AtomicBoolean(false);
+    private final Object connectionEventsDispatchLock = new Object();
     private final ScheduledFuture<?> sendHeartbeatsFuture;
+    private final TaskScheduler taskScheduler;
     private MeterRegistry registry;
     private final AgentRoutingService agentRoutingService;
 
@@ -57,17 +73,20 @@ public class GRpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServ
      *
      * @param agentRoutingService The {@link AgentRoutingService} implementation to use
      * @param taskScheduler       The {@link TaskScheduler} instance to use
+     * @param properties          The {@link AgentHeartBeatProperties} controlling the heartbeat period
      * @param registry            The meter registry
      */
     public GRpcHeartBeatServiceImpl(
         final AgentRoutingService agentRoutingService,
         final TaskScheduler taskScheduler,
+        final AgentHeartBeatProperties properties,
         final MeterRegistry registry
     ) {
         this.agentRoutingService = agentRoutingService;
+        this.taskScheduler = taskScheduler;
         this.sendHeartbeatsFuture = taskScheduler.scheduleWithFixedDelay(
             this::sendHeartbeats,
-            HEART_BEAT_PERIOD_MILLIS
+            properties.getSendInterval()
         );
         this.registry = registry;
 
@@ -83,15 +102,18 @@ public class GRpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServ
             sendHeartbeatsFuture.cancel(false);
         }
 
-        synchronized (activeStreamsMap) {
-            for (final AgentStreamRecord agentStreamRecord : activeStreamsMap.values()) {
-                agentStreamRecord.responseObserver.onCompleted();
+        for (final String streamId : Lists.newArrayList(activeStreamsMap.keySet())) {
+            final AgentStreamRecord agentStreamRecord = activeStreamsMap.remove(streamId);
+            if (agentStreamRecord != null) {
+                agentStreamRecord.complete();
                 if (agentStreamRecord.hasJobId()) {
-                    notifyAgentDisconnected(agentStreamRecord.getJobId());
+                    queueConnectionEvent(agentStreamRecord.getJobId(), false);
                 }
             }
-            activeStreamsMap.clear();
         }
+
+        // Don't leave anything behind, the scheduler may be going away too
+        dispatchConnectionEvents();
     }
 
     /**
@@ -99,10 +121,8 @@ public class GRpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServ
      * Using the connection ensures server-side eventually detects a broken connection.
      */
     private void sendHeartbeats() {
-        synchronized (activeStreamsMap) {
-            for (final AgentStreamRecord agentStreamRecord : activeStreamsMap.values()) {
-                agentStreamRecord.responseObserver.onNext(ServerHeartBeat.getDefaultInstance());
-            }
+        for (final AgentStreamRecord agentStreamRecord : activeStreamsMap.values()) {
+            agentStreamRecord.sendHeartBeat();
         }
     }
 
@@ -116,11 +136,9 @@ public class GRpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServ
         // Handle new stream / client connection
         final String streamId = UUID.randomUUID().toString();
         final RequestObserver requestObserver = new RequestObserver(this, streamId);
-        synchronized (activeStreamsMap) {
 
-            // Create a record for this connection
-            activeStreamsMap.put(streamId, new AgentStreamRecord(responseObserver));
-        }
+        // Create a record for this connection
+        activeStreamsMap.put(streamId, new AgentStreamRecord(responseObserver));
         return requestObserver;
     }
 
@@ -129,10 +147,7 @@ public class GRpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServ
         final AgentHeartBeat agentHeartBeat
     ) {
         // Pull the record, if one exists
-        final AgentStreamRecord agentStreamRecord;
-        synchronized (activeStreamsMap) {
-            agentStreamRecord = activeStreamsMap.get(streamId);
-        }
+        final AgentStreamRecord agentStreamRecord = activeStreamsMap.get(streamId);
 
         final String claimedJobId = agentHeartBeat.getClaimedJobId();
         if (agentStreamRecord == null) {
@@ -144,56 +159,93 @@ public class GRpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServ
             final boolean isFirstHeartBeat = agentStreamRecord.updateRecord(claimedJobId);
             // On first heartbeat, notify listeners of a new agent connection
             if (isFirstHeartBeat) {
-                notifyAgentConnected(agentStreamRecord.getJobId());
+                queueConnectionEvent(agentStreamRecord.getJobId(), true);
             }
         }
     }
 
     private void handleStreamCompletion(final String streamId) {
         // Pull the record, if one exists
-        final AgentStreamRecord agentStreamRecord;
-        synchronized (activeStreamsMap) {
-            agentStreamRecord = activeStreamsMap.remove(streamId);
-        }
+        final AgentStreamRecord agentStreamRecord = activeStreamsMap.remove(streamId);
 
         if (agentStreamRecord == null) {
             log.warn("Received completion from an unknown stream");
         } else {
-            agentStreamRecord.responseObserver.onCompleted();
+            agentStreamRecord.complete();
             if (agentStreamRecord.hasJobId()) {
-                notifyAgentDisconnected(agentStreamRecord.getJobId());
+                queueConnectionEvent(agentStreamRecord.getJobId(), false);
             }
         }
     }
 
     private void handleStreamError(final String streamId, final Throwable t) {
         // Pull the record, if one exists
-        final AgentStreamRecord agentStreamRecord;
-        synchronized (activeStreamsMap) {
-            agentStreamRecord = activeStreamsMap.remove(streamId);
-        }
+        final AgentStreamRecord agentStreamRecord = activeStreamsMap.remove(streamId);
 
         if (agentStreamRecord == null) {
             log.warn("Received error from an unknown stream");
         } else {
-            agentStreamRecord.responseObserver.onError(t);
+            agentStreamRecord.fail(t);
             if (agentStreamRecord.hasJobId()) {
-                notifyAgentDisconnected(agentStreamRecord.getJobId());
+                queueConnectionEvent(agentStreamRecord.getJobId(), false);
             }
         }
     }
 
-    private void notifyAgentConnected(final String jobId) {
-        agentRoutingService.handleClientConnected(jobId);
+    private void queueConnectionEvent(final String jobId, final boolean connected) {
+        this.connectionEvents.add(new ConnectionEvent(jobId, connected));
+        // Schedule a dispatch unless one is already pending, it will pick up this event too
+        if (this.connectionEventsDispatchScheduled.compareAndSet(false, true)) {
+            this.taskScheduler.schedule(this::dispatchConnectionEvents, Instant.now());
+        }
     }
 
-    private void notifyAgentDisconnected(final String jobId) {
-        agentRoutingService.handleClientDisconnected(jobId);
+    private void dispatchConnectionEvents() {
+        // A single dispatcher at the time preserves the order of connection and disconnection of each job
+        synchronized (this.connectionEventsDispatchLock) {
+            // Clear the flag before draining, events queued from here on trigger a new dispatch
+            this.connectionEventsDispatchScheduled.set(false);
+            final List<ConnectionEvent> batch = Lists.newArrayList();
+            ConnectionEvent event;
+            while ((event = this.connectionEvents.poll()) != null) {
+                batch.add(event);
+            }
+            if (!batch.isEmpty()) {
+                log.debug("Dispatching {} agent connection events", batch.size());
+            }
+            for (final ConnectionEvent connectionEvent : batch) {
+                try {
+                    if (connectionEvent.connected) {
+                        agentRoutingService.handleClientConnected(connectionEvent.jobId);
+                    } else {
+                        agentRoutingService.handleClientDisconnected(connectionEvent.jobId);
+                    }
+                } catch (final RuntimeException e) {
+                    log.error(
+                        "Failed to handle {} of agent running job {}",
+                        connectionEvent.connected ? "connection" : "disconnection",
+                        connectionEvent.jobId,
+                        e
+                    );
+                }
+            }
+        }
+    }
+
+    private static class ConnectionEvent {
+        private final String jobId;
+        private final boolean connected;
+
+        ConnectionEvent(final String jobId, final boolean connected) {
+            this.jobId = jobId;
+            this.connected = connected;
+        }
     }
 
     private static class AgentStreamRecord {
         private final StreamObserver<ServerHeartBeat> responseObserver;
         private String claimedJobId;
+        private boolean closed;
 
         AgentStreamRecord(
             final StreamObserver<ServerHeartBeat> responseObserver
@@ -210,13 +262,48 @@ public class GRpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServ
             }
         }
 
-        String getJobId() {
+        synchronized String getJobId() {
             return claimedJobId;
         }
 
-        boolean hasJobId() {
+        synchronized boolean hasJobId() {
             return !StringUtils.isBlank(claimedJobId);
         }
+
+        // Observers are not thread safe, calls to the same stream are serialized on the record
+        synchronized void sendHeartBeat() {
+            if (this.closed) {
+                return;
+            }
+            if (
+                this.responseObserver instanceof ServerCallStreamObserver
+                    && !((ServerCallStreamObserver<?>) this.responseObserver).isReady()
+            ) {
+                // The previous heartbeat is still waiting to be sent, no need to queue another one
+                log.debug("Skipping heartbeat for stream not ready to send");
+                return;
+            }
+            try {
+                this.responseObserver.onNext(ServerHeartBeat.getDefaultInstance());
+            } catch (final RuntimeException e) {
+                // Don't let a broken stream stop the others from receiving their heartbeat
+                log.warn("Failed to send heartbeat: {}", e.getMessage());
+            }
+        }
+
+        synchronized void complete() {
+            if (!this.closed) {
+                this.closed = true;
+                this.responseObserver.onCompleted();
+            }
+        }
+
+        synchronized void fail(final Throwable t) {
+            if (!this.closed) {
+                this.closed = true;
+                this.responseObserver.onError(t);
+            }
+        }
     }
 
     private static class RequestObserver implements StreamObserver<AgentHeartBeat> {
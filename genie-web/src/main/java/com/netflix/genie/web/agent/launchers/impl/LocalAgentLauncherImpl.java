@@ -40,13 +40,24 @@ import org.apache.commons.exec.ExecuteException;
 import org.apache.commons.exec.Executor;
 import org.apache.commons.exec.PumpStreamHandler;
 import org.apache.commons.lang3.SystemUtils;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+import javax.annotation.Nullable;
 import javax.validation.Valid;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Implementation of {@link AgentLauncher} which launched Agent instances on the local Genie hardware.
@@ -60,7 +71,10 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
     private static final String RUN_USER_PLACEHOLDER = "<GENIE_USER>";
     private static final String SETS_ID = "setsid";
     private static final Object MEMORY_CHECK_LOCK = new Object();
-
+    private static final String STANDBY_AGENT_ASSIGNMENTS_COUNTER_NAME =
+        "genie.agents.launcher.standby.assignments.counter";
+    private static final String HIT_TAG = "hit";
+    private static final String STANDBY_AGENT_WATCHER_THREAD_NAME_PREFIX = "genie-standby-agent-watcher-";
 
     private final String hostname;
     private final JobSearchService jobSearchService;
@@ -68,6 +82,11 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
     private final ExecutorFactory executorFactory;
     private final MeterRegistry registry;
     private final Executor sharedExecutor;
+    private final TaskScheduler taskScheduler;
+    private final StandbyAgentPool standbyAgentPool;
+    private final ExecutorService standbyAgentWatcher;
+    // Standby agents which have not exited yet
+    private final ConcurrentMap<Process, AgentResultHandler> standbyAgentResultHandlers = new ConcurrentHashMap<>();
     private int rpcPort;
 
     /**
@@ -79,6 +98,7 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
      * @param launcherProperties The properties from the configuration that control agent behavior
      * @param executorFactory    A {@link ExecutorFactory} to create {@link org.apache.commons.exec.Executor}
      *                           instances
+     * @param taskScheduler      The {@link TaskScheduler} used to keep the pool of standby agents full
      * @param registry           Metrics repository
      */
     public LocalAgentLauncherImpl(
@@ -87,6 +107,7 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
         final DataServices dataServices,
         final LocalAgentLauncherProperties launcherProperties,
         final ExecutorFactory executorFactory,
+        final TaskScheduler taskScheduler,
         final MeterRegistry registry
     ) {
         this.hostname = hostInfo.getHostname();
@@ -96,6 +117,33 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
         this.executorFactory = executorFactory;
         this.registry = registry;
         this.sharedExecutor = this.executorFactory.newInstance(false);
+        this.taskScheduler = taskScheduler;
+
+        if (this.launcherProperties.getStandbyPoolSize() < 1) {
+            this.standbyAgentPool = null;
+            this.standbyAgentWatcher = null;
+        } else if (this.launcherProperties.isRunAsUserEnabled()) {
+            // Standby agents are started before the user is known
+            log.warn("Standby agents can't be used when agents run as the job user, not starting any");
+            this.standbyAgentPool = null;
+            this.standbyAgentWatcher = null;
+        } else {
+            this.standbyAgentPool = new StandbyAgentPool(
+                this.launcherProperties.getStandbyPoolSize(),
+                this.launcherProperties.getStandbyMaxIdleTime(),
+                this::startStandbyAgent,
+                registry
+            );
+            // One thread per live standby agent waiting for it to exit, like the executor does for other agents
+            final CustomizableThreadFactory watcherThreadFactory =
+                new CustomizableThreadFactory(STANDBY_AGENT_WATCHER_THREAD_NAME_PREFIX);
+            watcherThreadFactory.setDaemon(true);
+            this.standbyAgentWatcher = Executors.newCachedThreadPool(watcherThreadFactory);
+            this.taskScheduler.scheduleWithFixedDelay(
+                this.standbyAgentPool::replenish,
+                this.launcherProperties.getStandbyPoolCheckInterval()
+            );
+        }
     }
 
     /**
@@ -134,6 +182,7 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
         }
 
         final CommandLine commandLine = this.createCommandLine(
+            this.launcherProperties.getLaunchCommandTemplate(),
             ImmutableMap.of(
                 LocalAgentLauncherProperties.SERVER_PORT_PLACEHOLDER, Integer.toString(this.rpcPort),
                 LocalAgentLauncherProperties.JOB_ID_PLACEHOLDER, jobId,
@@ -161,6 +210,28 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
             }
         }
 
+        if (this.standbyAgentPool != null) {
+            final Optional<Process> standbyAgentProcess = this.standbyAgentPool.assignJob(jobId);
+            this.registry
+                .counter(
+                    STANDBY_AGENT_ASSIGNMENTS_COUNTER_NAME,
+                    HIT_TAG,
+                    String.valueOf(standbyAgentProcess.isPresent())
+                )
+                .increment();
+            if (standbyAgentProcess.isPresent()) {
+                final AgentResultHandler resultHandler =
+                    this.standbyAgentResultHandlers.get(standbyAgentProcess.get());
+                if (resultHandler != null) {
+                    resultHandler.onJobAssigned(jobId, this.getProcessOutputFile("agent-job-" + jobId));
+                }
+                // Replace the agent now rather than at the next periodic check
+                this.taskScheduler.schedule(this.standbyAgentPool::replenish, Instant.now());
+                return;
+            }
+            log.info("No standby agent available for job {}, launching a new one", jobId);
+        }
+
         // Inherit server environment
         final Map<String, String> environment = Maps.newHashMap(System.getenv());
         // Add extra environment from configuration, if any
@@ -171,10 +242,9 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
         final Executor executor = this.executorFactory.newInstance(true);
 
         if (this.launcherProperties.isProcessOutputCaptureEnabled()) {
-            final String debugOutputPath =
-                System.getProperty(SystemUtils.JAVA_IO_TMPDIR, "/tmp") + "/agent-job-" + jobId + ".txt";
             try {
-                final FileOutputStream fileOutput = new FileOutputStream(debugOutputPath, false);
+                final FileOutputStream fileOutput =
+                    new FileOutputStream(this.getProcessOutputFile("agent-job-" + jobId), false);
                 executor.setStreamHandler(new PumpStreamHandler(fileOutput));
             } catch (FileNotFoundException e) {
                 log.error("Failed to create agent process output file", e);
@@ -195,7 +265,72 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
         }
     }
 
+    private Process startStandbyAgent() throws IOException {
+        final CommandLine commandLine = this.createCommandLine(
+            this.launcherProperties.getStandbyLaunchCommandTemplate(),
+            ImmutableMap.of(
+                LocalAgentLauncherProperties.SERVER_PORT_PLACEHOLDER, Integer.toString(this.rpcPort),
+                LocalAgentLauncherProperties.AGENT_JAR_PLACEHOLDER, this.launcherProperties.getAgentJarPath()
+            )
+        );
+
+        // Inherits the server environment
+        final ProcessBuilder processBuilder = new ProcessBuilder(commandLine.toStrings());
+        processBuilder.environment().putAll(this.launcherProperties.getAdditionalEnvironment());
+        processBuilder.redirectErrorStream(true);
+        final File outputFile;
+        if (this.launcherProperties.isProcessOutputCaptureEnabled()) {
+            // The job isn't known yet
+            outputFile = this.getProcessOutputFile("agent-standby-" + UUID.randomUUID().toString());
+            processBuilder.redirectOutput(outputFile);
+        } else {
+            // Nobody reads it, make sure the agent can't block writing to it
+            outputFile = null;
+            processBuilder.redirectOutput(new File("/dev/null"));
+        }
+
+        log.debug("Starting standby agent: {}", commandLine);
+        final Process process;
+        try {
+            process = processBuilder.start();
+        } catch (final IOException e) {
+            if (outputFile != null && outputFile.exists() && !outputFile.delete()) {
+                log.warn("Failed to delete standby agent output file {}", outputFile);
+            }
+            throw e;
+        }
+
+        final AgentResultHandler resultHandler = new AgentResultHandler(null, outputFile);
+        this.standbyAgentResultHandlers.put(process, resultHandler);
+        this.standbyAgentWatcher.execute(() -> this.watchStandbyAgent(process, resultHandler));
+        return process;
+    }
+
+    private void watchStandbyAgent(final Process process, final AgentResultHandler resultHandler) {
+        try {
+            final int exitValue = process.waitFor();
+            // Same outcome the executor reports for agents launched on demand
+            if (exitValue == 0) {
+                resultHandler.onProcessComplete(exitValue);
+            } else {
+                resultHandler.onProcessFailed(
+                    new ExecuteException("Process exited with an error: " + exitValue, exitValue)
+                );
+            }
+        } catch (final InterruptedException e) {
+            log.warn("Interrupted while waiting for standby agent to exit");
+            Thread.currentThread().interrupt();
+        } finally {
+            this.standbyAgentResultHandlers.remove(process);
+        }
+    }
+
+    private File getProcessOutputFile(final String name) {
+        return new File(System.getProperty(SystemUtils.JAVA_IO_TMPDIR, "/tmp"), name + ".txt");
+    }
+
     private CommandLine createCommandLine(
+        final List<String> launchCommandTemplate,
         final Map<String, String> argumentValueReplacements
     ) {
         final List<String> commandLineTemplate = Lists.newArrayList();
@@ -211,7 +346,7 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
         }
 
         // Agent  command line to launch agent (i.e. JVM and its options)
-        commandLineTemplate.addAll(this.launcherProperties.getLaunchCommandTemplate());
+        commandLineTemplate.addAll(launchCommandTemplate);
 
         final CommandLine commandLine = new CommandLine(commandLineTemplate.get(0));
 
@@ -227,6 +362,9 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
 
     /**
      * Simple {@link org.apache.commons.exec.ExecuteResultHandler} implementation that logs completion.
+     * <p>
+     * Standby agents start without a job and with their own output file. The file is moved to the job output file
+     * once the agent takes a job, and deleted if the agent exits before taking one.
      *
      * @author tgianos
      * @since 4.0.0
@@ -235,7 +373,8 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
     @VisibleForTesting
     static class AgentResultHandler extends DefaultExecuteResultHandler {
 
-        private final String jobId;
+        private String jobId;
+        private File standbyOutputFile;
 
         /**
          * Constructor.
@@ -243,25 +382,74 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
          * @param jobId The id of the job the agent this handler is attached to is running
          */
         AgentResultHandler(final String jobId) {
+            this(jobId, null);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param jobId             The id of the job the agent this handler is attached to is running, or null for a
+         *                          standby agent which didn't take a job yet
+         * @param standbyOutputFile The file the output of the standby agent is captured to, if any
+         */
+        AgentResultHandler(@Nullable final String jobId, @Nullable final File standbyOutputFile) {
             this.jobId = jobId;
+            this.standbyOutputFile = standbyOutputFile;
+        }
+
+        /**
+         * Record that the standby agent this handler is attached to took a job.
+         *
+         * @param assignedJobId The id of the job
+         * @param jobOutputFile The file the output of an agent launched for this job would be captured to
+         */
+        synchronized void onJobAssigned(final String assignedJobId, final File jobOutputFile) {
+            this.jobId = assignedJobId;
+            if (this.standbyOutputFile != null) {
+                // The agent keeps writing to the same file under its new name
+                if (!this.standbyOutputFile.renameTo(jobOutputFile)) {
+                    log.warn("Failed to move standby agent output file to {}", jobOutputFile);
+                    this.deleteStandbyOutputFile();
+                }
+                this.standbyOutputFile = null;
+            }
         }
 
         /**
          * {@inheritDoc}
          */
         @Override
-        public void onProcessComplete(final int exitValue) {
+        public synchronized void onProcessComplete(final int exitValue) {
             super.onProcessComplete(exitValue);
-            log.info("Agent process for job {} completed with exit value {}", this.jobId, exitValue);
+            if (this.jobId == null) {
+                log.info("Standby agent process exited with value {} before taking a job", exitValue);
+                this.deleteStandbyOutputFile();
+            } else {
+                log.info("Agent process for job {} completed with exit value {}", this.jobId, exitValue);
+            }
         }
 
         /**
          * {@inheritDoc}
          */
         @Override
-        public void onProcessFailed(final ExecuteException e) {
+        public synchronized void onProcessFailed(final ExecuteException e) {
             super.onProcessFailed(e);
-            log.error("Agent process failed for job {} due to {}", this.jobId, e.getMessage(), e);
+            if (this.jobId == null) {
+                log.warn("Standby agent process failed before taking a job due to {}", e.getMessage());
+                this.deleteStandbyOutputFile();
+            } else {
+                log.error("Agent process failed for job {} due to {}", this.jobId, e.getMessage(), e);
+            }
+        }
+
+        private void deleteStandbyOutputFile() {
+            if (this.standbyOutputFile != null && this.standbyOutputFile.exists()) {
+                if (!this.standbyOutputFile.delete()) {
+                    log.warn("Failed to delete standby agent output file {}", this.standbyOutputFile);
+                }
+            }
+            this.standbyOutputFile = null;
         }
     }
 }
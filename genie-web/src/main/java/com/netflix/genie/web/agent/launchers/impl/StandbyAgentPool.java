@@ -0,0 +1,164 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.agent.launchers.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * A pool of agent processes started ahead of time, which wait for the id of the job to execute on their standard
+ * input. Handing a job to one of these agents skips the JVM and application startup which otherwise precedes every
+ * job.
+ * <p>
+ * An agent executes a single job and exits, so every agent taken out of the pool is replaced by a new one. Agents
+ * left idle for too long are replaced as well. Closing the standard input of an idle agent makes it exit, which also
+ * happens if this server goes away.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+@ThreadSafe
+class StandbyAgentPool {
+
+    static final String IDLE_AGENTS_GAUGE_NAME = "genie.agents.launcher.standby.idle.gauge";
+
+    private final int size;
+    private final long maxIdleTime;
+    private final ProcessStarter processStarter;
+    // Oldest agents first
+    private final BlockingDeque<StandbyAgent> idleAgents = new LinkedBlockingDeque<>();
+
+    /**
+     * Constructor.
+     *
+     * @param size           The number of idle agents to keep around
+     * @param maxIdleTime    How long an agent can stay idle before it is replaced, in milliseconds
+     * @param processStarter Starts a new standby agent process
+     * @param registry       The metrics repository
+     */
+    StandbyAgentPool(
+        final int size,
+        final long maxIdleTime,
+        final ProcessStarter processStarter,
+        final MeterRegistry registry
+    ) {
+        this.size = size;
+        this.maxIdleTime = maxIdleTime;
+        this.processStarter = processStarter;
+        registry.gauge(IDLE_AGENTS_GAUGE_NAME, this.idleAgents, BlockingDeque::size);
+    }
+
+    /**
+     * Hand the given job to an idle agent, if one is available.
+     *
+     * @param jobId The id of the job to execute
+     * @return the process of the agent which took the job, or empty if none was available and the caller should
+     * start one
+     */
+    Optional<Process> assignJob(final String jobId) {
+        StandbyAgent agent;
+        while ((agent = this.idleAgents.pollFirst()) != null) {
+            final Process process = agent.getProcess();
+            if (!process.isAlive()) {
+                log.warn("Discarding standby agent which exited with code {}", process.exitValue());
+                continue;
+            }
+            try (OutputStream agentInput = process.getOutputStream()) {
+                agentInput.write((jobId + "\n").getBytes(StandardCharsets.UTF_8));
+                agentInput.flush();
+                log.info("Handed job {} to standby agent", jobId);
+                return Optional.of(process);
+            } catch (final IOException e) {
+                log.warn("Unable to hand job {} to standby agent: {}", jobId, e.getMessage());
+                process.destroy();
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Replace the agents which died or have been idle for too long and start new ones until the pool is full.
+     */
+    synchronized void replenish() {
+        final long now = System.currentTimeMillis();
+        for (final StandbyAgent agent : this.idleAgents) {
+            final Process process = agent.getProcess();
+            final boolean exited = !process.isAlive();
+            final boolean expired = now - agent.getStartTime() > this.maxIdleTime;
+            // May race with assignJob, leave the agent alone if it was taken in the meantime
+            if ((exited || expired) && this.idleAgents.removeFirstOccurrence(agent)) {
+                if (exited) {
+                    log.warn("Discarding standby agent which exited with code {}", process.exitValue());
+                } else {
+                    log.debug("Retiring standby agent idle for more than {}ms", this.maxIdleTime);
+                    this.retire(agent);
+                }
+            }
+        }
+
+        while (this.idleAgents.size() < this.size) {
+            try {
+                this.idleAgents.offerLast(new StandbyAgent(this.processStarter.start(), System.currentTimeMillis()));
+            } catch (final IOException e) {
+                log.error("Failed to start standby agent: {}", e.getMessage(), e);
+                return;
+            }
+        }
+    }
+
+    private void retire(final StandbyAgent agent) {
+        try {
+            agent.getProcess().getOutputStream().close();
+        } catch (final IOException e) {
+            log.debug("Failed to close input of standby agent, terminating it", e);
+            agent.getProcess().destroy();
+        }
+    }
+
+    /**
+     * Starts a standby agent process.
+     */
+    @FunctionalInterface
+    interface ProcessStarter {
+
+        /**
+         * Start a new standby agent process.
+         *
+         * @return the process
+         * @throws IOException if the process could not be started
+         */
+        Process start() throws IOException;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static final class StandbyAgent {
+        private final Process process;
+        private final long startTime;
+    }
+}
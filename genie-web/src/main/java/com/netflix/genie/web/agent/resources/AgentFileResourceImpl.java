@@ -88,7 +88,7 @@ public final class AgentFileResourceImpl implements AgentFileStreamService.Agent
      * Factory method to create a resource for a remote file.
      *
      * @param uri              the resource URI
-     * @param size             the size of the file, as per latest manifest
+     * @param size             the size of the content (the whole file or the requested range of it)
      * @param lastModifiedTime the last modification time, as per latest manifest
      * @param relativePath     the path of the file relative to the root of the job directory
      * @param jobId            the id of the job this file belongs to
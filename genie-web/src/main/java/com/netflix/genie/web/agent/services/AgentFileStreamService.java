@@ -20,6 +20,7 @@ package com.netflix.genie.web.agent.services;
 import com.netflix.genie.common.internal.dtos.DirectoryManifest;
 import org.springframework.core.io.Resource;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import java.net.URI;
 import java.nio.file.Path;
@@ -48,6 +49,27 @@ public interface AgentFileStreamService {
      */
     Optional<AgentFileResource> getResource(@NotBlank String jobId, Path relativePath, URI uri);
 
+    /**
+     * Returns a Resource for the given byte range of a job file boxed in an {@link Optional}.
+     * Only the requested range is transferred from the agent. The range is clamped to the size of the file as per the
+     * latest manifest, and the {@code contentLength()} of the resource returned is the size of the (clamped) range.
+     * Otherwise the same semantics of {@link #getResource(String, Path, URI)} apply.
+     *
+     * @param jobId        the job id
+     * @param relativePath the relative path in the job directory
+     * @param uri          the file uri
+     * @param startOffset  the offset of the first byte of the range (inclusive)
+     * @param endOffset    the offset of the last byte of the range (exclusive)
+     * @return an optional {@link Resource}
+     */
+    Optional<AgentFileResource> getResource(
+        @NotBlank String jobId,
+        Path relativePath,
+        URI uri,
+        @Min(0) long startOffset,
+        @Min(0) long endOffset
+    );
+
     /**
      * Returns the manifest for a given job, boxed in an {@link Optional}.
      * The manifest may not be present if the agent is not connected to this node (for example because execution has
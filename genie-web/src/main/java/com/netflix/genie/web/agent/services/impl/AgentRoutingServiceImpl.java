@@ -17,17 +17,41 @@
  */
 package com.netflix.genie.web.agent.services.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.netflix.genie.common.internal.util.GenieHostInfo;
 import com.netflix.genie.web.agent.services.AgentRoutingService;
 import com.netflix.genie.web.data.services.AgentConnectionPersistenceService;
+import com.netflix.genie.web.properties.AgentRoutingProperties;
+import com.netflix.genie.web.util.MetricsUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.validation.annotation.Validated;
 
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import javax.validation.constraints.NotBlank;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of {@link AgentRoutingService}.
+ * <p>
+ * Agents connected to this node are tracked in memory, so checking for a local connection never requires a database
+ * lookup. The location of agents connected to other nodes is looked up in the database and reused for a short time.
+ * <p>
+ * Connections and disconnections of local agents are written to the database behind the in-memory state, at a short
+ * interval and in batches. Changes to the same agent connection made between two writes are coalesced, so an agent
+ * reconnecting or disconnecting right after connecting costs at most one write.
  *
  * @author mprimi
  * @since 4.0.0
@@ -36,21 +60,73 @@ import java.util.Optional;
 @Slf4j
 public class AgentRoutingServiceImpl implements AgentRoutingService {
 
+    private static final String METRICS_PREFIX = "genie.agents.connections.";
+    private static final String PENDING_WRITES_GAUGE_NAME = METRICS_PREFIX + "pendingWrites.gauge";
+    private static final String FLUSH_TIMER_NAME = METRICS_PREFIX + "flush.timer";
+    private static final String COALESCED_WRITES_COUNTER_NAME = METRICS_PREFIX + "coalescedWrites.counter";
+    private static final String BACKPRESSURE_COUNTER_NAME = METRICS_PREFIX + "backpressure.counter";
+
     private final AgentConnectionPersistenceService agentConnectionPersistenceService;
     private final GenieHostInfo genieHostInfo;
+    private final MeterRegistry registry;
+    private final int maxPendingWrites;
+    // Job id -> number of streams open by the agent running it. An agent may reconnect before its old stream is gone.
+    private final ConcurrentMap<String, Integer> localConnections = new ConcurrentHashMap<>();
+    @Nullable
+    private final Cache<String, Optional<String>> remoteLookupCache;
+    private final Object pendingWritesLock = new Object();
+    private final Object flushLock = new Object();
+    private final ScheduledFuture<?> flushFuture;
+    // Job id -> change not yet written to the database. Guarded by pendingWritesLock.
+    private Map<String, PendingWrite> pendingWrites = Maps.newHashMap();
 
     /**
      * Constructor.
      *
      * @param agentConnectionPersistenceService agent connection persistence service
      * @param genieHostInfo                     local genie node host information
+     * @param properties                        the routing properties
+     * @param taskScheduler                     the scheduler used to write connection changes to the database
+     * @param registry                          the metrics registry
      */
     public AgentRoutingServiceImpl(
         final AgentConnectionPersistenceService agentConnectionPersistenceService,
-        final GenieHostInfo genieHostInfo
+        final GenieHostInfo genieHostInfo,
+        final AgentRoutingProperties properties,
+        final TaskScheduler taskScheduler,
+        final MeterRegistry registry
     ) {
         this.agentConnectionPersistenceService = agentConnectionPersistenceService;
         this.genieHostInfo = genieHostInfo;
+        this.registry = registry;
+        this.maxPendingWrites = properties.getMaxPendingConnectionWrites();
+        if (properties.getRemoteLookupCacheTtl() > 0) {
+            this.remoteLookupCache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getRemoteLookupCacheTtl(), TimeUnit.MILLISECONDS)
+                .maximumSize(properties.getRemoteLookupCacheMaxSize())
+                .build();
+        } else {
+            this.remoteLookupCache = null;
+        }
+        this.registry.gauge(
+            PENDING_WRITES_GAUGE_NAME,
+            Sets.newHashSet(),
+            this,
+            AgentRoutingServiceImpl::getNumPendingWrites
+        );
+        this.flushFuture = taskScheduler.scheduleWithFixedDelay(
+            this::flushPendingWrites,
+            properties.getConnectionFlushInterval()
+        );
+    }
+
+    /**
+     * Stop writing periodically and write all the pending connection changes to the database.
+     */
+    @PreDestroy
+    public void shutdown() {
+        this.flushFuture.cancel(false);
+        this.flushPendingWrites();
     }
 
     /**
@@ -58,7 +134,13 @@ public class AgentRoutingServiceImpl implements AgentRoutingService {
      */
     @Override
     public Optional<String> getHostnameForAgentConnection(final @NotBlank String jobId) {
-        return this.agentConnectionPersistenceService.lookupAgentConnectionServer(jobId);
+        if (this.localConnections.containsKey(jobId)) {
+            return Optional.of(this.genieHostInfo.getHostname());
+        }
+        if (this.remoteLookupCache == null) {
+            return this.agentConnectionPersistenceService.lookupAgentConnectionServer(jobId);
+        }
+        return this.remoteLookupCache.get(jobId, this.agentConnectionPersistenceService::lookupAgentConnectionServer);
     }
 
     /**
@@ -66,8 +148,8 @@ public class AgentRoutingServiceImpl implements AgentRoutingService {
      */
     @Override
     public boolean isAgentConnectionLocal(final @NotBlank String jobId) {
-        final Optional<String> hostname = getHostnameForAgentConnection(jobId);
-        return hostname.isPresent() && hostname.get().equals(genieHostInfo.getHostname());
+        // Only this node records connections under its own hostname, the database can't know better
+        return this.localConnections.containsKey(jobId);
     }
 
     /**
@@ -76,7 +158,10 @@ public class AgentRoutingServiceImpl implements AgentRoutingService {
     @Override
     public void handleClientConnected(@NotBlank final String jobId) {
         log.info("Agent executing job {} connected", jobId);
-        this.agentConnectionPersistenceService.saveAgentConnection(jobId, genieHostInfo.getHostname());
+        final int connections = this.localConnections.merge(jobId, 1, Integer::sum);
+        this.invalidateRemoteLookup(jobId);
+        // With other streams already open, the database may already hold a record of this node
+        this.queueWrite(jobId, connections == 1 ? PendingWrite.SAVE_NEW : PendingWrite.SAVE);
     }
 
     /**
@@ -85,7 +170,16 @@ public class AgentRoutingServiceImpl implements AgentRoutingService {
     @Override
     public void handleClientDisconnected(@NotBlank final String jobId) {
         log.info("Agent executing job {} disconnected", jobId);
-        this.agentConnectionPersistenceService.removeAgentConnection(jobId, genieHostInfo.getHostname());
+        final Integer remainingConnections = this.localConnections.computeIfPresent(
+            jobId,
+            (id, connections) -> connections > 1 ? connections - 1 : null
+        );
+        this.invalidateRemoteLookup(jobId);
+        if (remainingConnections == null) {
+            this.queueWrite(jobId, PendingWrite.REMOVE);
+        } else {
+            log.info("Agent executing job {} is still connected through another stream", jobId);
+        }
     }
 
     /**
@@ -95,4 +189,137 @@ public class AgentRoutingServiceImpl implements AgentRoutingService {
     public boolean isAgentConnected(final String jobId) {
         return getHostnameForAgentConnection(jobId).isPresent();
     }
+
+    /**
+     * Write all the pending connection changes to the database.
+     * Changes that fail to be written are kept for the next attempt, unless superseded by newer changes.
+     */
+    void flushPendingWrites() {
+        // One flush at the time so changes of the same job are written in order
+        synchronized (this.flushLock) {
+            final Map<String, PendingWrite> writes;
+            synchronized (this.pendingWritesLock) {
+                if (this.pendingWrites.isEmpty()) {
+                    return;
+                }
+                writes = this.pendingWrites;
+                this.pendingWrites = Maps.newHashMap();
+            }
+
+            final Set<String> savedJobIds = Sets.newHashSet();
+            final Set<String> removedJobIds = Sets.newHashSet();
+            for (final Map.Entry<String, PendingWrite> write : writes.entrySet()) {
+                if (write.getValue() == PendingWrite.REMOVE) {
+                    removedJobIds.add(write.getKey());
+                } else {
+                    savedJobIds.add(write.getKey());
+                }
+            }
+
+            final long start = System.nanoTime();
+            Set<Tag> tags = MetricsUtils.newSuccessTagsSet();
+            try {
+                final String hostname = this.genieHostInfo.getHostname();
+                if (!savedJobIds.isEmpty()) {
+                    this.agentConnectionPersistenceService.saveAgentConnections(savedJobIds, hostname);
+                }
+                if (!removedJobIds.isEmpty()) {
+                    this.agentConnectionPersistenceService.removeAgentConnections(removedJobIds, hostname);
+                }
+                log.debug("Saved {} and removed {} agent connections", savedJobIds.size(), removedJobIds.size());
+            } catch (final RuntimeException e) {
+                log.error("Failed to write {} agent connection changes, will retry", writes.size(), e);
+                tags = MetricsUtils.newFailureTagsSetForException(e);
+                synchronized (this.pendingWritesLock) {
+                    writes.forEach(
+                        // Some of these may have been written, don't assume the database holds nothing from this node
+                        (jobId, write) -> this.pendingWrites.merge(
+                            jobId,
+                            write == PendingWrite.SAVE_NEW ? PendingWrite.SAVE : write,
+                            (newerWrite, failedWrite) -> PendingWrite.coalesce(failedWrite, newerWrite)
+                        )
+                    );
+                }
+            } finally {
+                this.registry
+                    .timer(FLUSH_TIMER_NAME, tags)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void queueWrite(final String jobId, final PendingWrite write) {
+        final int numPendingWrites;
+        synchronized (this.pendingWritesLock) {
+            final PendingWrite previousWrite = this.pendingWrites.get(jobId);
+            if (previousWrite == null) {
+                this.pendingWrites.put(jobId, write);
+            } else {
+                this.registry.counter(COALESCED_WRITES_COUNTER_NAME).increment();
+                final PendingWrite coalescedWrite = PendingWrite.coalesce(previousWrite, write);
+                if (coalescedWrite == null) {
+                    this.pendingWrites.remove(jobId);
+                } else {
+                    this.pendingWrites.put(jobId, coalescedWrite);
+                }
+            }
+            numPendingWrites = this.pendingWrites.size();
+        }
+
+        if (numPendingWrites >= this.maxPendingWrites) {
+            // Don't let changes pile up in memory, make the caller wait for them to be written
+            log.warn("{} agent connection changes pending, writing them right away", numPendingWrites);
+            this.registry.counter(BACKPRESSURE_COUNTER_NAME).increment();
+            this.flushPendingWrites();
+        }
+    }
+
+    private double getNumPendingWrites() {
+        synchronized (this.pendingWritesLock) {
+            return this.pendingWrites.size();
+        }
+    }
+
+    private void invalidateRemoteLookup(final String jobId) {
+        if (this.remoteLookupCache != null) {
+            this.remoteLookupCache.invalidate(jobId);
+        }
+    }
+
+    /**
+     * A change to an agent connection waiting to be written to the database.
+     */
+    private enum PendingWrite {
+        /**
+         * Save the connection, the database holds no record of it from this node.
+         */
+        SAVE_NEW,
+
+        /**
+         * Save the connection, the database may already hold a record of it from this node.
+         */
+        SAVE,
+
+        /**
+         * Remove the connection record of this node.
+         */
+        REMOVE;
+
+        /**
+         * Combine two successive changes to the same connection into one.
+         *
+         * @param older the change made first
+         * @param newer the change made last
+         * @return the combined change, or null if the changes cancel each other out
+         */
+        @Nullable
+        static PendingWrite coalesce(final PendingWrite older, final PendingWrite newer) {
+            if (newer == REMOVE) {
+                // Connected and disconnected before anything was written
+                return older == SAVE_NEW ? null : REMOVE;
+            }
+            // Disconnected and reconnected, the previous record may still be there
+            return older == REMOVE ? SAVE : older;
+        }
+    }
 }
@@ -17,6 +17,8 @@
  */
 package com.netflix.genie.web.apis.rest.v3.controllers;
 
+import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.common.exceptions.GenieException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.util.AntPathMatcher;
@@ -26,6 +28,8 @@ import javax.annotation.Nullable;
 import javax.servlet.http.HttpServletRequest;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Utility methods re-used in various controllers.
@@ -109,4 +113,26 @@ public final class ControllerUtils {
         final String newPath = StringUtils.removeEnd(currentPath, path);
         return new URL(request.getProtocol(), request.getHost(), request.getPort(), newPath);
     }
+
+    /**
+     * Parse the job statuses requested as search or export filters. Blank values are ignored.
+     *
+     * @param statuses The requested statuses if any
+     * @return The parsed statuses or {@literal null} if no status was requested
+     * @throws GenieException If one of the statuses is invalid
+     * @since 4.0.0
+     */
+    @Nullable
+    static Set<JobStatus> toJobStatuses(@Nullable final Set<String> statuses) throws GenieException {
+        Set<JobStatus> enumStatuses = null;
+        if (statuses != null && !statuses.isEmpty()) {
+            enumStatuses = EnumSet.noneOf(JobStatus.class);
+            for (final String status : statuses) {
+                if (StringUtils.isNotBlank(status)) {
+                    enumStatuses.add(JobStatus.parse(status));
+                }
+            }
+        }
+        return enumStatuses;
+    }
 }
@@ -20,6 +20,7 @@ package com.netflix.genie.web.apis.rest.v3.controllers;
 import com.google.common.collect.Sets;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import com.netflix.genie.common.exceptions.GenieServerUnavailableException;
 import com.netflix.genie.common.exceptions.GenieUserLimitExceededException;
 import com.netflix.genie.common.internal.exceptions.checked.GenieCheckedException;
 import com.netflix.genie.common.internal.exceptions.checked.GenieJobResolutionException;
@@ -31,12 +32,14 @@ import com.netflix.genie.common.internal.exceptions.unchecked.GenieJobNotFoundEx
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieJobSpecificationNotFoundException;
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieRuntimeException;
 import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException;
+import com.netflix.genie.web.exceptions.checked.JobLaunchRejectedException;
 import com.netflix.genie.web.util.MetricsConstants;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -109,6 +112,8 @@ public class GenieExceptionMapper {
             return new ResponseEntity<>(e, HttpStatus.NOT_FOUND);
         } else if (e instanceof GenieIdAlreadyExistsException) {
             return new ResponseEntity<>(e, HttpStatus.CONFLICT);
+        } else if (e instanceof JobLaunchRejectedException) {
+            return new ResponseEntity<>(e, HttpStatus.SERVICE_UNAVAILABLE);
         } else {
             return new ResponseEntity<>(e, HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -167,6 +172,23 @@ public class GenieExceptionMapper {
         );
     }
 
+    /**
+     * Handle requests whose asynchronous processing was rejected because the executor serving them is saturated.
+     *
+     * @param e The exception to handle
+     * @return A {@link ResponseEntity} instance
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<GenieServerUnavailableException> handleTaskRejectedException(
+        final TaskRejectedException e
+    ) {
+        this.countExceptionAndLog(e);
+        return new ResponseEntity<>(
+            new GenieServerUnavailableException("Too many requests in progress. Try again later.", e),
+            HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
     private void countExceptionAndLog(final Exception e) {
         final Set<Tag> tags = Sets.newHashSet(
             Tags.of(MetricsConstants.TagKeys.EXCEPTION_CLASS, e.getClass().getCanonicalName())
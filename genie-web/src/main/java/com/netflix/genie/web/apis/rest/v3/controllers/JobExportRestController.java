@@ -0,0 +1,214 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.apis.rest.v3.controllers;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.common.dto.search.JobSearchResult;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.external.util.GenieObjectMapper;
+import com.netflix.genie.web.data.services.DataServices;
+import com.netflix.genie.web.data.services.JobSearchService;
+import com.netflix.genie.web.properties.JobExportProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * REST end-point for exporting large amounts of Genie data in a single streamed response.
+ * <p>
+ * Exports live under their own root rather than under the resource they export so that their paths can never collide
+ * with the id of a resource.
+ *
+ * @since 4.0.0
+ */
+@RestController
+@RequestMapping(value = "/api/v3/exports")
+@Slf4j
+public class JobExportRestController {
+    static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final byte NEW_LINE = '\n';
+
+    private final JobSearchService jobSearchService;
+    private final JobExportProperties jobExportProperties;
+    private final AsyncTaskExecutor exportExecutor;
+
+    /**
+     * Constructor.
+     *
+     * @param dataServices        The {@link DataServices} instance to use
+     * @param jobExportProperties The properties controlling job exports
+     * @param exportExecutor      The bounded executor the exports are streamed on
+     */
+    @Autowired
+    public JobExportRestController(
+        final DataServices dataServices,
+        final JobExportProperties jobExportProperties,
+        @Qualifier("genieJobExportTaskExecutor") final AsyncTaskExecutor exportExecutor
+    ) {
+        this.jobSearchService = dataServices.getJobSearchService();
+        this.jobExportProperties = jobExportProperties;
+        this.exportExecutor = exportExecutor;
+    }
+
+    /**
+     * Export all the jobs matching the given filter criteria, oldest first, as newline delimited JSON.
+     * The jobs are streamed to the response as they are read from the database, without paging or counting them.
+     * <p>
+     * The export runs on the job export executor. It is cut off after {@code genie.jobs.export.timeout} milliseconds
+     * (never when 0) instead of the servlet container's default asynchronous request timeout.
+     *
+     * @param id               id for job
+     * @param name             name of job (can be a SQL-style pattern such as HIVE%)
+     * @param user             user who submitted job
+     * @param statuses         statuses of jobs to find
+     * @param tags             tags for the job
+     * @param clusterName      the name of the cluster
+     * @param clusterId        the id of the cluster
+     * @param commandName      the name of the command run by the job
+     * @param commandId        the id of the command run by the job
+     * @param minStarted       The time which the job had to start after in order to be return (inclusive)
+     * @param maxStarted       The time which the job had to start before in order to be returned (exclusive)
+     * @param minFinished      The time which the job had to finish after in order to be return (inclusive)
+     * @param maxFinished      The time which the job had to finish before in order to be returned (exclusive)
+     * @param grouping         The grouping the job should be a member of
+     * @param groupingInstance The grouping instance the job should be a member of
+     * @param response         The response to stream one job search result per line to
+     * @return The task streaming the export
+     * @throws GenieException For any error
+     */
+    @GetMapping(value = "/jobs")
+    @SuppressWarnings("checkstyle:parameternumber")
+    public WebAsyncTask<Void> exportJobs(
+        @RequestParam(value = "id", required = false) @Nullable final String id,
+        @RequestParam(value = "name", required = false) @Nullable final String name,
+        @RequestParam(value = "user", required = false) @Nullable final String user,
+        @RequestParam(value = "status", required = false) @Nullable final Set<String> statuses,
+        @RequestParam(value = "tag", required = false) @Nullable final Set<String> tags,
+        @RequestParam(value = "clusterName", required = false) @Nullable final String clusterName,
+        @RequestParam(value = "clusterId", required = false) @Nullable final String clusterId,
+        @RequestParam(value = "commandName", required = false) @Nullable final String commandName,
+        @RequestParam(value = "commandId", required = false) @Nullable final String commandId,
+        @RequestParam(value = "minStarted", required = false) @Nullable final Long minStarted,
+        @RequestParam(value = "maxStarted", required = false) @Nullable final Long maxStarted,
+        @RequestParam(value = "minFinished", required = false) @Nullable final Long minFinished,
+        @RequestParam(value = "maxFinished", required = false) @Nullable final Long maxFinished,
+        @RequestParam(value = "grouping", required = false) @Nullable final String grouping,
+        @RequestParam(value = "groupingInstance", required = false) @Nullable final String groupingInstance,
+        final HttpServletResponse response
+    ) throws GenieException {
+        log.info(
+            "[exportJobs] Called with "
+                + "[id | jobName | user | statuses | clusterName "
+                + "| clusterId | minStarted | maxStarted | minFinished | maxFinished | grouping | groupingInstance]\n"
+                + "{} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {}",
+            id,
+            name,
+            user,
+            statuses,
+            tags,
+            clusterName,
+            clusterId,
+            commandName,
+            commandId,
+            minStarted,
+            maxStarted,
+            minFinished,
+            maxFinished,
+            grouping,
+            groupingInstance
+        );
+
+        final Set<JobStatus> enumStatuses = ControllerUtils.toJobStatuses(statuses);
+        final ObjectWriter writer = GenieObjectMapper.getMapper().writerFor(JobSearchResult.class);
+
+        return new WebAsyncTask<>(
+            this.jobExportProperties.getTimeout(),
+            this.exportExecutor,
+            () -> {
+                // The result is written directly so there is no second asynchronous phase with the default timeout
+                response.setStatus(HttpStatus.OK.value());
+                response.setContentType(NDJSON_MEDIA_TYPE);
+                try {
+                    final OutputStream outputStream = response.getOutputStream();
+                    final long exported = this.jobSearchService.exportJobs(
+                        id,
+                        name,
+                        user,
+                        enumStatuses,
+                        tags,
+                        clusterName,
+                        clusterId,
+                        commandName,
+                        commandId,
+                        minStarted == null ? null : Instant.ofEpochMilli(minStarted),
+                        maxStarted == null ? null : Instant.ofEpochMilli(maxStarted),
+                        minFinished == null ? null : Instant.ofEpochMilli(minFinished),
+                        maxFinished == null ? null : Instant.ofEpochMilli(maxFinished),
+                        grouping,
+                        groupingInstance,
+                        jobSearchResult -> {
+                            try {
+                                // Stop reading from the database once the export timed out and was cancelled
+                                if (Thread.currentThread().isInterrupted()) {
+                                    throw new InterruptedIOException("Job export was cancelled");
+                                }
+                                outputStream.write(writer.writeValueAsBytes(jobSearchResult));
+                                outputStream.write(NEW_LINE);
+                            } catch (final IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                    );
+                    outputStream.flush();
+                    log.debug("[exportJobs] Exported {} jobs", exported);
+                    return null;
+                } catch (final UncheckedIOException e) {
+                    this.resetIfNotCommitted(response);
+                    throw e.getCause();
+                } catch (final IOException | RuntimeException e) {
+                    this.resetIfNotCommitted(response);
+                    throw e;
+                }
+            }
+        );
+    }
+
+    private void resetIfNotCommitted(final HttpServletResponse response) {
+        // Let the exception mapper write the error if nothing has been sent yet
+        if (!response.isCommitted()) {
+            response.reset();
+        }
+    }
+}
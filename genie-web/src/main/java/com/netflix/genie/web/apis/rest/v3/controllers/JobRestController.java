@@ -32,6 +32,7 @@ import com.netflix.genie.common.dto.JobStatusMessages;
 import com.netflix.genie.common.dto.search.JobSearchResult;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.common.exceptions.GenieServerUnavailableException;
 import com.netflix.genie.common.external.dtos.v4.ApiClientMetadata;
@@ -68,11 +69,14 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.PagedModel;
@@ -113,7 +117,6 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Instant;
 import java.util.Arrays;
-import java.util.EnumSet;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
@@ -138,6 +141,7 @@ public class JobRestController {
     private static final String NAME_HEADER_COOKIE = "cookie";
     private static final String JOB_API_BASE_PATH = "/api/v3/jobs/";
     private static final String COMMA = ",";
+    private static final String CREATED_SORT_PROPERTY = "created";
 
     private final JobLaunchService jobLaunchService;
     private final JobSearchService jobSearchService;
@@ -380,6 +384,9 @@ public class JobRestController {
      * @param maxFinished      The time which the job had to finish before in order to be returned (exclusive)
      * @param grouping         The grouping the job should be a member of
      * @param groupingInstance The grouping instance the job should be a member of
+     * @param after            Opt into seeking through the results instead of paging. Empty for the first page then
+     *                         the id of the last job of the previous page, as given in the {@code next} link
+     * @param count            Whether to count the total number of matching jobs. Never done when seeking.
      * @param page             page information for job
      * @param assembler        The paged resources assembler to use
      * @return successful response, or one with HTTP error code
@@ -404,6 +411,8 @@ public class JobRestController {
         @RequestParam(value = "maxFinished", required = false) @Nullable final Long maxFinished,
         @RequestParam(value = "grouping", required = false) @Nullable final String grouping,
         @RequestParam(value = "groupingInstance", required = false) @Nullable final String groupingInstance,
+        @RequestParam(value = "after", required = false) @Nullable final String after,
+        @RequestParam(value = "count", defaultValue = "true") final boolean count,
         @PageableDefault(sort = {"created"}, direction = Sort.Direction.DESC) final Pageable page,
         final PagedResourcesAssembler<JobSearchResult> assembler
     ) throws GenieException {
@@ -411,8 +420,8 @@ public class JobRestController {
             "[getJobs] Called with "
                 + "[id | jobName | user | statuses | clusterName "
                 + "| clusterId | minStarted | maxStarted | minFinished | maxFinished | grouping | groupingInstance "
-                + "| page]\n"
-                + "{} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {}",
+                + "| after | count | page]\n"
+                + "{} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {}",
             id,
             name,
             user,
@@ -428,19 +437,18 @@ public class JobRestController {
             maxFinished,
             grouping,
             groupingInstance,
+            after,
+            count,
             page
         );
 
-        Set<JobStatus> enumStatuses = null;
-        if (statuses != null && !statuses.isEmpty()) {
-            enumStatuses = EnumSet.noneOf(JobStatus.class);
-            for (final String status : statuses) {
-                if (StringUtils.isNotBlank(status)) {
-                    enumStatuses.add(JobStatus.parse(status));
-                }
-            }
+        final boolean seek = after != null;
+        if (seek && !page.getSort().stream().allMatch(order -> CREATED_SORT_PROPERTY.equals(order.getProperty()))) {
+            throw new GeniePreconditionException("Seeking after a job is only supported when sorting on created");
         }
 
+        final Set<JobStatus> enumStatuses = ControllerUtils.toJobStatuses(statuses);
+
         // Build the self link which will be used for the next, previous, etc links
         final Link self = WebMvcLinkBuilder
             .linkTo(
@@ -462,33 +470,78 @@ public class JobRestController {
                         maxFinished,
                         grouping,
                         groupingInstance,
+                        after,
+                        count,
                         page,
                         assembler
                     )
             ).withSelfRel();
 
-        return assembler.toModel(
-            this.jobSearchService.findJobs(
-                id,
-                name,
-                user,
-                enumStatuses,
-                tags,
-                clusterName,
-                clusterId,
-                commandName,
-                commandId,
-                minStarted == null ? null : Instant.ofEpochMilli(minStarted),
-                maxStarted == null ? null : Instant.ofEpochMilli(maxStarted),
-                minFinished == null ? null : Instant.ofEpochMilli(minFinished),
-                maxFinished == null ? null : Instant.ofEpochMilli(maxFinished),
-                grouping,
-                groupingInstance,
-                page
-            ),
+        final Page<JobSearchResult> jobs = this.jobSearchService.findJobs(
+            id,
+            name,
+            user,
+            enumStatuses,
+            tags,
+            clusterName,
+            clusterId,
+            commandName,
+            commandId,
+            minStarted == null ? null : Instant.ofEpochMilli(minStarted),
+            maxStarted == null ? null : Instant.ofEpochMilli(maxStarted),
+            minFinished == null ? null : Instant.ofEpochMilli(minFinished),
+            maxFinished == null ? null : Instant.ofEpochMilli(maxFinished),
+            grouping,
+            groupingInstance,
+            StringUtils.isBlank(after) ? null : after,
+            count && !seek,
+            seek ? PageRequest.of(0, page.getPageSize(), page.getSort()) : page
+        );
+
+        final PagedModel<EntityModel<JobSearchResult>> jobsModel = assembler.toModel(
+            jobs,
             this.jobSearchResultModelAssembler,
             self
         );
+
+        if (seek) {
+            // Page numbers are meaningless when seeking, the only way forward is after the last job of this page
+            jobsModel.removeLinks();
+            jobsModel.add(self);
+            if (jobs.hasNext()) {
+                final String lastJobId = jobs.getContent().get(jobs.getNumberOfElements() - 1).getId();
+                jobsModel.add(
+                    WebMvcLinkBuilder
+                        .linkTo(
+                            WebMvcLinkBuilder
+                                .methodOn(JobRestController.class)
+                                .findJobs(
+                                    id,
+                                    name,
+                                    user,
+                                    statuses,
+                                    tags,
+                                    clusterName,
+                                    clusterId,
+                                    commandName,
+                                    commandId,
+                                    minStarted,
+                                    maxStarted,
+                                    minFinished,
+                                    maxFinished,
+                                    grouping,
+                                    groupingInstance,
+                                    lastJobId,
+                                    count,
+                                    page,
+                                    assembler
+                                )
+                        ).withRel(IanaLinkRelations.NEXT)
+                );
+            }
+        }
+
+        return jobsModel;
     }
 
     /**
@@ -938,6 +991,6 @@ public class JobRestController {
             );
         }
 
-        return this.jobLaunchService.launchJob(jobSubmissionBuilder.build());
+        return this.jobLaunchService.acceptJob(jobSubmissionBuilder.build());
     }
 }
@@ -0,0 +1,129 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.aspects;
+
+import com.netflix.genie.web.services.CriteriaIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+
+import javax.annotation.Nullable;
+import java.util.function.Consumer;
+
+/**
+ * Aspect which keeps the {@link CriteriaIndexService} current with changes made to clusters and commands through the
+ * persistence services on this node.
+ * <p>
+ * This runs outside of the transaction of the advised method so the index re-reads the committed state.
+ *
+ * @since 4.0.0
+ */
+@Aspect
+@Slf4j
+public class CriteriaIndexAspect implements Ordered {
+
+    private static final String CREATE_PREFIX = "create";
+    private static final String GET_PREFIX = "get";
+    private static final String FIND_PREFIX = "find";
+    private static final String DELETE_ALL_PREFIX = "deleteAll";
+    private static final String DELETE_UNUSED_PREFIX = "deleteUnused";
+    private static final String UPDATE_STATUS_FOR_UNUSED_PREFIX = "updateStatusForUnused";
+
+    private final CriteriaIndexService criteriaIndexService;
+
+    /**
+     * Constructor.
+     *
+     * @param criteriaIndexService The {@link CriteriaIndexService} to keep up to date
+     */
+    public CriteriaIndexAspect(final CriteriaIndexService criteriaIndexService) {
+        this.criteriaIndexService = criteriaIndexService;
+    }
+
+    /**
+     * Update the index after a successful call to a
+     * {@link com.netflix.genie.web.data.services.ClusterPersistenceService} API.
+     *
+     * @param joinPoint The join point
+     * @param result    The result of the invocation if there was one
+     */
+    @AfterReturning(
+        pointcut = "execution(* com.netflix.genie.web.data.services.ClusterPersistenceService.*(..))",
+        returning = "result"
+    )
+    public void afterClusterOperation(final JoinPoint joinPoint, @Nullable final Object result) {
+        this.handle(joinPoint, result, this.criteriaIndexService::refreshCluster);
+    }
+
+    /**
+     * Update the index after a successful call to a
+     * {@link com.netflix.genie.web.data.services.CommandPersistenceService} API.
+     *
+     * @param joinPoint The join point
+     * @param result    The result of the invocation if there was one
+     */
+    @AfterReturning(
+        pointcut = "execution(* com.netflix.genie.web.data.services.CommandPersistenceService.*(..))",
+        returning = "result"
+    )
+    public void afterCommandOperation(final JoinPoint joinPoint, @Nullable final Object result) {
+        this.handle(joinPoint, result, this.criteriaIndexService::refreshCommand);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getOrder() {
+        // Run after the retry aspect but before (outside) the transaction interceptor so changes are committed
+        return 1;
+    }
+
+    private void handle(final JoinPoint joinPoint, @Nullable final Object result, final Consumer<String> refresher) {
+        final String method = joinPoint.getSignature().getName();
+        if (method.startsWith(GET_PREFIX) || method.startsWith(FIND_PREFIX)) {
+            return;
+        }
+
+        try {
+            if (
+                method.startsWith(DELETE_ALL_PREFIX)
+                    || method.startsWith(DELETE_UNUSED_PREFIX)
+                    || method.startsWith(UPDATE_STATUS_FOR_UNUSED_PREFIX)
+            ) {
+                // Bulk changes can't be applied incrementally
+                this.criteriaIndexService.invalidate();
+            } else if (method.startsWith(CREATE_PREFIX) && result instanceof String) {
+                refresher.accept((String) result);
+            } else {
+                final Object[] args = joinPoint.getArgs();
+                if (args.length > 0 && args[0] instanceof String) {
+                    refresher.accept((String) args[0]);
+                } else {
+                    this.criteriaIndexService.invalidate();
+                }
+            }
+        } catch (final RuntimeException e) {
+            // Never fail the advised call because of the index
+            log.error("Unable to update criteria index after {}", method, e);
+            this.criteriaIndexService.invalidate();
+        }
+    }
+}
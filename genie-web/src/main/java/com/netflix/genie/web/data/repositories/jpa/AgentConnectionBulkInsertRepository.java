@@ -0,0 +1,43 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.repositories.jpa;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Custom extension interface for the {@link JpaAgentConnectionRepository} to insert many agent connections with as
+ * few round trips to the database as possible.
+ *
+ * @since 4.0.0
+ */
+public interface AgentConnectionBulkInsertRepository {
+
+    /**
+     * Insert a new connection row to the given server for each of the supplied jobs using multi-row insert statements.
+     * <p>
+     * The inserted rows aren't attached to the current persistence context, they should be queried for afterwards.
+     * If any of the jobs already has a connection the statement fails with a unique constraint violation.
+     *
+     * @param jobIds         The ids of the jobs to insert connections for
+     * @param serverHostname The hostname of the server the agents of the jobs are connected to
+     * @param created        The creation time to record for the new rows
+     * @return The number of rows inserted
+     */
+    int insertAgentConnections(Set<String> jobIds, String serverHostname, Instant created);
+}
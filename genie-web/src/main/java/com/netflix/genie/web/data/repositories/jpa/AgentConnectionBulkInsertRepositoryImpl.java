@@ -0,0 +1,54 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.repositories.jpa;
+
+import com.google.common.collect.ImmutableMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Implementation of the {@link AgentConnectionBulkInsertRepository} interface.
+ * <p>
+ * Works as a fragment.
+ * See <a href="https://tinyurl.com/yctelbfh">Spring Data JPA Documentation</a> for more.
+ *
+ * @since 4.0.0
+ */
+public class AgentConnectionBulkInsertRepositoryImpl implements AgentConnectionBulkInsertRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int insertAgentConnections(final Set<String> jobIds, final String serverHostname, final Instant created) {
+        return BulkInsertUtils.insertUniqueValues(
+            this.entityManager,
+            "agent_connections",
+            "job_id",
+            jobIds,
+            created,
+            ImmutableMap.of("server_hostname", serverHostname)
+        );
+    }
+}
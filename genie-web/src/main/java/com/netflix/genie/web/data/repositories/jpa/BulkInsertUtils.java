@@ -0,0 +1,124 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.repositories.jpa;
+
+import com.google.common.collect.Iterables;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Utility methods shared by the repository fragments which insert rows of unique values (tags, files, agent
+ * connections) in bulk.
+ *
+ * @since 4.0.0
+ */
+final class BulkInsertUtils {
+
+    /**
+     * The maximum number of rows inserted by a single statement to stay well below database parameter limits.
+     */
+    static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    private BulkInsertUtils() {
+    }
+
+    /**
+     * Insert a row for each of the supplied values using multi-row {@code INSERT} statements.
+     * <p>
+     * The remaining columns of the table ({@code id}, {@code entity_version}) are filled in by the database defaults.
+     *
+     * @param entityManager The entity manager to execute the statements with
+     * @param table         The table to insert into
+     * @param column        The unique value column of the table
+     * @param values        The values to insert. None of them should already exist in the table
+     * @param created       The creation time to record for the new rows
+     * @return The number of rows inserted
+     */
+    static int insertUniqueValues(
+        final EntityManager entityManager,
+        final String table,
+        final String column,
+        final Set<String> values,
+        final Instant created
+    ) {
+        return insertUniqueValues(entityManager, table, column, values, created, Collections.emptyMap());
+    }
+
+    /**
+     * Insert a row for each of the supplied values using multi-row {@code INSERT} statements, with the same value in
+     * each of the {@code sharedColumns} of every row.
+     * <p>
+     * The remaining columns of the table ({@code id}, {@code entity_version}) are filled in by the database defaults.
+     *
+     * @param entityManager The entity manager to execute the statements with
+     * @param table         The table to insert into
+     * @param column        The unique value column of the table
+     * @param values        The values to insert. None of them should already exist in the table
+     * @param created       The creation time to record for the new rows
+     * @param sharedColumns The value of other columns, by column name, which is the same for all the new rows
+     * @return The number of rows inserted
+     */
+    static int insertUniqueValues(
+        final EntityManager entityManager,
+        final String table,
+        final String column,
+        final Set<String> values,
+        final Instant created,
+        final Map<String, String> sharedColumns
+    ) {
+        final StringBuilder columns = new StringBuilder().append("(created, updated, ").append(column);
+        final StringBuilder sharedParameters = new StringBuilder();
+        for (final String sharedColumn : sharedColumns.keySet()) {
+            columns.append(", ").append(sharedColumn);
+            sharedParameters.append(", :").append(sharedColumn);
+        }
+        columns.append(')');
+
+        int inserted = 0;
+        for (final List<String> chunk : Iterables.partition(values, MAX_ROWS_PER_STATEMENT)) {
+            final StringBuilder sql = new StringBuilder()
+                .append("INSERT INTO ")
+                .append(table)
+                .append(' ')
+                .append(columns)
+                .append(" VALUES ");
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append("(:created, :created, :value").append(i).append(sharedParameters).append(')');
+            }
+
+            final Query query = entityManager.createNativeQuery(sql.toString()).setParameter("created", created);
+            for (int i = 0; i < chunk.size(); i++) {
+                query.setParameter("value" + i, chunk.get(i));
+            }
+            for (final Map.Entry<String, String> sharedColumn : sharedColumns.entrySet()) {
+                query.setParameter(sharedColumn.getKey(), sharedColumn.getValue());
+            }
+            inserted += query.executeUpdate();
+        }
+        return inserted;
+    }
+}
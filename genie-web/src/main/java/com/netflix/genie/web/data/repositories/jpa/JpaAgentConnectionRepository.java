@@ -18,9 +18,14 @@
 package com.netflix.genie.web.data.repositories.jpa;
 
 import com.netflix.genie.web.data.entities.AgentConnectionEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import javax.validation.constraints.NotBlank;
+import java.time.Instant;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * JPA repository for active agent-to-server connections.
@@ -28,7 +33,8 @@ import java.util.Optional;
  * @author mprimi
  * @since 4.0.0
  */
-public interface JpaAgentConnectionRepository extends JpaIdRepository<AgentConnectionEntity> {
+public interface JpaAgentConnectionRepository
+    extends JpaIdRepository<AgentConnectionEntity>, AgentConnectionBulkInsertRepository {
 
     /**
      * Find entity by jobId.
@@ -38,6 +44,36 @@ public interface JpaAgentConnectionRepository extends JpaIdRepository<AgentConne
      */
     Optional<AgentConnectionEntity> findByJobId(@NotBlank String jobId);
 
+    /**
+     * Find which of the given jobs have a connection without loading their entities.
+     *
+     * @param jobIds the job ids
+     * @return the ids of the jobs which have a connection to any server
+     */
+    @Query("SELECT c.jobId FROM AgentConnectionEntity c WHERE c.jobId IN (:jobIds)")
+    Set<String> findJobIdsByJobIdIn(@Param("jobIds") Set<String> jobIds);
+
+    /**
+     * Move the existing connections of the given jobs to the server identified by {@code serverHostName} in a single
+     * statement. Connections already associated to that server are left untouched.
+     *
+     * @param jobIds         The ids of the jobs whose connections to move
+     * @param serverHostName The hostname of the server the connections are now associated to
+     * @param updated        The update time to record for the moved connections
+     * @return the number of updated records
+     */
+    @Modifying
+    @Query(
+        "UPDATE AgentConnectionEntity c"
+            + " SET c.serverHostname = :serverHostName, c.updated = :updated, c.entityVersion = c.entityVersion + 1"
+            + " WHERE c.jobId IN (:jobIds) AND c.serverHostname <> :serverHostName"
+    )
+    int updateServerHostnameByJobIdIn(
+        @Param("jobIds") Set<String> jobIds,
+        @Param("serverHostName") String serverHostName,
+        @Param("updated") Instant updated
+    );
+
     /**
      * Find the number of agents currently connected to the given server identified by {@code serverHostName}.
      *
@@ -54,4 +90,21 @@ public interface JpaAgentConnectionRepository extends JpaIdRepository<AgentConne
      * @return the number of deleted records
      */
     int deleteByServerHostnameEquals(String serverHostName);
+
+    /**
+     * Delete the rows of the given jobs associated with the server identified by {@code serverHostName} in a single
+     * statement.
+     *
+     * @param jobIds         The ids of the jobs whose connections to delete
+     * @param serverHostName The hostname of the server the connections must be associated to
+     * @return the number of deleted records
+     */
+    @Modifying
+    @Query(
+        "DELETE FROM AgentConnectionEntity c WHERE c.jobId IN (:jobIds) AND c.serverHostname = :serverHostName"
+    )
+    int deleteByJobIdInAndServerHostnameEquals(
+        @Param("jobIds") Set<String> jobIds,
+        @Param("serverHostName") String serverHostName
+    );
 }
@@ -20,6 +20,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -40,6 +41,16 @@ public interface JpaClusterRepository extends JpaBaseRepository<ClusterEntity>,
             + " AND created < :clusterCreatedThreshold"
             + " AND id NOT IN (SELECT DISTINCT(cluster_id) FROM jobs WHERE cluster_id IS NOT NULL)";
 
+    /**
+     * The SQL to find the unique ids of the commands attached to every cluster, in priority order.
+     */
+    String FIND_CLUSTER_COMMAND_IDS_SQL =
+        "SELECT cl.unique_id, co.unique_id"
+            + " FROM clusters_commands cc"
+            + " JOIN clusters cl ON cc.cluster_id = cl.id"
+            + " JOIN commands co ON cc.command_id = co.id"
+            + " ORDER BY cc.cluster_id, cc.command_order";
+
     /**
      * Find all the clusters that aren't attached to any jobs in the database, were created before the given time
      * and have one of the given statuses.
@@ -55,4 +66,13 @@ public interface JpaClusterRepository extends JpaBaseRepository<ClusterEntity>,
         @Param("unusedStatuses") Set<String> unusedStatuses,
         @Param("clusterCreatedThreshold") Instant clusterCreatedThreshold
     );
+
+    /**
+     * Find the unique ids of the commands attached to every cluster.
+     *
+     * @return Pairs of cluster unique id and command unique id, grouped by cluster and in priority order within a
+     * cluster
+     */
+    @Query(value = FIND_CLUSTER_COMMAND_IDS_SQL, nativeQuery = true)
+    List<Object[]> findClusterCommandIds();
 }
@@ -23,6 +23,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -32,27 +33,39 @@ import java.util.Set;
  * @author tgianos
  * @since 3.3.0
  */
-public interface JpaFileRepository extends JpaIdRepository<FileEntity> {
+public interface JpaFileRepository extends JpaIdRepository<FileEntity>, FileBulkInsertRepository {
 
     /**
-     * The query used to select any dangling file references.
+     * The query used to find the next batch of file ids, in order, to check for use.
      */
-    String SELECT_FOR_UPDATE_UNUSED_FILES_SQL =
+    String FIND_FILE_IDS_AFTER_SQL =
         "SELECT id "
             + "FROM files "
-            + "WHERE id NOT IN (SELECT DISTINCT(setup_file) FROM applications WHERE setup_file IS NOT NULL) "
-            + "AND id NOT IN (SELECT DISTINCT(file_id) FROM applications_configs) "
-            + "AND id NOT IN (SELECT DISTINCT(file_id) FROM applications_dependencies) "
-            + "AND id NOT IN (SELECT DISTINCT(setup_file) FROM clusters WHERE setup_file IS NOT NULL) "
-            + "AND id NOT IN (SELECT DISTINCT(file_id) FROM clusters_configs) "
-            + "AND id NOT IN (SELECT DISTINCT(file_id) FROM clusters_dependencies) "
-            + "AND id NOT IN (SELECT DISTINCT(setup_file) FROM commands WHERE setup_file IS NOT NULL) "
-            + "AND id NOT IN (SELECT DISTINCT(file_id) FROM commands_configs) "
-            + "AND id NOT IN (SELECT DISTINCT(file_id) FROM commands_dependencies) "
-            + "AND id NOT IN (SELECT DISTINCT(setup_file) FROM jobs WHERE setup_file IS NOT NULL) "
-            + "AND id NOT IN (SELECT DISTINCT(file_id) FROM jobs_configs) "
-            + "AND id NOT IN (SELECT DISTINCT(file_id) FROM jobs_dependencies) "
+            + "WHERE id > :afterId "
+            + "ORDER BY id "
+            + "LIMIT :batchSize"; // JPQL doesn't support limit so this needs to be native query
+
+    /**
+     * The query used to select which of the given file references are dangling.
+     * Only the rows of the given batch are examined and locked.
+     */
+    String SELECT_FOR_UPDATE_UNUSED_FILES_SQL =
+        "SELECT id "
+            + "FROM files f "
+            + "WHERE id IN (:ids) "
             + "AND created <= :createdThreshold "
+            + "AND NOT EXISTS (SELECT 1 FROM applications x WHERE x.setup_file = f.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM applications_configs x WHERE x.file_id = f.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM applications_dependencies x WHERE x.file_id = f.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM clusters x WHERE x.setup_file = f.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM clusters_configs x WHERE x.file_id = f.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM clusters_dependencies x WHERE x.file_id = f.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM commands x WHERE x.setup_file = f.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM commands_configs x WHERE x.file_id = f.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM commands_dependencies x WHERE x.file_id = f.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM jobs x WHERE x.setup_file = f.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM jobs_configs x WHERE x.file_id = f.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM jobs_dependencies x WHERE x.file_id = f.id) "
             + "FOR UPDATE;";
 
     /**
@@ -80,15 +93,26 @@ public interface JpaFileRepository extends JpaIdRepository<FileEntity> {
     Set<FileEntity> findByFileIn(Set<String> files);
 
     /**
-     * Find the ids of all files from the database that aren't referenced which were created before the supplied created
-     * threshold.
+     * Find the ids of the files following the given id in id order.
+     *
+     * @param afterId   The id after which to start. Exclusive
+     * @param batchSize The maximum number of ids to return
+     * @return The ids of the files in ascending order
+     */
+    @Query(value = FIND_FILE_IDS_AFTER_SQL, nativeQuery = true)
+    List<Number> findFileIdsAfter(@Param("afterId") long afterId, @Param("batchSize") int batchSize);
+
+    /**
+     * Find which of the given files aren't referenced and were created before the supplied created threshold.
+     * The files found are locked for update.
      *
+     * @param ids              The ids of the files to check
      * @param createdThreshold The instant in time where files created before this time that aren't referenced
      *                         will be selected. Inclusive.
      * @return The ids of the files which should be deleted
      */
     @Query(value = SELECT_FOR_UPDATE_UNUSED_FILES_SQL, nativeQuery = true)
-    Set<Number> findUnusedFiles(@Param("createdThreshold") Instant createdThreshold);
+    Set<Number> findUnusedFiles(@Param("ids") Set<Long> ids, @Param("createdThreshold") Instant createdThreshold);
 
     /**
      * Delete all files from the database that are in the current set of ids.
@@ -27,6 +27,7 @@ import org.springframework.data.repository.query.Param;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotEmpty;
 import java.time.Instant;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -37,12 +38,12 @@ import java.util.Set;
 public interface JpaJobRepository extends JpaBaseRepository<JobEntity> {
 
     /**
-     * The query used to find batches of jobs before a certain time.
+     * The query used to find batches of jobs created within a certain time range.
      */
-    String FIND_OLD_JOBS_QUERY =
+    String FIND_OLD_JOBS_IN_RANGE_QUERY =
         "SELECT id"
             + " FROM jobs"
-            + " WHERE created < :createdThreshold AND status NOT IN (:excludedStatuses)"
+            + " WHERE created >= :createdFrom AND created < :createdTo AND status NOT IN (:excludedStatuses)"
             + " LIMIT :batchSize"; // JPQL doesn't support limit so this needs to be native query
 
     // TODO: Make interfaces generic but be aware of https://jira.spring.io/browse/DATAJPA-1185
@@ -100,20 +101,39 @@ public interface JpaJobRepository extends JpaBaseRepository<JobEntity> {
     Long countJobsByUserAndStatusIn(@NotBlank String user, @NotEmpty Set<String> statuses);
 
     /**
-     * Find a batch of jobs that were created before the given time.
+     * Find a batch of jobs that were created within the given time range.
      *
-     * @param createdThreshold The time before which the jobs were submitted. Exclusive
-     * @param excludeStatuses  The set of statuses which should be excluded from the results
-     * @param limit            The maximum number of jobs to to find
-     * @return The number of deleted jobs
+     * @param createdFrom     The time from which the jobs were submitted. Inclusive
+     * @param createdTo       The time until which the jobs were submitted. Exclusive
+     * @param excludeStatuses The set of statuses which should be excluded from the results
+     * @param limit           The maximum number of jobs to to find
+     * @return The ids of the jobs found
      */
-    @Query(value = FIND_OLD_JOBS_QUERY, nativeQuery = true)
-    Set<Long> findJobsCreatedBefore(
-        @Param("createdThreshold") Instant createdThreshold,
+    @Query(value = FIND_OLD_JOBS_IN_RANGE_QUERY, nativeQuery = true)
+    Set<Long> findJobsCreatedBetween(
+        @Param("createdFrom") Instant createdFrom,
+        @Param("createdTo") Instant createdTo,
         @Param("excludedStatuses") Set<String> excludeStatuses,
         @Param("batchSize") int limit
     );
 
+    /**
+     * Find the creation time of the oldest job that was created before the given time.
+     *
+     * @param createdThreshold The time before which the jobs were submitted. Exclusive
+     * @param excludeStatuses  The set of statuses of jobs which should be ignored
+     * @return The creation time of the oldest job or {@link Optional#empty()} if there is none
+     */
+    @Query(
+        "SELECT MIN(j.created)"
+            + " FROM JobEntity j"
+            + " WHERE j.created < :createdThreshold AND j.status NOT IN (:excludedStatuses)"
+    )
+    Optional<Instant> findOldestJobCreatedBefore(
+        @Param("createdThreshold") Instant createdThreshold,
+        @Param("excludedStatuses") Set<String> excludeStatuses
+    );
+
     /**
      * Returns resources usage for each user that has a running job.
      * Only jobs running on Genie servers are considered (i.e. no Agent jobs)
@@ -23,6 +23,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -32,20 +33,32 @@ import java.util.Set;
  * @author tgianos
  * @since 3.3.0
  */
-public interface JpaTagRepository extends JpaIdRepository<TagEntity> {
+public interface JpaTagRepository extends JpaIdRepository<TagEntity>, TagBulkInsertRepository {
 
     /**
-     * This is the query used to find the ids of tags that aren't referenced by any of the other tables.
+     * The query used to find the next batch of tag ids, in order, to check for use.
      */
-    String SELECT_FOR_UPDATE_UNUSED_TAGS_SQL =
+    String FIND_TAG_IDS_AFTER_SQL =
         "SELECT id "
             + "FROM tags "
-            + "WHERE id NOT IN (SELECT DISTINCT(tag_id) FROM applications_tags) "
-            + "AND id NOT IN (SELECT DISTINCT(tag_id) FROM clusters_tags) "
-            + "AND id NOT IN (SELECT DISTINCT(tag_id) FROM commands_tags) "
-            + "AND id NOT IN (SELECT DISTINCT(tag_id) FROM criteria_tags) "
-            + "AND id NOT IN (SELECT DISTINCT(tag_id) FROM jobs_tags) "
+            + "WHERE id > :afterId "
+            + "ORDER BY id "
+            + "LIMIT :batchSize"; // JPQL doesn't support limit so this needs to be native query
+
+    /**
+     * This is the query used to find which of the given tag ids aren't referenced by any of the other tables.
+     * Only the rows of the given batch are examined and locked.
+     */
+    String SELECT_FOR_UPDATE_UNUSED_TAGS_SQL =
+        "SELECT id "
+            + "FROM tags t "
+            + "WHERE id IN (:ids) "
             + "AND created <= :createdThreshold "
+            + "AND NOT EXISTS (SELECT 1 FROM applications_tags x WHERE x.tag_id = t.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM clusters_tags x WHERE x.tag_id = t.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM commands_tags x WHERE x.tag_id = t.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM criteria_tags x WHERE x.tag_id = t.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM jobs_tags x WHERE x.tag_id = t.id) "
             + "FOR UPDATE;";
 
     /**
@@ -73,15 +86,26 @@ public interface JpaTagRepository extends JpaIdRepository<TagEntity> {
     Set<TagEntity> findByTagIn(Set<String> tags);
 
     /**
-     * Find all tags from the database that aren't referenced which were created before the supplied created
-     * threshold.
+     * Find the ids of the tags following the given id in id order.
      *
+     * @param afterId   The id after which to start. Exclusive
+     * @param batchSize The maximum number of ids to return
+     * @return The ids of the tags in ascending order
+     */
+    @Query(value = FIND_TAG_IDS_AFTER_SQL, nativeQuery = true)
+    List<Number> findTagIdsAfter(@Param("afterId") long afterId, @Param("batchSize") int batchSize);
+
+    /**
+     * Find which of the given tags aren't referenced and were created before the supplied created threshold.
+     * The tags found are locked for update.
+     *
+     * @param ids              The ids of the tags to check
      * @param createdThreshold The instant in time where tags created before this time that aren't referenced
      *                         will be returned. Inclusive
-     * @return The number of tags deleted
+     * @return The ids of the unused tags
      */
     @Query(value = SELECT_FOR_UPDATE_UNUSED_TAGS_SQL, nativeQuery = true)
-    Set<Number> findUnusedTags(@Param("createdThreshold") Instant createdThreshold);
+    Set<Number> findUnusedTags(@Param("ids") Set<Long> ids, @Param("createdThreshold") Instant createdThreshold);
 
     /**
      * Delete all tags from the database whose ids are in the supplied set.
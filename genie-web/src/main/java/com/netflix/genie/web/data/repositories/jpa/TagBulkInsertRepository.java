@@ -0,0 +1,42 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.repositories.jpa;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Custom extension interface for the {@link JpaTagRepository} to insert many tags with as few round trips to the
+ * database as possible.
+ *
+ * @since 4.0.0
+ */
+public interface TagBulkInsertRepository {
+
+    /**
+     * Insert a new tag row for each of the supplied values using multi-row insert statements.
+     * <p>
+     * The inserted rows aren't attached to the current persistence context, they should be queried for afterwards.
+     * If any of the values already exists the statement fails with a unique constraint violation.
+     *
+     * @param tags    The tag values to insert
+     * @param created The creation time to record for the new rows
+     * @return The number of rows inserted
+     */
+    int insertTags(Set<String> tags, Instant created);
+}
@@ -19,16 +19,22 @@ import com.netflix.genie.web.data.entities.ClusterEntity;
 import com.netflix.genie.web.data.entities.CommandEntity;
 import com.netflix.genie.web.data.entities.JobEntity;
 import com.netflix.genie.web.data.entities.JobEntity_;
+import com.netflix.genie.web.data.entities.TagEntity;
+import com.netflix.genie.web.data.entities.TagEntity_;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nullable;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Specifications for JPA queries.
@@ -48,6 +54,7 @@ public final class JpaJobSpecs {
      * Generate a criteria query predicate for a where clause based on the given parameters.
      *
      * @param root             The root to use
+     * @param cq               The query the predicate is for. Used to create the tag subquery.
      * @param cb               The criteria builder to use
      * @param id               The job id
      * @param name             The job name
@@ -69,6 +76,7 @@ public final class JpaJobSpecs {
     @SuppressWarnings("checkstyle:parameternumber")
     public static Predicate getFindPredicate(
         final Root<JobEntity> root,
+        final CriteriaQuery<?> cq,
         final CriteriaBuilder cb,
         @Nullable final String id,
         @Nullable final String name,
@@ -106,7 +114,7 @@ public final class JpaJobSpecs {
             );
         }
         if (tags != null && !tags.isEmpty()) {
-            predicates.add(cb.like(root.get(JobEntity_.tagSearchString), JpaSpecificationUtils.getTagLikeString(tags)));
+            predicates.add(getTagsPredicate(root, cq, cb, tags));
         }
         if (cluster != null) {
             predicates.add(cb.equal(root.get(JobEntity_.cluster), cluster));
@@ -152,4 +160,31 @@ public final class JpaJobSpecs {
         }
         return cb.and(predicates.toArray(new Predicate[0]));
     }
+
+    /*
+     * Matches jobs which have all the given tags by going through the jobs_tags join table rather than a LIKE on the
+     * tag search string, which can't use an index. The subquery is driven by the unique index on the tag and the
+     * tag_id index of jobs_tags so only the jobs carrying the requested tags are ever read.
+     */
+    private static Predicate getTagsPredicate(
+        final Root<JobEntity> root,
+        final CriteriaQuery<?> cq,
+        final CriteriaBuilder cb,
+        final Set<String> tags
+    ) {
+        final Set<String> searchTags = tags.stream().filter(StringUtils::isNotBlank).collect(Collectors.toSet());
+        if (searchTags.isEmpty()) {
+            // Same as the previous '%' like statement which matched any job with at least one tag
+            return cb.isNotEmpty(root.get(JobEntity_.tags));
+        }
+        final Subquery<Long> taggedJobIds = cq.subquery(Long.class);
+        final Root<JobEntity> taggedJob = taggedJobIds.from(JobEntity.class);
+        final Join<JobEntity, TagEntity> tagJoin = taggedJob.join(JobEntity_.tags);
+        taggedJobIds
+            .select(taggedJob.get(JobEntity_.id))
+            .where(tagJoin.get(TagEntity_.tag).in(searchTags))
+            .groupBy(taggedJob.get(JobEntity_.id))
+            .having(cb.equal(cb.count(taggedJob.get(JobEntity_.id)), searchTags.size()));
+        return root.get(JobEntity_.id).in(taggedJobIds);
+    }
 }
@@ -20,7 +20,9 @@ package com.netflix.genie.web.data.services;
 import org.springframework.validation.annotation.Validated;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Persistence service to store and lookup which server is a given job/agent connected to.
@@ -54,6 +56,31 @@ public interface AgentConnectionPersistenceService {
         @NotBlank String hostname
     );
 
+    /**
+     * Store new connections currently active from the agents running the given jobs to the given node.
+     * Equivalent to calling {@link #saveAgentConnection(String, String)} for each job, in a single transaction.
+     *
+     * @param jobIds   the ids of the jobs the agents are running
+     * @param hostname the server owning the connections
+     */
+    void saveAgentConnections(
+        @NotEmpty Set<String> jobIds,
+        @NotBlank String hostname
+    );
+
+    /**
+     * Remove existing connections from the agents running the given jobs to the local node.
+     * Equivalent to calling {@link #removeAgentConnection(String, String)} for each job, in a single transaction.
+     *
+     * @param jobIds   the ids of the jobs the agents are running
+     * @param hostname the hostname expected to be associated to the connections
+     * @return the number of connections removed
+     */
+    int removeAgentConnections(
+        @NotEmpty Set<String> jobIds,
+        @NotBlank String hostname
+    );
+
     /**
      * Lookup the hostname/address of the server with an active connection to a given agent.
      *
@@ -364,6 +364,14 @@ public interface ClusterPersistenceService {
         @Nullable Set<CommandStatus> statuses
     ) throws GenieException;
 
+    /**
+     * Get the ids of the commands associated with every cluster in a single read.
+     *
+     * @return The command ids of each cluster in priority order, keyed by cluster id. Clusters without any command
+     * are absent.
+     */
+    Map<String, List<String>> getCommandIdsForAllClusters();
+
     /**
      * Update the set of command files associated with the cluster with
      * given id.
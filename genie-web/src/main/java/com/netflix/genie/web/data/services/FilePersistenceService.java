@@ -17,8 +17,10 @@
  */
 package com.netflix.genie.web.data.services;
 
+import com.netflix.genie.web.dtos.BatchDeletionResult;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
@@ -40,12 +42,15 @@ public interface FilePersistenceService {
     void createFileIfNotExists(@NotBlank(message = "File path cannot be blank") String file);
 
     /**
-     * Delete all files from the database that aren't referenced which were created before the supplied created
-     * threshold.
+     * Delete the files which aren't referenced and were created before the supplied created threshold out of the
+     * next batch of files following the given id in id order. Only the batch is examined and locked so the cost of a
+     * call is bounded by the batch size, whatever the size of the table.
      *
      * @param createdThreshold The instant in time where files created before this time that aren't referenced
      *                         will be deleted. Inclusive
-     * @return The number of files deleted
+     * @param afterId          The id after which the batch starts. Exclusive. 0 to start from the beginning.
+     * @param batchSize        The maximum number of files to examine
+     * @return The number of files deleted and where the next batch should start
      */
-    long deleteUnusedFiles(@NotNull Instant createdThreshold);
+    BatchDeletionResult deleteUnusedFiles(@NotNull Instant createdThreshold, long afterId, @Min(1) int batchSize);
 }
@@ -93,6 +93,33 @@ public interface JobPersistenceService {
         @Min(1) int memory
     ) throws GenieException;
 
+    /**
+     * Save all the initial job fields along with the resources used to run the job in the data store at once.
+     * <p>
+     * Equivalent to calling {@code createJob} followed by {@link #updateJobWithRuntimeEnvironment(String, String,
+     * String, List, int)} but with a single write.
+     *
+     * @param jobRequest     the Job request object to save. Not null
+     * @param jobMetadata    metadata about the job request. Not null
+     * @param job            The Job object to create
+     * @param jobExecution   The job execution object to create
+     * @param clusterId      The id of the cluster the job runs on
+     * @param commandId      The id of the command the job runs with
+     * @param applicationIds The ids of the applications used to run the job
+     * @param memory         The amount of memory (in MB) to run the job with
+     * @throws GenieException if there is an error
+     */
+    void createJobWithRuntimeEnvironment(
+        @NotNull com.netflix.genie.common.dto.JobRequest jobRequest,
+        @NotNull com.netflix.genie.common.dto.JobMetadata jobMetadata,
+        @NotNull Job job,
+        @NotNull JobExecution jobExecution,
+        @NotBlank String clusterId,
+        @NotBlank String commandId,
+        @NotNull List<String> applicationIds,
+        @Min(1) int memory
+    ) throws GenieException;
+
     /**
      * Update the status and status message of the job.
      *
@@ -144,20 +171,35 @@ public interface JobPersistenceService {
     ) throws GenieException;
 
     /**
-     * This method will delete a chunk of jobs whose creation time is earlier than the given date.
+     * This method will delete a chunk of jobs whose creation time falls within the given range. Splitting the
+     * retention backlog in disjoint ranges allows several of them to be deleted at the same time.
      *
-     * @param creationThreshold The instant in time before which all jobs should be deleted
-     * @param excludeStatuses   The set of statuses that should be excluded from deletion if a job is in one of these
-     *                          statuses
-     * @param batchSize         The maximum number of jobs that should be deleted per query
+     * @param createdFrom     The instant in time from which jobs should be deleted. Inclusive
+     * @param createdTo       The instant in time until which jobs should be deleted. Exclusive
+     * @param excludeStatuses The set of statuses that should be excluded from deletion if a job is in one of these
+     *                        statuses
+     * @param batchSize       The maximum number of jobs that should be deleted per query
      * @return the number of deleted jobs
      */
-    long deleteJobsCreatedBefore(
-        @NotNull Instant creationThreshold,
+    long deleteJobsCreatedBetween(
+        @NotNull Instant createdFrom,
+        @NotNull Instant createdTo,
         @NotNull Set<JobStatus> excludeStatuses,
         @Min(1) int batchSize
     );
 
+    /**
+     * Find the creation time of the oldest job created before the given instant, ignoring jobs in the given statuses.
+     *
+     * @param creationThreshold The instant in time before which jobs are considered. Exclusive
+     * @param excludeStatuses   The set of statuses of jobs that should be ignored
+     * @return The creation time of the oldest such job or {@link Optional#empty()} if there is none
+     */
+    Optional<Instant> getOldestJobCreatedBefore(
+        @NotNull Instant creationThreshold,
+        @NotNull Set<JobStatus> excludeStatuses
+    );
+
     // V4 APIs
 
     /**
@@ -40,6 +40,7 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Interface for searching jobs.
@@ -68,6 +69,12 @@ public interface JobSearchService {
      * @param maxFinished      The time which the job had to finish before in order to be returned (exclusive)
      * @param grouping         The job grouping to search for
      * @param groupingInstance The job grouping instance to search for
+     * @param after            The id of the last job of the previous page. If present the jobs following it in the
+     *                         order of their creation are returned, seeking on the creation time and the job's primary
+     *                         key instead of skipping over the {@code page} offset. Only sorting on {@code created}
+     *                         is supported in this mode and the total count is never computed.
+     * @param countTotal       Whether the total number of jobs matching the criteria should be counted. If not the
+     *                         total of the returned page is only a lower bound telling whether there is a next page
      * @param page             Page information of job to get
      * @return Metadata information on jobs which match the criteria
      */
@@ -88,9 +95,54 @@ public interface JobSearchService {
         @Nullable Instant maxFinished,
         @Nullable String grouping,
         @Nullable String groupingInstance,
+        @Nullable String after,
+        boolean countTotal,
         @NotNull Pageable page
     );
 
+    /**
+     * Export all the jobs which match the given filter criteria, oldest first, by handing them one at a time to the
+     * given consumer. The jobs are read through a database cursor while they are consumed so memory use doesn't depend
+     * on the number of jobs exported and no count or paging query is run.
+     *
+     * @param id               id for job
+     * @param name             name of job (can be a SQL-style pattern such as HIVE%)
+     * @param user             user who submitted job
+     * @param statuses         statuses of job
+     * @param tags             tags for the job
+     * @param clusterName      name of cluster for job
+     * @param clusterId        id of cluster for job
+     * @param commandName      name of the command run in the job
+     * @param commandId        id of the command run in the job
+     * @param minStarted       The time which the job had to start after in order to be return (inclusive)
+     * @param maxStarted       The time which the job had to start before in order to be returned (exclusive)
+     * @param minFinished      The time which the job had to finish after in order to be return (inclusive)
+     * @param maxFinished      The time which the job had to finish before in order to be returned (exclusive)
+     * @param grouping         The job grouping to search for
+     * @param groupingInstance The job grouping instance to search for
+     * @param consumer         The consumer of the jobs found. Called from within the read transaction.
+     * @return The number of jobs exported
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    long exportJobs(
+        @Nullable String id,
+        @Nullable String name,
+        @Nullable String user,
+        @Nullable Set<JobStatus> statuses,
+        @Nullable Set<String> tags,
+        @Nullable String clusterName,
+        @Nullable String clusterId,
+        @Nullable String commandName,
+        @Nullable String commandId,
+        @Nullable Instant minStarted,
+        @Nullable Instant maxStarted,
+        @Nullable Instant minFinished,
+        @Nullable Instant maxFinished,
+        @Nullable String grouping,
+        @Nullable String groupingInstance,
+        @NotNull Consumer<JobSearchResult> consumer
+    );
+
     /**
      * Given a hostname return a set of all the jobs currently active on that host.
      *
@@ -17,8 +17,10 @@
  */
 package com.netflix.genie.web.data.services;
 
+import com.netflix.genie.web.dtos.BatchDeletionResult;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
@@ -40,12 +42,15 @@ public interface TagPersistenceService {
     void createTagIfNotExists(@NotBlank(message = "Tag cannot be blank") String tag);
 
     /**
-     * Delete all tags from the database that aren't referenced which were created before the supplied created
-     * threshold.
+     * Delete the tags which aren't referenced and were created before the supplied created threshold out of the
+     * next batch of tags following the given id in id order. Only the batch is examined and locked so the cost of a
+     * call is bounded by the batch size, whatever the size of the table.
      *
      * @param createdThreshold The instant in time where tags created before this time that aren't referenced
      *                         will be deleted. Inclusive
-     * @return The number of tags deleted
+     * @param afterId          The id after which the batch starts. Exclusive. 0 to start from the beginning.
+     * @param batchSize        The maximum number of tags to examine
+     * @return The number of tags deleted and where the next batch should start
      */
-    long deleteUnusedTags(@NotNull Instant createdThreshold);
+    BatchDeletionResult deleteUnusedTags(@NotNull Instant createdThreshold, long afterId, @Min(1) int batchSize);
 }
@@ -17,6 +17,8 @@
  */
 package com.netflix.genie.web.data.services.jpa;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 import com.netflix.genie.web.data.entities.AgentConnectionEntity;
 import com.netflix.genie.web.data.repositories.jpa.JpaAgentConnectionRepository;
 import com.netflix.genie.web.data.services.AgentConnectionPersistenceService;
@@ -24,7 +26,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * JPA implementation of AgentConnectionPersistenceService.
@@ -36,6 +42,9 @@ import java.util.Optional;
 @Transactional
 public class JpaAgentConnectionPersistenceServiceImpl implements AgentConnectionPersistenceService {
 
+    // Keep IN clauses of batch operations to a reasonable size
+    private static final int MAX_JOB_IDS_PER_STATEMENT = 500;
+
     private final JpaAgentConnectionRepository agentConnectionRepository;
 
     /**
@@ -75,6 +84,40 @@ public class JpaAgentConnectionPersistenceServiceImpl implements AgentConnection
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveAgentConnections(@NotEmpty final Set<String> jobIds, @NotBlank final String hostname) {
+        final Instant now = Instant.now();
+        for (final List<String> jobIdsBatch : Iterables.partition(jobIds, MAX_JOB_IDS_PER_STATEMENT)) {
+            final Set<String> newJobIds = Sets.newHashSet(jobIdsBatch);
+            final Set<String> existingJobIds = this.agentConnectionRepository.findJobIdsByJobIdIn(newJobIds);
+            if (!existingJobIds.isEmpty()) {
+                this.agentConnectionRepository.updateServerHostnameByJobIdIn(existingJobIds, hostname, now);
+                newJobIds.removeAll(existingJobIds);
+            }
+            if (!newJobIds.isEmpty()) {
+                this.agentConnectionRepository.insertAgentConnections(newJobIds, hostname, now);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int removeAgentConnections(@NotEmpty final Set<String> jobIds, @NotBlank final String hostname) {
+        int removedConnections = 0;
+        for (final List<String> jobIdsBatch : Iterables.partition(jobIds, MAX_JOB_IDS_PER_STATEMENT)) {
+            removedConnections += this.agentConnectionRepository.deleteByJobIdInAndServerHostnameEquals(
+                Sets.newHashSet(jobIdsBatch),
+                hostname
+            );
+        }
+        return removedConnections;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -17,7 +17,6 @@
  */
 package com.netflix.genie.web.data.services.jpa;
 
-import com.google.common.collect.Sets;
 import com.netflix.genie.common.external.dtos.v4.Criterion;
 import com.netflix.genie.common.external.dtos.v4.ExecutionEnvironment;
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieRuntimeException;
@@ -110,9 +109,11 @@ class JpaBaseService {
      * @throws GenieRuntimeException on error
      */
     Set<FileEntity> createAndGetFileEntities(final Set<String> files) {
-        final Set<FileEntity> fileEntities = Sets.newHashSet();
-        for (final String file : files) {
-            fileEntities.add(this.createAndGetFileEntity(file));
+        final Set<FileEntity> fileEntities = this.filePersistenceService.createAndGetFiles(files);
+        if (fileEntities.size() != files.size()) {
+            // This shouldn't ever happen as the contract of previous API call states they will all exist hence
+            // throw a Runtime exception as there is no real recovery
+            throw new GenieRuntimeException("Couldn't find file entities for all files " + files);
         }
         return fileEntities;
     }
@@ -141,9 +142,11 @@ class JpaBaseService {
      * @throws GenieRuntimeException on error
      */
     Set<TagEntity> createAndGetTagEntities(final Set<String> tags) {
-        final Set<TagEntity> tagEntities = Sets.newHashSet();
-        for (final String tag : tags) {
-            tagEntities.add(this.createAndGetTagEntity(tag));
+        final Set<TagEntity> tagEntities = this.tagPersistenceService.createAndGetTags(tags);
+        if (tagEntities.size() != tags.size()) {
+            // This shouldn't ever happen as the contract of previous API call states they will all exist hence
+            // throw a Runtime exception as there is no real recovery
+            throw new GenieRuntimeException("Couldn't find tag entities for all tags " + tags);
         }
         return tagEntities;
     }
@@ -511,6 +511,21 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, List<String>> getCommandIdsForAllClusters() {
+        final Map<String, List<String>> commandIds = Maps.newHashMap();
+        for (final Object[] clusterCommandIds : this.getClusterRepository().findClusterCommandIds()) {
+            commandIds
+                .computeIfAbsent((String) clusterCommandIds[0], clusterId -> Lists.newArrayList())
+                .add((String) clusterCommandIds[1]);
+        }
+        return commandIds;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -50,4 +50,15 @@ public interface JpaFilePersistenceService extends FilePersistenceService {
      * and "c" are in the database the returned set will contain "b" and "c". The method won't fail.
      */
     Set<FileEntity> getFiles(@NotNull Set<String> files);
+
+    /**
+     * Make sure all the supplied files exist in the database and get all their entity references.
+     * <p>
+     * Existing files are looked up with a single query and all the missing ones are created together rather than one
+     * at a time.
+     *
+     * @param files The file strings to create if necessary and get the entities for
+     * @return The set of file entities, one for each of the input files
+     */
+    Set<FileEntity> createAndGetFiles(@NotNull Set<String> files);
 }
@@ -17,15 +17,19 @@
  */
 package com.netflix.genie.web.data.services.jpa;
 
+import com.google.common.collect.Sets;
 import com.netflix.genie.web.data.entities.FileEntity;
 import com.netflix.genie.web.data.repositories.jpa.JpaFileRepository;
+import com.netflix.genie.web.dtos.BatchDeletionResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -75,14 +79,28 @@ public class JpaFilePersistenceServiceImpl implements JpaFilePersistenceService
      * {@inheritDoc}
      */
     @Override
-    public long deleteUnusedFiles(@NotNull final Instant createdThreshold) {
-        return this.fileRepository.deleteByIdIn(
-            this.fileRepository
-                .findUnusedFiles(createdThreshold)
-                .stream()
-                .map(Number::longValue)
-                .collect(Collectors.toSet())
-        );
+    public BatchDeletionResult deleteUnusedFiles(
+        @NotNull final Instant createdThreshold,
+        final long afterId,
+        @Min(1) final int batchSize
+    ) {
+        final List<Long> ids = this.fileRepository
+            .findFileIdsAfter(afterId, batchSize)
+            .stream()
+            .map(Number::longValue)
+            .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return new BatchDeletionResult(0L, afterId, true);
+        }
+
+        final Set<Long> unusedIds = this.fileRepository
+            .findUnusedFiles(Sets.newHashSet(ids), createdThreshold)
+            .stream()
+            .map(Number::longValue)
+            .collect(Collectors.toSet());
+        final long numDeleted = unusedIds.isEmpty() ? 0L : this.fileRepository.deleteByIdIn(unusedIds);
+
+        return new BatchDeletionResult(numDeleted, ids.get(ids.size() - 1), ids.size() < batchSize);
     }
 
     /**
@@ -102,4 +120,31 @@ public class JpaFilePersistenceServiceImpl implements JpaFilePersistenceService
     public Set<FileEntity> getFiles(@NotNull final Set<String> files) {
         return this.fileRepository.findByFileIn(files);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<FileEntity> createAndGetFiles(@NotNull final Set<String> files) {
+        if (files.isEmpty()) {
+            return Sets.newHashSet();
+        }
+
+        final Set<FileEntity> fileEntities = Sets.newHashSet(this.fileRepository.findByFileIn(files));
+        if (fileEntities.size() == files.size()) {
+            return fileEntities;
+        }
+
+        final Set<String> missingFiles = Sets.newHashSet(files);
+        fileEntities.forEach(fileEntity -> missingFiles.remove(fileEntity.getFile()));
+        try {
+            this.fileRepository.insertFiles(missingFiles, Instant.now());
+        } catch (final DataIntegrityViolationException e) {
+            // Some were created concurrently by someone else. Fall back to creating the rest one at a time.
+            log.warn("Files expected not to be there but some seem to be {}", e.getMessage());
+            missingFiles.forEach(this::createFileIfNotExists);
+        }
+        fileEntities.addAll(this.fileRepository.findByFileIn(missingFiles));
+        return fileEntities;
+    }
 }
@@ -216,6 +216,53 @@ public class JpaJobPersistenceServiceImpl extends JpaBaseService implements JobP
         // TODO: Should we set status to RESOLVED here? Not sure how that will work with V3 so leaving it INIT for now
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void createJobWithRuntimeEnvironment(
+        @NotNull final com.netflix.genie.common.dto.JobRequest jobRequest,
+        @NotNull final com.netflix.genie.common.dto.JobMetadata jobMetadata,
+        @NotNull final Job job,
+        @NotNull final JobExecution jobExecution,
+        @NotBlank final String clusterId,
+        @NotBlank final String commandId,
+        @NotNull final List<String> applicationIds,
+        @Min(1) final int memory
+    ) throws GenieException {
+        log.debug(
+            "Called with\nRequest:\n{}\nMetadata:\n{}\nJob:\n{}\nExecution:\n{}\nCluster: {}, command {} and "
+                + "applications {}",
+            jobRequest,
+            jobMetadata,
+            job,
+            jobExecution,
+            clusterId,
+            commandId,
+            applicationIds
+        );
+
+        final String jobId = jobRequest.getId().orElseThrow(() -> new GeniePreconditionException("No job id entered"));
+        final JobEntity jobEntity = this.toEntity(jobId, jobRequest, jobMetadata, job, jobExecution);
+        try {
+            this.setExecutionResources(jobEntity, clusterId, commandId, applicationIds);
+        } catch (
+            final GenieClusterNotFoundException
+                | GenieCommandNotFoundException
+                | GenieApplicationNotFoundException e
+        ) {
+            throw new GenieNotFoundException(e.getMessage(), e);
+        }
+        jobEntity.setMemoryUsed(memory);
+        jobEntity.setResolved(true);
+
+        try {
+            this.jobRepository.save(jobEntity);
+        } catch (final DataIntegrityViolationException e) {
+            throw new GenieConflictException("A job with id " + jobId + " already exists", e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -294,29 +341,46 @@ public class JpaJobPersistenceServiceImpl extends JpaBaseService implements JobP
      */
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
-    public long deleteJobsCreatedBefore(
-        @NotNull final Instant creationThreshold,
+    public long deleteJobsCreatedBetween(
+        @NotNull final Instant createdFrom,
+        @NotNull final Instant createdTo,
         @NotNull final Set<JobStatus> ignoreStatuses,
         @Min(1) final int batchSize
     ) {
-        log.info(
-            "Attempting to delete {} jobs created before {} that are do not have any status in {}",
+        log.debug(
+            "Attempting to delete {} jobs created between {} and {} that do not have any status in {}",
             batchSize,
-            creationThreshold,
+            createdFrom,
+            createdTo,
             ignoreStatuses
         );
         final Set<String> ignoredStatusStrings = ignoreStatuses.stream().map(Enum::name).collect(Collectors.toSet());
-        final long numJobsDeleted = this.jobRepository.deleteByIdIn(
-            this.jobRepository.findJobsCreatedBefore(
-                creationThreshold,
-                ignoredStatusStrings,
-                batchSize
-            )
+        final Set<Long> ids = this.jobRepository.findJobsCreatedBetween(
+            createdFrom,
+            createdTo,
+            ignoredStatusStrings,
+            batchSize
         );
-        log.info("Finished deleting batch of {} jobs.", numJobsDeleted);
+        final long numJobsDeleted = ids.isEmpty() ? 0L : this.jobRepository.deleteByIdIn(ids);
+        log.debug("Finished deleting batch of {} jobs.", numJobsDeleted);
         return numJobsDeleted;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Instant> getOldestJobCreatedBefore(
+        @NotNull final Instant creationThreshold,
+        @NotNull final Set<JobStatus> ignoreStatuses
+    ) {
+        return this.jobRepository.findOldestJobCreatedBefore(
+            creationThreshold,
+            ignoreStatuses.stream().map(Enum::name).collect(Collectors.toSet())
+        );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -55,8 +55,10 @@ import com.netflix.genie.web.data.repositories.jpa.JpaJobRepository;
 import com.netflix.genie.web.data.repositories.jpa.specifications.JpaJobSpecs;
 import com.netflix.genie.web.data.services.JobSearchService;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
@@ -64,6 +66,7 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.annotation.Nullable;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Order;
@@ -73,10 +76,12 @@ import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -107,6 +112,8 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
         .of(JobStatus.CLAIMED, JobStatus.INIT, JobStatus.RUNNING)
         .map(Enum::name)
         .collect(Collectors.toSet());
+    private static final String CREATED_PROPERTY = "created";
+    private static final int EXPORT_FETCH_SIZE = 1_000;
 
     private final JpaJobRepository jobRepository;
     private final JpaClusterRepository clusterRepository;
@@ -153,6 +160,8 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
         @Nullable final Instant maxFinished,
         @Nullable final String grouping,
         @Nullable final String groupingInstance,
+        @Nullable final String after,
+        final boolean countTotal,
         @NotNull final Pageable page
     ) {
         log.debug("called");
@@ -163,96 +172,211 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
         final CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
         final Root<JobEntity> root = countQuery.from(JobEntity.class);
 
-        ClusterEntity clusterEntity = null;
-        if (clusterId != null) {
-            final Optional<ClusterEntity> optionalClusterEntity
-                = this.getEntityOrNull(this.clusterRepository, clusterId, clusterName);
-            if (optionalClusterEntity.isPresent()) {
-                clusterEntity = optionalClusterEntity.get();
-            } else {
+        final Optional<Predicate> findPredicate = this.getFindPredicate(
+            root,
+            countQuery,
+            cb,
+            id,
+            jobName,
+            user,
+            statuses,
+            tags,
+            clusterName,
+            clusterId,
+            commandName,
+            commandId,
+            minStarted,
+            maxStarted,
+            minFinished,
+            maxFinished,
+            grouping,
+            groupingInstance
+        );
+        if (!findPredicate.isPresent()) {
+            // Won't find anything matching the query
+            return new PageImpl<>(Lists.newArrayList(), page, 0);
+        }
+        Predicate whereClause = findPredicate.get();
+
+        final Pageable pageable;
+        final List<Order> orders = new ArrayList<>();
+        if (after == null) {
+            pageable = page;
+            pageable.getSort().iterator().forEachRemaining(
+                order -> {
+                    if (order.isAscending()) {
+                        orders.add(cb.asc(root.get(order.getProperty())));
+                    } else {
+                        orders.add(cb.desc(root.get(order.getProperty())));
+                    }
+                }
+            );
+            final Sort.Order createdOrder = pageable.getSort().getOrderFor(CREATED_PROPERTY);
+            if (createdOrder != null && pageable.getSort().stream().count() == 1L) {
+                // Break ties the same way as when seeking so the first page can be followed by seeking after its end
+                orders.add(
+                    createdOrder.isAscending() ? cb.asc(root.get(JobEntity_.id)) : cb.desc(root.get(JobEntity_.id))
+                );
+            }
+        } else {
+            // Seek past the given job instead of skipping over all the previous pages
+            pageable = PageRequest.of(0, page.getPageSize(), page.getSort());
+            final CriteriaQuery<Tuple> afterQuery = cb.createTupleQuery();
+            final Root<JobEntity> afterRoot = afterQuery.from(JobEntity.class);
+            afterQuery
+                .multiselect(afterRoot.get(JobEntity_.created), afterRoot.get(JobEntity_.id))
+                .where(cb.equal(afterRoot.get(JobEntity_.uniqueId), after));
+            final List<Tuple> afterJobs = this.entityManager.createQuery(afterQuery).getResultList();
+            if (afterJobs.isEmpty()) {
                 // Won't find anything matching the query
-                return new PageImpl<>(Lists.newArrayList(), page, 0);
+                return new PageImpl<>(Lists.newArrayList(), pageable, 0);
             }
-        }
-        CommandEntity commandEntity = null;
-        if (commandId != null) {
-            final Optional<CommandEntity> optionalCommandEntity
-                = this.getEntityOrNull(this.commandRepository, commandId, commandName);
-            if (optionalCommandEntity.isPresent()) {
-                commandEntity = optionalCommandEntity.get();
+            final Instant afterCreated = afterJobs.get(0).get(0, Instant.class);
+            final Long afterId = afterJobs.get(0).get(1, Long.class);
+
+            final Sort.Order createdOrder = page.getSort().getOrderFor(CREATED_PROPERTY);
+            if (createdOrder != null && createdOrder.isAscending()) {
+                whereClause = cb.and(
+                    whereClause,
+                    cb.or(
+                        cb.greaterThan(root.get(JobEntity_.created), afterCreated),
+                        cb.and(
+                            cb.equal(root.get(JobEntity_.created), afterCreated),
+                            cb.greaterThan(root.get(JobEntity_.id), afterId)
+                        )
+                    )
+                );
+                orders.add(cb.asc(root.get(JobEntity_.created)));
+                orders.add(cb.asc(root.get(JobEntity_.id)));
             } else {
-                // Won't find anything matching the query
-                return new PageImpl<>(Lists.newArrayList(), page, 0);
+                whereClause = cb.and(
+                    whereClause,
+                    cb.or(
+                        cb.lessThan(root.get(JobEntity_.created), afterCreated),
+                        cb.and(
+                            cb.equal(root.get(JobEntity_.created), afterCreated),
+                            cb.lessThan(root.get(JobEntity_.id), afterId)
+                        )
+                    )
+                );
+                orders.add(cb.desc(root.get(JobEntity_.created)));
+                orders.add(cb.desc(root.get(JobEntity_.id)));
             }
         }
 
-        final Predicate whereClause = JpaJobSpecs
-            .getFindPredicate(
-                root,
-                cb,
-                id,
-                jobName,
-                user,
-                statuses != null ? statuses.stream().map(Enum::name).collect(Collectors.toSet()) : null,
-                tags,
-                clusterName,
-                clusterEntity,
-                commandName,
-                commandEntity,
-                minStarted,
-                maxStarted,
-                minFinished,
-                maxFinished,
-                grouping,
-                groupingInstance
-            );
+        // The count costs as much as reading every matching job so it's skipped when seeking or when asked to
+        final boolean count = countTotal && after == null;
+        long total = 0L;
+        if (count) {
+            countQuery.select(cb.count(root)).where(whereClause);
+            total = this.entityManager.createQuery(countQuery).getSingleResult();
 
-        countQuery.select(cb.count(root)).where(whereClause);
+            // Use the count to make sure we even need to make this query
+            if (total == 0) {
+                return new PageImpl<>(Lists.newArrayList(), pageable, total);
+            }
+        }
 
-        final Long count = this.entityManager.createQuery(countQuery).getSingleResult();
+        final CriteriaQuery<JobSearchResult> contentQuery = cb.createQuery(JobSearchResult.class);
+        contentQuery.from(JobEntity.class);
 
-        // Use the count to make sure we even need to make this query
-        if (count > 0) {
-            final CriteriaQuery<JobSearchResult> contentQuery = cb.createQuery(JobSearchResult.class);
-            contentQuery.from(JobEntity.class);
+        this.selectJobSearchResult(contentQuery, root);
 
-            contentQuery.multiselect(
-                root.get(JobEntity_.uniqueId),
-                root.get(JobEntity_.name),
-                root.get(JobEntity_.user),
-                root.get(JobEntity_.status),
-                root.get(JobEntity_.started),
-                root.get(JobEntity_.finished),
-                root.get(JobEntity_.clusterName),
-                root.get(JobEntity_.commandName)
-            );
+        contentQuery.where(whereClause);
+        contentQuery.orderBy(orders);
 
-            contentQuery.where(whereClause);
+        // Without a count fetch one more job than requested to know whether there is a next page
+        final List<JobSearchResult> results = this.entityManager
+            .createQuery(contentQuery)
+            .setFirstResult(((Long) pageable.getOffset()).intValue())
+            .setMaxResults(count ? pageable.getPageSize() : pageable.getPageSize() + 1)
+            .getResultList();
 
-            final Sort sort = page.getSort();
-            final List<Order> orders = new ArrayList<>();
-            sort.iterator().forEachRemaining(
-                order -> {
-                    if (order.isAscending()) {
-                        orders.add(cb.asc(root.get(order.getProperty())));
-                    } else {
-                        orders.add(cb.desc(root.get(order.getProperty())));
-                    }
-                }
-            );
+        if (count) {
+            return new PageImpl<>(results, pageable, total);
+        } else if (results.size() > pageable.getPageSize()) {
+            final List<JobSearchResult> content = results.subList(0, pageable.getPageSize());
+            return new PageImpl<>(content, pageable, pageable.getOffset() + content.size() + 1);
+        } else {
+            return new PageImpl<>(results, pageable, pageable.getOffset() + results.size());
+        }
+    }
 
-            contentQuery.orderBy(orders);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("checkstyle:parameternumber")
+    public long exportJobs(
+        @Nullable final String id,
+        @Nullable final String jobName,
+        @Nullable final String user,
+        @Nullable final Set<JobStatus> statuses,
+        @Nullable final Set<String> tags,
+        @Nullable final String clusterName,
+        @Nullable final String clusterId,
+        @Nullable final String commandName,
+        @Nullable final String commandId,
+        @Nullable final Instant minStarted,
+        @Nullable final Instant maxStarted,
+        @Nullable final Instant minFinished,
+        @Nullable final Instant maxFinished,
+        @Nullable final String grouping,
+        @Nullable final String groupingInstance,
+        @NotNull final Consumer<JobSearchResult> consumer
+    ) {
+        log.debug("called");
 
-            final List<JobSearchResult> results = this.entityManager
-                .createQuery(contentQuery)
-                .setFirstResult(((Long) page.getOffset()).intValue())
-                .setMaxResults(page.getPageSize())
-                .getResultList();
+        final CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        final CriteriaQuery<JobSearchResult> exportQuery = cb.createQuery(JobSearchResult.class);
+        final Root<JobEntity> root = exportQuery.from(JobEntity.class);
+
+        final Optional<Predicate> findPredicate = this.getFindPredicate(
+            root,
+            exportQuery,
+            cb,
+            id,
+            jobName,
+            user,
+            statuses,
+            tags,
+            clusterName,
+            clusterId,
+            commandName,
+            commandId,
+            minStarted,
+            maxStarted,
+            minFinished,
+            maxFinished,
+            grouping,
+            groupingInstance
+        );
+        if (!findPredicate.isPresent()) {
+            // Won't find anything matching the query
+            return 0L;
+        }
 
-            return new PageImpl<>(results, page, count);
-        } else {
-            return new PageImpl<>(Lists.newArrayList(), page, count);
+        this.selectJobSearchResult(exportQuery, root);
+        exportQuery.where(findPredicate.get());
+        exportQuery.orderBy(cb.asc(root.get(JobEntity_.created)), cb.asc(root.get(JobEntity_.id)));
+
+        // Results are projections rather than entities so nothing accumulates in the persistence context and the
+        // rows are read from a cursor as they are consumed rather than loaded up front
+        long exported = 0L;
+        try (
+            Stream<JobSearchResult> results = this.entityManager
+                .createQuery(exportQuery)
+                .setHint(QueryHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()
+        ) {
+            final Iterator<JobSearchResult> iterator = results.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                exported++;
+            }
         }
+        return exported;
     }
 
     /**
@@ -484,6 +608,85 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
         return this.jobRepository.countByAgentHostnameAndStatusIn(hostname, ACTIVE_STATUS_SET);
     }
 
+    @SuppressWarnings("checkstyle:parameternumber")
+    private Optional<Predicate> getFindPredicate(
+        final Root<JobEntity> root,
+        final CriteriaQuery<?> cq,
+        final CriteriaBuilder cb,
+        @Nullable final String id,
+        @Nullable final String jobName,
+        @Nullable final String user,
+        @Nullable final Set<JobStatus> statuses,
+        @Nullable final Set<String> tags,
+        @Nullable final String clusterName,
+        @Nullable final String clusterId,
+        @Nullable final String commandName,
+        @Nullable final String commandId,
+        @Nullable final Instant minStarted,
+        @Nullable final Instant maxStarted,
+        @Nullable final Instant minFinished,
+        @Nullable final Instant maxFinished,
+        @Nullable final String grouping,
+        @Nullable final String groupingInstance
+    ) {
+        ClusterEntity clusterEntity = null;
+        if (clusterId != null) {
+            final Optional<ClusterEntity> optionalClusterEntity
+                = this.getEntityOrNull(this.clusterRepository, clusterId, clusterName);
+            if (optionalClusterEntity.isPresent()) {
+                clusterEntity = optionalClusterEntity.get();
+            } else {
+                return Optional.empty();
+            }
+        }
+        CommandEntity commandEntity = null;
+        if (commandId != null) {
+            final Optional<CommandEntity> optionalCommandEntity
+                = this.getEntityOrNull(this.commandRepository, commandId, commandName);
+            if (optionalCommandEntity.isPresent()) {
+                commandEntity = optionalCommandEntity.get();
+            } else {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(
+            JpaJobSpecs.getFindPredicate(
+                root,
+                cq,
+                cb,
+                id,
+                jobName,
+                user,
+                statuses != null ? statuses.stream().map(Enum::name).collect(Collectors.toSet()) : null,
+                tags,
+                clusterName,
+                clusterEntity,
+                commandName,
+                commandEntity,
+                minStarted,
+                maxStarted,
+                minFinished,
+                maxFinished,
+                grouping,
+                groupingInstance
+            )
+        );
+    }
+
+    private void selectJobSearchResult(final CriteriaQuery<JobSearchResult> query, final Root<JobEntity> root) {
+        query.multiselect(
+            root.get(JobEntity_.uniqueId),
+            root.get(JobEntity_.name),
+            root.get(JobEntity_.user),
+            root.get(JobEntity_.status),
+            root.get(JobEntity_.started),
+            root.get(JobEntity_.finished),
+            root.get(JobEntity_.clusterName),
+            root.get(JobEntity_.commandName)
+        );
+    }
+
     private <E extends BaseEntity> Optional<E> getEntityOrNull(
         final JpaBaseRepository<E> repository,
         final String id,
@@ -50,4 +50,15 @@ public interface JpaTagPersistenceService extends TagPersistenceService {
      * in the database the returned set will contain "b" and "c". The method won't fail.
      */
     Set<TagEntity> getTags(@NotNull Set<String> tags);
+
+    /**
+     * Make sure all the supplied tags exist in the database and get all their entity references.
+     * <p>
+     * Existing tags are looked up with a single query and all the missing ones are created together rather than one
+     * at a time.
+     *
+     * @param tags The tag strings to create if necessary and get the entities for
+     * @return The set of tag entities, one for each of the input tags
+     */
+    Set<TagEntity> createAndGetTags(@NotNull Set<String> tags);
 }
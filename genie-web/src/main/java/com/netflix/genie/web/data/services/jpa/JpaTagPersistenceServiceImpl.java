@@ -17,15 +17,19 @@
  */
 package com.netflix.genie.web.data.services.jpa;
 
+import com.google.common.collect.Sets;
 import com.netflix.genie.web.data.entities.TagEntity;
 import com.netflix.genie.web.data.repositories.jpa.JpaTagRepository;
+import com.netflix.genie.web.dtos.BatchDeletionResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -72,14 +76,28 @@ public class JpaTagPersistenceServiceImpl implements JpaTagPersistenceService {
      * {@inheritDoc}
      */
     @Override
-    public long deleteUnusedTags(@NotNull final Instant createdThreshold) {
-        return this.tagRepository.deleteByIdIn(
-            this.tagRepository
-                .findUnusedTags(createdThreshold)
-                .stream()
-                .map(Number::longValue)
-                .collect(Collectors.toSet())
-        );
+    public BatchDeletionResult deleteUnusedTags(
+        @NotNull final Instant createdThreshold,
+        final long afterId,
+        @Min(1) final int batchSize
+    ) {
+        final List<Long> ids = this.tagRepository
+            .findTagIdsAfter(afterId, batchSize)
+            .stream()
+            .map(Number::longValue)
+            .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return new BatchDeletionResult(0L, afterId, true);
+        }
+
+        final Set<Long> unusedIds = this.tagRepository
+            .findUnusedTags(Sets.newHashSet(ids), createdThreshold)
+            .stream()
+            .map(Number::longValue)
+            .collect(Collectors.toSet());
+        final long numDeleted = unusedIds.isEmpty() ? 0L : this.tagRepository.deleteByIdIn(unusedIds);
+
+        return new BatchDeletionResult(numDeleted, ids.get(ids.size() - 1), ids.size() < batchSize);
     }
 
     /**
@@ -99,4 +117,31 @@ public class JpaTagPersistenceServiceImpl implements JpaTagPersistenceService {
     public Set<TagEntity> getTags(@NotNull final Set<String> tags) {
         return this.tagRepository.findByTagIn(tags);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<TagEntity> createAndGetTags(@NotNull final Set<String> tags) {
+        if (tags.isEmpty()) {
+            return Sets.newHashSet();
+        }
+
+        final Set<TagEntity> tagEntities = Sets.newHashSet(this.tagRepository.findByTagIn(tags));
+        if (tagEntities.size() == tags.size()) {
+            return tagEntities;
+        }
+
+        final Set<String> missingTags = Sets.newHashSet(tags);
+        tagEntities.forEach(tagEntity -> missingTags.remove(tagEntity.getTag()));
+        try {
+            this.tagRepository.insertTags(missingTags, Instant.now());
+        } catch (final DataIntegrityViolationException e) {
+            // Some were created concurrently by someone else. Fall back to creating the rest one at a time.
+            log.warn("Tags expected not to be there but some seem to be {}", e.getMessage());
+            missingTags.forEach(this::createTagIfNotExists);
+        }
+        tagEntities.addAll(this.tagRepository.findByTagIn(missingTags));
+        return tagEntities;
+    }
 }
@@ -0,0 +1,47 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The outcome of deleting unused records from one batch of a table walked in primary key order.
+ *
+ * @since 4.0.0
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode(doNotUseGetters = true)
+@ToString(doNotUseGetters = true)
+public class BatchDeletionResult {
+    /**
+     * The number of records deleted from the batch.
+     */
+    private final long numDeleted;
+    /**
+     * The highest id examined in the batch. The next batch starts after it.
+     */
+    private final long lastId;
+    /**
+     * Whether there were no more records to examine after this batch.
+     */
+    private final boolean lastBatch;
+}
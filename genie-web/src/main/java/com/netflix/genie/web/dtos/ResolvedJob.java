@@ -17,21 +17,32 @@
  */
 package com.netflix.genie.web.dtos;
 
+import com.google.common.collect.ImmutableList;
+import com.netflix.genie.common.external.dtos.v4.Application;
+import com.netflix.genie.common.external.dtos.v4.Cluster;
+import com.netflix.genie.common.external.dtos.v4.Command;
 import com.netflix.genie.common.external.dtos.v4.JobEnvironment;
 import com.netflix.genie.common.external.dtos.v4.JobMetadata;
 import com.netflix.genie.common.external.dtos.v4.JobSpecification;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * The payload of information representing all the concrete details the system needs to run a job.
+ * <p>
+ * When available the cluster, command and applications which were selected during resolution are carried along so
+ * callers don't have to read them from the database again. They aren't part of the identity of the resolved job as
+ * their ids are already in the job specification.
  *
  * @author tgianos
  * @since 4.0.0
  */
-@RequiredArgsConstructor
 @Getter
 @EqualsAndHashCode(doNotUseGetters = true)
 @ToString(doNotUseGetters = true)
@@ -41,4 +52,75 @@ public class ResolvedJob {
     private final JobSpecification jobSpecification;
     private final JobEnvironment jobEnvironment;
     private final JobMetadata jobMetadata;
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private final Cluster cluster;
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private final Command command;
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final List<Application> applications;
+
+    /**
+     * Constructor.
+     *
+     * @param jobSpecification The specification of the job
+     * @param jobEnvironment   The environment the job will run in
+     * @param jobMetadata      The metadata of the job
+     */
+    public ResolvedJob(
+        final JobSpecification jobSpecification,
+        final JobEnvironment jobEnvironment,
+        final JobMetadata jobMetadata
+    ) {
+        this(jobSpecification, jobEnvironment, jobMetadata, null, null, ImmutableList.of());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param jobSpecification The specification of the job
+     * @param jobEnvironment   The environment the job will run in
+     * @param jobMetadata      The metadata of the job
+     * @param cluster          The cluster selected to run the job on if available
+     * @param command          The command selected to run the job with if available
+     * @param applications     The applications selected for the job, in the order they are in the specification.
+     *                         Empty if they aren't available
+     */
+    public ResolvedJob(
+        final JobSpecification jobSpecification,
+        final JobEnvironment jobEnvironment,
+        final JobMetadata jobMetadata,
+        @Nullable final Cluster cluster,
+        @Nullable final Command command,
+        final List<Application> applications
+    ) {
+        this.jobSpecification = jobSpecification;
+        this.jobEnvironment = jobEnvironment;
+        this.jobMetadata = jobMetadata;
+        this.cluster = cluster;
+        this.command = command;
+        this.applications = ImmutableList.copyOf(applications);
+    }
+
+    /**
+     * Get the cluster selected during resolution.
+     *
+     * @return The cluster wrapped in an {@link Optional} or {@link Optional#empty()} if it wasn't carried along
+     */
+    public Optional<Cluster> getCluster() {
+        return Optional.ofNullable(this.cluster);
+    }
+
+    /**
+     * Get the command selected during resolution.
+     *
+     * @return The command wrapped in an {@link Optional} or {@link Optional#empty()} if it wasn't carried along
+     */
+    public Optional<Command> getCommand() {
+        return Optional.ofNullable(this.command);
+    }
 }
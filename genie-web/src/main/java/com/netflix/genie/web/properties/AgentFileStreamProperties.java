@@ -0,0 +1,78 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to streaming files from agents to the server.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = AgentFileStreamProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class AgentFileStreamProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.agent.file-stream";
+
+    /**
+     * The maximum number of bytes the agent sends in each chunk of a file transfer.
+     * Must stay below the maximum inbound message size of the gRPC server.
+     */
+    @Min(1024)
+    @Max(3 * 1024 * 1024)
+    private int chunkSize = 1024 * 1024;
+
+    /**
+     * The number of chunks an agent can send before waiting for the server to acknowledge them. This also bounds the
+     * amount of data in flight for each transfer to {@code chunkSize * windowSize} bytes, which must fit in
+     * {@code bufferCapacity}.
+     */
+    @Min(1)
+    private int windowSize = 4;
+
+    /**
+     * The maximum number of bytes of a file transfer held in memory on the server while waiting to be consumed. The
+     * agent connection stops reading further chunks until the buffered data is consumed.
+     */
+    @Min(1)
+    private long bufferCapacity = 4 * 1024 * 1024;
+
+    /**
+     * Whether all the data the agent may send without waiting for an acknowledgement fits in the buffer, so that
+     * receiving a chunk never waits for buffered data to be consumed.
+     *
+     * @return true if {@code chunkSize * windowSize} is at most {@code bufferCapacity}
+     */
+    @AssertTrue(message = "chunkSize * windowSize must not exceed bufferCapacity")
+    public boolean isWindowWithinBufferCapacity() {
+        return (long) this.chunkSize * this.windowSize <= this.bufferCapacity;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to the heartbeat streams agents keep open with the server.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = AgentHeartBeatProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class AgentHeartBeatProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.agent.heart-beat";
+
+    /**
+     * The interval (in milliseconds) between heartbeats sent by the server to each connected agent.
+     */
+    @Min(1)
+    private long sendInterval = 5_000;
+}
@@ -0,0 +1,69 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to locating the Genie node an agent is connected to.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = AgentRoutingProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class AgentRoutingProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.agent.routing";
+
+    /**
+     * How long (in milliseconds) the result of looking up the node of an agent not connected locally is reused before
+     * querying the database again. Set to 0 to always query the database.
+     */
+    @Min(0)
+    private long remoteLookupCacheTtl = 5_000;
+
+    /**
+     * The maximum number of remote agent lookups cached.
+     */
+    @Min(1)
+    private long remoteLookupCacheMaxSize = 10_000;
+
+    /**
+     * How often (in milliseconds) connections and disconnections of local agents are written to the database.
+     * Successive changes to the connection of the same agent within this interval are coalesced into one write.
+     */
+    @Min(1)
+    private long connectionFlushInterval = 1_000;
+
+    /**
+     * The maximum number of agents with connection changes waiting to be written to the database. When this is
+     * reached, pending changes are written right away by the thread reporting the next change.
+     */
+    @Min(1)
+    private int maxPendingConnectionWrites = 10_000;
+}
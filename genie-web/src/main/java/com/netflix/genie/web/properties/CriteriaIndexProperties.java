@@ -0,0 +1,69 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties controlling the in-memory index used to resolve cluster and command criteria without querying the
+ * database.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = CriteriaIndexProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class CriteriaIndexProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.services.criteria-index";
+
+    /**
+     * The property key for whether this feature is enabled or not.
+     */
+    public static final String ENABLED_PROPERTY = PROPERTY_PREFIX + ".enabled";
+
+    private boolean enabled;
+
+    /**
+     * How often the index is fully rebuilt from the database, in milliseconds.
+     */
+    @Min(1)
+    private long refreshInterval = 60_000L;
+
+    /**
+     * How long since the last successful full rebuild before the index is considered stale and lookups fall back to
+     * the database, in milliseconds.
+     */
+    @Min(1)
+    private long maxStaleness = 300_000L;
+
+    /**
+     * The number of resources to read from the database per page when rebuilding the index.
+     */
+    @Min(1)
+    private int pageSize = 500;
+}
@@ -249,6 +249,7 @@ public class DatabaseCleanupProperties {
      */
     @Getter
     @Setter
+    @Validated
     public static class FileDatabaseCleanupProperties {
 
         /**
@@ -262,10 +263,34 @@ public class DatabaseCleanupProperties {
          */
         public static final String SKIP_PROPERTY = FILE_CLEANUP_PROPERTY_PREFIX + ".skip";
 
+        /**
+         * The number of file records examined, and at most deleted, in a single transaction.
+         */
+        public static final String BATCH_SIZE_PROPERTY = FILE_CLEANUP_PROPERTY_PREFIX + ".batchSize";
+
+        /**
+         * The maximum time in milliseconds spent deleting file records in a single run. The next run resumes where
+         * the previous one stopped. 0 means no limit.
+         */
+        public static final String MAX_RUN_TIME_PROPERTY = FILE_CLEANUP_PROPERTY_PREFIX + ".maxRunTime";
+
         /**
          * Skip the Files table when performing database cleanup.
          */
         private boolean skip;
+
+        /**
+         * The number of file records examined, and at most deleted, in a single transaction.
+         */
+        @Min(1)
+        private int batchSize = 1_000;
+
+        /**
+         * The maximum time in milliseconds spent deleting file records in a single run. The next run resumes where
+         * the previous one stopped. 0 means no limit.
+         */
+        @Min(0)
+        private long maxRunTime;
     }
 
     /**
@@ -276,6 +301,7 @@ public class DatabaseCleanupProperties {
      */
     @Getter
     @Setter
+    @Validated
     public static class JobDatabaseCleanupProperties {
 
         /**
@@ -306,6 +332,22 @@ public class DatabaseCleanupProperties {
          */
         public static final String PAGE_SIZE_PROPERTY = JOB_CLEANUP_PROPERTY_PREFIX + ".pageSize";
 
+        /**
+         * The number of workers deleting jobs at the same time, each one working through its own creation time range.
+         */
+        public static final String WORKERS_PROPERTY = JOB_CLEANUP_PROPERTY_PREFIX + ".workers";
+
+        /**
+         * The length in hours of the creation time ranges the jobs to delete are split into.
+         */
+        public static final String PARTITION_HOURS_PROPERTY = JOB_CLEANUP_PROPERTY_PREFIX + ".partitionHours";
+
+        /**
+         * The maximum number of jobs deleted per second across all workers. 0 means no limit.
+         */
+        public static final String MAX_DELETED_PER_SECOND_PROPERTY
+            = JOB_CLEANUP_PROPERTY_PREFIX + ".maxDeletedPerSecond";
+
         /**
          * Skip the Jobs table when performing database cleanup.
          */
@@ -326,6 +368,24 @@ public class DatabaseCleanupProperties {
          * The page size used within each cleanup transaction to iterate through the job records.
          */
         private int pageSize = 1_000;
+
+        /**
+         * The number of workers deleting jobs at the same time, each one working through its own creation time range.
+         */
+        @Min(1)
+        private int workers = 1;
+
+        /**
+         * The length in hours of the creation time ranges the jobs to delete are split into.
+         */
+        @Min(1)
+        private int partitionHours = 24;
+
+        /**
+         * The maximum number of jobs deleted per second across all workers. 0 means no limit.
+         */
+        @Min(0)
+        private int maxDeletedPerSecond;
     }
 
     /**
@@ -336,6 +396,7 @@ public class DatabaseCleanupProperties {
      */
     @Getter
     @Setter
+    @Validated
     public static class TagDatabaseCleanupProperties {
 
         /**
@@ -349,9 +410,33 @@ public class DatabaseCleanupProperties {
          */
         public static final String SKIP_PROPERTY = TAG_CLEANUP_PROPERTY_PREFIX + ".skip";
 
+        /**
+         * The number of tag records examined, and at most deleted, in a single transaction.
+         */
+        public static final String BATCH_SIZE_PROPERTY = TAG_CLEANUP_PROPERTY_PREFIX + ".batchSize";
+
+        /**
+         * The maximum time in milliseconds spent deleting tag records in a single run. The next run resumes where
+         * the previous one stopped. 0 means no limit.
+         */
+        public static final String MAX_RUN_TIME_PROPERTY = TAG_CLEANUP_PROPERTY_PREFIX + ".maxRunTime";
+
         /**
          * Skip the Tags table when performing database cleanup.
          */
         private boolean skip;
+
+        /**
+         * The number of tag records examined, and at most deleted, in a single transaction.
+         */
+        @Min(1)
+        private int batchSize = 1_000;
+
+        /**
+         * The maximum time in milliseconds spent deleting tag records in a single run. The next run resumes where
+         * the previous one stopped. 0 means no limit.
+         */
+        @Min(0)
+        private long maxRunTime;
     }
 }
@@ -22,6 +22,7 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.net.URI;
 
@@ -46,4 +47,23 @@ public class FileCacheProperties {
 
     @NotNull(message = "A file cache location is required")
     private URI location = URI.create("file://" + SYSTEM_TMP_DIR + "genie/cache");
+
+    /**
+     * How long (in milliseconds) a cached file is used before checking whether the remote file was modified.
+     * Zero checks on every use.
+     */
+    @Min(0)
+    private long revalidationInterval;
+
+    /**
+     * The maximum total size (in bytes) of the cached files, least recently used files are evicted beyond it.
+     * Files larger than this are never cached. Zero means unbounded.
+     */
+    @Min(0)
+    private long maxSize;
+
+    /**
+     * Whether to keep serving a stale file while it is reloaded in the background, rather than waiting for it.
+     */
+    private boolean refreshAhead;
 }
@@ -0,0 +1,62 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties controlling the streaming export of job search results.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = JobExportProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class JobExportProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.jobs.export";
+
+    /**
+     * How long (in milliseconds) a single export may run before the response is cut off. This replaces the default
+     * asynchronous request timeout of the servlet container for exports. 0 means exports are never timed out.
+     */
+    @Min(0)
+    private long timeout;
+
+    /**
+     * The number of threads streaming exports. This is the maximum number of exports running at the same time.
+     */
+    @Min(1)
+    private int threads = 4;
+
+    /**
+     * The maximum number of exports waiting for a free thread. Exports requested beyond this are rejected with a 503
+     * until some of the running ones complete.
+     */
+    @Min(0)
+    private int maxPendingExports = 16;
+}
@@ -0,0 +1,61 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties controlling how jobs submitted for agent execution are launched.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = JobLaunchProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class JobLaunchProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.services.job-launch";
+
+    /**
+     * Whether a submitted job is accepted as soon as it is saved, with resolution and agent launch happening in the
+     * background, rather than after the agent has been launched.
+     */
+    private boolean async;
+
+    /**
+     * The number of threads resolving and launching accepted jobs when {@code async} is enabled.
+     */
+    @Min(1)
+    private int threads = 8;
+
+    /**
+     * The maximum number of accepted jobs waiting for or going through launch at any time when {@code async} is
+     * enabled. Submissions beyond this are rejected until some of them are launched.
+     */
+    @Min(1)
+    private int maxPendingLaunches = 500;
+}
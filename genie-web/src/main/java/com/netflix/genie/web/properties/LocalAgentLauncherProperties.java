@@ -77,6 +77,41 @@ public class LocalAgentLauncherProperties {
         "--job-id", JOB_ID_PLACEHOLDER
     );
 
+    /**
+     * The command that should be run to start a standby agent, which waits for the id of the job to execute on its
+     * standard input. Only used if the standby pool is enabled.
+     */
+    @SuppressWarnings("PMD.AvoidUsingHardCodedIP")
+    @NotEmpty(message = "The command-line standby launch template cannot be empty")
+    private List<@NotBlank String> standbyLaunchCommandTemplate = Lists.newArrayList(
+        "java",
+        "-jar", AGENT_JAR_PLACEHOLDER,
+        "exec",
+        "--server-host", "127.0.0.1",
+        "--server-port", SERVER_PORT_PLACEHOLDER,
+        "--api-job",
+        "--job-id-from-stdin"
+    );
+
+    /**
+     * The number of agents kept started and idle, ready to be handed a job. 0 disables the standby pool.
+     */
+    @Min(value = 0, message = "The minimum value is 0, which disables the standby pool")
+    private int standbyPoolSize;
+
+    /**
+     * How long a standby agent can stay idle before it is replaced by a fresh one, in milliseconds.
+     */
+    @Min(value = 1L, message = "The minimum value is 1ms but the value should likely be set much higher")
+    private long standbyMaxIdleTime = 1_800_000L;
+
+    /**
+     * How often the standby pool is checked to replace the agents which exited or stayed idle for too long, in
+     * milliseconds.
+     */
+    @Min(value = 1L, message = "The minimum value is 1ms but the value should likely be set much higher")
+    private long standbyPoolCheckInterval = 10_000L;
+
     /**
      * The path to the agent jar.
      */
@@ -0,0 +1,106 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services;
+
+import com.netflix.genie.common.external.dtos.v4.Cluster;
+import com.netflix.genie.common.external.dtos.v4.Command;
+import com.netflix.genie.common.external.dtos.v4.Criterion;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Service API for a node-local index of clusters and commands which can answer {@link Criterion} matching queries
+ * without going to the database.
+ * <p>
+ * Every lookup returns {@link Optional#empty()} when the index is unable to answer authoritatively (disabled, not yet
+ * loaded or stale). Callers are expected to fall back to the persistence layer in that case.
+ *
+ * @since 4.0.0
+ */
+public interface CriteriaIndexService {
+
+    /**
+     * Find all the clusters that match the given criterion.
+     *
+     * @param criterion        The {@link Criterion} each cluster needs to completely match
+     * @param addDefaultStatus {@literal true} if the default cluster status should be used when the criterion doesn't
+     *                         have a status
+     * @return The matching clusters or {@link Optional#empty()} if the index can't currently answer
+     * @see com.netflix.genie.web.data.services.ClusterPersistenceService#findClustersMatchingCriterion(Criterion,
+     * boolean)
+     */
+    Optional<Set<Cluster>> findClustersMatchingCriterion(Criterion criterion, boolean addDefaultStatus);
+
+    /**
+     * Find all the commands that match the given criterion.
+     *
+     * @param criterion        The {@link Criterion} each command needs to completely match
+     * @param addDefaultStatus {@literal true} if the default command status should be used when the criterion doesn't
+     *                         have a status
+     * @return The matching commands or {@link Optional#empty()} if the index can't currently answer
+     * @see com.netflix.genie.web.data.services.CommandPersistenceService#findCommandsMatchingCriterion(Criterion,
+     * boolean)
+     */
+    Optional<Set<Command>> findCommandsMatchingCriterion(Criterion criterion, boolean addDefaultStatus);
+
+    /**
+     * Find the clusters, and for each the highest priority command, matching the supplied criteria using the V3
+     * resolution algorithm.
+     *
+     * @param clusterCriteria  The cluster criteria in priority order
+     * @param commandCriterion The command criterion
+     * @return Map of cluster to the id of the command to use or {@link Optional#empty()} if the index can't currently
+     * answer
+     * @see com.netflix.genie.web.data.services.ClusterPersistenceService#findClustersAndCommandsForCriteria(List,
+     * Criterion)
+     */
+    Optional<Map<Cluster, String>> findClustersAndCommandsForCriteria(
+        List<Criterion> clusterCriteria,
+        Criterion commandCriterion
+    );
+
+    /**
+     * Rebuild the entire index from the database.
+     */
+    void refresh();
+
+    /**
+     * Re-read the cluster with the given id from the database and update the index. If the cluster no longer exists
+     * it is removed from the index.
+     *
+     * @param id The id of the cluster
+     */
+    void refreshCluster(String id);
+
+    /**
+     * Re-read the command with the given id from the database and update the index. If the command no longer exists
+     * it is removed from the index.
+     *
+     * @param id The id of the command
+     */
+    void refreshCommand(String id);
+
+    /**
+     * Mark the index as unable to answer queries until the next successful {@link #refresh()}. Used when bulk changes
+     * happen in the database which can't be applied incrementally.
+     */
+    void invalidate();
+}
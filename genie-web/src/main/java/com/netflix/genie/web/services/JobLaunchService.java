@@ -22,6 +22,7 @@ import com.netflix.genie.common.internal.exceptions.checked.GenieJobResolutionEx
 import com.netflix.genie.web.dtos.JobSubmission;
 import com.netflix.genie.web.exceptions.checked.AgentLaunchException;
 import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException;
+import com.netflix.genie.web.exceptions.checked.JobLaunchRejectedException;
 import com.netflix.genie.web.exceptions.checked.SaveAttachmentException;
 import org.springframework.validation.annotation.Validated;
 
@@ -60,4 +61,30 @@ public interface JobLaunchService {
         GenieJobResolutionException,
         IdAlreadyExistsException,
         SaveAttachmentException;
+
+    /**
+     * Accepts a job on behalf of the user.
+     * <p>
+     * Same as {@link #launchJob(JobSubmission)} except the implementation may return as soon as the job submission
+     * information has been saved and resolve the job and launch the agent afterwards. In that case failures to resolve
+     * or launch the job aren't thrown from here but are reflected in the status of the job.
+     *
+     * @param jobSubmission The payload of metadata and resources making up all the information needed to launch
+     *                      a job
+     * @return The id of the job. Upon return the job will at least be saved in {@link JobStatus#RESERVED} state
+     * @throws AgentLaunchException        If the job was launched before returning and the system was unable to
+     *                                     launch an agent to handle job execution
+     * @throws GenieJobResolutionException If the job was resolved before returning and it couldn't be successfully
+     *                                     resolved for whatever reason
+     * @throws IdAlreadyExistsException    If the unique identifier for the job conflicts with an already existing job
+     * @throws JobLaunchRejectedException  If there are too many jobs waiting to be launched to accept another one
+     * @throws SaveAttachmentException     When a job is submitted with attachments but there is an error saving them
+     */
+    @Nonnull
+    String acceptJob(@Valid JobSubmission jobSubmission) throws
+        AgentLaunchException,
+        GenieJobResolutionException,
+        IdAlreadyExistsException,
+        JobLaunchRejectedException,
+        SaveAttachmentException;
 }
@@ -12,15 +12,23 @@
  */
 package com.netflix.genie.web.services.impl;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Striped;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.web.properties.FileCacheProperties;
 import com.netflix.genie.web.services.FileTransferFactory;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskExecutor;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.io.File;
@@ -29,49 +37,104 @@ import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 
 /**
  * Caches the downloaded file from the remote location.
+ * <p>
+ * A cached file is checked against the remote last modified time at most once per revalidation interval. Stale files
+ * are reloaded while holding a lock for that file only, so a slow reload does not hold up requests for other files.
+ * In refresh-ahead mode the stale file keeps being served while it is reloaded in the background. Reloaded files
+ * are downloaded to a temporary file first and then atomically moved in place, so readers never see a partial file.
+ * If a maximum size is set, the least recently used files are evicted from the cache and deleted from disk. Evicted
+ * files are deleted outside of the cache operation that evicted them and never while they are being copied. Files
+ * larger than the maximum size are not cached at all but transferred straight to their destination.
  *
  * @author amajumdar
  * @since 7/22/16
  */
 @Slf4j
 public class CacheGenieFileTransferService extends GenieFileTransferService {
+    private static final int KEY_LOCK_STRIPES = 64;
+    private static final int MAX_COPY_ATTEMPTS = 3;
     //File cache location
     private final String baseCacheLocation;
     //File transfer service to get/put files on a local system
     private final LocalFileTransferImpl localFileTransfer;
+    //How long a file is used before checking the remote file again
+    private final long revalidationInterval;
+    //Files larger than this are not cached, 0 if unbounded
+    private final long maxSize;
+    //Whether stale files are reloaded in the background
+    private final boolean refreshAhead;
+    //Executor for background reloads
+    private final TaskExecutor refreshExecutor;
+    //Time each cached file was last checked against the remote file
+    private final ConcurrentMap<String, Long> lastValidationTimes = new ConcurrentHashMap<>();
+    //Files being reloaded in the background
+    private final Set<String> refreshingPaths = Sets.newConcurrentHashSet();
+    //Locks held while loading, reloading or deleting a file
+    private final Striped<Lock> pathLocks = Striped.lock(KEY_LOCK_STRIPES);
+    //Locks held to read a cached file while copying it and to write it while deleting it
+    private final Striped<ReadWriteLock> fileLocks = Striped.readWriteLock(KEY_LOCK_STRIPES);
+    //Files evicted from the cache, waiting to be deleted
+    private final Queue<Map.Entry<String, File>> evictedFiles = new ConcurrentLinkedQueue<>();
+    //Files too large to be cached, always transferred directly
+    private final Set<String> uncacheablePaths = Sets.newConcurrentHashSet();
     //File cache
-    private final LoadingCache<String, File> fileCache = CacheBuilder.newBuilder()
-        .recordStats()
-        .build(
-            new CacheLoader<String, File>() {
-                public File load(@NotNull final String path) throws GenieException {
-                    return loadFile(path);
-                }
-            }
-        );
+    private final LoadingCache<String, File> fileCache;
 
     /**
      * Constructor.
      *
      * @param fileTransferFactory file transfer implementation factory
-     * @param baseCacheLocation   file cache location
+     * @param fileCacheProperties file cache properties
      * @param localFileTransfer   Local file transfer service
+     * @param refreshExecutor     executor to reload stale files on in refresh-ahead mode
      * @param registry            spectator registry
      * @throws GenieException If there is any problem
      */
     public CacheGenieFileTransferService(
         @NotNull final FileTransferFactory fileTransferFactory,
-        @NotNull final String baseCacheLocation,
+        @NotNull final FileCacheProperties fileCacheProperties,
         @NotNull final LocalFileTransferImpl localFileTransfer,
+        @NotNull final TaskExecutor refreshExecutor,
         @NotNull final MeterRegistry registry
     ) throws GenieException {
         super(fileTransferFactory);
-        this.baseCacheLocation = this.createDirectories(baseCacheLocation).toString();
+        this.baseCacheLocation = this.createDirectories(fileCacheProperties.getLocation().toString()).toString();
         this.localFileTransfer = localFileTransfer;
+        this.revalidationInterval = fileCacheProperties.getRevalidationInterval();
+        this.maxSize = fileCacheProperties.getMaxSize();
+        this.refreshAhead = fileCacheProperties.isRefreshAhead();
+        this.refreshExecutor = refreshExecutor;
+
+        final CacheBuilder<String, File> cacheBuilder = CacheBuilder.newBuilder()
+            .recordStats()
+            .removalListener(this::onRemoval);
+        if (this.maxSize > 0) {
+            // A single segment so the whole size is available to any file, instead of a fraction per segment
+            cacheBuilder
+                .concurrencyLevel(1)
+                .maximumWeight(this.maxSize)
+                .weigher((path, file) -> (int) Math.min(file.length(), Integer.MAX_VALUE));
+        }
+        this.fileCache = cacheBuilder.build(
+            new CacheLoader<String, File>() {
+                public File load(@NotNull final String path) throws GenieException {
+                    return loadFile(path);
+                }
+            }
+        );
 
         // TODO: May want to switch to DistributionSummary
         registry.gauge("genie.jobs.file.cache.hitRate", this.fileCache, value -> value.stats().hitRate());
@@ -80,6 +143,10 @@ public class CacheGenieFileTransferService extends GenieFileTransferService {
             "genie.jobs.file.cache.loadExceptionRate",
             this.fileCache, value -> value.stats().loadExceptionCount()
         );
+        registry.gauge(
+            "genie.jobs.file.cache.evictionCount",
+            this.fileCache, value -> value.stats().evictionCount()
+        );
     }
 
     /**
@@ -94,28 +161,24 @@ public class CacheGenieFileTransferService extends GenieFileTransferService {
         @NotBlank(message = "Destination local path cannot be empty") final String dstLocalPath
     ) throws GenieException {
         log.debug("Called with src path {} and destination path {}", srcRemotePath, dstLocalPath);
-        File cachedFile;
+        this.deleteEvictedFiles();
         try {
-            cachedFile = this.fileCache.get(srcRemotePath);
-            // Before using the cached file check if the real file has been modified after we have cached
-            final long lastModifiedTime = getFileTransfer(srcRemotePath).getLastModifiedTime(srcRemotePath);
-            if (lastModifiedTime > cachedFile.lastModified()) {
-                synchronized (this) {
-                    // Check the modification time again because threads that were waiting for a file might have
-                    // been refreshed by a previous thread.
-                    if (lastModifiedTime > cachedFile.lastModified()) {
-                        this.fileCache.invalidate(srcRemotePath);
-                        this.deleteFile(cachedFile);
-                        cachedFile = this.fileCache.get(srcRemotePath);
-                    }
+            for (int attempt = 1; ; attempt++) {
+                final File cachedFile = this.getCachedFile(srcRemotePath, dstLocalPath);
+                if (cachedFile == null || this.copyCachedFile(srcRemotePath, cachedFile, dstLocalPath)) {
+                    return;
+                }
+                // The file was deleted since it was looked up, drop the entry so the file is loaded again
+                this.fileCache.asMap().remove(srcRemotePath, cachedFile);
+                if (attempt >= MAX_COPY_ATTEMPTS) {
+                    throw new GenieServerException(
+                        "Cached file " + cachedFile + " of " + srcRemotePath + " kept disappearing before copying it"
+                    );
                 }
             }
-        } catch (Exception e) {
-            final String message = String.format("Failed getting the file %s", srcRemotePath);
-            log.error(message);
-            throw new GenieServerException(message, e);
+        } finally {
+            this.deleteEvictedFiles();
         }
-        this.localFileTransfer.getFile(cachedFile.getPath(), dstLocalPath);
     }
 
     protected void deleteFile(final File file) throws IOException {
@@ -144,13 +207,254 @@ public class CacheGenieFileTransferService extends GenieFileTransferService {
      * @throws GenieException Exception if the file does not load
      */
     protected File loadFile(final String path) throws GenieException {
-        final byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
-        final String pathUUID = UUID.nameUUIDFromBytes(pathBytes).toString();
-        final String cacheFilePath = String.format("%s/%s", this.baseCacheLocation, pathUUID);
-        final File cacheFile = new File(cacheFilePath);
+        final File cacheFile = this.getCacheFile(path);
         if (!cacheFile.exists()) {
-            getFileTransfer(path).getFile(path, cacheFilePath);
+            this.downloadFile(path, cacheFile);
+            // Just downloaded so there is no need to check it against the remote file right away
+            this.lastValidationTimes.put(path, System.currentTimeMillis());
         }
         return cacheFile;
     }
+
+    /**
+     * Downloads the latest version of the file given the path, replacing the one under the cache location.
+     *
+     * @param path Path of the file to be reloaded
+     * @return reloaded file
+     * @throws GenieException Exception if the file does not load
+     */
+    protected File reloadFile(final String path) throws GenieException {
+        final File cacheFile = this.getCacheFile(path);
+        this.downloadFile(path, cacheFile);
+        return cacheFile;
+    }
+
+    /*
+     * Check the cached file against the remote file and reload it if it was modified after it was cached.
+     * Only one thread at the time reloads a given file. Returns null if the reloaded file became too large to be
+     * cached, in which case it's no longer cached.
+     */
+    @VisibleForTesting
+    @Nullable
+    File revalidate(final String path) throws Exception {
+        final long lastModifiedTime = getFileTransfer(path).getLastModifiedTime(path);
+        File cachedFile = this.fileCache.get(path);
+        if (lastModifiedTime > cachedFile.lastModified()) {
+            final Lock lock = this.pathLocks.get(path);
+            lock.lock();
+            try {
+                // Check the modification time again because threads that were waiting for a file might have
+                // been refreshed by a previous thread.
+                cachedFile = this.fileCache.get(path);
+                if (lastModifiedTime > cachedFile.lastModified()) {
+                    cachedFile = this.reloadFile(path);
+                    if (this.isTooLargeToCache(cachedFile)) {
+                        this.fileCache.invalidate(path);
+                        this.uncache(path, cachedFile);
+                        return null;
+                    }
+                    // Replaces the entry so its weight is updated
+                    this.fileCache.put(path, cachedFile);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        this.lastValidationTimes.put(path, System.currentTimeMillis());
+        return cachedFile;
+    }
+
+    /*
+     * Get the up to date cached file for the given path, loading it if it isn't cached yet. Returns null if the file
+     * is too large to be cached, in which case it has already been transferred to the destination.
+     */
+    @Nullable
+    private File getCachedFile(final String path, final String dstLocalPath) throws GenieException {
+        try {
+            if (this.uncacheablePaths.contains(path)) {
+                getFileTransfer(path).getFile(path, dstLocalPath);
+                return null;
+            }
+            final File cachedFile = this.fileCache.getIfPresent(path);
+            if (cachedFile == null) {
+                return this.loadIntoCache(path, dstLocalPath);
+            }
+            final Long lastValidationTime = this.lastValidationTimes.get(path);
+            if (lastValidationTime == null || System.currentTimeMillis() - lastValidationTime >= revalidationInterval) {
+                if (this.refreshAhead) {
+                    // Serve the cached file as is, it's replaced atomically if the reload finds it stale
+                    this.refreshInBackground(path);
+                } else {
+                    final File revalidatedFile = this.revalidate(path);
+                    if (revalidatedFile == null) {
+                        getFileTransfer(path).getFile(path, dstLocalPath);
+                    }
+                    return revalidatedFile;
+                }
+            }
+            return cachedFile;
+        } catch (Exception e) {
+            final String message = String.format("Failed getting the file %s", path);
+            log.error(message);
+            throw new GenieServerException(message, e);
+        }
+    }
+
+    /*
+     * Load the file into the cache. Only one thread at the time loads a given file. A file too large to be cached is
+     * transferred to the destination from where it was downloaded and deleted, then null is returned.
+     */
+    @Nullable
+    private File loadIntoCache(final String path, final String dstLocalPath) throws GenieException {
+        final Lock lock = this.pathLocks.get(path);
+        lock.lock();
+        try {
+            // Another thread may have loaded it meanwhile
+            File cachedFile = this.fileCache.getIfPresent(path);
+            if (cachedFile != null) {
+                return cachedFile;
+            }
+            if (this.uncacheablePaths.contains(path)) {
+                getFileTransfer(path).getFile(path, dstLocalPath);
+                return null;
+            }
+            cachedFile = this.loadFile(path);
+            if (this.isTooLargeToCache(cachedFile)) {
+                this.localFileTransfer.getFile(cachedFile.getPath(), dstLocalPath);
+                this.uncache(path, cachedFile);
+                return null;
+            }
+            this.fileCache.put(path, cachedFile);
+            return cachedFile;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean copyCachedFile(
+        final String path,
+        final File cachedFile,
+        final String dstLocalPath
+    ) throws GenieException {
+        final Lock readLock = this.fileLocks.get(path).readLock();
+        readLock.lock();
+        try {
+            if (!cachedFile.exists()) {
+                return false;
+            }
+            this.localFileTransfer.getFile(cachedFile.getPath(), dstLocalPath);
+            return true;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private boolean isTooLargeToCache(final File file) {
+        return this.maxSize > 0 && file.length() > this.maxSize;
+    }
+
+    /*
+     * Stop caching a file that is too large. Must be called while holding the path lock.
+     */
+    private void uncache(final String path, final File file) {
+        log.info("File {} is larger than the {} bytes cache, it won't be cached", path, this.maxSize);
+        this.uncacheablePaths.add(path);
+        this.lastValidationTimes.remove(path);
+        this.deleteCachedFile(path, file);
+    }
+
+    /*
+     * Must be called while holding the path lock.
+     */
+    private void deleteCachedFile(final String path, final File file) {
+        final Lock writeLock = this.fileLocks.get(path).writeLock();
+        writeLock.lock();
+        try {
+            this.deleteFile(file);
+        } catch (final IOException e) {
+            log.warn("Failed deleting file {}", file, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /*
+     * Delete the files evicted from the cache. This isn't done by the removal listener itself as it's called by
+     * whichever thread caused the eviction, which may hold the lock of another file.
+     */
+    private void deleteEvictedFiles() {
+        Map.Entry<String, File> evictedFile;
+        while ((evictedFile = this.evictedFiles.poll()) != null) {
+            final String path = evictedFile.getKey();
+            final Lock lock = this.pathLocks.get(path);
+            lock.lock();
+            try {
+                // The file may have been loaded again meanwhile
+                if (!this.fileCache.asMap().containsKey(path)) {
+                    this.lastValidationTimes.remove(path);
+                    this.deleteCachedFile(path, evictedFile.getValue());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void refreshInBackground(final String path) {
+        if (!this.refreshingPaths.add(path)) {
+            // Already being refreshed
+            return;
+        }
+        try {
+            this.refreshExecutor.execute(
+                () -> {
+                    try {
+                        this.revalidate(path);
+                    } catch (final Exception e) {
+                        log.error("Failed refreshing the file {}", path, e);
+                    } finally {
+                        this.refreshingPaths.remove(path);
+                    }
+                }
+            );
+        } catch (final RuntimeException e) {
+            this.refreshingPaths.remove(path);
+            log.warn("Failed scheduling refresh of the file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private File getCacheFile(final String path) {
+        final byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        final String pathUUID = UUID.nameUUIDFromBytes(pathBytes).toString();
+        return new File(String.format("%s/%s", this.baseCacheLocation, pathUUID));
+    }
+
+    private void downloadFile(final String path, final File cacheFile) throws GenieException {
+        final File downloadFile = new File(cacheFile.getPath() + "." + UUID.randomUUID().toString() + ".tmp");
+        try {
+            getFileTransfer(path).getFile(path, downloadFile.getPath());
+            Files.move(
+                downloadFile.toPath(),
+                cacheFile.toPath(),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING
+            );
+        } catch (final IOException e) {
+            throw new GenieServerException("Failed moving downloaded file in place " + cacheFile, e);
+        } finally {
+            try {
+                this.deleteFile(downloadFile);
+            } catch (final IOException e) {
+                log.warn("Failed deleting temporary file {}", downloadFile, e);
+            }
+        }
+    }
+
+    private void onRemoval(final RemovalNotification<String, File> notification) {
+        final String path = notification.getKey();
+        final File file = notification.getValue();
+        if (notification.wasEvicted() && path != null && file != null) {
+            this.evictedFiles.add(Maps.immutableEntry(path, file));
+        }
+    }
 }
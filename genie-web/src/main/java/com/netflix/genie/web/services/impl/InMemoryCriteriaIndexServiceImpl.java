@@ -0,0 +1,644 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.common.external.dtos.v4.Cluster;
+import com.netflix.genie.common.external.dtos.v4.ClusterStatus;
+import com.netflix.genie.common.external.dtos.v4.Command;
+import com.netflix.genie.common.external.dtos.v4.CommandStatus;
+import com.netflix.genie.common.external.dtos.v4.Criterion;
+import com.netflix.genie.web.data.services.ClusterPersistenceService;
+import com.netflix.genie.web.data.services.CommandPersistenceService;
+import com.netflix.genie.web.data.services.DataServices;
+import com.netflix.genie.web.properties.CriteriaIndexProperties;
+import com.netflix.genie.web.services.CriteriaIndexService;
+import com.netflix.genie.web.util.MetricsUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.annotation.Nullable;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * An implementation of {@link CriteriaIndexService} which keeps an inverted index of all clusters and commands in
+ * memory.
+ * <p>
+ * Every resource is assigned an ordinal within the index and each indexed attribute value (name, version, status and
+ * each tag) maps to a {@link BitSet} of the ordinals which have that value. Matching a {@link Criterion} is then the
+ * intersection of the bitmaps for each field the criterion sets.
+ * <p>
+ * The index is rebuilt from the database on a fixed delay and kept current in between by incremental updates for
+ * changes made through this node (see {@link com.netflix.genie.web.aspects.CriteriaIndexAspect}). Changes made on
+ * other nodes are only visible after the next rebuild so if the last successful rebuild is older than the configured
+ * maximum staleness lookups return {@link Optional#empty()} and callers fall back to the database.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+public class InMemoryCriteriaIndexServiceImpl implements CriteriaIndexService {
+
+    private static final String REFRESH_TIMER = "genie.services.criteriaIndex.refresh.timer";
+    private static final String LOOKUP_COUNTER = "genie.services.criteriaIndex.lookup.counter";
+    private static final String STALENESS_GAUGE = "genie.services.criteriaIndex.staleness.gauge";
+    private static final String CLUSTERS_GAUGE = "genie.services.criteriaIndex.clusters.gauge";
+    private static final String COMMANDS_GAUGE = "genie.services.criteriaIndex.commands.gauge";
+    private static final String TYPE_TAG = "type";
+    private static final String HIT_TAG = "hit";
+    private static final String CLUSTER_TYPE = "cluster";
+    private static final String COMMAND_TYPE = "command";
+    private static final String CLUSTER_COMMAND_TYPE = "clusterCommand";
+    private static final String ID_SORT_PROPERTY = "id";
+
+    private final ClusterPersistenceService clusterPersistenceService;
+    private final CommandPersistenceService commandPersistenceService;
+    private final CriteriaIndexProperties properties;
+    private final MeterRegistry registry;
+    private final long createdAt;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object refreshLock = new Object();
+    private final Set<String> clustersTouchedDuringRefresh = ConcurrentHashMap.newKeySet();
+    private final Set<String> commandsTouchedDuringRefresh = ConcurrentHashMap.newKeySet();
+
+    // Guarded by lock
+    private ResourceIndex<Cluster> clusters;
+    private ResourceIndex<Command> commands;
+    private Map<String, List<String>> clusterCommands;
+
+    private volatile boolean loaded;
+    private volatile long lastRefreshStart;
+    private volatile long invalidatedAt;
+
+    /**
+     * Constructor. If the index is enabled this schedules it to be rebuilt periodically, starting immediately.
+     *
+     * @param dataServices The {@link DataServices} instance to use
+     * @param properties   The {@link CriteriaIndexProperties} to use
+     * @param scheduler    The {@link TaskScheduler} used to schedule the periodic rebuild
+     * @param registry     The {@link MeterRegistry} to publish metrics to
+     */
+    public InMemoryCriteriaIndexServiceImpl(
+        final DataServices dataServices,
+        final CriteriaIndexProperties properties,
+        final TaskScheduler scheduler,
+        final MeterRegistry registry
+    ) {
+        this.clusterPersistenceService = dataServices.getClusterPersistenceService();
+        this.commandPersistenceService = dataServices.getCommandPersistenceService();
+        this.properties = properties;
+        this.registry = registry;
+        this.createdAt = System.currentTimeMillis();
+
+        this.clusters = ResourceIndex.forClusters();
+        this.commands = ResourceIndex.forCommands();
+        this.clusterCommands = Maps.newHashMap();
+
+        if (this.properties.isEnabled()) {
+            this.registry.gauge(STALENESS_GAUGE, this, InMemoryCriteriaIndexServiceImpl::getStalenessMillis);
+            this.registry.gauge(CLUSTERS_GAUGE, this, index -> index.size(true));
+            this.registry.gauge(COMMANDS_GAUGE, this, index -> index.size(false));
+            scheduler.scheduleWithFixedDelay(this::refresh, this.properties.getRefreshInterval());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Set<Cluster>> findClustersMatchingCriterion(
+        final Criterion criterion,
+        final boolean addDefaultStatus
+    ) {
+        if (!this.isCurrent()) {
+            this.recordLookup(CLUSTER_TYPE, false);
+            return Optional.empty();
+        }
+
+        final String status = this.getV4Status(criterion, addDefaultStatus, ClusterStatus.UP.name());
+        final Set<Cluster> matched;
+        this.lock.readLock().lock();
+        try {
+            matched = this.clusters.match(criterion, status, false);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        this.recordLookup(CLUSTER_TYPE, true);
+        return Optional.of(matched);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Set<Command>> findCommandsMatchingCriterion(
+        final Criterion criterion,
+        final boolean addDefaultStatus
+    ) {
+        if (!this.isCurrent()) {
+            this.recordLookup(COMMAND_TYPE, false);
+            return Optional.empty();
+        }
+
+        final String status = this.getV4Status(criterion, addDefaultStatus, CommandStatus.ACTIVE.name());
+        final Set<Command> matched;
+        this.lock.readLock().lock();
+        try {
+            matched = this.commands.match(criterion, status, false);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        this.recordLookup(COMMAND_TYPE, true);
+        return Optional.of(matched);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Map<Cluster, String>> findClustersAndCommandsForCriteria(
+        final List<Criterion> clusterCriteria,
+        final Criterion commandCriterion
+    ) {
+        if (!this.isCurrent()) {
+            this.recordLookup(CLUSTER_COMMAND_TYPE, false);
+            return Optional.empty();
+        }
+
+        final Map<Cluster, String> found = Maps.newHashMap();
+        this.lock.readLock().lock();
+        try {
+            Set<String> commandIds = null;
+            for (final Criterion clusterCriterion : clusterCriteria) {
+                final Set<Cluster> matchedClusters = this.clusters.match(
+                    clusterCriterion,
+                    this.getV3Status(clusterCriterion, ClusterStatus.UP.name()),
+                    true
+                );
+                if (matchedClusters.isEmpty()) {
+                    continue;
+                }
+
+                if (commandIds == null) {
+                    commandIds = this.commands
+                        .match(
+                            commandCriterion,
+                            this.getV3Status(commandCriterion, CommandStatus.ACTIVE.name()),
+                            true
+                        )
+                        .stream()
+                        .map(Command::getId)
+                        .collect(Collectors.toSet());
+                }
+
+                // Same semantics as the database query. The first command in the cluster's priority order which
+                // matches the command criterion is the one which would be used.
+                for (final Cluster cluster : matchedClusters) {
+                    final List<String> clusterCommandIds
+                        = this.clusterCommands.getOrDefault(cluster.getId(), ImmutableList.of());
+                    for (final String commandId : clusterCommandIds) {
+                        if (commandIds.contains(commandId)) {
+                            found.put(cluster, commandId);
+                            break;
+                        }
+                    }
+                }
+
+                if (!found.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        this.recordLookup(CLUSTER_COMMAND_TYPE, true);
+        return Optional.of(found);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refresh() {
+        if (!this.properties.isEnabled()) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final Set<Tag> tags = Sets.newHashSet();
+        synchronized (this.refreshLock) {
+            final long refreshStart = System.currentTimeMillis();
+            this.clustersTouchedDuringRefresh.clear();
+            this.commandsTouchedDuringRefresh.clear();
+            try {
+                final ResourceIndex<Cluster> newClusters = ResourceIndex.forClusters();
+                final Map<String, List<String>> newClusterCommands = Maps.newHashMap();
+                final ResourceIndex<Command> newCommands = ResourceIndex.forCommands();
+                // One read for the commands of every cluster rather than one per cluster
+                final Map<String, List<String>> allClusterCommands
+                    = this.clusterPersistenceService.getCommandIdsForAllClusters();
+
+                int pageNumber = 0;
+                Page<Cluster> clusterPage;
+                do {
+                    clusterPage = this.clusterPersistenceService.getClusters(
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        PageRequest.of(pageNumber++, this.properties.getPageSize(), Sort.by(ID_SORT_PROPERTY))
+                    );
+                    for (final Cluster cluster : clusterPage) {
+                        final String clusterId = cluster.getId();
+                        newClusterCommands.put(
+                            clusterId,
+                            allClusterCommands.getOrDefault(clusterId, ImmutableList.of())
+                        );
+                        newClusters.put(cluster);
+                    }
+                } while (clusterPage.hasNext());
+
+                pageNumber = 0;
+                Page<Command> commandPage;
+                do {
+                    commandPage = this.commandPersistenceService.getCommands(
+                        null,
+                        null,
+                        null,
+                        null,
+                        PageRequest.of(pageNumber++, this.properties.getPageSize(), Sort.by(ID_SORT_PROPERTY))
+                    );
+                    commandPage.forEach(newCommands::put);
+                } while (commandPage.hasNext());
+
+                this.lock.writeLock().lock();
+                try {
+                    this.clusters = newClusters;
+                    this.clusterCommands = newClusterCommands;
+                    this.commands = newCommands;
+                } finally {
+                    this.lock.writeLock().unlock();
+                }
+                this.lastRefreshStart = refreshStart;
+                this.loaded = true;
+
+                // Anything changed on this node while the database was being read may not be reflected in the new
+                // index so apply those changes again on top of it
+                for (final String clusterId : this.clustersTouchedDuringRefresh) {
+                    this.updateCluster(clusterId);
+                }
+                for (final String commandId : this.commandsTouchedDuringRefresh) {
+                    this.updateCommand(commandId);
+                }
+
+                log.debug(
+                    "Rebuilt criteria index with {} clusters and {} commands",
+                    newClusters.size(),
+                    newCommands.size()
+                );
+                MetricsUtils.addSuccessTags(tags);
+            } catch (final Throwable t) {
+                log.error("Unable to rebuild criteria index. Lookups will fall back once it becomes stale", t);
+                MetricsUtils.addFailureTagsWithException(tags, t);
+            } finally {
+                this.registry
+                    .timer(REFRESH_TIMER, tags)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refreshCluster(final String id) {
+        if (!this.properties.isEnabled()) {
+            return;
+        }
+        this.clustersTouchedDuringRefresh.add(id);
+        this.updateCluster(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refreshCommand(final String id) {
+        if (!this.properties.isEnabled()) {
+            return;
+        }
+        this.commandsTouchedDuringRefresh.add(id);
+        this.updateCommand(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate() {
+        log.debug("Criteria index invalidated. Lookups will fall back to the database until the next refresh");
+        this.invalidatedAt = System.currentTimeMillis();
+    }
+
+    private void updateCluster(final String id) {
+        try {
+            final Cluster cluster = this.clusterPersistenceService.getCluster(id);
+            final List<String> commandIds = this.getCommandIdsForCluster(id);
+            this.lock.writeLock().lock();
+            try {
+                this.clusters.put(cluster);
+                this.clusterCommands.put(id, commandIds);
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+        } catch (final GenieNotFoundException e) {
+            this.lock.writeLock().lock();
+            try {
+                this.clusters.remove(id);
+                this.clusterCommands.remove(id);
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+        } catch (final Exception e) {
+            log.error("Unable to update cluster {} in criteria index. Invalidating index.", id, e);
+            this.invalidate();
+        }
+    }
+
+    private void updateCommand(final String id) {
+        try {
+            final Command command = this.commandPersistenceService.getCommand(id);
+            this.lock.writeLock().lock();
+            try {
+                this.commands.put(command);
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+        } catch (final GenieNotFoundException e) {
+            this.lock.writeLock().lock();
+            try {
+                this.commands.remove(id);
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+        } catch (final Exception e) {
+            log.error("Unable to update command {} in criteria index. Invalidating index.", id, e);
+            this.invalidate();
+        }
+    }
+
+    private List<String> getCommandIdsForCluster(final String clusterId) throws GenieException {
+        return this.clusterPersistenceService
+            .getCommandsForCluster(clusterId, null)
+            .stream()
+            .map(Command::getId)
+            .collect(Collectors.toList());
+    }
+
+    private boolean isCurrent() {
+        if (!this.properties.isEnabled() || !this.loaded) {
+            return false;
+        }
+        final long refreshStart = this.lastRefreshStart;
+        return refreshStart > this.invalidatedAt
+            && System.currentTimeMillis() - refreshStart <= this.properties.getMaxStaleness();
+    }
+
+    private double getStalenessMillis() {
+        return System.currentTimeMillis() - (this.loaded ? this.lastRefreshStart : this.createdAt);
+    }
+
+    private double size(final boolean clusterIndex) {
+        this.lock.readLock().lock();
+        try {
+            return clusterIndex ? this.clusters.size() : this.commands.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void recordLookup(final String type, final boolean hit) {
+        this.registry
+            .counter(LOOKUP_COUNTER, TYPE_TAG, type, HIT_TAG, String.valueOf(hit))
+            .increment();
+    }
+
+    /*
+     * Mirrors the default status logic in the persistence service implementations of find*MatchingCriterion.
+     */
+    @Nullable
+    private String getV4Status(final Criterion criterion, final boolean addDefaultStatus, final String defaultStatus) {
+        if (addDefaultStatus && !criterion.getStatus().isPresent()) {
+            return defaultStatus;
+        }
+        return criterion.getStatus().orElse(null);
+    }
+
+    /*
+     * Mirrors the default status logic of the V3 native query in CriteriaResolutionRepositoryImpl.
+     */
+    private String getV3Status(final Criterion criterion, final String defaultStatus) {
+        final String status = criterion.getStatus().orElse(null);
+        return StringUtils.isBlank(status) ? defaultStatus : status;
+    }
+
+    /**
+     * The inverted index for one type of resource. Not thread safe. Callers must synchronize access.
+     *
+     * @param <R> The type of resource indexed
+     */
+    private static final class ResourceIndex<R> {
+        private final Function<R, String> idExtractor;
+        private final Function<R, String> nameExtractor;
+        private final Function<R, String> versionExtractor;
+        private final Function<R, String> statusExtractor;
+        private final Function<R, Set<String>> tagsExtractor;
+
+        private final List<R> resources = Lists.newArrayList();
+        private final Map<String, Integer> ordinals = Maps.newHashMap();
+        private final BitSet live = new BitSet();
+        private final Map<String, BitSet> names = Maps.newHashMap();
+        private final Map<String, BitSet> versions = Maps.newHashMap();
+        private final Map<String, BitSet> statuses = Maps.newHashMap();
+        private final Map<String, BitSet> tags = Maps.newHashMap();
+
+        private ResourceIndex(
+            final Function<R, String> idExtractor,
+            final Function<R, String> nameExtractor,
+            final Function<R, String> versionExtractor,
+            final Function<R, String> statusExtractor,
+            final Function<R, Set<String>> tagsExtractor
+        ) {
+            this.idExtractor = idExtractor;
+            this.nameExtractor = nameExtractor;
+            this.versionExtractor = versionExtractor;
+            this.statusExtractor = statusExtractor;
+            this.tagsExtractor = tagsExtractor;
+        }
+
+        private static ResourceIndex<Cluster> forClusters() {
+            return new ResourceIndex<>(
+                Cluster::getId,
+                cluster -> cluster.getMetadata().getName(),
+                cluster -> cluster.getMetadata().getVersion(),
+                cluster -> cluster.getMetadata().getStatus().name(),
+                cluster -> cluster.getMetadata().getTags()
+            );
+        }
+
+        private static ResourceIndex<Command> forCommands() {
+            return new ResourceIndex<>(
+                Command::getId,
+                command -> command.getMetadata().getName(),
+                command -> command.getMetadata().getVersion(),
+                command -> command.getMetadata().getStatus().name(),
+                command -> command.getMetadata().getTags()
+            );
+        }
+
+        private static void set(final Map<String, BitSet> index, final String key, final int ordinal) {
+            index.computeIfAbsent(key, k -> new BitSet()).set(ordinal);
+        }
+
+        private static void clear(final Map<String, BitSet> index, final String key, final int ordinal) {
+            final BitSet bits = index.get(key);
+            if (bits != null) {
+                bits.clear(ordinal);
+                if (bits.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+
+        private static Optional<String> getField(final Optional<String> field, final boolean ignoreBlank) {
+            return ignoreBlank ? field.filter(StringUtils::isNotBlank) : field;
+        }
+
+        private static void and(final BitSet result, final Map<String, BitSet> index, final String key) {
+            final BitSet bits = index.get(key);
+            if (bits == null) {
+                result.clear();
+            } else {
+                result.and(bits);
+            }
+        }
+
+        private void put(final R resource) {
+            final String id = this.idExtractor.apply(resource);
+            this.remove(id);
+
+            // Ordinals of removed resources aren't reused. They're compacted away on the next full rebuild.
+            final int ordinal = this.resources.size();
+            this.resources.add(resource);
+            this.ordinals.put(id, ordinal);
+            this.live.set(ordinal);
+            set(this.names, this.nameExtractor.apply(resource), ordinal);
+            set(this.versions, this.versionExtractor.apply(resource), ordinal);
+            set(this.statuses, this.statusExtractor.apply(resource), ordinal);
+            for (final String tag : this.tagsExtractor.apply(resource)) {
+                set(this.tags, tag, ordinal);
+            }
+        }
+
+        private void remove(final String id) {
+            final Integer ordinal = this.ordinals.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            final R resource = this.resources.set(ordinal, null);
+            this.live.clear(ordinal);
+            clear(this.names, this.nameExtractor.apply(resource), ordinal);
+            clear(this.versions, this.versionExtractor.apply(resource), ordinal);
+            clear(this.statuses, this.statusExtractor.apply(resource), ordinal);
+            for (final String tag : this.tagsExtractor.apply(resource)) {
+                clear(this.tags, tag, ordinal);
+            }
+        }
+
+        /*
+         * The V3 native query in CriteriaResolutionRepositoryImpl ignores blank id, name and version fields while the
+         * V4 specifications match them as is. ignoreBlankFields selects which of the two behaviors to mirror.
+         */
+        private Set<R> match(
+            final Criterion criterion,
+            @Nullable final String status,
+            final boolean ignoreBlankFields
+        ) {
+            final BitSet result = (BitSet) this.live.clone();
+
+            final Optional<String> id = getField(criterion.getId(), ignoreBlankFields);
+            if (id.isPresent()) {
+                final Integer ordinal = this.ordinals.get(id.get());
+                if (ordinal == null) {
+                    return Collections.emptySet();
+                }
+                final boolean present = result.get(ordinal);
+                result.clear();
+                if (present) {
+                    result.set(ordinal);
+                }
+            }
+            getField(criterion.getName(), ignoreBlankFields).ifPresent(name -> and(result, this.names, name));
+            getField(criterion.getVersion(), ignoreBlankFields)
+                .ifPresent(version -> and(result, this.versions, version));
+            if (status != null) {
+                and(result, this.statuses, status);
+            }
+            for (final String tag : criterion.getTags()) {
+                if (result.isEmpty()) {
+                    break;
+                }
+                and(result, this.tags, tag);
+            }
+
+            final Set<R> matched = Sets.newHashSetWithExpectedSize(result.cardinality());
+            for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+                matched.add(this.resources.get(i));
+            }
+            return matched;
+        }
+
+        private int size() {
+            return this.ordinals.size();
+        }
+    }
+}
@@ -43,6 +43,7 @@ import com.netflix.genie.web.data.services.CommandPersistenceService;
 import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.data.services.JobPersistenceService;
 import com.netflix.genie.web.data.services.JobSearchService;
+import com.netflix.genie.web.dtos.ResolvedJob;
 import com.netflix.genie.web.properties.JobsActiveLimitProperties;
 import com.netflix.genie.web.properties.JobsProperties;
 import com.netflix.genie.web.services.JobCoordinatorService;
@@ -59,6 +60,7 @@ import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -74,9 +76,15 @@ import java.util.stream.Collectors;
 public class JobCoordinatorServiceImpl implements JobCoordinatorService {
 
     static final String OVERALL_COORDINATION_TIMER_NAME = "genie.jobs.coordination.timer";
-    static final String SET_JOB_ENVIRONMENT_TIMER_NAME = "genie.jobs.submit.localRunner.setJobEnvironment.timer";
+    static final String COORDINATION_STAGE_TIMER_NAME = "genie.jobs.coordination.stage.timer";
     static final String USER_JOB_LIMIT_EXCEEDED_COUNTER_NAME = "genie.jobs.submit.rejected.jobs-limit.counter";
 
+    static final String STAGE_TAG = "stage";
+    static final String RESOLVE_STAGE = "resolve";
+    static final String PERSIST_STAGE = "persist";
+    static final String LIMITS_STAGE = "limits";
+    static final String SCHEDULE_STAGE = "schedule";
+
     private static final String NO_ID_FOUND = "No id found";
 
     private final JobPersistenceService jobPersistenceService;
@@ -145,9 +153,11 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
             .getId()
             .orElseThrow(() -> new GenieServerException("Id of the jobRequest cannot be null"));
         JobStatus jobStatus = JobStatus.FAILED;
+        String stage = RESOLVE_STAGE;
+        long stageStart = coordinationStart;
         try {
             log.info("Called to schedule job launch for job {}", jobId);
-            // create the job object in the database with status INIT
+            // Build the job object which will be created in the database with status INIT
             final Job.Builder jobBuilder = new Job.Builder(
                 jobRequest.getName(),
                 jobRequest.getUser(),
@@ -174,41 +184,80 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
             jobBuilder.withArchiveLocation(archiveRoot + jobId);
 //            }
 
+            final Job job = jobBuilder.build();
             final JobExecution jobExecution = new JobExecution
                 .Builder(this.hostname)
                 .withId(jobId)
                 .build();
 
-            // Log all the job initial job information
-            this.jobPersistenceService.createJob(jobRequest, jobMetadata, jobBuilder.build(), jobExecution);
-            this.jobStateService.init(jobId);
             log.info("Finding possible clusters and commands for job {}", jobRequest.getId().orElse(NO_ID_FOUND));
-            final JobSpecification jobSpecification;
+            final Cluster cluster;
+            final Command command;
+            final int memory;
+            final List<Application> applications;
+            // Nothing is saved until the job is created with its runtime environment, so record the job before
+            // reporting any earlier failure to make sure it shows up as failed
             try {
-                jobSpecification = this.jobResolverService.resolveJob(
-                    jobId,
-                    DtoConverters.toV4JobRequest(jobRequest),
-                    true
-                ).getJobSpecification();
-            } catch (final GenieJobResolutionException e) {
-                // Remap to existing contract
-                throw new GeniePreconditionException(e.getMessage(), e);
-            }
-            final Cluster cluster = this.clusterPersistenceService.getCluster(jobSpecification.getCluster().getId());
-            final Command command = this.commandPersistenceService.getCommand(jobSpecification.getCommand().getId());
+                final ResolvedJob resolvedJob;
+                try {
+                    resolvedJob = this.jobResolverService.resolveJob(
+                        jobId,
+                        DtoConverters.toV4JobRequest(jobRequest),
+                        true
+                    );
+                } catch (final GenieJobResolutionException e) {
+                    // Remap to existing contract
+                    throw new GeniePreconditionException(e.getMessage(), e);
+                }
+                final JobSpecification jobSpecification = resolvedJob.getJobSpecification();
 
-            // Now that we have command how much memory should the job use?
-            final int memory = jobRequest.getMemory()
-                .orElse(command.getMemory().orElse(this.jobsProperties.getMemory().getDefaultJobMemory()));
+                // Use the resources selected during resolution rather than reading them again when they're available
+                final Optional<Cluster> resolvedCluster = resolvedJob.getCluster();
+                cluster = resolvedCluster.isPresent()
+                    ? resolvedCluster.get()
+                    : this.clusterPersistenceService.getCluster(jobSpecification.getCluster().getId());
+                final Optional<Command> resolvedCommand = resolvedJob.getCommand();
+                command = resolvedCommand.isPresent()
+                    ? resolvedCommand.get()
+                    : this.commandPersistenceService.getCommand(jobSpecification.getCommand().getId());
 
-            final ImmutableList.Builder<Application> applicationsBuilder = ImmutableList.builder();
-            for (final JobSpecification.ExecutionResource applicationResource : jobSpecification.getApplications()) {
-                applicationsBuilder.add(this.applicationPersistenceService.getApplication(applicationResource.getId()));
-            }
-            final ImmutableList<Application> applications = applicationsBuilder.build();
+                // Now that we have command how much memory should the job use?
+                memory = jobRequest.getMemory()
+                    .orElse(command.getMemory().orElse(this.jobsProperties.getMemory().getDefaultJobMemory()));
 
-            // Save all the runtime information
-            this.setRuntimeEnvironment(jobId, cluster, command, applications, memory);
+                if (resolvedJob.getApplications().size() == jobSpecification.getApplications().size()) {
+                    applications = resolvedJob.getApplications();
+                } else {
+                    final ImmutableList.Builder<Application> applicationsBuilder = ImmutableList.builder();
+                    for (final JobSpecification.ExecutionResource resource : jobSpecification.getApplications()) {
+                        applicationsBuilder.add(this.applicationPersistenceService.getApplication(resource.getId()));
+                    }
+                    applications = applicationsBuilder.build();
+                }
+                stageStart = this.recordStage(RESOLVE_STAGE, stageStart, MetricsUtils.newSuccessTagsSet());
+                stage = PERSIST_STAGE;
+
+                // Create the job along with all the runtime information in a single write
+                this.jobPersistenceService.createJobWithRuntimeEnvironment(
+                    jobRequest,
+                    jobMetadata,
+                    job,
+                    jobExecution,
+                    cluster.getId(),
+                    command.getId(),
+                    applications.stream().map(Application::getId).collect(Collectors.toList()),
+                    memory
+                );
+            } catch (final GenieConflictException e) {
+                // The job already exists, there is nothing to record
+                throw e;
+            } catch (final GenieException | RuntimeException e) {
+                this.createFailedJob(jobId, jobRequest, jobMetadata, job, jobExecution);
+                throw e;
+            }
+            this.jobStateService.init(jobId);
+            stageStart = this.recordStage(PERSIST_STAGE, stageStart, MetricsUtils.newSuccessTagsSet());
+            stage = LIMITS_STAGE;
 
             final int maxJobMemory = this.jobsProperties.getMemory().getMaxJobMemory();
             if (memory > maxJobMemory) {
@@ -244,6 +293,9 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
                 }
             }
 
+            stageStart = this.recordStage(LIMITS_STAGE, stageStart, MetricsUtils.newSuccessTagsSet());
+            stage = SCHEDULE_STAGE;
+
             synchronized (this) {
                 log.info("Checking if can run job {} on this node", jobRequest.getId());
                 final int maxSystemMemory = this.jobsProperties.getMemory().getMaxSystemMemory();
@@ -312,6 +364,8 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
             MetricsUtils.addFailureTagsWithException(tags, t);
             throw t;
         } finally {
+            // The last stage reached shares the outcome of the whole coordination
+            this.recordStage(stage, stageStart, tags);
             this.registry
                 .timer(OVERALL_COORDINATION_TIMER_NAME, tags)
                 .record(System.nanoTime() - coordinationStart, TimeUnit.NANOSECONDS);
@@ -326,36 +380,29 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
         this.jobKillService.killJob(jobId, reason);
     }
 
-    private void setRuntimeEnvironment(
+    private void createFailedJob(
         final String jobId,
-        final Cluster cluster,
-        final Command command,
-        final List<Application> applications,
-        final int memory
-    ) throws GenieException {
-        final long jobEnvironmentStart = System.nanoTime();
-        final Set<Tag> tags = Sets.newHashSet();
+        final JobRequest jobRequest,
+        final JobMetadata jobMetadata,
+        final Job job,
+        final JobExecution jobExecution
+    ) {
         try {
-            final String clusterId = cluster.getId();
-            final String commandId = command.getId();
-            this.jobPersistenceService.updateJobWithRuntimeEnvironment(
-                jobId,
-                clusterId,
-                commandId,
-                applications
-                    .stream()
-                    .map(Application::getId)
-                    .collect(Collectors.toList()),
-                memory
-            );
-            MetricsUtils.addSuccessTags(tags);
-        } catch (final Throwable t) {
-            MetricsUtils.addFailureTagsWithException(tags, t);
-            throw t;
-        } finally {
-            this.registry
-                .timer(SET_JOB_ENVIRONMENT_TIMER_NAME, tags)
-                .record(System.nanoTime() - jobEnvironmentStart, TimeUnit.NANOSECONDS);
+            // Marked as failed along with the reason once the original error is handled
+            this.jobPersistenceService.createJob(jobRequest, jobMetadata, job, jobExecution);
+            this.jobStateService.init(jobId);
+        } catch (final GenieException | RuntimeException e) {
+            log.error("Unable to record job {} which failed before it was created", jobId, e);
         }
     }
+
+    private long recordStage(final String stage, final long stageStart, final Set<Tag> statusTags) {
+        final long stageEnd = System.nanoTime();
+        final Set<Tag> tags = Sets.newHashSet(statusTags);
+        tags.add(Tag.of(STAGE_TAG, stage));
+        this.registry
+            .timer(COORDINATION_STAGE_TIMER_NAME, tags)
+            .record(stageEnd - stageStart, TimeUnit.NANOSECONDS);
+        return stageEnd;
+    }
 }
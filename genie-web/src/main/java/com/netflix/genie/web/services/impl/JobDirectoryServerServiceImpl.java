@@ -41,20 +41,26 @@ import com.netflix.genie.web.resources.writers.DefaultDirectoryWriter;
 import com.netflix.genie.web.services.ArchivedJobService;
 import com.netflix.genie.web.services.JobDirectoryServerService;
 import com.netflix.genie.web.services.JobFileService;
+import com.netflix.genie.web.util.StreamBuffer;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.ResourceHttpMessageConverter;
 import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -74,6 +80,7 @@ import java.util.List;
 public class JobDirectoryServerServiceImpl implements JobDirectoryServerService {
 
     private static final String SLASH = "/";
+    private static final String BYTES_RANGE_UNIT = "bytes";
 
     private final ResourceLoader resourceLoader;
     private final JobPersistenceService jobPersistenceService;
@@ -159,19 +166,6 @@ public class JobDirectoryServerServiceImpl implements JobDirectoryServerService
         final HttpServletResponse response
     ) throws GenieException {
         // TODO: Metrics
-        // Is the job running or not?
-        final JobStatus jobStatus = this.jobPersistenceService.getJobStatus(jobId);
-        // Is it V3 or V4?
-        final boolean isV4 = this.jobPersistenceService.isV4(jobId);
-
-        log.debug(
-            "Serving file: {} for job: {} (status: {}, type: {})",
-            relativePath,
-            jobId,
-            jobStatus.name(),
-            isV4 ? "agent" : "embedded"
-        );
-
         // Normalize the base url. Make sure it ends in /.
         final URI baseUri;
         try {
@@ -183,8 +177,12 @@ public class JobDirectoryServerServiceImpl implements JobDirectoryServerService
         final DirectoryManifest manifest;
         final URI jobDirRoot;
 
-        if (isV4 && this.agentRoutingService.isAgentConnectionLocal(jobId)) { // Active V4 job
-            log.debug("Routing request to a live agent");
+        // Local agent connections are tracked in memory. Check them first so that serving files of a live job doesn't
+        // require any database lookup: an agent connected to this node is always running an active V4 job.
+        final boolean isLiveAgentJob = this.agentRoutingService.isAgentConnectionLocal(jobId);
+
+        if (isLiveAgentJob) { // Active V4 job
+            log.debug("Serving file: {} for job: {}, routing request to a live agent", relativePath, jobId);
             manifest = this.agentFileStreamService.getManifest(jobId).orElseThrow(
                 () -> new GenieServerUnavailableException("Manifest not found for job " + jobId)
             );
@@ -193,42 +191,65 @@ public class JobDirectoryServerServiceImpl implements JobDirectoryServerService
             } catch (final URISyntaxException e) {
                 throw new GenieServerException("Failed to construct job directory path", e);
             }
-        } else if (jobStatus.isActive() && !isV4) { // Active V3 job
-            log.debug("Routing request to a local file");
-            final Resource jobDir = this.jobFileService.getJobFileAsResource(jobId, "");
-            if (!jobDir.exists()) {
-                throw new GenieNotFoundException("Job directory does not exist: " + jobDir);
-            }
-            try {
-                // Make sure the directory ends in a slash. Normalize will ensure only single slash
-                jobDirRoot = new URI(jobDir.getURI().toString() + SLASH).normalize();
-            } catch (final URISyntaxException | IOException e) {
-                throw new GenieServerException("Failed to normalize job directory path", e);
-            }
-            final Path jobDirPath = Paths.get(jobDirRoot);
+        } else {
+            // Is the job running or not?
+            final JobStatus jobStatus = this.jobPersistenceService.getJobStatus(jobId);
+            // Is it V3 or V4?
+            final boolean isV4 = this.jobPersistenceService.isV4(jobId);
 
-            try {
-                manifest = this.jobDirectoryManifestCreatorService.getDirectoryManifest(jobDirPath);
-            } catch (IOException e) {
-                throw new GenieServerException("Failed to construct manifest: " + e.getMessage(), e);
-            }
-        } else { // Archived job
-            log.debug("Routing request to archive");
-            try {
-                final ArchivedJobMetadata archivedJobMetadata = this.archivedJobService.getArchivedJobMetadata(jobId);
-                manifest = archivedJobMetadata.getManifest();
-                jobDirRoot = archivedJobMetadata.getArchiveBaseUri();
-            } catch (final JobNotArchivedException e) {
-                throw new GeniePreconditionException("Job outputs were not archived", e);
-            } catch (final JobNotFoundException | JobDirectoryManifestNotFoundException e) {
-                throw new GenieNotFoundException("Failed to retrieve job archived files metadata", e);
-            } catch (final Exception e) {
-                throw new GenieServerException("Error job metadata: " + e.getMessage(), e);
+            log.debug(
+                "Serving file: {} for job: {} (status: {}, type: {})",
+                relativePath,
+                jobId,
+                jobStatus.name(),
+                isV4 ? "agent" : "embedded"
+            );
+
+            if (jobStatus.isActive() && !isV4) { // Active V3 job
+                log.debug("Routing request to a local file");
+                final Resource jobDir = this.jobFileService.getJobFileAsResource(jobId, "");
+                if (!jobDir.exists()) {
+                    throw new GenieNotFoundException("Job directory does not exist: " + jobDir);
+                }
+                try {
+                    // Make sure the directory ends in a slash. Normalize will ensure only single slash
+                    jobDirRoot = new URI(jobDir.getURI().toString() + SLASH).normalize();
+                } catch (final URISyntaxException | IOException e) {
+                    throw new GenieServerException("Failed to normalize job directory path", e);
+                }
+                final Path jobDirPath = Paths.get(jobDirRoot);
+
+                try {
+                    manifest = this.jobDirectoryManifestCreatorService.getDirectoryManifest(jobDirPath);
+                } catch (IOException e) {
+                    throw new GenieServerException("Failed to construct manifest: " + e.getMessage(), e);
+                }
+            } else { // Archived job
+                log.debug("Routing request to archive");
+                try {
+                    final ArchivedJobMetadata archivedJobMetadata
+                        = this.archivedJobService.getArchivedJobMetadata(jobId);
+                    manifest = archivedJobMetadata.getManifest();
+                    jobDirRoot = archivedJobMetadata.getArchiveBaseUri();
+                } catch (final JobNotArchivedException e) {
+                    throw new GeniePreconditionException("Job outputs were not archived", e);
+                } catch (final JobNotFoundException | JobDirectoryManifestNotFoundException e) {
+                    throw new GenieNotFoundException("Failed to retrieve job archived files metadata", e);
+                } catch (final Exception e) {
+                    throw new GenieServerException("Error job metadata: " + e.getMessage(), e);
+                }
             }
         }
 
         // Common handling of
         try {
+            if (
+                isLiveAgentJob
+                    && this.handleAgentRangeRequest(jobId, relativePath, request, response, manifest, jobDirRoot)
+            ) {
+                // Range request served by transferring only the requested bytes from the agent
+                return;
+            }
             this.handleRequest(baseUri, relativePath, request, response, manifest, jobDirRoot);
         } catch (IOException e) {
             throw new GenieServerException("Error serving response: " + e.getMessage(), e);
@@ -320,6 +341,95 @@ public class JobDirectoryServerServiceImpl implements JobDirectoryServerService
         }
     }
 
+    /*
+     * The generic resource handler serves a range by reading the resource input stream from the beginning and
+     * discarding data up to the start of the range. For files of a live agent job that would mean transferring the
+     * entire file from the agent, so single range GET requests are served by requesting just the range instead.
+     * Anything else (no range, multiple ranges, conditional ranges, directories) is left to the generic handling.
+     */
+    private boolean handleAgentRangeRequest(
+        final String jobId,
+        final String relativePath,
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final DirectoryManifest manifest,
+        final URI jobDirectoryRoot
+    ) throws IOException, GenieException {
+        final String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (
+            StringUtils.isBlank(rangeHeader)
+                || request.getHeader(HttpHeaders.IF_RANGE) != null
+                || !HttpMethod.GET.matches(request.getMethod())
+        ) {
+            return false;
+        }
+
+        final DirectoryManifest.ManifestEntry entry = manifest.getEntry(relativePath).orElse(null);
+        if (entry == null || entry.isDirectory()) {
+            return false;
+        }
+
+        final long fileSize = entry.getSize();
+        final long rangeStart;
+        final long rangeEnd;
+        try {
+            final List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            if (ranges.size() != 1) {
+                return false;
+            }
+            rangeStart = ranges.get(0).getRangeStart(fileSize);
+            rangeEnd = ranges.get(0).getRangeEnd(fileSize);
+        } catch (final IllegalArgumentException e) {
+            log.debug("Unsatisfiable range {} for {} of job {}: {}", rangeHeader, relativePath, jobId, e.getMessage());
+            this.sendRangeNotSatisfiable(response, fileSize);
+            return true;
+        }
+        // No byte of an empty file or past its end can be served
+        if (fileSize == 0 || rangeStart >= fileSize) {
+            log.debug("Unsatisfiable range {} for {} of job {} of size {}", rangeHeader, relativePath, jobId, fileSize);
+            this.sendRangeNotSatisfiable(response, fileSize);
+            return true;
+        }
+
+        log.debug("Serving range [{}-{}] of {} for job {}", rangeStart, rangeEnd, relativePath, jobId);
+        final AgentFileStreamService.AgentFileResource resource = this.agentFileStreamService
+            .getResource(
+                jobId,
+                Paths.get(entry.getPath()),
+                jobDirectoryRoot.resolve(entry.getPath()),
+                rangeStart,
+                rangeEnd + 1
+            )
+            .orElseThrow(() -> new GenieServerUnavailableException("Agent not connected for job " + jobId));
+        if (!resource.exists()) {
+            throw new GenieNotFoundException("No such file for job " + jobId + ": " + relativePath);
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType(entry.getMimeType().orElse(MediaType.TEXT_PLAIN_VALUE));
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, BYTES_RANGE_UNIT);
+        response.setHeader(
+            HttpHeaders.CONTENT_RANGE,
+            BYTES_RANGE_UNIT + " " + rangeStart + "-" + rangeEnd + "/" + fileSize
+        );
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, resource.lastModified());
+        response.setContentLengthLong(resource.contentLength());
+        try (InputStream inputStream = resource.getInputStream()) {
+            if (inputStream instanceof StreamBuffer.StreamBufferInputStream) {
+                // Write the chunks received from the agent straight to the response
+                ((StreamBuffer.StreamBufferInputStream) inputStream).transferTo(response.getOutputStream());
+            } else {
+                StreamUtils.copy(inputStream, response.getOutputStream());
+            }
+        }
+        return true;
+    }
+
+    private void sendRangeNotSatisfiable(final HttpServletResponse response, final long fileSize) throws IOException {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, BYTES_RANGE_UNIT + " */" + fileSize);
+        response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+
     private DefaultDirectoryWriter.Entry createEntry(
         final DirectoryManifest.ManifestEntry manifestEntry,
         final URI baseUri
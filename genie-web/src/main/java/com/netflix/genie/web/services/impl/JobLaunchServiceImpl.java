@@ -27,21 +27,30 @@ import com.netflix.genie.web.dtos.JobSubmission;
 import com.netflix.genie.web.dtos.ResolvedJob;
 import com.netflix.genie.web.exceptions.checked.AgentLaunchException;
 import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException;
+import com.netflix.genie.web.exceptions.checked.JobLaunchRejectedException;
 import com.netflix.genie.web.exceptions.checked.SaveAttachmentException;
+import com.netflix.genie.web.properties.JobLaunchProperties;
 import com.netflix.genie.web.services.JobLaunchService;
 import com.netflix.genie.web.services.JobResolverService;
 import com.netflix.genie.web.util.MetricsUtils;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 
 import javax.annotation.Nonnull;
 import javax.validation.Valid;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Default implementation of the {@link JobLaunchService}.
+ * <p>
+ * When asynchronous launch is enabled in the {@link JobLaunchProperties} jobs are accepted as soon as they're saved
+ * and handed to a bounded pipeline which resolves them and launches their agents. Once the configured number of jobs
+ * are waiting for or going through launch, further submissions are rejected until some of them are done.
  *
  * @author tgianos
  * @since 4.0.0
@@ -50,30 +59,51 @@ import java.util.concurrent.TimeUnit;
 public class JobLaunchServiceImpl implements JobLaunchService {
 
     private static final String LAUNCH_JOB_TIMER = "genie.services.jobLaunch.launchJob.timer";
+    private static final String LAUNCH_ACCEPTED_JOB_TIMER = "genie.services.jobLaunch.launchAcceptedJob.timer";
+    private static final String PENDING_LAUNCHES_GAUGE = "genie.services.jobLaunch.pendingLaunches.gauge";
+    private static final String LAUNCH_WAIT_TIMER = "genie.services.jobLaunch.launchWait.timer";
+    private static final String REJECTED_JOBS_COUNTER = "genie.services.jobLaunch.rejected.counter";
 
     private final JobPersistenceService jobPersistenceService;
     private final JobResolverService jobResolverService;
     private final AgentLauncher agentLauncher;
+    private final JobLaunchProperties jobLaunchProperties;
+    private final TaskExecutor launchExecutor;
     private final MeterRegistry registry;
+    private final Semaphore pendingLaunches;
 
     /**
      * Constructor.
      *
-     * @param dataServices       The {@link DataServices} instance to use
-     * @param jobResolverService {@link JobResolverService} implementation used to resolve job details
-     * @param agentLauncher      {@link AgentLauncher} implementation to launch agents
-     * @param registry           {@link MeterRegistry} metrics repository
+     * @param dataServices        The {@link DataServices} instance to use
+     * @param jobResolverService  {@link JobResolverService} implementation used to resolve job details
+     * @param agentLauncher       {@link AgentLauncher} implementation to launch agents
+     * @param jobLaunchProperties The {@link JobLaunchProperties} to use
+     * @param launchExecutor      The {@link TaskExecutor} resolving and launching accepted jobs in the background
+     * @param registry            {@link MeterRegistry} metrics repository
      */
     public JobLaunchServiceImpl(
         final DataServices dataServices,
         final JobResolverService jobResolverService,
         final AgentLauncher agentLauncher,
+        final JobLaunchProperties jobLaunchProperties,
+        final TaskExecutor launchExecutor,
         final MeterRegistry registry
     ) {
         this.jobPersistenceService = dataServices.getJobPersistenceService();
         this.jobResolverService = jobResolverService;
         this.agentLauncher = agentLauncher;
+        this.jobLaunchProperties = jobLaunchProperties;
+        this.launchExecutor = launchExecutor;
         this.registry = registry;
+
+        final int maxPendingLaunches = jobLaunchProperties.getMaxPendingLaunches();
+        this.pendingLaunches = new Semaphore(maxPendingLaunches);
+        this.registry.gauge(
+            PENDING_LAUNCHES_GAUGE,
+            this.pendingLaunches,
+            permits -> maxPendingLaunches - permits.availablePermits()
+        );
     }
 
     /**
@@ -98,47 +128,7 @@ public class JobLaunchServiceImpl implements JobLaunchService {
              */
 
             final String jobId = this.jobPersistenceService.saveJobSubmission(jobSubmission);
-
-            final ResolvedJob resolvedJob;
-            try {
-                resolvedJob = this.jobResolverService.resolveJob(jobId);
-            } catch (final Throwable t) {
-                MetricsUtils.addFailureTagsWithException(tags, t);
-                this.jobPersistenceService.updateJobStatus(
-                    jobId,
-                    JobStatus.RESERVED,
-                    JobStatus.FAILED,
-                    t.getMessage()
-                );
-                throw t; // Caught below for metrics gathering
-            }
-
-            // Job state should be RESOLVED now. Mark it ACCEPTED to avoid race condition with agent starting up
-            // before we get return from launchAgent and trying to set it to CLAIMED
-            try {
-                this.jobPersistenceService.updateJobStatus(
-                    jobId,
-                    JobStatus.RESOLVED,
-                    JobStatus.ACCEPTED,
-                    "The job has been accepted by the system for execution"
-                );
-            } catch (final Throwable t) {
-                // TODO: Failed to update the status to accepted. Try to set it to failed or rely on other cleanup
-                //       mechanism?
-                throw new AgentLaunchException(t);
-            }
-
-            // Already throws an exception
-            try {
-                this.agentLauncher.launchAgent(resolvedJob);
-            } catch (final AgentLaunchException e) {
-                // TODO: this could fail as well
-                this.jobPersistenceService.updateJobStatus(jobId, JobStatus.ACCEPTED, JobStatus.FAILED, e.getMessage());
-                // TODO: How will we get the ID back to the user? Should we add it to an exception? We don't get
-                //       We don't get the ID until after saveJobSubmission so if that fails we'd still return nothing
-                //       Probably need multiple exceptions to be thrown from this API (if we go with checked)
-                throw e;
-            }
+            this.resolveAndLaunch(jobId);
 
             MetricsUtils.addSuccessTags(tags);
             return jobId;
@@ -151,4 +141,121 @@ public class JobLaunchServiceImpl implements JobLaunchService {
                 .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nonnull
+    public String acceptJob(
+        @Valid final JobSubmission jobSubmission
+    ) throws
+        AgentLaunchException,
+        GenieJobResolutionException,
+        IdAlreadyExistsException,
+        JobLaunchRejectedException,
+        SaveAttachmentException {
+        if (!this.jobLaunchProperties.isAsync()) {
+            return this.launchJob(jobSubmission);
+        }
+
+        // Shed load before doing any work so a backlog of launches can't pile up jobs which will be waiting forever
+        if (!this.pendingLaunches.tryAcquire()) {
+            this.registry.counter(REJECTED_JOBS_COUNTER).increment();
+            throw new JobLaunchRejectedException(
+                "Too many jobs are waiting to be launched (" + this.jobLaunchProperties.getMaxPendingLaunches() + ")."
+                    + " Try again later"
+            );
+        }
+
+        // Attachments are only readable during the request so the submission is always saved before returning
+        final String jobId;
+        try {
+            jobId = this.jobPersistenceService.saveJobSubmission(jobSubmission);
+        } catch (final Throwable t) {
+            this.pendingLaunches.release();
+            throw t;
+        }
+
+        final long acceptedAt = System.nanoTime();
+        try {
+            this.launchExecutor.execute(() -> this.launchAcceptedJob(jobId, acceptedAt));
+        } catch (final TaskRejectedException e) {
+            this.pendingLaunches.release();
+            this.failReservedJob(jobId, "Unable to schedule the job for launch");
+            throw new JobLaunchRejectedException("Unable to schedule job " + jobId + " for launch", e);
+        }
+        return jobId;
+    }
+
+    private void launchAcceptedJob(final String jobId, final long acceptedAt) {
+        final long start = System.nanoTime();
+        this.registry
+            .timer(LAUNCH_WAIT_TIMER)
+            .record(start - acceptedAt, TimeUnit.NANOSECONDS);
+        final Set<Tag> tags = Sets.newHashSet();
+        try {
+            this.resolveAndLaunch(jobId);
+            MetricsUtils.addSuccessTags(tags);
+        } catch (final Throwable t) {
+            // The job status already reflects the failure where possible. Nobody is waiting on this so just log it.
+            log.error("Unable to launch accepted job {}: {}", jobId, t.getMessage(), t);
+            MetricsUtils.addFailureTagsWithException(tags, t);
+        } finally {
+            this.pendingLaunches.release();
+            this.registry
+                .timer(LAUNCH_ACCEPTED_JOB_TIMER, tags)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void resolveAndLaunch(final String jobId) throws AgentLaunchException, GenieJobResolutionException {
+        final ResolvedJob resolvedJob;
+        try {
+            resolvedJob = this.jobResolverService.resolveJob(jobId);
+        } catch (final Throwable t) {
+            this.jobPersistenceService.updateJobStatus(
+                jobId,
+                JobStatus.RESERVED,
+                JobStatus.FAILED,
+                t.getMessage()
+            );
+            throw t;
+        }
+
+        // Job state should be RESOLVED now. Mark it ACCEPTED to avoid race condition with agent starting up
+        // before we get return from launchAgent and trying to set it to CLAIMED
+        try {
+            this.jobPersistenceService.updateJobStatus(
+                jobId,
+                JobStatus.RESOLVED,
+                JobStatus.ACCEPTED,
+                "The job has been accepted by the system for execution"
+            );
+        } catch (final Throwable t) {
+            // TODO: Failed to update the status to accepted. Try to set it to failed or rely on other cleanup
+            //       mechanism?
+            throw new AgentLaunchException(t);
+        }
+
+        // Already throws an exception
+        try {
+            this.agentLauncher.launchAgent(resolvedJob);
+        } catch (final AgentLaunchException e) {
+            // TODO: this could fail as well
+            this.jobPersistenceService.updateJobStatus(jobId, JobStatus.ACCEPTED, JobStatus.FAILED, e.getMessage());
+            // TODO: How will we get the ID back to the user? Should we add it to an exception? We don't get
+            //       We don't get the ID until after saveJobSubmission so if that fails we'd still return nothing
+            //       Probably need multiple exceptions to be thrown from this API (if we go with checked)
+            throw e;
+        }
+    }
+
+    private void failReservedJob(final String jobId, final String message) {
+        try {
+            this.jobPersistenceService.updateJobStatus(jobId, JobStatus.RESERVED, JobStatus.FAILED, message);
+        } catch (final Throwable t) {
+            log.error("Unable to mark job {} failed: {}", jobId, t.getMessage(), t);
+        }
+    }
 }
@@ -45,6 +45,7 @@ import com.netflix.genie.web.exceptions.checked.ResourceSelectionException;
 import com.netflix.genie.web.properties.JobsProperties;
 import com.netflix.genie.web.selectors.ClusterSelector;
 import com.netflix.genie.web.selectors.CommandSelector;
+import com.netflix.genie.web.services.CriteriaIndexService;
 import com.netflix.genie.web.services.JobResolverService;
 import com.netflix.genie.web.util.MetricsConstants;
 import com.netflix.genie.web.util.MetricsUtils;
@@ -139,6 +140,8 @@ public class JobResolverServiceImpl implements JobResolverService {
     private static final String VERSION_4 = "4";
     private static final Tag SAVED_TAG = Tag.of("saved", "true");
     private static final Tag NOT_SAVED_TAG = Tag.of("saved", "false");
+    private static final Tag INDEX_HIT_TAG = Tag.of("indexed", "true");
+    private static final Tag INDEX_MISS_TAG = Tag.of("indexed", "false");
 
     private static final String ID_FIELD = "id";
     private static final String NAME_FIELD = "name";
@@ -177,6 +180,8 @@ public class JobResolverServiceImpl implements JobResolverService {
     private final JobPersistenceService jobPersistenceService;
     private final List<ClusterSelector> clusterSelectors;
     private final CommandSelector commandSelector;
+    @Nullable
+    private final CriteriaIndexService criteriaIndexService;
     private final MeterRegistry registry;
     private final int defaultMemory;
     // TODO: Switch to path
@@ -192,12 +197,14 @@ public class JobResolverServiceImpl implements JobResolverService {
     /**
      * Constructor.
      *
-     * @param dataServices     The {@link DataServices} encapsulation instance to use
-     * @param clusterSelectors The {@link ClusterSelector} implementations to use
-     * @param commandSelector  The {@link CommandSelector} implementation to use
-     * @param registry         The {@link MeterRegistry }metrics repository to use
-     * @param jobsProperties   The properties for running a job set by the user
-     * @param environment      The Spring application {@link Environment} for dynamic property resolution
+     * @param dataServices         The {@link DataServices} encapsulation instance to use
+     * @param clusterSelectors     The {@link ClusterSelector} implementations to use
+     * @param commandSelector      The {@link CommandSelector} implementation to use
+     * @param registry             The {@link MeterRegistry }metrics repository to use
+     * @param jobsProperties       The properties for running a job set by the user
+     * @param environment          The Spring application {@link Environment} for dynamic property resolution
+     * @param criteriaIndexService The {@link CriteriaIndexService} to consult before querying the database, if the
+     *                             index is enabled
      */
     public JobResolverServiceImpl(
         final DataServices dataServices,
@@ -205,7 +212,8 @@ public class JobResolverServiceImpl implements JobResolverService {
         final CommandSelector commandSelector, // TODO: For now this is a single value but maybe support List
         final MeterRegistry registry,
         final JobsProperties jobsProperties,
-        final Environment environment
+        final Environment environment,
+        @Nullable final CriteriaIndexService criteriaIndexService
     ) {
         this.applicationPersistenceService = dataServices.getApplicationPersistenceService();
         this.clusterPersistenceService = dataServices.getClusterPersistenceService();
@@ -213,6 +221,7 @@ public class JobResolverServiceImpl implements JobResolverService {
         this.jobPersistenceService = dataServices.getJobPersistenceService();
         this.clusterSelectors = clusterSelectors;
         this.commandSelector = commandSelector;
+        this.criteriaIndexService = criteriaIndexService;
         this.defaultMemory = jobsProperties.getMemory().getDefaultJobMemory();
         this.environment = environment;
         this.random = new Random();
@@ -362,8 +371,9 @@ public class JobResolverServiceImpl implements JobResolverService {
         }
 
         // Resolve the applications to use based on the command that was selected
+        final List<Application> applications = this.getApplications(id, jobRequest, command);
         final List<JobSpecification.ExecutionResource> applicationResources = Lists.newArrayList();
-        for (final Application application : this.getApplications(id, jobRequest, command)) {
+        for (final Application application : applications) {
             applicationResources.add(
                 new JobSpecification.ExecutionResource(application.getId(), application.getResources())
             );
@@ -422,7 +432,14 @@ public class JobResolverServiceImpl implements JobResolverService {
             .withEnvironmentVariables(environmentVariables)
             .build();
 
-        return new ResolvedJob(jobSpecification, jobEnvironment, jobRequest.getMetadata());
+        return new ResolvedJob(
+            jobSpecification,
+            jobEnvironment,
+            jobRequest.getMetadata(),
+            cluster,
+            command,
+            applications
+        );
     }
 
     private Map<Cluster, String> queryForClustersAndCommands(
@@ -432,8 +449,20 @@ public class JobResolverServiceImpl implements JobResolverService {
         final long start = System.nanoTime();
         final Set<Tag> tags = Sets.newHashSet();
         try {
-            final Map<Cluster, String> clustersAndCommands
-                = this.clusterPersistenceService.findClustersAndCommandsForCriteria(clusterCriteria, commandCriterion);
+            final Optional<Map<Cluster, String>> indexedClustersAndCommands = this.criteriaIndexService == null
+                ? Optional.empty()
+                : this.criteriaIndexService.findClustersAndCommandsForCriteria(clusterCriteria, commandCriterion);
+            final Map<Cluster, String> clustersAndCommands;
+            if (indexedClustersAndCommands.isPresent()) {
+                tags.add(INDEX_HIT_TAG);
+                clustersAndCommands = indexedClustersAndCommands.get();
+            } else {
+                tags.add(INDEX_MISS_TAG);
+                clustersAndCommands = this.clusterPersistenceService.findClustersAndCommandsForCriteria(
+                    clusterCriteria,
+                    commandCriterion
+                );
+            }
             MetricsUtils.addSuccessTags(tags);
             return clustersAndCommands;
         } catch (final Throwable t) {
@@ -772,7 +801,11 @@ public class JobResolverServiceImpl implements JobResolverService {
         final Set<Tag> tags = Sets.newHashSet();
         try {
             final Criterion criterion = jobRequest.getCriteria().getCommandCriterion();
-            final Set<Command> commands = this.commandPersistenceService.findCommandsMatchingCriterion(criterion, true);
+            final Optional<Set<Command>> indexedCommands = this.criteriaIndexService == null
+                ? Optional.empty()
+                : this.criteriaIndexService.findCommandsMatchingCriterion(criterion, true);
+            final Set<Command> commands = indexedCommands
+                .orElseGet(() -> this.commandPersistenceService.findCommandsMatchingCriterion(criterion, true));
             final Command command;
             if (commands.isEmpty()) {
                 throw new GenieJobResolutionException("No command matching command criterion found");
@@ -865,9 +898,16 @@ public class JobResolverServiceImpl implements JobResolverService {
                         continue;
                     }
 
-                    queryCount++;
-                    final Set<Cluster> clusters
-                        = this.clusterPersistenceService.findClustersMatchingCriterion(mergedCriterion, true);
+                    final Optional<Set<Cluster>> indexedClusters = this.criteriaIndexService == null
+                        ? Optional.empty()
+                        : this.criteriaIndexService.findClustersMatchingCriterion(mergedCriterion, true);
+                    final Set<Cluster> clusters;
+                    if (indexedClusters.isPresent()) {
+                        clusters = indexedClusters.get();
+                    } else {
+                        queryCount++;
+                        clusters = this.clusterPersistenceService.findClustersMatchingCriterion(mergedCriterion, true);
+                    }
                     if (clusters.isEmpty()) {
                         log.debug("No clusters found for {}", mergedCriterion);
                         this.noClusterFoundCounter.increment();
@@ -34,10 +34,13 @@ import com.netflix.genie.web.agent.apis.rpc.v4.endpoints.JobServiceProtoErrorCom
 import com.netflix.genie.web.agent.services.AgentJobService;
 import com.netflix.genie.web.agent.services.AgentRoutingService;
 import com.netflix.genie.web.data.services.DataServices;
+import com.netflix.genie.web.properties.AgentFileStreamProperties;
+import com.netflix.genie.web.properties.AgentHeartBeatProperties;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.TaskScheduler;
@@ -50,6 +53,12 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
  * @since 4.0.0
  */
 @Configuration
+@EnableConfigurationProperties(
+    {
+        AgentFileStreamProperties.class,
+        AgentHeartBeatProperties.class
+    }
+)
 @Slf4j
 public class AgentRpcEndpointsAutoConfiguration {
 
@@ -85,6 +94,7 @@ public class AgentRpcEndpointsAutoConfiguration {
      *
      * @param converter     The {@link JobDirectoryManifestProtoConverter} instance to use
      * @param taskScheduler The {@link TaskScheduler} to use to schedule tasks
+     * @param properties    The agent file stream properties
      * @param registry      The meter registry
      * @return An instance of {@link GRpcAgentFileStreamServiceImpl}
      */
@@ -93,9 +103,10 @@ public class AgentRpcEndpointsAutoConfiguration {
     public GRpcAgentFileStreamServiceImpl gRpcAgentFileStreamService(
         final JobDirectoryManifestProtoConverter converter,
         @Qualifier("genieTaskScheduler") final TaskScheduler taskScheduler,
+        final AgentFileStreamProperties properties,
         final MeterRegistry registry
     ) {
-        return new GRpcAgentFileStreamServiceImpl(converter, taskScheduler, registry);
+        return new GRpcAgentFileStreamServiceImpl(converter, taskScheduler, properties, registry);
     }
 
     /**
@@ -104,6 +115,7 @@ public class AgentRpcEndpointsAutoConfiguration {
      *
      * @param agentRoutingService The {@link AgentRoutingService} implementation to use
      * @param taskScheduler       The {@link TaskScheduler} instance to use
+     * @param properties          The agent heartbeat properties
      * @param registry            The meter registry
      * @return A {@link GRpcHeartBeatServiceImpl} instance
      */
@@ -112,9 +124,10 @@ public class AgentRpcEndpointsAutoConfiguration {
     public GRpcHeartBeatServiceImpl gRpcHeartBeatService(
         final AgentRoutingService agentRoutingService,
         @Qualifier("heartBeatServiceTaskScheduler") final TaskScheduler taskScheduler,
+        final AgentHeartBeatProperties properties,
         final MeterRegistry registry
     ) {
-        return new GRpcHeartBeatServiceImpl(agentRoutingService, taskScheduler, registry);
+        return new GRpcHeartBeatServiceImpl(agentRoutingService, taskScheduler, properties, registry);
     }
 
     /**
@@ -25,10 +25,12 @@ import com.netflix.genie.web.introspection.GenieWebRpcInfo;
 import com.netflix.genie.web.properties.LocalAgentLauncherProperties;
 import com.netflix.genie.web.util.ExecutorFactory;
 import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
 
 /**
  * Auto configuration for beans responsible ofor launching Genie Agent instances.
@@ -64,6 +66,7 @@ public class AgentLaunchersAutoConfiguration {
      * @param dataServices       The {@link DataServices} instance to use
      * @param launcherProperties The properties related to launching an agent locally
      * @param executorFactory    The {@link ExecutorFactory} to use to launch agent processes
+     * @param taskScheduler      The {@link TaskScheduler} to use to keep the pool of standby agents full
      * @param registry           The {@link MeterRegistry} to register metrics
      * @return A {@link LocalAgentLauncherImpl} instance
      */
@@ -75,6 +78,7 @@ public class AgentLaunchersAutoConfiguration {
         final DataServices dataServices,
         final LocalAgentLauncherProperties launcherProperties,
         final ExecutorFactory executorFactory,
+        @Qualifier("genieTaskScheduler") final TaskScheduler taskScheduler,
         final MeterRegistry registry
     ) {
         return new LocalAgentLauncherImpl(
@@ -83,6 +87,7 @@ public class AgentLaunchersAutoConfiguration {
             dataServices,
             launcherProperties,
             executorFactory,
+            taskScheduler,
             registry
         );
     }
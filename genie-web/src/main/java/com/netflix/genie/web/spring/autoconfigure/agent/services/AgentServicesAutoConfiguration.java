@@ -29,11 +29,15 @@ import com.netflix.genie.web.agent.services.impl.AgentMetricsServiceImpl;
 import com.netflix.genie.web.agent.services.impl.AgentRoutingServiceImpl;
 import com.netflix.genie.web.data.services.AgentConnectionPersistenceService;
 import com.netflix.genie.web.data.services.DataServices;
+import com.netflix.genie.web.properties.AgentRoutingProperties;
 import com.netflix.genie.web.services.JobResolverService;
 import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
 
 import java.util.List;
 
@@ -44,6 +48,11 @@ import java.util.List;
  * @since 4.0.0
  */
 @Configuration
+@EnableConfigurationProperties(
+    {
+        AgentRoutingProperties.class
+    }
+)
 public class AgentServicesAutoConfiguration {
     /**
      * Get a {@link AgentJobService} instance if there isn't already one.
@@ -75,17 +84,26 @@ public class AgentServicesAutoConfiguration {
      *
      * @param agentConnectionPersistenceService The persistence service to use for agent connections
      * @param genieHostInfo                     The local genie host information
+     * @param agentRoutingProperties            The properties controlling caching and writing of agent locations
+     * @param taskScheduler                     The scheduler used to write agent connections to the database
+     * @param meterRegistry                     The metrics registry to use
      * @return A {@link AgentRoutingServiceImpl} instance
      */
     @Bean
     @ConditionalOnMissingBean(AgentRoutingService.class)
     public AgentRoutingServiceImpl agentRoutingService(
         final AgentConnectionPersistenceService agentConnectionPersistenceService,
-        final GenieHostInfo genieHostInfo
+        final GenieHostInfo genieHostInfo,
+        final AgentRoutingProperties agentRoutingProperties,
+        @Qualifier("genieTaskScheduler") final TaskScheduler taskScheduler,
+        final MeterRegistry meterRegistry
     ) {
         return new AgentRoutingServiceImpl(
             agentConnectionPersistenceService,
-            genieHostInfo
+            genieHostInfo,
+            agentRoutingProperties,
+            taskScheduler,
+            meterRegistry
         );
     }
 
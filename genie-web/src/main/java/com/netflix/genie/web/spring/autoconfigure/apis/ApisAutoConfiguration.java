@@ -19,6 +19,7 @@ package com.netflix.genie.web.spring.autoconfigure.apis;
 
 import com.netflix.genie.common.external.util.GenieObjectMapper;
 import com.netflix.genie.web.properties.HttpProperties;
+import com.netflix.genie.web.properties.JobExportProperties;
 import com.netflix.genie.web.properties.JobsProperties;
 import com.netflix.genie.web.properties.RetryProperties;
 import com.netflix.genie.web.resources.writers.DefaultDirectoryWriter;
@@ -35,6 +36,7 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.retry.backoff.ExponentialBackOffPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.filter.CharacterEncodingFilter;
 
@@ -55,6 +57,7 @@ import java.util.Collections;
 @EnableConfigurationProperties(
     {
         HttpProperties.class,
+        JobExportProperties.class,
         RetryProperties.class
     }
 )
@@ -164,6 +167,24 @@ public class ApisAutoConfiguration {
         return jobsDirResource;
     }
 
+    /**
+     * Provide a {@link ThreadPoolTaskExecutor} named "genieJobExportTaskExecutor" if no override is defined.
+     * Used to stream job exports to clients outside of the servlet container request threads.
+     *
+     * @param jobExportProperties The {@link JobExportProperties} to use
+     * @return A {@link ThreadPoolTaskExecutor} instance
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "genieJobExportTaskExecutor")
+    public ThreadPoolTaskExecutor genieJobExportTaskExecutor(final JobExportProperties jobExportProperties) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(jobExportProperties.getThreads());
+        executor.setMaxPoolSize(jobExportProperties.getThreads());
+        executor.setQueueCapacity(jobExportProperties.getMaxPendingExports());
+        executor.setThreadNamePrefix("genie-job-export-");
+        return executor;
+    }
+
     /**
      * Character encoding filter that forces content-type in response to be UTF-8.
      *
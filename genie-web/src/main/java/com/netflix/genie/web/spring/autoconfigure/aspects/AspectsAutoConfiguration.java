@@ -17,12 +17,16 @@
  */
 package com.netflix.genie.web.spring.autoconfigure.aspects;
 
+import com.netflix.genie.web.aspects.CriteriaIndexAspect;
 import com.netflix.genie.web.aspects.DataServiceRetryAspect;
 import com.netflix.genie.web.aspects.HealthCheckMetricsAspect;
 import com.netflix.genie.web.aspects.SystemArchitecture;
+import com.netflix.genie.web.properties.CriteriaIndexProperties;
 import com.netflix.genie.web.properties.DataServiceRetryProperties;
+import com.netflix.genie.web.services.CriteriaIndexService;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -55,6 +59,19 @@ public class AspectsAutoConfiguration {
         return new DataServiceRetryAspect(retryProperties);
     }
 
+    /**
+     * An aspect for keeping the in-memory criteria index current with changes made on this node.
+     *
+     * @param criteriaIndexService The {@link CriteriaIndexService} to update
+     * @return A {@link CriteriaIndexAspect} instance
+     */
+    @Bean
+    @ConditionalOnProperty(value = CriteriaIndexProperties.ENABLED_PROPERTY, havingValue = "true")
+    @ConditionalOnMissingBean(CriteriaIndexAspect.class)
+    public CriteriaIndexAspect criteriaIndexAspect(final CriteriaIndexService criteriaIndexService) {
+        return new CriteriaIndexAspect(criteriaIndexService);
+    }
+
     /**
      * An aspect for collecting metrics for health checks.
      *
@@ -28,8 +28,10 @@ import com.netflix.genie.web.agent.services.AgentRoutingService;
 import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.events.GenieEventBus;
 import com.netflix.genie.web.jobs.workflow.WorkflowTask;
+import com.netflix.genie.web.properties.CriteriaIndexProperties;
 import com.netflix.genie.web.properties.ExponentialBackOffTriggerProperties;
 import com.netflix.genie.web.properties.FileCacheProperties;
+import com.netflix.genie.web.properties.JobLaunchProperties;
 import com.netflix.genie.web.properties.JobsActiveLimitProperties;
 import com.netflix.genie.web.properties.JobsCleanupProperties;
 import com.netflix.genie.web.properties.JobsForwardingProperties;
@@ -42,6 +44,7 @@ import com.netflix.genie.web.selectors.ClusterSelector;
 import com.netflix.genie.web.selectors.CommandSelector;
 import com.netflix.genie.web.services.ArchivedJobService;
 import com.netflix.genie.web.services.AttachmentService;
+import com.netflix.genie.web.services.CriteriaIndexService;
 import com.netflix.genie.web.services.FileTransferFactory;
 import com.netflix.genie.web.services.JobCoordinatorService;
 import com.netflix.genie.web.services.JobDirectoryServerService;
@@ -58,6 +61,7 @@ import com.netflix.genie.web.services.impl.CacheGenieFileTransferService;
 import com.netflix.genie.web.services.impl.DiskJobFileServiceImpl;
 import com.netflix.genie.web.services.impl.FileSystemAttachmentService;
 import com.netflix.genie.web.services.impl.GenieFileTransferService;
+import com.netflix.genie.web.services.impl.InMemoryCriteriaIndexServiceImpl;
 import com.netflix.genie.web.services.impl.JobCoordinatorServiceImpl;
 import com.netflix.genie.web.services.impl.JobDirectoryServerServiceImpl;
 import com.netflix.genie.web.services.impl.JobKillServiceImpl;
@@ -74,17 +78,22 @@ import org.apache.commons.exec.Executor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.config.ServiceLocatorFactoryBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import javax.validation.constraints.NotEmpty;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Configuration for all the services.
@@ -95,6 +104,7 @@ import java.util.List;
 @Configuration
 @EnableConfigurationProperties(
     {
+        CriteriaIndexProperties.class,
         FileCacheProperties.class,
         JobsCleanupProperties.class,
         JobsForwardingProperties.class,
@@ -104,6 +114,7 @@ import java.util.List;
         JobsUsersProperties.class,
         ExponentialBackOffTriggerProperties.class,
         JobsActiveLimitProperties.class,
+        JobLaunchProperties.class,
     }
 )
 @Slf4j
@@ -225,6 +236,7 @@ public class ServicesAutoConfiguration {
      * @param fileTransferFactory file transfer implementation factory
      * @param fileCacheProperties Properties related to the file cache that can be set by the admin
      * @param localFileTransfer   local file transfer service
+     * @param refreshExecutor     executor to reload stale cached files on in the background
      * @param registry            Registry
      * @return A singleton for GenieFileTransferService
      * @throws GenieException If there is any problem
@@ -235,12 +247,14 @@ public class ServicesAutoConfiguration {
         final FileTransferFactory fileTransferFactory,
         final FileCacheProperties fileCacheProperties,
         final LocalFileTransferImpl localFileTransfer,
+        @Qualifier("genieAsyncTaskExecutor") final TaskExecutor refreshExecutor,
         final MeterRegistry registry
     ) throws GenieException {
         return new CacheGenieFileTransferService(
             fileTransferFactory,
-            fileCacheProperties.getLocation().toString(),
+            fileCacheProperties,
             localFileTransfer,
+            refreshExecutor,
             registry
         );
     }
@@ -348,12 +362,14 @@ public class ServicesAutoConfiguration {
     /**
      * Get an implementation of {@link JobResolverService} if one hasn't already been defined.
      *
-     * @param dataServices     The {@link DataServices} encapsulation instance to use
-     * @param clusterSelectors The {@link ClusterSelector} implementations to use
-     * @param commandSelector  The {@link CommandSelector} implementation to use
-     * @param registry         The metrics repository to use
-     * @param jobsProperties   The properties for running a job set by the user
-     * @param environment      The Spring application {@link Environment} for dynamic property resolution
+     * @param dataServices         The {@link DataServices} encapsulation instance to use
+     * @param clusterSelectors     The {@link ClusterSelector} implementations to use
+     * @param commandSelector      The {@link CommandSelector} implementation to use
+     * @param registry             The metrics repository to use
+     * @param jobsProperties       The properties for running a job set by the user
+     * @param environment          The Spring application {@link Environment} for dynamic property resolution
+     * @param criteriaIndexService The {@link CriteriaIndexService} to consult before querying the database, if the
+     *                             index is enabled
      * @return A {@link JobResolverServiceImpl} instance
      */
     @Bean
@@ -364,7 +380,8 @@ public class ServicesAutoConfiguration {
         final CommandSelector commandSelector,
         final MeterRegistry registry,
         final JobsProperties jobsProperties,
-        final Environment environment
+        final Environment environment,
+        final Optional<CriteriaIndexService> criteriaIndexService
     ) {
         return new JobResolverServiceImpl(
             dataServices,
@@ -372,10 +389,33 @@ public class ServicesAutoConfiguration {
             commandSelector,
             registry,
             jobsProperties,
-            environment
+            environment,
+            criteriaIndexService.orElse(null)
         );
     }
 
+    /**
+     * Get an implementation of {@link CriteriaIndexService} if one hasn't already been defined and the index is
+     * enabled.
+     *
+     * @param dataServices The {@link DataServices} encapsulation instance to use
+     * @param properties   The {@link CriteriaIndexProperties} to use
+     * @param scheduler    The {@link TaskScheduler} to schedule periodic index rebuilds with
+     * @param registry     The metrics repository to use
+     * @return A {@link InMemoryCriteriaIndexServiceImpl} instance
+     */
+    @Bean
+    @ConditionalOnProperty(value = CriteriaIndexProperties.ENABLED_PROPERTY, havingValue = "true")
+    @ConditionalOnMissingBean(CriteriaIndexService.class)
+    public InMemoryCriteriaIndexServiceImpl criteriaIndexService(
+        final DataServices dataServices,
+        final CriteriaIndexProperties properties,
+        @Qualifier("genieTaskScheduler") final TaskScheduler scheduler,
+        final MeterRegistry registry
+    ) {
+        return new InMemoryCriteriaIndexServiceImpl(dataServices, properties, scheduler, registry);
+    }
+
     /**
      * Get an implementation of {@link JobCompletionService} if one hasn't already been defined.
      *
@@ -450,13 +490,36 @@ public class ServicesAutoConfiguration {
         );
     }
 
+    /**
+     * Provide a {@link TaskExecutor} named "genieJobLaunchTaskExecutor" if no override is defined.
+     * Used to resolve jobs and launch their agents after they've been accepted when asynchronous launch is enabled.
+     *
+     * @param jobLaunchProperties The {@link JobLaunchProperties} to use
+     * @return A {@link ThreadPoolTaskExecutor} instance
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "genieJobLaunchTaskExecutor")
+    public ThreadPoolTaskExecutor genieJobLaunchTaskExecutor(final JobLaunchProperties jobLaunchProperties) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(jobLaunchProperties.getThreads());
+        executor.setMaxPoolSize(jobLaunchProperties.getThreads());
+        executor.setQueueCapacity(jobLaunchProperties.getMaxPendingLaunches());
+        executor.setThreadNamePrefix("genie-job-launch-");
+        // Give accepted jobs a chance to launch rather than leaving them reserved on shutdown
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
     /**
      * Provide a {@link JobLaunchService} implementation if one isn't available.
      *
-     * @param dataServices       The {@link DataServices} instance to use
-     * @param jobResolverService The {@link JobResolverService} implementation to use
-     * @param agentLauncher      The {@link AgentLauncher} implementation to use
-     * @param registry           The metrics registry to use
+     * @param dataServices        The {@link DataServices} instance to use
+     * @param jobResolverService  The {@link JobResolverService} implementation to use
+     * @param agentLauncher       The {@link AgentLauncher} implementation to use
+     * @param jobLaunchProperties The {@link JobLaunchProperties} to use
+     * @param launchExecutor      The {@link TaskExecutor} used to launch accepted jobs
+     * @param registry            The metrics registry to use
      * @return A {@link JobLaunchServiceImpl} instance
      */
     @Bean
@@ -465,9 +528,18 @@ public class ServicesAutoConfiguration {
         final DataServices dataServices,
         final JobResolverService jobResolverService,
         final AgentLauncher agentLauncher,
+        final JobLaunchProperties jobLaunchProperties,
+        @Qualifier("genieJobLaunchTaskExecutor") final TaskExecutor launchExecutor,
         final MeterRegistry registry
     ) {
-        return new JobLaunchServiceImpl(dataServices, jobResolverService, agentLauncher, registry);
+        return new JobLaunchServiceImpl(
+            dataServices,
+            jobResolverService,
+            agentLauncher,
+            jobLaunchProperties,
+            launchExecutor,
+            registry
+        );
     }
 
     /**
@@ -18,6 +18,7 @@
 package com.netflix.genie.web.tasks.leader;
 
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.RateLimiter;
 import com.netflix.genie.common.external.dtos.v4.ClusterStatus;
 import com.netflix.genie.common.external.dtos.v4.CommandStatus;
 import com.netflix.genie.common.external.dtos.v4.JobStatus;
@@ -29,6 +30,7 @@ import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.data.services.FilePersistenceService;
 import com.netflix.genie.web.data.services.JobPersistenceService;
 import com.netflix.genie.web.data.services.TagPersistenceService;
+import com.netflix.genie.web.dtos.BatchDeletionResult;
 import com.netflix.genie.web.properties.DatabaseCleanupProperties;
 import com.netflix.genie.web.tasks.GenieTaskScheduleType;
 import com.netflix.genie.web.tasks.TaskUtils;
@@ -38,15 +40,30 @@ import io.micrometer.core.instrument.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.env.Environment;
 import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.scheduling.support.CronTrigger;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 
 /**
  * A {@link LeaderTask} which will clean up the database of old records if desired.
@@ -64,6 +81,15 @@ public class DatabaseCleanupTask extends LeaderTask {
     private static final String COMMAND_DELETION_TIMER = "genie.tasks.databaseCleanup.commandDeletion.timer";
     private static final String FILE_DELETION_TIMER = "genie.tasks.databaseCleanup.fileDeletion.timer";
     private static final String TAG_DELETION_TIMER = "genie.tasks.databaseCleanup.tagDeletion.timer";
+    private static final String JOB_DELETION_BATCH_TIMER = "genie.tasks.databaseCleanup.jobDeletionBatch.timer";
+    private static final String JOB_DELETION_BATCH_COUNTER
+        = "genie.tasks.databaseCleanup.jobDeletionBatch.numDeleted.counter";
+    private static final String FILE_DELETION_BATCH_TIMER = "genie.tasks.databaseCleanup.fileDeletionBatch.timer";
+    private static final String TAG_DELETION_BATCH_TIMER = "genie.tasks.databaseCleanup.tagDeletionBatch.timer";
+    private static final String FILE_DELETION_BATCH_COUNTER
+        = "genie.tasks.databaseCleanup.fileDeletionBatch.numDeleted.counter";
+    private static final String TAG_DELETION_BATCH_COUNTER
+        = "genie.tasks.databaseCleanup.tagDeletionBatch.numDeleted.counter";
 
     // TODO: May want to make this a property
     private static final Set<CommandStatus> TO_DEACTIVATE_COMMAND_STATUSES = EnumSet.of(
@@ -75,6 +101,11 @@ public class DatabaseCleanupTask extends LeaderTask {
     // TODO: May want to make this a property. Currently this maintains consistent behavior with before but it would
     //       be nice to add OUT_OF_SERVICE
     private static final Set<ClusterStatus> TO_DELETE_CLUSTER_STATUSES = EnumSet.of(ClusterStatus.TERMINATED);
+    private static final String JOB_DELETION_THREAD_NAME_PREFIX = "genie-job-cleanup-";
+    // Workers check for interruption at least this often while waiting for the deletion rate limit
+    private static final long JOB_DELETION_PERMIT_WAIT_MILLIS = 1_000L;
+    // Workers stop after their current batch once interrupted, which should be well within this
+    private static final long JOB_DELETION_TERMINATION_TIMEOUT_SECONDS = 30L;
 
     private final DatabaseCleanupProperties cleanupProperties;
     private final Environment environment;
@@ -87,6 +118,7 @@ public class DatabaseCleanupTask extends LeaderTask {
 
     private final MeterRegistry registry;
     private final AtomicLong numDeletedJobs;
+    private final AtomicLong numRemainingJobPartitions;
     private final AtomicLong numDeletedClusters;
     private final AtomicLong numDeactivatedCommands;
     private final AtomicLong numDeletedCommands;
@@ -94,6 +126,10 @@ public class DatabaseCleanupTask extends LeaderTask {
     private final AtomicLong numDeletedTags;
     private final AtomicLong numDeletedFiles;
 
+    // Where the next file and tag cleanup runs resume. Kept in memory so a new leader starts from the beginning.
+    private final AtomicLong fileCleanupCursor = new AtomicLong();
+    private final AtomicLong tagCleanupCursor = new AtomicLong();
+
     /**
      * Constructor.
      *
@@ -122,6 +158,10 @@ public class DatabaseCleanupTask extends LeaderTask {
             "genie.tasks.databaseCleanup.numDeletedJobs.gauge",
             new AtomicLong()
         );
+        this.numRemainingJobPartitions = this.registry.gauge(
+            "genie.tasks.databaseCleanup.numRemainingJobPartitions.gauge",
+            new AtomicLong()
+        );
         this.numDeletedClusters = this.registry.gauge(
             "genie.tasks.databaseCleanup.numDeletedClusters.gauge",
             new AtomicLong()
@@ -207,6 +247,7 @@ public class DatabaseCleanupTask extends LeaderTask {
     @Override
     public void cleanup() {
         this.numDeletedJobs.set(0L);
+        this.numRemainingJobPartitions.set(0L);
         this.numDeletedClusters.set(0L);
         this.numDeactivatedCommands.set(0L);
         this.numDeletedCommands.set(0L);
@@ -216,7 +257,11 @@ public class DatabaseCleanupTask extends LeaderTask {
     }
 
     /*
-     * Delete jobs that are older than the retention threshold and are complete
+     * Delete jobs that are older than the retention threshold and are complete.
+     *
+     * The jobs to delete are split into ranges of creation time which are handed out to a pool of workers, each
+     * deleting the jobs of its range one batch (and one transaction) at a time. Deletion across all workers can be
+     * throttled to a maximum number of jobs per second to go easy on the database and its replicas.
      */
     private void deleteJobs() {
         final boolean skipJobs = this.environment.getProperty(
@@ -243,27 +288,178 @@ public class DatabaseCleanupTask extends LeaderTask {
                 Integer.class,
                 this.cleanupProperties.getJobCleanup().getPageSize()
             );
+            final int workers = this.environment.getProperty(
+                DatabaseCleanupProperties.JobDatabaseCleanupProperties.WORKERS_PROPERTY,
+                Integer.class,
+                this.cleanupProperties.getJobCleanup().getWorkers()
+            );
+            final Duration partitionDuration = Duration.ofHours(
+                Math.max(
+                    1,
+                    this.environment.getProperty(
+                        DatabaseCleanupProperties.JobDatabaseCleanupProperties.PARTITION_HOURS_PROPERTY,
+                        Integer.class,
+                        this.cleanupProperties.getJobCleanup().getPartitionHours()
+                    )
+                )
+            );
+            final int maxDeletedPerSecond = this.environment.getProperty(
+                DatabaseCleanupProperties.JobDatabaseCleanupProperties.MAX_DELETED_PER_SECOND_PROPERTY,
+                Integer.class,
+                this.cleanupProperties.getJobCleanup().getMaxDeletedPerSecond()
+            );
 
-            log.info(
-                "Attempting to delete jobs from before {} in batches of {} jobs per iteration",
+            this.numDeletedJobs.set(0L);
+            final Optional<Instant> oldestJobCreated = this.jobPersistenceService.getOldestJobCreatedBefore(
                 retentionLimit,
-                batchSize
+                JobStatus.getActiveStatuses()
             );
-            long numDeletedJobsInBatch;
-            long totalDeletedJobs = 0L;
+            if (!oldestJobCreated.isPresent()) {
+                log.info("No jobs from before {} to delete", retentionLimit);
+                return;
+            }
+
+            // Walk back from the retention limit so the ranges line up with it, then hand out the oldest range first
+            final Deque<Instant> partitionStarts = new ArrayDeque<>();
+            Instant partitionStart = retentionLimit;
             do {
-                numDeletedJobsInBatch = this.jobPersistenceService.deleteJobsCreatedBefore(
-                    retentionLimit,
-                    JobStatus.getActiveStatuses(),
-                    batchSize
-                );
-                totalDeletedJobs += numDeletedJobsInBatch;
-            } while (numDeletedJobsInBatch != 0);
+                partitionStart = partitionStart.minus(partitionDuration);
+                partitionStarts.addFirst(partitionStart);
+            } while (partitionStart.isAfter(oldestJobCreated.get()));
+            final Queue<Instant> partitions = new ConcurrentLinkedQueue<>(partitionStarts);
+            this.numRemainingJobPartitions.set(partitions.size());
+
+            final RateLimiter rateLimiter = maxDeletedPerSecond > 0 ? RateLimiter.create(maxDeletedPerSecond) : null;
+            final int numWorkers = Math.max(1, Math.min(workers, partitions.size()));
+            log.info(
+                "Attempting to delete jobs from {} to {} split in {} ranges of {} using {} workers deleting {} jobs "
+                    + "per batch and at most {} jobs per second",
+                oldestJobCreated.get(),
+                retentionLimit,
+                partitions.size(),
+                partitionDuration,
+                numWorkers,
+                batchSize,
+                maxDeletedPerSecond > 0 ? maxDeletedPerSecond : "unlimited"
+            );
+
+            final ExecutorService executor = Executors.newFixedThreadPool(
+                numWorkers,
+                new CustomizableThreadFactory(JOB_DELETION_THREAD_NAME_PREFIX)
+            );
+            try {
+                final List<Future<?>> futures = new ArrayList<>(numWorkers);
+                for (int i = 0; i < numWorkers; i++) {
+                    futures.add(
+                        executor.submit(
+                            () -> this.deleteJobPartitions(partitions, partitionDuration, batchSize, rateLimiter)
+                        )
+                    );
+                }
+                for (final Future<?> future : futures) {
+                    this.waitForJobDeletionWorker(future);
+                }
+            } finally {
+                // Stops the other workers after their current batch if one of them failed
+                executor.shutdownNow();
+                this.awaitJobDeletionWorkersTermination(executor);
+            }
             log.info(
                 "Deleted {} jobs",
-                totalDeletedJobs
+                this.numDeletedJobs.get()
             );
-            this.numDeletedJobs.set(totalDeletedJobs);
+        }
+    }
+
+    /*
+     * Take creation time ranges off the queue until it's empty, deleting all the old jobs of each range batch by batch.
+     */
+    private void deleteJobPartitions(
+        final Queue<Instant> partitions,
+        final Duration partitionDuration,
+        final int batchSize,
+        @Nullable final RateLimiter rateLimiter
+    ) {
+        Instant partitionStart;
+        while ((partitionStart = partitions.poll()) != null) {
+            final Instant partitionEnd = partitionStart.plus(partitionDuration);
+            long numDeletedJobsInBatch;
+            do {
+                if (Thread.currentThread().isInterrupted()) {
+                    log.info("Job deletion worker interrupted. Stopping before jobs from {}", partitionStart);
+                    return;
+                }
+                final long batchStart = System.nanoTime();
+                final Set<Tag> tags = Sets.newHashSet();
+                try {
+                    numDeletedJobsInBatch = this.jobPersistenceService.deleteJobsCreatedBetween(
+                        partitionStart,
+                        partitionEnd,
+                        JobStatus.getActiveStatuses(),
+                        batchSize
+                    );
+                    MetricsUtils.addSuccessTags(tags);
+                } catch (final Throwable t) {
+                    MetricsUtils.addFailureTagsWithException(tags, t);
+                    throw t;
+                } finally {
+                    this.registry
+                        .timer(JOB_DELETION_BATCH_TIMER, tags)
+                        .record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+                }
+                this.numDeletedJobs.addAndGet(numDeletedJobsInBatch);
+                this.registry.counter(JOB_DELETION_BATCH_COUNTER).increment(numDeletedJobsInBatch);
+                if (rateLimiter != null && numDeletedJobsInBatch > 0) {
+                    this.acquireJobDeletionPermits(rateLimiter, (int) numDeletedJobsInBatch);
+                }
+            } while (numDeletedJobsInBatch != 0);
+            this.numRemainingJobPartitions.decrementAndGet();
+        }
+    }
+
+    /*
+     * Wait until the rate limiter allows the given number of deleted jobs. RateLimiter.acquire can't be interrupted so
+     * the wait is done in bounded steps, returning early with the interrupt flag set if the worker is interrupted.
+     */
+    private void acquireJobDeletionPermits(final RateLimiter rateLimiter, final int permits) {
+        try {
+            while (!rateLimiter.tryAcquire(permits, JOB_DELETION_PERMIT_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                Thread.sleep(JOB_DELETION_PERMIT_WAIT_MILLIS);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitJobDeletionWorkersTermination(final ExecutorService executor) {
+        try {
+            if (!executor.awaitTermination(JOB_DELETION_TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn(
+                    "Job deletion workers didn't stop within {} seconds. They will stop after their current batch",
+                    JOB_DELETION_TERMINATION_TIMEOUT_SECONDS
+                );
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for the job deletion workers to stop");
+        }
+    }
+
+    private void waitForJobDeletionWorker(final Future<?> future) {
+        try {
+            future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for jobs to be deleted", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IllegalStateException("Unable to delete jobs", cause);
+            }
         }
     }
 
@@ -319,7 +515,27 @@ public class DatabaseCleanupTask extends LeaderTask {
                 log.info("Skipping files cleanup");
                 this.numDeletedFiles.set(0);
             } else {
-                final long countDeletedFiles = this.filePersistenceService.deleteUnusedFiles(creationThreshold);
+                final long countDeletedFiles = this.deleteInBatches(
+                    "files",
+                    (afterId, batchSize) -> this.filePersistenceService.deleteUnusedFiles(
+                        creationThreshold,
+                        afterId,
+                        batchSize
+                    ),
+                    this.fileCleanupCursor,
+                    this.environment.getProperty(
+                        DatabaseCleanupProperties.FileDatabaseCleanupProperties.BATCH_SIZE_PROPERTY,
+                        Integer.class,
+                        this.cleanupProperties.getFileCleanup().getBatchSize()
+                    ),
+                    this.environment.getProperty(
+                        DatabaseCleanupProperties.FileDatabaseCleanupProperties.MAX_RUN_TIME_PROPERTY,
+                        Long.class,
+                        this.cleanupProperties.getFileCleanup().getMaxRunTime()
+                    ),
+                    FILE_DELETION_BATCH_TIMER,
+                    FILE_DELETION_BATCH_COUNTER
+                );
                 log.info(
                     "Deleted {} files that were unused by any resource and created over an hour ago",
                     countDeletedFiles
@@ -349,7 +565,27 @@ public class DatabaseCleanupTask extends LeaderTask {
                 log.info("Skipping tags cleanup");
                 this.numDeletedTags.set(0);
             } else {
-                final long countDeletedTags = this.tagPersistenceService.deleteUnusedTags(creationThreshold);
+                final long countDeletedTags = this.deleteInBatches(
+                    "tags",
+                    (afterId, batchSize) -> this.tagPersistenceService.deleteUnusedTags(
+                        creationThreshold,
+                        afterId,
+                        batchSize
+                    ),
+                    this.tagCleanupCursor,
+                    this.environment.getProperty(
+                        DatabaseCleanupProperties.TagDatabaseCleanupProperties.BATCH_SIZE_PROPERTY,
+                        Integer.class,
+                        this.cleanupProperties.getTagCleanup().getBatchSize()
+                    ),
+                    this.environment.getProperty(
+                        DatabaseCleanupProperties.TagDatabaseCleanupProperties.MAX_RUN_TIME_PROPERTY,
+                        Long.class,
+                        this.cleanupProperties.getTagCleanup().getMaxRunTime()
+                    ),
+                    TAG_DELETION_BATCH_TIMER,
+                    TAG_DELETION_BATCH_COUNTER
+                );
                 log.info(
                     "Deleted {} tags that were unused by any resource and created over an hour ago",
                     countDeletedTags
@@ -366,6 +602,59 @@ public class DatabaseCleanupTask extends LeaderTask {
         }
     }
 
+    /*
+     * Walk the table in id order one batch (and one transaction) at a time deleting the unused records of each batch.
+     * Stops early once the time budget is spent, the cursor remembers where the next run should pick up. Once the end
+     * of the table is reached the cursor goes back to the beginning for the next run.
+     */
+    private long deleteInBatches(
+        final String resource,
+        final BiFunction<Long, Integer, BatchDeletionResult> batchDeleter,
+        final AtomicLong cursor,
+        final int batchSize,
+        final long maxRunTime,
+        final String batchTimerName,
+        final String batchCounterName
+    ) {
+        final long runStart = System.nanoTime();
+        final long deadline = runStart + TimeUnit.MILLISECONDS.toNanos(maxRunTime);
+        long totalDeleted = 0L;
+        while (true) {
+            final long batchStart = System.nanoTime();
+            final Set<Tag> tags = Sets.newHashSet();
+            final BatchDeletionResult result;
+            try {
+                result = batchDeleter.apply(cursor.get(), batchSize);
+                MetricsUtils.addSuccessTags(tags);
+            } catch (final Throwable t) {
+                MetricsUtils.addFailureTagsWithException(tags, t);
+                throw t;
+            } finally {
+                this.registry
+                    .timer(batchTimerName, tags)
+                    .record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+            }
+            this.registry.counter(batchCounterName).increment(result.getNumDeleted());
+            totalDeleted += result.getNumDeleted();
+
+            if (result.isLastBatch()) {
+                cursor.set(0L);
+                return totalDeleted;
+            }
+            cursor.set(result.getLastId());
+
+            if (maxRunTime > 0 && System.nanoTime() - deadline >= 0) {
+                log.info(
+                    "Time budget of {} ms for {} cleanup spent. Next run resumes after id {}",
+                    maxRunTime,
+                    resource,
+                    result.getLastId()
+                );
+                return totalDeleted;
+            }
+        }
+    }
+
     private void deactivateCommands(final Instant runtime) {
         final long startTime = System.nanoTime();
         final Set<Tag> tags = Sets.newHashSet();
@@ -21,17 +21,26 @@ import com.google.protobuf.ByteString;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.NotImplementedException;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A temporary in-memory structure to hold in-transit data.
  * Provides an {@code InputStream} for reading, reading blocks until data becomes available or the buffer is closed.
  * <p>
- * To avoid in-memory data growing excessively, this buffer stores a single "chunk" at the time.
- * Only after a chunk is consumed, a new one can be appended.
+ * Chunks are kept in a bounded ring without copying them. To avoid in-memory data growing excessively, writing blocks
+ * while the chunks not yet fully consumed add up to the capacity of the buffer. A chunk larger than the capacity is
+ * accepted only once the buffer is empty.
+ * <p>
+ * This buffer supports exactly one writer thread and one reader thread at the time (single producer, single
+ * consumer). Neither side takes a lock, a thread only parks when it has to wait for the other.
  *
  * @author mprimi
  * @since 4.0.0
@@ -40,28 +49,61 @@ import java.util.concurrent.atomic.AtomicReference;
 @Slf4j
 public class StreamBuffer {
 
-    private final Object lock = new Object();
+    /**
+     * The default capacity of a buffer in bytes.
+     */
+    public static final long DEFAULT_CAPACITY = 4 * 1024 * 1024;
+
+    // Must be a power of 2
+    private static final int MAX_CHUNKS = 256;
+    private static final int INDEX_MASK = MAX_CHUNKS - 1;
+
+    private final long capacity;
+    private final ByteString[] chunks = new ByteString[MAX_CHUNKS];
+    // Sequence number of the next chunk to read. Only modified by the reader.
+    private final AtomicLong head = new AtomicLong();
+    // Sequence number of the next chunk to write. Only modified by the writer.
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong bufferedBytes = new AtomicLong();
     private final AtomicReference<StreamBufferInputStream> inputStreamRef = new AtomicReference<>();
 
-    private boolean closed;
-    private ByteString currentChunk;
+    private volatile boolean closed;
+    private volatile Throwable closeCause;
+    private volatile Thread waitingReader;
+    private volatile Thread waitingWriter;
+
+    // Position within the chunk at the head of the ring. Only accessed by the reader.
     private int currentChunkWatermark;
 
     /**
      * Constructor.
      */
     public StreamBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the maximum number of bytes held in the buffer before writing blocks
+     */
+    public StreamBuffer(final long capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid buffer capacity: " + capacity);
+        }
+        this.capacity = capacity;
         this.inputStreamRef.set(new StreamBufferInputStream(this));
     }
 
     /**
      * Close this buffer before all data is written due to an error.
-     * Reading will return the end of stream marker after the current chunk (if any) has been consumed.
+     * Reading will fail with an {@link IOException} after the data already written (if any) has been consumed.
      *
      * @param t the cause for the buffer to be closed.
      */
     public void closeForError(final Throwable t) {
         log.error("Closing buffer due to error: " + t.getClass().getSimpleName() + ": " + t.getMessage());
+        this.closeCause = t;
         this.closeForCompleted();
     }
 
@@ -70,39 +112,45 @@ public class StreamBuffer {
      * Reading will return the end of stream marker after all data has been consumed.
      */
     public void closeForCompleted() {
-        synchronized (this.lock) {
-            this.closed = true;
-            this.lock.notifyAll();
-        }
+        this.closed = true;
+        LockSupport.unpark(this.waitingReader);
+        LockSupport.unpark(this.waitingWriter);
     }
 
     /**
      * Append a chunk of data for consumption.
-     * This call may block and not return until some data is read/consumed.
+     * This call may block and not return until enough data is read/consumed to make room for it.
      *
      * @param data the data to write into the buffer
      * @throws IllegalStateException if writing is attempted after the buffer has been closed
+     * @throws InterruptedException  if the thread is interrupted while waiting for room in the buffer
      */
-    public void write(final ByteString data) {
-        synchronized (this.lock) {
-            while (true) {
-                if (this.closed) {
-                    throw new IllegalStateException("Attempting to write after closing");
-                } else if (this.currentChunk == null) {
-                    // Save this chunk so it can be consumed
-                    this.currentChunk = data;
-                    this.currentChunkWatermark = 0;
-                    // Wake up reading thread
-                    this.lock.notifyAll();
-                    return;
-                } else {
-                    // Previous chunk of data is still being consumed. Wait.
-                    try {
-                        this.lock.wait();
-                    } catch (InterruptedException e) {
-                        log.warn("Interrupted while waiting to write next chunk of data");
-                    }
-                }
+    public void write(final ByteString data) throws InterruptedException {
+        final int size = data.size();
+        while (true) {
+            if (this.closed) {
+                throw new IllegalStateException("Attempting to write after closing");
+            }
+
+            if (this.hasRoomFor(size)) {
+                final long sequence = this.tail.get();
+                this.chunks[(int) (sequence & INDEX_MASK)] = data;
+                this.bufferedBytes.addAndGet(size);
+                // Publish the chunk to the reader
+                this.tail.set(sequence + 1);
+                LockSupport.unpark(this.waitingReader);
+                return;
+            }
+
+            // Advertise this thread before checking again so the reader can't miss it
+            this.waitingWriter = Thread.currentThread();
+            if (!this.closed && !this.hasRoomFor(size)) {
+                LockSupport.park(this);
+            }
+            this.waitingWriter = null;
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Interrupted while waiting to write next chunk of data");
             }
         }
     }
@@ -121,45 +169,103 @@ public class StreamBuffer {
         return inputStream;
     }
 
-    private int read(final byte[] destination) {
-        synchronized (this.lock) {
-            while (true) {
-                if (currentChunk != null) {
-                    // Read from current chunk into destination
-                    final int leftInCurrentChunk = this.currentChunk.size() - this.currentChunkWatermark;
-                    final int bytesRead = Math.min(leftInCurrentChunk, destination.length);
-                    this.currentChunk.copyTo(destination, currentChunkWatermark, 0, bytesRead);
-
-                    // Update watermark
-                    this.currentChunkWatermark += bytesRead;
-
-                    // Is chunk completely consumed?
-                    if (this.currentChunkWatermark == this.currentChunk.size()) {
-                        // Make room for the next one
-                        this.currentChunk = null;
-                        // Wake the writer thread
-                        this.lock.notifyAll();
-                    }
-                    return bytesRead;
-                } else if (this.closed) {
-                    // There won't be another chunk appended
-                    return -1;
-                } else {
-                    try {
-                        this.lock.wait();
-                    } catch (InterruptedException e) {
-                        log.warn("Interrupted while attempting read");
-                        return 0;
-                    }
+    private boolean hasRoomFor(final int size) {
+        if (this.tail.get() - this.head.get() >= MAX_CHUNKS) {
+            return false;
+        }
+        final long buffered = this.bufferedBytes.get();
+        return buffered == 0 || buffered + size <= this.capacity;
+    }
+
+    /*
+     * Returns the chunk at the head of the ring, waiting for one if necessary.
+     * Returns null if the buffer is closed and all data was consumed.
+     */
+    @Nullable
+    private ByteString awaitChunk() throws IOException {
+        while (true) {
+            final long sequence = this.head.get();
+            if (sequence < this.tail.get()) {
+                return this.chunks[(int) (sequence & INDEX_MASK)];
+            }
+
+            if (this.closed) {
+                if (sequence < this.tail.get()) {
+                    // Written right before closing
+                    continue;
+                }
+                final Throwable cause = this.closeCause;
+                if (cause != null) {
+                    throw new IOException("Transfer failed: " + cause.getMessage(), cause);
                 }
+                return null;
+            }
+
+            // Advertise this thread before checking again so the writer can't miss it
+            this.waitingReader = Thread.currentThread();
+            if (!this.closed && sequence == this.tail.get()) {
+                LockSupport.park(this);
             }
+            this.waitingReader = null;
+
+            if (Thread.interrupted()) {
+                // Leave the flag set for the caller to see
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for data");
+            }
+        }
+    }
+
+    private void consume(final ByteString chunk, final int bytesConsumed) {
+        this.currentChunkWatermark += bytesConsumed;
+        if (this.currentChunkWatermark == chunk.size()) {
+            // Release the chunk and make room for the next one
+            final long sequence = this.head.get();
+            this.chunks[(int) (sequence & INDEX_MASK)] = null;
+            this.currentChunkWatermark = 0;
+            this.bufferedBytes.addAndGet(-chunk.size());
+            this.head.set(sequence + 1);
+            LockSupport.unpark(this.waitingWriter);
+        }
+    }
+
+    private int read(final byte[] destination, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        final ByteString chunk = this.awaitChunk();
+        if (chunk == null) {
+            return -1;
         }
+        final int bytesRead = Math.min(chunk.size() - this.currentChunkWatermark, length);
+        // Copy straight into the destination, no intermediate buffer
+        chunk.copyTo(destination, this.currentChunkWatermark, offset, bytesRead);
+        this.consume(chunk, bytesRead);
+        return bytesRead;
     }
 
-    private static class StreamBufferInputStream extends InputStream {
+    private long transferTo(final OutputStream outputStream) throws IOException {
+        long bytesTransferred = 0;
+        ByteString chunk;
+        while ((chunk = this.awaitChunk()) != null) {
+            final int bytesLeft = chunk.size() - this.currentChunkWatermark;
+            // Substrings share the underlying bytes, the chunk is written out without copying it
+            chunk.substring(this.currentChunkWatermark).writeTo(outputStream);
+            this.consume(chunk, bytesLeft);
+            bytesTransferred += bytesLeft;
+        }
+        return bytesTransferred;
+    }
+
+    /**
+     * The {@link InputStream} through which the data in a {@link StreamBuffer} is consumed.
+     *
+     * @since 4.0.0
+     */
+    public static final class StreamBufferInputStream extends InputStream {
         private final StreamBuffer streamBuffer;
 
-        StreamBufferInputStream(final StreamBuffer streamBuffer) {
+        private StreamBufferInputStream(final StreamBuffer streamBuffer) {
             this.streamBuffer = streamBuffer;
         }
 
@@ -182,16 +288,19 @@ public class StreamBuffer {
                 throw new IndexOutOfBoundsException("Invalid read( b[" + b.length + "], " + off + ", " + len + ")");
             }
 
-            final byte[] temporary = new byte[len];
-
-            final int bytesRead = this.streamBuffer.read(temporary);
-
-            if (bytesRead > 0) {
-                System.arraycopy(temporary, 0, b, off, bytesRead);
-            }
+            return this.streamBuffer.read(b, off, len);
+        }
 
-            return bytesRead;
+        /**
+         * Read all the remaining data and write it to the given output stream, blocking until the buffer is closed.
+         * Unlike {@code read()}, the data is written out directly from the chunks received without copying it.
+         *
+         * @param outputStream the output stream to write to
+         * @return the number of bytes transferred
+         * @throws IOException if reading or writing fails, or if the buffer was closed due to an error
+         */
+        public long transferTo(final OutputStream outputStream) throws IOException {
+            return this.streamBuffer.transferTo(outputStream);
         }
     }
-
 }
@@ -24,9 +24,12 @@ import com.netflix.genie.common.internal.dtos.v4.converters.JobDirectoryManifest
 import com.netflix.genie.common.internal.exceptions.checked.GenieConversionException
 import com.netflix.genie.proto.AgentFileMessage
 import com.netflix.genie.proto.AgentManifestMessage
+import com.netflix.genie.proto.ManifestUpdateMessage
 import com.netflix.genie.proto.ServerAckMessage
 import com.netflix.genie.proto.ServerControlMessage
+import com.netflix.genie.web.properties.AgentFileStreamProperties
 import io.grpc.stub.StreamObserver
+import io.micrometer.core.instrument.MeterRegistry
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import org.junit.Rule
 import org.junit.rules.TemporaryFolder
@@ -45,6 +48,8 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
 
     JobDirectoryManifestProtoConverter converter
     TaskScheduler taskScheduler
+    AgentFileStreamProperties properties
+    MeterRegistry registry
     GRpcAgentFileStreamServiceImpl service
     StreamObserver<ServerControlMessage> serverControlObserver
     StreamObserver<ServerAckMessage> serverTransmitObserver
@@ -61,10 +66,15 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
 
         this.converter = Mock(JobDirectoryManifestProtoConverter)
         this.taskScheduler = Mock(TaskScheduler)
+        this.properties = new AgentFileStreamProperties()
+        this.properties.setChunkSize(1024)
+        this.properties.setWindowSize(4)
+        this.registry = new SimpleMeterRegistry()
         this.service = new GRpcAgentFileStreamServiceImpl(
             converter,
             taskScheduler,
-            new SimpleMeterRegistry()
+            properties,
+            registry
         )
         this.serverControlObserver = Mock(StreamObserver)
         this.serverTransmitObserver = Mock(StreamObserver)
@@ -145,6 +155,80 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         noExceptionThrown()
     }
 
+    def "Control stream with manifest updates"() {
+        setup:
+        StreamObserver<AgentManifestMessage> o = service.sync(serverControlObserver)
+        DirectoryManifest updatedManifest = Mock(DirectoryManifest)
+        AgentManifestMessage earlyUpdateMessage = manifestUpdateMessage(1, false)
+        AgentManifestMessage snapshotMessage = manifestUpdateMessage(1, true)
+        AgentManifestMessage updateMessage = manifestUpdateMessage(2, false)
+        AgentManifestMessage outOfOrderUpdateMessage = manifestUpdateMessage(4, false)
+        AgentManifestMessage nextUpdateMessage = manifestUpdateMessage(5, false)
+        AgentManifestMessage nextSnapshotMessage = manifestUpdateMessage(6, true)
+
+        when: "Send an update before any snapshot"
+        o.onNext(earlyUpdateMessage)
+
+        then:
+        1 * converter.toManifest(null, earlyUpdateMessage) >> { throw new GenieConversionException("...") }
+        1 * serverControlObserver.onNext({ it.hasServerManifestResync() })
+        !service.getManifest(jobId).isPresent()
+
+        when: "Send a snapshot"
+        o.onNext(snapshotMessage)
+
+        then:
+        1 * converter.toManifest(null, snapshotMessage) >> manifest
+        0 * serverControlObserver.onNext(_)
+        service.getManifest(jobId).get() == manifest
+
+        when: "Send an update"
+        o.onNext(updateMessage)
+
+        then:
+        1 * converter.toManifest(manifest, updateMessage) >> updatedManifest
+        service.getManifest(jobId).get() == updatedManifest
+
+        when: "Send an update out of sequence"
+        o.onNext(outOfOrderUpdateMessage)
+
+        then:
+        0 * converter.toManifest(_, _)
+        1 * serverControlObserver.onNext({ it.hasServerManifestResync() })
+        service.getManifest(jobId).get() == updatedManifest
+
+        when: "Send an update while waiting for a snapshot"
+        o.onNext(nextUpdateMessage)
+
+        then:
+        0 * converter.toManifest(_, _)
+        0 * serverControlObserver.onNext(_)
+
+        when: "Send the snapshot"
+        o.onNext(nextSnapshotMessage)
+
+        then:
+        1 * converter.toManifest(updatedManifest, nextSnapshotMessage) >> manifest
+        service.getManifest(jobId).get() == manifest
+
+        when:
+        o.onCompleted()
+
+        then:
+        !service.getManifest(jobId).isPresent()
+    }
+
+    AgentManifestMessage manifestUpdateMessage(long sequence, boolean snapshot) {
+        return AgentManifestMessage.newBuilder()
+            .setJobId(jobId)
+            .setManifestUpdate(
+                ManifestUpdateMessage.newBuilder()
+                    .setSequence(sequence)
+                    .setSnapshot(snapshot)
+            )
+            .build()
+    }
+
     def "Transfer stream"() {
         StreamObserver<AgentManifestMessage> o
         Optional<Resource> r
@@ -269,7 +353,8 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
                 .build()
         )
 
-        then:
+        then: "Agent does not advertise a window, each chunk is acknowledged"
+        1 * serverTransmitObserver.onNext(ServerAckMessage.newBuilder().setCredits(1).build())
         ByteBuffer buffer = ByteBuffer.allocate(data.size())
         r.get().readableChannel().read(buffer)
         buffer.rewind()
@@ -282,6 +367,108 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         noExceptionThrown()
     }
 
+    def "Transfer acknowledgements and metrics"() {
+        StreamObserver<AgentManifestMessage> o
+        Optional<Resource> r
+        ServerControlMessage c
+        StreamObserver<AgentFileMessage> s
+        InputStream inputStream
+        byte[] readBuffer = new byte[data.size()]
+
+        o = service.sync(serverControlObserver)
+
+        when: "Send valid manifest and request a file"
+        o.onNext(manifestMessage)
+        r = service.getResource(jobId, Paths.get("foo2.txt"), null)
+        inputStream = r.get().getInputStream()
+        s = service.transmit(serverTransmitObserver)
+
+        then: "Request carries chunk size and window"
+        1 * converter.toManifest(manifestMessage) >> manifest
+        1 * serverControlObserver.onNext(_ as ServerControlMessage) >> { args -> c = args[0] as ServerControlMessage }
+        2 * taskScheduler.schedule(_ as Runnable, _ as Instant)
+        c.getServerFileRequest().getChunkSize() == 1024
+        c.getServerFileRequest().getWindowSize() == 4
+
+        when: "First chunk is received, advertising a window"
+        s.onNext(
+            AgentFileMessage.newBuilder()
+                .setStreamId(c.getServerFileRequest().getStreamId())
+                .setData(data)
+                .setWindowSize(4)
+                .build()
+        )
+        inputStream.read(readBuffer)
+
+        then: "No ACK until half of the window is consumed"
+        0 * serverTransmitObserver.onNext(_)
+        readBuffer == data.toByteArray()
+
+        when: "Second chunk is received"
+        s.onNext(
+            AgentFileMessage.newBuilder()
+                .setStreamId(c.getServerFileRequest().getStreamId())
+                .setData(data)
+                .build()
+        )
+        inputStream.read(readBuffer)
+
+        then: "Credits for both chunks are granted at once"
+        1 * serverTransmitObserver.onNext(ServerAckMessage.newBuilder().setCredits(2).build())
+
+        when: "Transfer completed"
+        s.onCompleted()
+
+        then:
+        1 * serverTransmitObserver.onCompleted()
+        registry.find("genie.agents.fileTransfers.transfer.timer").timer().count() == 1
+        registry.find("genie.agents.fileTransfers.transferSize.summary").summary().totalAmount() == 2 * data.size()
+        registry.find("genie.agents.fileTransfers.throughput.summary").summary().count() == 1
+    }
+
+    def "Transfer range"() {
+        StreamObserver<AgentManifestMessage> o
+        Optional<Resource> r
+        ServerControlMessage c
+
+        o = service.sync(serverControlObserver)
+
+        when: "Send valid manifest"
+        o.onNext(manifestMessage)
+
+        then:
+        1 * converter.toManifest(manifestMessage) >> manifest
+
+        when: "Request an invalid range"
+        service.getResource(jobId, Paths.get("foo2.txt"), null, 5, 4)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when: "Request the tail of a file"
+        r = service.getResource(jobId, Paths.get("foo2.txt"), null, 6, Long.MAX_VALUE)
+
+        then: "Range is clamped to the size of the file"
+        1 * manifest.getEntry("foo2.txt")
+        1 * serverControlObserver.onNext(_ as ServerControlMessage) >> { args -> c = args[0] as ServerControlMessage }
+        1 * taskScheduler.schedule(_ as Runnable, _ as Instant)
+        c.getServerFileRequest().getStartOffset() == 6
+        c.getServerFileRequest().getEndOffset() == data.size()
+        r.isPresent()
+        r.get().exists()
+        r.get().contentLength() == data.size() - 6
+
+        when: "Request a range past the end of the file"
+        r = service.getResource(jobId, Paths.get("foo2.txt"), null, 100, 200)
+
+        then: "No transfer is initiated"
+        1 * manifest.getEntry("foo2.txt")
+        0 * serverControlObserver.onNext(_)
+        0 * taskScheduler.schedule(_, _)
+        r.isPresent()
+        r.get().contentLength() == 0
+    }
+
     def "Transfer stream errors"() {
         StreamObserver<AgentManifestMessage> o
         Optional<Resource> r
@@ -20,11 +20,14 @@ package com.netflix.genie.web.agent.apis.rpc.v4.endpoints
 import com.netflix.genie.proto.AgentHeartBeat
 import com.netflix.genie.proto.ServerHeartBeat
 import com.netflix.genie.web.agent.services.AgentRoutingService
+import com.netflix.genie.web.properties.AgentHeartBeatProperties
+import io.grpc.stub.ServerCallStreamObserver
 import io.grpc.stub.StreamObserver
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import org.springframework.scheduling.TaskScheduler
 import spock.lang.Specification
 
+import java.time.Instant
 import java.util.concurrent.ScheduledFuture
 
 class GRpcHeartBeatServiceImplSpec extends Specification {
@@ -38,15 +41,26 @@ class GRpcHeartBeatServiceImplSpec extends Specification {
     void setup() {
         this.taskFuture = Mock(ScheduledFuture)
         this.taskScheduler = Mock(TaskScheduler) {
-            1 * scheduleWithFixedDelay(_ as Runnable, _ as Long) >> {
+            1 * scheduleWithFixedDelay(_ as Runnable, 5_000L) >> {
                 args ->
                     this.task = args[0] as Runnable
                     return taskFuture
             }
+            // Dispatch connection events right away
+            _ * schedule(_ as Runnable, _ as Instant) >> {
+                args ->
+                    (args[0] as Runnable).run()
+                    return null
+            }
         }
         this.agentRoutingService = Mock(AgentRoutingService)
         this.responseObserver = Mock(StreamObserver)
-        this.service = new GRpcHeartBeatServiceImpl(agentRoutingService, taskScheduler, new SimpleMeterRegistry())
+        this.service = new GRpcHeartBeatServiceImpl(
+            agentRoutingService,
+            taskScheduler,
+            new AgentHeartBeatProperties(),
+            new SimpleMeterRegistry()
+        )
         assert task != null
     }
 
@@ -258,4 +272,97 @@ class GRpcHeartBeatServiceImplSpec extends Specification {
         1 * responseObserver.onCompleted()
     }
 
+    def "Heartbeat period is configurable"() {
+        setup:
+        AgentHeartBeatProperties properties = new AgentHeartBeatProperties()
+        properties.setSendInterval(1_000L)
+        TaskScheduler scheduler = Mock(TaskScheduler)
+
+        when:
+        GRpcHeartBeatServiceImpl customService = new GRpcHeartBeatServiceImpl(
+            agentRoutingService,
+            scheduler,
+            properties,
+            new SimpleMeterRegistry()
+        )
+
+        then:
+        1 * scheduler.scheduleWithFixedDelay(_ as Runnable, 1_000L) >> taskFuture
+
+        cleanup:
+        customService.shutdown()
+    }
+
+    def "Skip heartbeats for streams not ready and keep going after a failed send"() {
+        setup:
+        ServerCallStreamObserver<ServerHeartBeat> busyObserver = Mock(ServerCallStreamObserver)
+        ServerCallStreamObserver<ServerHeartBeat> brokenObserver = Mock(ServerCallStreamObserver)
+        ServerCallStreamObserver<ServerHeartBeat> readyObserver = Mock(ServerCallStreamObserver)
+
+        when:
+        service.heartbeat(busyObserver)
+        service.heartbeat(brokenObserver)
+        service.heartbeat(readyObserver)
+        task.run()
+
+        then:
+        1 * busyObserver.isReady() >> false
+        0 * busyObserver.onNext(_)
+        1 * brokenObserver.isReady() >> true
+        1 * brokenObserver.onNext(_ as ServerHeartBeat) >> { throw new IllegalStateException("Call already closed") }
+        1 * readyObserver.isReady() >> true
+        1 * readyObserver.onNext(_ as ServerHeartBeat)
+    }
+
+    def "Connection events are dispatched in order and in batches"() {
+        setup:
+        String jobId1 = UUID.randomUUID().toString()
+        String jobId2 = UUID.randomUUID().toString()
+        List<Runnable> dispatchTasks = []
+        TaskScheduler scheduler = Mock(TaskScheduler) {
+            1 * scheduleWithFixedDelay(_ as Runnable, _ as Long) >> taskFuture
+        }
+        GRpcHeartBeatServiceImpl deferredService = new GRpcHeartBeatServiceImpl(
+            agentRoutingService,
+            scheduler,
+            new AgentHeartBeatProperties(),
+            new SimpleMeterRegistry()
+        )
+
+        when: "Two agents connect and one disconnects before events are dispatched"
+        StreamObserver<AgentHeartBeat> requestObserver1 = deferredService.heartbeat(Mock(StreamObserver))
+        StreamObserver<AgentHeartBeat> requestObserver2 = deferredService.heartbeat(Mock(StreamObserver))
+        requestObserver1.onNext(AgentHeartBeat.newBuilder().setClaimedJobId(jobId1).build())
+        requestObserver2.onNext(AgentHeartBeat.newBuilder().setClaimedJobId(jobId2).build())
+        requestObserver1.onCompleted()
+
+        then: "A single dispatch is scheduled and nothing is reported from the calling thread"
+        1 * scheduler.schedule(_ as Runnable, _ as Instant) >> {
+            args ->
+                dispatchTasks.add(args[0] as Runnable)
+                return null
+        }
+        0 * agentRoutingService._
+        dispatchTasks.size() == 1
+
+        when: "The dispatch runs"
+        dispatchTasks.get(0).run()
+
+        then: "All events are reported in order, failures don't affect the rest of the batch"
+        1 * agentRoutingService.handleClientConnected(jobId1) >> { throw new RuntimeException("DB down") }
+
+        then:
+        1 * agentRoutingService.handleClientConnected(jobId2)
+
+        then:
+        1 * agentRoutingService.handleClientDisconnected(jobId1)
+
+        when: "The service shuts down"
+        deferredService.shutdown()
+
+        then: "Pending disconnections are reported before returning"
+        1 * scheduler.schedule(_ as Runnable, _ as Instant) >> null
+        1 * agentRoutingService.handleClientDisconnected(jobId2)
+    }
+
 }
@@ -28,9 +28,12 @@ import com.netflix.genie.web.introspection.GenieWebRpcInfo
 import com.netflix.genie.web.properties.LocalAgentLauncherProperties
 import com.netflix.genie.web.util.ExecutorFactory
 import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import org.apache.commons.exec.CommandLine
+import org.apache.commons.exec.ExecuteException
 import org.apache.commons.exec.Executor
 import org.apache.commons.lang3.SystemUtils
+import org.springframework.scheduling.TaskScheduler
 import spock.lang.Specification
 import spock.lang.Unroll
 
@@ -59,6 +62,7 @@ class LocalAgentLauncherImplSpec extends Specification {
     LocalAgentLauncherProperties launchProperties
     ExecutorFactory executorFactory
     MeterRegistry meterRegistry
+    TaskScheduler taskScheduler
     DataServices dataServices
 
     LocalAgentLauncherImpl launcher
@@ -80,6 +84,7 @@ class LocalAgentLauncherImplSpec extends Specification {
         this.launchProperties = new LocalAgentLauncherProperties()
         this.executorFactory = Mock(ExecutorFactory)
         this.meterRegistry = Mock(MeterRegistry)
+        this.taskScheduler = Mock(TaskScheduler)
 
         this.sharedExecutor = Mock(Executor)
         this.hostname = UUID.randomUUID().toString()
@@ -110,6 +115,7 @@ class LocalAgentLauncherImplSpec extends Specification {
             this.dataServices,
             this.launchProperties,
             this.executorFactory,
+            this.taskScheduler,
             this.meterRegistry
         )
 
@@ -117,6 +123,7 @@ class LocalAgentLauncherImplSpec extends Specification {
         1 * this.hostInfo.getHostname() >> this.hostname
         1 * this.rpcInfo.getRpcPort() >> RPC_PORT
         1 * this.executorFactory.newInstance(false) >> this.sharedExecutor
+        0 * this.taskScheduler.scheduleWithFixedDelay(_ as Runnable, _ as Long)
 
         when:
         this.launcher.launchAgent(this.resolvedJob)
@@ -151,4 +158,85 @@ class LocalAgentLauncherImplSpec extends Specification {
         false     | expectedCommandLineBase
         true      | ["sudo", "-E", "-u", USERNAME] + expectedCommandLineBase
     }
+
+    @Unroll
+    def "Standby pool (runAsUser: #runAsUser)"(boolean runAsUser, int expectedSchedules) {
+        def registry = new SimpleMeterRegistry()
+        this.launchProperties.setRunAsUserEnabled(runAsUser)
+        this.launchProperties.setStandbyPoolSize(2)
+        this.launchProperties.setStandbyPoolCheckInterval(5_000L)
+
+        when:
+        this.launcher = new LocalAgentLauncherImpl(
+            this.hostInfo,
+            this.rpcInfo,
+            this.dataServices,
+            this.launchProperties,
+            this.executorFactory,
+            this.taskScheduler,
+            registry
+        )
+
+        then:
+        1 * this.executorFactory.newInstance(false) >> this.sharedExecutor
+        expectedSchedules * this.taskScheduler.scheduleWithFixedDelay(_ as Runnable, 5_000L)
+
+        when: "No standby agent was started yet"
+        this.launcher.launchAgent(this.resolvedJob)
+
+        then: "A new agent is launched"
+        1 * this.resolvedJob.getJobMetadata() >> this.jobMetadata
+        1 * this.jobMetadata.getUser() >> USERNAME
+        1 * this.resolvedJob.getJobEnvironment() >> this.jobEnvironment
+        1 * this.jobEnvironment.getMemory() >> this.jobMemory
+        1 * this.resolvedJob.getJobSpecification() >> this.jobSpec
+        1 * this.jobSpec.getJob() >> this.job
+        1 * this.job.getId() >> JOB_ID
+        _ * this.jobMetadata.getGroup() >> Optional.empty()
+        1 * this.jobSearchService.getUsedMemoryOnHost(_)
+        1 * this.executorFactory.newInstance(true) >> executor
+        1 * this.executor.execute(_ as CommandLine, _ as Map, _ as LocalAgentLauncherImpl.AgentResultHandler)
+        0 * this.taskScheduler.schedule(_ as Runnable, _)
+        registry
+            .find("genie.agents.launcher.standby.assignments.counter")
+            .tag("hit", "false")
+            .counters()
+            .size() == expectedSchedules
+
+        where:
+        runAsUser | expectedSchedules
+        false     | 1
+        true      | 0
+    }
+
+    def "Standby agent output file is deleted when the agent exits without a job"() {
+        def outputFile = File.createTempFile("agent-standby-", ".txt")
+        def resultHandler = new LocalAgentLauncherImpl.AgentResultHandler(null, outputFile)
+
+        when:
+        resultHandler.onProcessFailed(new ExecuteException("Process exited with an error: 1", 1))
+
+        then:
+        !outputFile.exists()
+        resultHandler.hasResult()
+    }
+
+    def "Standby agent output file is moved to the job output file when the agent takes a job"() {
+        def outputFile = File.createTempFile("agent-standby-", ".txt")
+        def jobOutputFile = new File(outputFile.getParentFile(), "agent-job-" + JOB_ID + ".txt")
+        outputFile.text = "started"
+        def resultHandler = new LocalAgentLauncherImpl.AgentResultHandler(null, outputFile)
+
+        when:
+        resultHandler.onJobAssigned(JOB_ID, jobOutputFile)
+        resultHandler.onProcessComplete(0)
+
+        then:
+        !outputFile.exists()
+        jobOutputFile.text == "started"
+        resultHandler.getExitValue() == 0
+
+        cleanup:
+        jobOutputFile.delete()
+    }
 }
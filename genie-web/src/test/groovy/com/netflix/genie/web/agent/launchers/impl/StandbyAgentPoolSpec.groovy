@@ -0,0 +1,143 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.agent.launchers.impl
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * Specifications for {@link StandbyAgentPool}.
+ */
+class StandbyAgentPoolSpec extends Specification {
+
+    def "Jobs are handed to idle agents which are replaced"() {
+        def registry = new SimpleMeterRegistry()
+        def processStarter = Mock(StandbyAgentPool.ProcessStarter)
+        def pool = new StandbyAgentPool(2, 60_000L, processStarter, registry)
+        def process1 = Mock(Process)
+        def process2 = Mock(Process)
+        def process3 = Mock(Process)
+        def input1 = new ByteArrayOutputStream()
+        def jobId = UUID.randomUUID().toString()
+
+        expect:
+        !pool.assignJob(jobId).isPresent()
+
+        when:
+        pool.replenish()
+
+        then:
+        2 * processStarter.start() >>> [process1, process2]
+        registry.get(StandbyAgentPool.IDLE_AGENTS_GAUGE_NAME).gauge().value() == 2
+
+        when:
+        def assigned = pool.assignJob(jobId)
+
+        then:
+        1 * process1.isAlive() >> true
+        1 * process1.getOutputStream() >> input1
+        0 * process2.getOutputStream()
+        assigned.get() == process1
+        new String(input1.toByteArray(), StandardCharsets.UTF_8) == jobId + "\n"
+        registry.get(StandbyAgentPool.IDLE_AGENTS_GAUGE_NAME).gauge().value() == 1
+
+        when:
+        pool.replenish()
+
+        then:
+        1 * process2.isAlive() >> true
+        1 * processStarter.start() >> process3
+        registry.get(StandbyAgentPool.IDLE_AGENTS_GAUGE_NAME).gauge().value() == 2
+    }
+
+    def "Dead and expired agents are replaced"() {
+        def registry = new SimpleMeterRegistry()
+        def processStarter = Mock(StandbyAgentPool.ProcessStarter)
+        def pool = new StandbyAgentPool(1, 1L, processStarter, registry)
+        def process1 = Mock(Process)
+        def process2 = Mock(Process)
+        def process3 = Mock(Process)
+        def input2 = Mock(OutputStream)
+
+        when:
+        pool.replenish()
+
+        then:
+        1 * processStarter.start() >> process1
+
+        when:
+        pool.replenish()
+
+        then:
+        1 * process1.isAlive() >> false
+        1 * process1.exitValue() >> 1
+        1 * processStarter.start() >> process2
+
+        when:
+        sleep(10)
+        pool.replenish()
+
+        then:
+        1 * process2.isAlive() >> true
+        1 * process2.getOutputStream() >> input2
+        1 * input2.close()
+        1 * processStarter.start() >> process3
+        registry.get(StandbyAgentPool.IDLE_AGENTS_GAUGE_NAME).gauge().value() == 1
+    }
+
+    def "Agents which can't take a job are skipped"() {
+        def processStarter = Mock(StandbyAgentPool.ProcessStarter)
+        def pool = new StandbyAgentPool(2, 60_000L, processStarter, new SimpleMeterRegistry())
+        def process1 = Mock(Process)
+        def process2 = Mock(Process)
+        def input1 = Mock(OutputStream)
+
+        when:
+        pool.replenish()
+
+        then:
+        2 * processStarter.start() >>> [process1, process2]
+
+        when:
+        def assigned = pool.assignJob(UUID.randomUUID().toString())
+
+        then:
+        1 * process1.isAlive() >> true
+        1 * process1.getOutputStream() >> input1
+        1 * input1.write(_ as byte[]) >> { throw new IOException("Broken pipe") }
+        1 * process1.destroy()
+        1 * process2.isAlive() >> false
+        1 * process2.exitValue() >> 1
+        !assigned.isPresent()
+    }
+
+    def "Failure to start an agent is tolerated"() {
+        def processStarter = Mock(StandbyAgentPool.ProcessStarter)
+        def pool = new StandbyAgentPool(2, 60_000L, processStarter, new SimpleMeterRegistry())
+
+        when:
+        pool.replenish()
+
+        then:
+        1 * processStarter.start() >> { throw new IOException("No such file") }
+        noExceptionThrown()
+        !pool.assignJob(UUID.randomUUID().toString()).isPresent()
+    }
+}
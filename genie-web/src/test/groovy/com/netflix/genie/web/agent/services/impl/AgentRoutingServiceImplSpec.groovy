@@ -18,55 +18,92 @@
 package com.netflix.genie.web.agent.services.impl
 
 import com.netflix.genie.common.internal.util.GenieHostInfo
-import com.netflix.genie.web.agent.services.AgentRoutingService
 import com.netflix.genie.web.data.services.AgentConnectionPersistenceService
+import com.netflix.genie.web.properties.AgentRoutingProperties
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.scheduling.TaskScheduler
 import spock.lang.Specification
 
+import java.util.concurrent.ScheduledFuture
+
 class AgentRoutingServiceImplSpec extends Specification {
     private static final String HOSTNAME = "10.1.2.3"
 
     AgentConnectionPersistenceService persistenceService = Mock()
-    GenieHostInfo genieHostInfo = Mock()
-    AgentRoutingService service
+    GenieHostInfo genieHostInfo = Mock() {
+        _ * getHostname() >> HOSTNAME
+    }
+    TaskScheduler taskScheduler
+    ScheduledFuture flushFuture
+    Runnable flushTask
+    MeterRegistry registry
+    AgentRoutingProperties properties
+    AgentRoutingServiceImpl service
     String jobId
 
     void setup() {
-        service = new AgentRoutingServiceImpl(persistenceService, genieHostInfo)
+        flushFuture = Mock(ScheduledFuture)
+        taskScheduler = Mock(TaskScheduler) {
+            _ * scheduleWithFixedDelay(_ as Runnable, 1_000L) >> {
+                args ->
+                    flushTask = args[0] as Runnable
+                    return flushFuture
+            }
+        }
+        registry = new SimpleMeterRegistry()
+        properties = new AgentRoutingProperties()
+        service = new AgentRoutingServiceImpl(persistenceService, genieHostInfo, properties, taskScheduler, registry)
         jobId = UUID.randomUUID().toString()
+        assert flushTask != null
     }
 
     def "getHostnameForAgentConnection"() {
-        boolean isLocalConnection
-
         when:
         Optional<String> optionalHostname = service.getHostnameForAgentConnection(jobId)
 
         then:
-        1 * persistenceService.lookupAgentConnectionServer(jobId) >> Optional.of(HOSTNAME)
-
-        expect:
+        1 * persistenceService.lookupAgentConnectionServer(jobId) >> Optional.of("another.hostname")
         optionalHostname.isPresent()
+        "another.hostname" == optionalHostname.get()
+
+        when: "Looking up again within the cache TTL"
+        optionalHostname = service.getHostnameForAgentConnection(jobId)
+
+        then: "The previous lookup is reused"
+        0 * persistenceService.lookupAgentConnectionServer(jobId)
+        "another.hostname" == optionalHostname.get()
+
+        when: "The agent connects locally"
+        service.handleClientConnected(jobId)
+        optionalHostname = service.getHostnameForAgentConnection(jobId)
+
+        then: "The local host is returned without a lookup"
+        0 * persistenceService.lookupAgentConnectionServer(jobId)
         HOSTNAME == optionalHostname.get()
 
-        when:
-        isLocalConnection = service.isAgentConnectionLocal(jobId)
+        when: "The agent disconnects"
+        service.handleClientDisconnected(jobId)
+        optionalHostname = service.getHostnameForAgentConnection(jobId)
 
-        then:
-        1 * persistenceService.lookupAgentConnectionServer(jobId) >> Optional.of(HOSTNAME)
-        1 * genieHostInfo.getHostname() >> HOSTNAME
+        then: "The cached lookup was invalidated"
+        1 * persistenceService.lookupAgentConnectionServer(jobId) >> Optional.empty()
+        !optionalHostname.isPresent()
+    }
 
-        expect:
-        isLocalConnection
+    def "getHostnameForAgentConnection without cache"() {
+        setup:
+        properties.setRemoteLookupCacheTtl(0)
+        service = new AgentRoutingServiceImpl(persistenceService, genieHostInfo, properties, taskScheduler, registry)
 
         when:
-        isLocalConnection = service.isAgentConnectionLocal(jobId)
+        Optional<String> first = service.getHostnameForAgentConnection(jobId)
+        Optional<String> second = service.getHostnameForAgentConnection(jobId)
 
         then:
-        1 * persistenceService.lookupAgentConnectionServer(jobId) >> Optional.of("another.hostname")
-        1 * genieHostInfo.getHostname() >> HOSTNAME
-
-        expect:
-        !isLocalConnection
+        2 * persistenceService.lookupAgentConnectionServer(jobId) >>> [Optional.of(HOSTNAME), Optional.empty()]
+        first == Optional.of(HOSTNAME)
+        second == Optional.empty()
     }
 
     def "isAgentConnectionLocal"() {
@@ -75,49 +112,197 @@ class AgentRoutingServiceImplSpec extends Specification {
         when:
         isLocalConnection = service.isAgentConnectionLocal(jobId)
 
-        then:
-        1 * persistenceService.lookupAgentConnectionServer(jobId) >> Optional.of(HOSTNAME)
-        1 * genieHostInfo.getHostname() >> HOSTNAME
+        then: "Not connected locally, no database lookup necessary"
+        0 * persistenceService.lookupAgentConnectionServer(jobId)
+        !isLocalConnection
 
-        expect:
+        when:
+        service.handleClientConnected(jobId)
+        isLocalConnection = service.isAgentConnectionLocal(jobId)
+
+        then: "Connected before the connection is written to the database"
+        0 * persistenceService._
         isLocalConnection
 
         when:
+        service.handleClientDisconnected(jobId)
         isLocalConnection = service.isAgentConnectionLocal(jobId)
 
         then:
-        1 * persistenceService.lookupAgentConnectionServer(jobId) >> Optional.of("another.hostname")
-        1 * genieHostInfo.getHostname() >> HOSTNAME
-
-        expect:
+        0 * persistenceService._
         !isLocalConnection
+    }
 
+    def "Reacting to connection and disconnection"() {
         when:
-        isLocalConnection = service.isAgentConnectionLocal(jobId)
+        service.handleClientConnected(jobId)
+        flushTask.run()
 
         then:
-        1 * persistenceService.lookupAgentConnectionServer(jobId) >> Optional.empty()
-        0 * genieHostInfo.getHostname() >> HOSTNAME
+        1 * persistenceService.saveAgentConnections([jobId] as Set, HOSTNAME)
+        0 * persistenceService.removeAgentConnections(_, _)
 
-        expect:
-        !isLocalConnection
+        when:
+        service.handleClientDisconnected(jobId)
+        flushTask.run()
+
+        then:
+        0 * persistenceService.saveAgentConnections(_, _)
+        1 * persistenceService.removeAgentConnections([jobId] as Set, HOSTNAME) >> 1
+
+        when: "Nothing changed since the last write"
+        flushTask.run()
+
+        then:
+        0 * persistenceService._
     }
 
-    def "Reacting to connection and disconnection"() {
+    def "Changes are written in batches"() {
+        setup:
+        String jobId2 = UUID.randomUUID().toString()
+        String jobId3 = UUID.randomUUID().toString()
+        service.handleClientConnected(jobId3)
+        flushTask.run()
 
         when:
         service.handleClientConnected(jobId)
+        service.handleClientConnected(jobId2)
+        service.handleClientDisconnected(jobId3)
 
         then:
-        1 * genieHostInfo.getHostname() >> HOSTNAME
-        1 * persistenceService.saveAgentConnection(jobId, HOSTNAME)
+        0 * persistenceService._
+        registry.get("genie.agents.connections.pendingWrites.gauge").gauge().value() == 3
 
         when:
+        flushTask.run()
+
+        then:
+        1 * persistenceService.saveAgentConnections([jobId, jobId2] as Set, HOSTNAME)
+        1 * persistenceService.removeAgentConnections([jobId3] as Set, HOSTNAME) >> 1
+        registry.get("genie.agents.connections.pendingWrites.gauge").gauge().value() == 0
+        registry.get("genie.agents.connections.flush.timer").tag("status", "success").timer().count() == 2
+    }
+
+    def "Connection and disconnection before a write cancel each other out"() {
+        when:
+        service.handleClientConnected(jobId)
         service.handleClientDisconnected(jobId)
+        flushTask.run()
 
         then:
-        1 * genieHostInfo.getHostname() >> HOSTNAME
-        1 * persistenceService.removeAgentConnection(jobId, HOSTNAME)
+        0 * persistenceService._
+        registry.get("genie.agents.connections.coalescedWrites.counter").counter().count() == 1
+    }
+
+    def "Disconnection and reconnection before a write are coalesced into one save"() {
+        setup:
+        service.handleClientConnected(jobId)
+        flushTask.run()
+
+        when:
+        service.handleClientDisconnected(jobId)
+        service.handleClientConnected(jobId)
+        service.handleClientDisconnected(jobId)
+        service.handleClientConnected(jobId)
+        flushTask.run()
+
+        then:
+        1 * persistenceService.saveAgentConnections([jobId] as Set, HOSTNAME)
+        0 * persistenceService.removeAgentConnections(_, _)
+
+        when: "Disconnecting before the next write"
+        service.handleClientDisconnected(jobId)
+        service.handleClientConnected(jobId)
+        service.handleClientDisconnected(jobId)
+        flushTask.run()
+
+        then: "The record written previously is removed"
+        0 * persistenceService.saveAgentConnections(_, _)
+        1 * persistenceService.removeAgentConnections([jobId] as Set, HOSTNAME) >> 1
+    }
+
+    def "Agent reconnecting before the previous stream is closed"() {
+        setup:
+        service.handleClientConnected(jobId)
+        flushTask.run()
+
+        when:
+        service.handleClientConnected(jobId)
+        flushTask.run()
+
+        then:
+        1 * persistenceService.saveAgentConnections([jobId] as Set, HOSTNAME)
+
+        when: "The old stream is closed"
+        service.handleClientDisconnected(jobId)
+        flushTask.run()
+
+        then: "The agent is still connected"
+        0 * persistenceService._
+        service.isAgentConnectionLocal(jobId)
+
+        when: "The new stream is closed"
+        service.handleClientDisconnected(jobId)
+        flushTask.run()
+
+        then:
+        1 * persistenceService.removeAgentConnections([jobId] as Set, HOSTNAME) >> 1
+        !service.isAgentConnectionLocal(jobId)
+    }
+
+    def "Failed writes are retried"() {
+        setup:
+        String jobId2 = UUID.randomUUID().toString()
+        def exception = new RuntimeException("DB down")
+
+        when:
+        service.handleClientConnected(jobId)
+        service.handleClientConnected(jobId2)
+        flushTask.run()
+
+        then:
+        1 * persistenceService.saveAgentConnections([jobId, jobId2] as Set, HOSTNAME) >> { throw exception }
+        registry.get("genie.agents.connections.flush.timer").tag("status", "failure").timer().count() == 1
+
+        when: "One of the agents disconnects before the next attempt"
+        service.handleClientDisconnected(jobId2)
+        flushTask.run()
+
+        then: "It may have been written, so it is removed"
+        1 * persistenceService.saveAgentConnections([jobId] as Set, HOSTNAME)
+        1 * persistenceService.removeAgentConnections([jobId2] as Set, HOSTNAME) >> 0
+    }
+
+    def "Writes happen right away when too many are pending"() {
+        setup:
+        properties.setMaxPendingConnectionWrites(2)
+        service = new AgentRoutingServiceImpl(persistenceService, genieHostInfo, properties, taskScheduler, registry)
+        String jobId2 = UUID.randomUUID().toString()
+
+        when:
+        service.handleClientConnected(jobId)
+
+        then:
+        0 * persistenceService._
+
+        when:
+        service.handleClientConnected(jobId2)
+
+        then:
+        1 * persistenceService.saveAgentConnections([jobId, jobId2] as Set, HOSTNAME)
+        registry.get("genie.agents.connections.backpressure.counter").counter().count() == 1
+    }
+
+    def "Pending writes are flushed on shutdown"() {
+        setup:
+        service.handleClientConnected(jobId)
+
+        when:
+        service.shutdown()
+
+        then:
+        1 * flushFuture.cancel(false)
+        1 * persistenceService.saveAgentConnections([jobId] as Set, HOSTNAME)
     }
 
     def "isAgentConnected"() {
@@ -134,4 +319,14 @@ class AgentRoutingServiceImplSpec extends Specification {
         null      | false
         "1.2.3.4" | true
     }
+
+    def "isAgentConnected for a local agent"() {
+        when:
+        service.handleClientConnected(jobId)
+        boolean connected = service.isAgentConnected(jobId)
+
+        then:
+        0 * persistenceService.lookupAgentConnectionServer(jobId)
+        connected
+    }
 }
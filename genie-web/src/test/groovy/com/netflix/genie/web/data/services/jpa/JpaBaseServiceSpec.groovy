@@ -20,6 +20,7 @@ package com.netflix.genie.web.data.services.jpa
 import com.google.common.collect.Sets
 import com.netflix.genie.common.external.dtos.v4.Criterion
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieRuntimeException
+import com.netflix.genie.web.data.entities.FileEntity
 import com.netflix.genie.web.data.entities.TagEntity
 import com.netflix.genie.web.data.repositories.jpa.JpaApplicationRepository
 import com.netflix.genie.web.data.repositories.jpa.JpaClusterRepository
@@ -103,14 +104,57 @@ class JpaBaseServiceSpec extends Specification {
         def criterionEntity = service.toCriterionEntity(criterion)
 
         then:
-        tags.size() * tagService.createTagIfNotExists(_ as String)
-        tags.size() * tagService.getTag(_ as String) >> {
-            Optional.of(new TagEntity((String) it[0]))
+        1 * tagService.createAndGetTags(tags) >> {
+            tags.collect({ it -> new TagEntity(it) }).toSet()
         }
+        0 * tagService.createTagIfNotExists(_ as String)
+        0 * tagService.getTag(_ as String)
         criterionEntity.getUniqueId().orElse(UUID.randomUUID().toString()) == id
         criterionEntity.getName().orElse(UUID.randomUUID().toString()) == name
         criterionEntity.getVersion().orElse(UUID.randomUUID().toString()) == version
         criterionEntity.getStatus().orElse(UUID.randomUUID().toString()) == status
         criterionEntity.getTags() == tags.collect({ it -> new TagEntity(it) }).toSet()
     }
+
+    def "Can't get tag entities if not all of them exist"() {
+        def tags = Sets.newHashSet(UUID.randomUUID().toString(), UUID.randomUUID().toString())
+        def tagService = Mock(JpaTagPersistenceService) {
+            1 * createAndGetTags(tags) >> Sets.newHashSet(new TagEntity(tags.first()))
+        }
+        def service = new JpaBaseService(
+            tagService,
+            Mock(JpaFilePersistenceService),
+            Mock(JpaApplicationRepository),
+            Mock(JpaClusterRepository),
+            Mock(JpaCommandRepository),
+            Mock(JpaCriterionRepository)
+        )
+
+        when:
+        service.createAndGetTagEntities(tags)
+
+        then:
+        thrown(GenieRuntimeException)
+    }
+
+    def "Can get file entities in bulk"() {
+        def files = Sets.newHashSet(UUID.randomUUID().toString(), UUID.randomUUID().toString())
+        def fileService = Mock(JpaFilePersistenceService)
+        def service = new JpaBaseService(
+            Mock(JpaTagPersistenceService),
+            fileService,
+            Mock(JpaApplicationRepository),
+            Mock(JpaClusterRepository),
+            Mock(JpaCommandRepository),
+            Mock(JpaCriterionRepository)
+        )
+
+        when:
+        def fileEntities = service.createAndGetFileEntities(files)
+
+        then:
+        1 * fileService.createAndGetFiles(files) >> files.collect({ it -> new FileEntity(it) }).toSet()
+        0 * fileService.createFileIfNotExists(_ as String)
+        fileEntities == files.collect({ it -> new FileEntity(it) }).toSet()
+    }
 }
@@ -17,11 +17,15 @@
  */
 package com.netflix.genie.web.data.services.jpa
 
+import com.google.common.collect.Sets
 import com.netflix.genie.web.data.entities.FileEntity
 import com.netflix.genie.web.data.repositories.jpa.JpaFileRepository
+import org.springframework.dao.DataIntegrityViolationException
 import org.springframework.dao.DuplicateKeyException
 import spock.lang.Specification
 
+import java.time.Instant
+
 /**
  * Unit tests for JpaFilePersistenceServiceImpl.
  *
@@ -71,4 +75,56 @@ class JpaFilePersistenceServiceImplSpec extends Specification {
                 throw new DuplicateKeyException("Duplicate key")
         }
     }
+
+    def "Only missing files are created in bulk"() {
+        def existingFile = UUID.randomUUID().toString()
+        def newFile = UUID.randomUUID().toString()
+        def files = Sets.newHashSet(existingFile, newFile)
+
+        when:
+        def fileEntities = this.service.createAndGetFiles(files)
+
+        then:
+        1 * this.fileRepository.findByFileIn(files) >> Sets.newHashSet(new FileEntity(existingFile))
+        1 * this.fileRepository.insertFiles(Sets.newHashSet(newFile), _ as Instant) >> 1
+        1 * this.fileRepository.findByFileIn(Sets.newHashSet(newFile)) >> Sets.newHashSet(new FileEntity(newFile))
+        0 * this.fileRepository.saveAndFlush(_ as FileEntity)
+        fileEntities == Sets.newHashSet(new FileEntity(existingFile), new FileEntity(newFile))
+    }
+
+    def "No files are created in bulk if they all exist"() {
+        def files = Sets.newHashSet(UUID.randomUUID().toString(), UUID.randomUUID().toString())
+
+        when:
+        def fileEntities = this.service.createAndGetFiles(files)
+
+        then:
+        1 * this.fileRepository.findByFileIn(files) >> files.collect({ it -> new FileEntity(it) }).toSet()
+        0 * this.fileRepository.insertFiles(_ as Set, _ as Instant)
+        fileEntities.size() == 2
+
+        when:
+        fileEntities = this.service.createAndGetFiles(Sets.newHashSet())
+
+        then:
+        0 * this.fileRepository.findByFileIn(_ as Set)
+        fileEntities.isEmpty()
+    }
+
+    def "If some files were created concurrently the rest are created one at a time"() {
+        def files = Sets.newHashSet(UUID.randomUUID().toString(), UUID.randomUUID().toString())
+
+        when:
+        def fileEntities = this.service.createAndGetFiles(files)
+
+        then:
+        1 * this.fileRepository.findByFileIn(files) >> Sets.newHashSet()
+        1 * this.fileRepository.insertFiles(files, _ as Instant) >> {
+            throw new DataIntegrityViolationException("Duplicate key")
+        }
+        2 * this.fileRepository.existsByFile(_ as String) >>> [true, false]
+        1 * this.fileRepository.saveAndFlush(_ as FileEntity) >> { final FileEntity fileEntity -> fileEntity }
+        1 * this.fileRepository.findByFileIn(files) >> files.collect({ it -> new FileEntity(it) }).toSet()
+        fileEntities.size() == 2
+    }
 }
@@ -17,11 +17,15 @@
  */
 package com.netflix.genie.web.data.services.jpa
 
+import com.google.common.collect.Sets
 import com.netflix.genie.web.data.entities.TagEntity
 import com.netflix.genie.web.data.repositories.jpa.JpaTagRepository
+import org.springframework.dao.DataIntegrityViolationException
 import org.springframework.dao.DuplicateKeyException
 import spock.lang.Specification
 
+import java.time.Instant
+
 /**
  * Unit tests for JpaTagPersistenceServiceImpl.
  *
@@ -71,4 +75,56 @@ class JpaTagPersistenceServiceImplSpec extends Specification {
                 throw new DuplicateKeyException("Duplicate key")
         }
     }
+
+    def "Only missing tags are created in bulk"() {
+        def existingTag = UUID.randomUUID().toString()
+        def newTag = UUID.randomUUID().toString()
+        def tags = Sets.newHashSet(existingTag, newTag)
+
+        when:
+        def tagEntities = this.service.createAndGetTags(tags)
+
+        then:
+        1 * this.tagRepository.findByTagIn(tags) >> Sets.newHashSet(new TagEntity(existingTag))
+        1 * this.tagRepository.insertTags(Sets.newHashSet(newTag), _ as Instant) >> 1
+        1 * this.tagRepository.findByTagIn(Sets.newHashSet(newTag)) >> Sets.newHashSet(new TagEntity(newTag))
+        0 * this.tagRepository.saveAndFlush(_ as TagEntity)
+        tagEntities == Sets.newHashSet(new TagEntity(existingTag), new TagEntity(newTag))
+    }
+
+    def "No tags are created in bulk if they all exist"() {
+        def tags = Sets.newHashSet(UUID.randomUUID().toString(), UUID.randomUUID().toString())
+
+        when:
+        def tagEntities = this.service.createAndGetTags(tags)
+
+        then:
+        1 * this.tagRepository.findByTagIn(tags) >> tags.collect({ it -> new TagEntity(it) }).toSet()
+        0 * this.tagRepository.insertTags(_ as Set, _ as Instant)
+        tagEntities.size() == 2
+
+        when:
+        tagEntities = this.service.createAndGetTags(Sets.newHashSet())
+
+        then:
+        0 * this.tagRepository.findByTagIn(_ as Set)
+        tagEntities.isEmpty()
+    }
+
+    def "If some tags were created concurrently the rest are created one at a time"() {
+        def tags = Sets.newHashSet(UUID.randomUUID().toString(), UUID.randomUUID().toString())
+
+        when:
+        def tagEntities = this.service.createAndGetTags(tags)
+
+        then:
+        1 * this.tagRepository.findByTagIn(tags) >> Sets.newHashSet()
+        1 * this.tagRepository.insertTags(tags, _ as Instant) >> {
+            throw new DataIntegrityViolationException("Duplicate key")
+        }
+        2 * this.tagRepository.existsByTag(_ as String) >>> [true, false]
+        1 * this.tagRepository.saveAndFlush(_ as TagEntity) >> { final TagEntity tagEntity -> tagEntity }
+        1 * this.tagRepository.findByTagIn(tags) >> tags.collect({ it -> new TagEntity(it) }).toSet()
+        tagEntities.size() == 2
+    }
 }
@@ -17,6 +17,10 @@
  */
 package com.netflix.genie.web.dtos
 
+import com.google.common.collect.Lists
+import com.netflix.genie.common.external.dtos.v4.Application
+import com.netflix.genie.common.external.dtos.v4.Cluster
+import com.netflix.genie.common.external.dtos.v4.Command
 import com.netflix.genie.common.external.dtos.v4.JobEnvironment
 import com.netflix.genie.common.external.dtos.v4.JobMetadata
 import com.netflix.genie.common.external.dtos.v4.JobSpecification
@@ -41,6 +45,9 @@ class ResolvedJobSpec extends Specification {
         resolvedJob.getJobSpecification() == jobSpecification
         resolvedJob.getJobEnvironment() == jobEnvironment
         resolvedJob.getJobMetadata() == jobMetadata
+        !resolvedJob.getCluster().isPresent()
+        !resolvedJob.getCommand().isPresent()
+        resolvedJob.getApplications().isEmpty()
 
         when:
         def resolvedJob2 = new ResolvedJob(Mock(JobSpecification), Mock(JobEnvironment), Mock(JobMetadata))
@@ -54,4 +61,23 @@ class ResolvedJobSpec extends Specification {
         resolvedJob.toString() != resolvedJob2.toString()
         resolvedJob.toString() == resolvedJob3.toString()
     }
+
+    def "can carry the resolved resources"() {
+        def jobSpecification = Mock(JobSpecification)
+        def jobEnvironment = Mock(JobEnvironment)
+        def jobMetadata = Mock(JobMetadata)
+        def cluster = Mock(Cluster)
+        def command = Mock(Command)
+        def applications = Lists.newArrayList(Mock(Application), Mock(Application))
+
+        when:
+        def resolvedJob = new ResolvedJob(jobSpecification, jobEnvironment, jobMetadata, cluster, command, applications)
+
+        then:
+        resolvedJob.getCluster() == Optional.of(cluster)
+        resolvedJob.getCommand() == Optional.of(command)
+        resolvedJob.getApplications() == applications
+        resolvedJob == new ResolvedJob(jobSpecification, jobEnvironment, jobMetadata)
+        resolvedJob.hashCode() == new ResolvedJob(jobSpecification, jobEnvironment, jobMetadata).hashCode()
+    }
 }
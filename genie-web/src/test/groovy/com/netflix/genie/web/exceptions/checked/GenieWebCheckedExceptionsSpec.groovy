@@ -67,6 +67,7 @@ class GenieWebCheckedExceptionsSpec extends Specification {
         AgentLaunchException                  | _
         IdAlreadyExistsException              | _
         JobDirectoryManifestNotFoundException | _
+        JobLaunchRejectedException            | _
         JobNotArchivedException               | _
         JobNotFoundException                  | _
         ResourceSelectionException            | _
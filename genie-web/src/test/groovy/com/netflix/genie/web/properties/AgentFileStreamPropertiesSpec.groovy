@@ -0,0 +1,54 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties
+
+import spock.lang.Specification
+
+/**
+ * Specifications for {@link AgentFileStreamProperties}.
+ */
+class AgentFileStreamPropertiesSpec extends Specification {
+
+    def "Can get and set values"() {
+        when:
+        def properties = new AgentFileStreamProperties()
+
+        then:
+        properties.getChunkSize() == 1024 * 1024
+        properties.getWindowSize() == 4
+        properties.getBufferCapacity() == 4 * 1024 * 1024
+        properties.isWindowWithinBufferCapacity()
+
+        when:
+        properties.setChunkSize(4096)
+        properties.setWindowSize(2)
+        properties.setBufferCapacity(8192)
+
+        then:
+        properties.getChunkSize() == 4096
+        properties.getWindowSize() == 2
+        properties.getBufferCapacity() == 8192
+        properties.isWindowWithinBufferCapacity()
+
+        when:
+        properties.setWindowSize(3)
+
+        then:
+        !properties.isWindowWithinBufferCapacity()
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties
+
+import spock.lang.Specification
+
+/**
+ * Specifications for {@link AgentRoutingProperties}.
+ */
+class AgentRoutingPropertiesSpec extends Specification {
+
+    def "Can get and set values"() {
+        when:
+        def properties = new AgentRoutingProperties()
+
+        then:
+        properties.getRemoteLookupCacheTtl() == 5_000
+        properties.getRemoteLookupCacheMaxSize() == 10_000
+        properties.getConnectionFlushInterval() == 1_000
+        properties.getMaxPendingConnectionWrites() == 10_000
+
+        when:
+        properties.setRemoteLookupCacheTtl(0)
+        properties.setRemoteLookupCacheMaxSize(10)
+        properties.setConnectionFlushInterval(100)
+        properties.setMaxPendingConnectionWrites(5)
+
+        then:
+        properties.getRemoteLookupCacheTtl() == 0
+        properties.getRemoteLookupCacheMaxSize() == 10
+        properties.getConnectionFlushInterval() == 100
+        properties.getMaxPendingConnectionWrites() == 5
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties
+
+import spock.lang.Specification
+
+class CriteriaIndexPropertiesSpec extends Specification {
+    def "testDefaultsSettersAndGetters"() {
+        setup:
+        CriteriaIndexProperties properties = new CriteriaIndexProperties()
+
+        expect:
+        !properties.isEnabled()
+        properties.getRefreshInterval() == 60_000L
+        properties.getMaxStaleness() == 300_000L
+        properties.getPageSize() == 500
+
+        when:
+        properties.setEnabled(true)
+        properties.setRefreshInterval(1000)
+        properties.setMaxStaleness(2000)
+        properties.setPageSize(10)
+
+        then:
+        properties.isEnabled()
+        properties.getRefreshInterval() == 1000L
+        properties.getMaxStaleness() == 2000L
+        properties.getPageSize() == 10
+    }
+}
@@ -34,12 +34,21 @@ class FileCachePropertiesSpec extends Specification {
 
         then:
         properties.getLocation() == URI.create("file://" + systemTmpDir + "genie/cache")
+        properties.getRevalidationInterval() == 0L
+        properties.getMaxSize() == 0L
+        !properties.isRefreshAhead()
 
         when:
         def newLocation = URI.create("file:///tmp/" + UUID.randomUUID().toString())
         properties.setLocation(newLocation)
+        properties.setRevalidationInterval(60_000L)
+        properties.setMaxSize(1024L)
+        properties.setRefreshAhead(true)
 
         then:
         properties.getLocation() == newLocation
+        properties.getRevalidationInterval() == 60_000L
+        properties.getMaxSize() == 1024L
+        properties.isRefreshAhead()
     }
 }
@@ -0,0 +1,42 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties
+
+import spock.lang.Specification
+
+class JobExportPropertiesSpec extends Specification {
+    def "testDefaultsSettersAndGetters"() {
+        setup:
+        JobExportProperties properties = new JobExportProperties()
+
+        expect:
+        properties.getTimeout() == 0L
+        properties.getThreads() == 4
+        properties.getMaxPendingExports() == 16
+
+        when:
+        properties.setTimeout(60_000L)
+        properties.setThreads(2)
+        properties.setMaxPendingExports(10)
+
+        then:
+        properties.getTimeout() == 60_000L
+        properties.getThreads() == 2
+        properties.getMaxPendingExports() == 10
+    }
+}
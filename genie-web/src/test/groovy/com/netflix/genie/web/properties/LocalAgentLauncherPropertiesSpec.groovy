@@ -45,6 +45,10 @@ class LocalAgentLauncherPropertiesSpec extends Specification {
         !properties.isRunAsUserEnabled()
         properties.additionalEnvironment.isEmpty()
         !properties.isProcessOutputCaptureEnabled()
+        properties.getStandbyLaunchCommandTemplate() == ["java", "-jar", LocalAgentLauncherProperties.AGENT_JAR_PLACEHOLDER, "exec", "--server-host", "127.0.0.1", "--server-port", LocalAgentLauncherProperties.SERVER_PORT_PLACEHOLDER, "--api-job", "--job-id-from-stdin"]
+        properties.getStandbyPoolSize() == 0
+        properties.getStandbyMaxIdleTime() == 1_800_000L
+        properties.getStandbyPoolCheckInterval() == 10_000L
     }
 
     def "Setters and getters work properly"() {
@@ -63,6 +67,10 @@ class LocalAgentLauncherPropertiesSpec extends Specification {
         properties.setRunAsUserEnabled(true)
         properties.setAdditionalEnvironment(environment)
         properties.setProcessOutputCaptureEnabled(true)
+        properties.setStandbyLaunchCommandTemplate(newExecutable)
+        properties.setStandbyPoolSize(4)
+        properties.setStandbyMaxIdleTime(60_000L)
+        properties.setStandbyPoolCheckInterval(5_000L)
 
         then:
         properties.getLaunchCommandTemplate() == newExecutable
@@ -72,5 +80,9 @@ class LocalAgentLauncherPropertiesSpec extends Specification {
         properties.isRunAsUserEnabled()
         properties.getAdditionalEnvironment() == environment
         properties.isProcessOutputCaptureEnabled()
+        properties.getStandbyLaunchCommandTemplate() == newExecutable
+        properties.getStandbyPoolSize() == 4
+        properties.getStandbyMaxIdleTime() == 60_000L
+        properties.getStandbyPoolCheckInterval() == 5_000L
     }
 }
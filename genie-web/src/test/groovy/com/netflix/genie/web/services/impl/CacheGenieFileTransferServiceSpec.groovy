@@ -18,9 +18,11 @@
 package com.netflix.genie.web.services.impl
 
 import com.netflix.genie.common.exceptions.GenieServerException
+import com.netflix.genie.web.properties.FileCacheProperties
 import com.netflix.genie.web.services.FileTransferFactory
 import io.micrometer.core.instrument.MeterRegistry
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.core.task.TaskExecutor
 import spock.lang.Specification
 import spock.lang.Unroll
 
@@ -35,11 +37,15 @@ class CacheGenieFileTransferServiceSpec extends Specification {
     FileTransferFactory fileTransferFactory = Mock(FileTransferFactory) {
         get(_ as String) >> localFileTransfer
     }
-    File cachedFile = Mock(File)
+    File cachedFile = Mock(File) {
+        exists() >> true
+    }
     MeterRegistry registry = new SimpleMeterRegistry()
+    TaskExecutor refreshExecutor = Mock(TaskExecutor)
+    FileCacheProperties fileCacheProperties = new FileCacheProperties(location: URI.create("file:///tmp"))
     CacheGenieFileTransferService s =
         Spy(CacheGenieFileTransferService,
-            constructorArgs: [fileTransferFactory, "/tmp", localFileTransfer, registry]) {
+            constructorArgs: [fileTransferFactory, fileCacheProperties, localFileTransfer, refreshExecutor, registry]) {
             createDirectories(_ as String) >> null
             deleteFile(_ as File) >> null
         }
@@ -59,7 +65,8 @@ class CacheGenieFileTransferServiceSpec extends Specification {
         s.getFile('file:/tmp/setup', 'file:/mnt/')
         then:
         noExceptionThrown()
-        1 * s.loadFile(_) >> cachedFile
+        0 * s.loadFile(_)
+        1 * s.reloadFile(_) >> cachedFile
         2 * cachedFile.lastModified() >> -1
         when:
         s.getFile('file:/tmp/setup', 'file:/mnt/')
@@ -71,7 +78,141 @@ class CacheGenieFileTransferServiceSpec extends Specification {
         s.getFile('file:/tmp/setup', 'file:/mnt/')
         then:
         thrown(GenieServerException)
-        1 * s.loadFile(_) >> { throw new GenieServerException("null") }
+        1 * s.reloadFile(_) >> { throw new GenieServerException("null") }
         cachedFile.lastModified() >> -1
     }
+
+    def 'Test getFile within revalidation interval'() {
+        setup:
+        fileCacheProperties.setRevalidationInterval(60_000L)
+        CacheGenieFileTransferService service =
+            Spy(CacheGenieFileTransferService,
+                constructorArgs: [fileTransferFactory, fileCacheProperties, localFileTransfer, refreshExecutor, registry]) {
+                createDirectories(_ as String) >> null
+            }
+
+        when:
+        service.getFile('file:/tmp/setup', 'file:/mnt/')
+        service.getFile('file:/tmp/setup', 'file:/mnt/')
+
+        then:
+        noExceptionThrown()
+        1 * service.loadFile(_) >> cachedFile
+        1 * localFileTransfer.getLastModifiedTime('file:/tmp/setup') >> 0L
+        1 * cachedFile.lastModified() >> 0L
+        2 * localFileTransfer.getFile(_, 'file:/mnt/')
+    }
+
+    def 'Test getFile refresh ahead'() {
+        setup:
+        fileCacheProperties.setRefreshAhead(true)
+        CacheGenieFileTransferService service =
+            Spy(CacheGenieFileTransferService,
+                constructorArgs: [fileTransferFactory, fileCacheProperties, localFileTransfer, refreshExecutor, registry]) {
+                createDirectories(_ as String) >> null
+            }
+        Runnable refresh = null
+
+        when: 'A stale file is served while it is reloaded'
+        service.getFile('file:/tmp/setup', 'file:/mnt/')
+        service.getFile('file:/tmp/setup', 'file:/mnt/')
+
+        then: 'Only one reload is scheduled'
+        noExceptionThrown()
+        1 * service.loadFile(_) >> cachedFile
+        1 * refreshExecutor.execute(_ as Runnable) >> { args -> refresh = args[0] as Runnable }
+        0 * localFileTransfer.getLastModifiedTime(_)
+        2 * localFileTransfer.getFile(_, 'file:/mnt/')
+
+        when:
+        refresh.run()
+
+        then:
+        1 * localFileTransfer.getLastModifiedTime('file:/tmp/setup') >> 10L
+        2 * cachedFile.lastModified() >> 0L
+        1 * service.reloadFile('file:/tmp/setup') >> cachedFile
+
+        when: 'A new reload can be scheduled once the previous one is done'
+        service.getFile('file:/tmp/setup', 'file:/mnt/')
+
+        then:
+        1 * refreshExecutor.execute(_ as Runnable)
+    }
+
+    def 'Test eviction when the cache exceeds its maximum size'() {
+        setup:
+        fileCacheProperties.setMaxSize(100L)
+        CacheGenieFileTransferService service =
+            Spy(CacheGenieFileTransferService,
+                constructorArgs: [fileTransferFactory, fileCacheProperties, localFileTransfer, refreshExecutor, registry]) {
+                createDirectories(_ as String) >> null
+            }
+        File file1 = Mock(File) {
+            length() >> 80L
+            exists() >> true
+        }
+        File file2 = Mock(File) {
+            length() >> 80L
+            exists() >> true
+        }
+
+        when:
+        service.getFile('file:/tmp/file1', 'file:/mnt/')
+        service.getFile('file:/tmp/file2', 'file:/mnt/')
+
+        then:
+        noExceptionThrown()
+        1 * service.loadFile('file:/tmp/file1') >> file1
+        1 * service.loadFile('file:/tmp/file2') >> file2
+        1 * service.deleteFile(file1) >> null
+        0 * service.deleteFile(file2)
+    }
+
+    def 'Test files larger than the maximum size are not cached'() {
+        setup:
+        fileCacheProperties.setMaxSize(100L)
+        CacheGenieFileTransferService service =
+            Spy(CacheGenieFileTransferService,
+                constructorArgs: [fileTransferFactory, fileCacheProperties, localFileTransfer, refreshExecutor, registry]) {
+                createDirectories(_ as String) >> null
+            }
+        File largeFile = Mock(File) {
+            length() >> 200L
+            getPath() >> '/tmp/large'
+        }
+
+        when: 'The file is first downloaded'
+        service.getFile('file:/tmp/large', 'file:/mnt/')
+
+        then: 'It is copied from where it was downloaded and deleted'
+        noExceptionThrown()
+        1 * service.loadFile('file:/tmp/large') >> largeFile
+        1 * localFileTransfer.getFile('/tmp/large', 'file:/mnt/')
+        1 * service.deleteFile(largeFile) >> null
+
+        when: 'The file is requested again'
+        service.getFile('file:/tmp/large', 'file:/mnt/')
+
+        then: 'It is transferred straight to the destination'
+        noExceptionThrown()
+        0 * service.loadFile(_)
+        1 * localFileTransfer.getFile('file:/tmp/large', 'file:/mnt/')
+        0 * service.deleteFile(_)
+    }
+
+    def 'Test a cached file deleted before it is copied is loaded again'() {
+        setup:
+        File file = Mock(File) {
+            getPath() >> '/tmp/setup'
+        }
+
+        when:
+        s.getFile('file:/tmp/setup', 'file:/mnt/')
+
+        then:
+        noExceptionThrown()
+        2 * s.loadFile('file:/tmp/setup') >> file
+        2 * file.exists() >>> [false, true]
+        1 * localFileTransfer.getFile('/tmp/setup', 'file:/mnt/')
+    }
 }
@@ -0,0 +1,336 @@
+/*
+ *
+ *  Copyright 2020 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl
+
+import com.google.common.collect.Lists
+import com.google.common.collect.Sets
+import com.netflix.genie.common.exceptions.GenieNotFoundException
+import com.netflix.genie.common.external.dtos.v4.Cluster
+import com.netflix.genie.common.external.dtos.v4.ClusterMetadata
+import com.netflix.genie.common.external.dtos.v4.ClusterStatus
+import com.netflix.genie.common.external.dtos.v4.Command
+import com.netflix.genie.common.external.dtos.v4.CommandMetadata
+import com.netflix.genie.common.external.dtos.v4.CommandStatus
+import com.netflix.genie.common.external.dtos.v4.Criterion
+import com.netflix.genie.common.external.dtos.v4.ExecutionEnvironment
+import com.netflix.genie.web.data.services.ClusterPersistenceService
+import com.netflix.genie.web.data.services.CommandPersistenceService
+import com.netflix.genie.web.data.services.DataServices
+import com.netflix.genie.web.properties.CriteriaIndexProperties
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.data.domain.PageImpl
+import org.springframework.data.domain.Pageable
+import org.springframework.scheduling.TaskScheduler
+import spock.lang.Specification
+
+import java.time.Instant
+
+/**
+ * Specifications for {@link InMemoryCriteriaIndexServiceImpl}.
+ */
+class InMemoryCriteriaIndexServiceImplSpec extends Specification {
+
+    ClusterPersistenceService clusterService
+    CommandPersistenceService commandService
+    TaskScheduler scheduler
+    CriteriaIndexProperties properties
+    InMemoryCriteriaIndexServiceImpl service
+
+    Cluster prodCluster
+    Cluster testCluster
+    Cluster terminatedCluster
+    Command sparkCommand
+    Command hiveCommand
+    Command deprecatedCommand
+
+    def setup() {
+        this.clusterService = Mock(ClusterPersistenceService)
+        this.commandService = Mock(CommandPersistenceService)
+        this.scheduler = Mock(TaskScheduler)
+        this.properties = new CriteriaIndexProperties()
+        this.properties.setEnabled(true)
+        def dataServices = Mock(DataServices) {
+            getClusterPersistenceService() >> this.clusterService
+            getCommandPersistenceService() >> this.commandService
+        }
+
+        this.prodCluster = createCluster("prod", "h2prod", ClusterStatus.UP, "sched:sla", "type:yarn")
+        this.testCluster = createCluster("test", "h2test", ClusterStatus.UP, "sched:test", "type:yarn")
+        this.terminatedCluster = createCluster("old", "h2prod", ClusterStatus.TERMINATED, "sched:sla", "type:yarn")
+        this.sparkCommand = createCommand("spark", "spark", CommandStatus.ACTIVE, "type:spark")
+        this.hiveCommand = createCommand("hive", "hive", CommandStatus.ACTIVE, "type:hive")
+        this.deprecatedCommand = createCommand("spark-old", "spark", CommandStatus.DEPRECATED, "type:spark")
+
+        // Default database contents used by a full refresh
+        this.clusterService.getClusters(null, null, null, null, null, _ as Pageable) >> new PageImpl<>(
+            Lists.newArrayList(this.prodCluster, this.testCluster, this.terminatedCluster)
+        )
+        this.clusterService.getCommandIdsForAllClusters() >> [
+            "prod": Lists.newArrayList("spark-old", "spark", "hive"),
+            "test": Lists.newArrayList("spark"),
+            "old" : Lists.newArrayList("hive")
+        ]
+        this.commandService.getCommands(null, null, null, null, _ as Pageable) >> new PageImpl<>(
+            Lists.newArrayList(this.sparkCommand, this.hiveCommand, this.deprecatedCommand)
+        )
+
+        this.service = new InMemoryCriteriaIndexServiceImpl(
+            dataServices,
+            this.properties,
+            this.scheduler,
+            new SimpleMeterRegistry()
+        )
+    }
+
+    def "Refresh is scheduled and gauges are registered only when enabled"() {
+        def disabledRegistry = new SimpleMeterRegistry()
+        def enabledRegistry = new SimpleMeterRegistry()
+
+        when:
+        def disabledProperties = new CriteriaIndexProperties()
+        new InMemoryCriteriaIndexServiceImpl(
+            Mock(DataServices),
+            disabledProperties,
+            this.scheduler,
+            disabledRegistry
+        )
+
+        then:
+        0 * this.scheduler.scheduleWithFixedDelay(_ as Runnable, _ as long)
+        disabledRegistry.getMeters().isEmpty()
+
+        when:
+        new InMemoryCriteriaIndexServiceImpl(
+            Mock(DataServices),
+            this.properties,
+            this.scheduler,
+            enabledRegistry
+        )
+
+        then:
+        1 * this.scheduler.scheduleWithFixedDelay(_ as Runnable, this.properties.getRefreshInterval())
+        enabledRegistry.getMeters().size() == 3
+    }
+
+    def "A full refresh reads the commands of all clusters at once"() {
+        when:
+        this.load()
+
+        then:
+        1 * this.clusterService.getCommandIdsForAllClusters() >> ["prod": Lists.newArrayList("hive")]
+        0 * this.clusterService.getCommandsForCluster(_ as String, _)
+        this.service.findClustersAndCommandsForCriteria(
+            Lists.newArrayList(new Criterion.Builder().withTags(Sets.newHashSet("type:yarn")).build()),
+            new Criterion.Builder().withTags(Sets.newHashSet("type:hive")).build()
+        ).get() == [(this.prodCluster): "hive"]
+    }
+
+    def "Lookups fall back until the index is loaded"() {
+        def criterion = new Criterion.Builder().withTags(Sets.newHashSet("type:yarn")).build()
+
+        expect:
+        !this.service.findClustersMatchingCriterion(criterion, true).isPresent()
+        !this.service.findCommandsMatchingCriterion(criterion, true).isPresent()
+        !this.service.findClustersAndCommandsForCriteria(Lists.newArrayList(criterion), criterion).isPresent()
+    }
+
+    def "Can match criteria against the index"() {
+        when:
+        this.load()
+
+        then:
+        this.service.findClustersMatchingCriterion(
+            new Criterion.Builder().withTags(Sets.newHashSet("type:yarn")).build(),
+            true
+        ).get() == Sets.newHashSet(this.prodCluster, this.testCluster)
+        this.service.findClustersMatchingCriterion(
+            new Criterion.Builder().withTags(Sets.newHashSet("type:yarn", "sched:sla")).build(),
+            false
+        ).get() == Sets.newHashSet(this.prodCluster, this.terminatedCluster)
+        this.service.findClustersMatchingCriterion(
+            new Criterion.Builder().withName("h2prod").withStatus(ClusterStatus.TERMINATED.name()).build(),
+            true
+        ).get() == Sets.newHashSet(this.terminatedCluster)
+        this.service.findClustersMatchingCriterion(
+            new Criterion.Builder().withId("test").withTags(Sets.newHashSet("sched:sla")).build(),
+            true
+        ).get().isEmpty()
+        this.service.findClustersMatchingCriterion(
+            new Criterion.Builder().withTags(Sets.newHashSet("type:yarn", "nonexistent")).build(),
+            true
+        ).get().isEmpty()
+        this.service.findCommandsMatchingCriterion(
+            new Criterion.Builder().withName("spark").build(),
+            true
+        ).get() == Sets.newHashSet(this.sparkCommand)
+        this.service.findCommandsMatchingCriterion(
+            new Criterion.Builder().withName("spark").build(),
+            false
+        ).get() == Sets.newHashSet(this.sparkCommand, this.deprecatedCommand)
+    }
+
+    def "Can find clusters and commands using the V3 algorithm"() {
+        when:
+        this.load()
+        def result = this.service.findClustersAndCommandsForCriteria(
+            Lists.newArrayList(
+                new Criterion.Builder().withTags(Sets.newHashSet("sched:adhoc")).build(),
+                new Criterion.Builder().withTags(Sets.newHashSet("type:yarn")).build()
+            ),
+            new Criterion.Builder().withTags(Sets.newHashSet("type:hive")).build()
+        ).get()
+
+        then: "The first criterion which matches wins and only clusters with a matching command are returned"
+        result.size() == 1
+        result.get(this.prodCluster) == "hive"
+
+        when:
+        result = this.service.findClustersAndCommandsForCriteria(
+            Lists.newArrayList(new Criterion.Builder().withTags(Sets.newHashSet("type:yarn")).build()),
+            new Criterion.Builder().withTags(Sets.newHashSet("type:spark")).build()
+        ).get()
+
+        then: "The highest priority active command for each cluster is returned"
+        result.size() == 2
+        result.get(this.prodCluster) == "spark"
+        result.get(this.testCluster) == "spark"
+    }
+
+    def "Blank criterion fields are ignored like the database does"() {
+        def clusterCriterion = new Criterion.Builder()
+            .withName(" ")
+            .withVersion("")
+            .withTags(Sets.newHashSet("sched:sla"))
+            .build()
+        def commandCriterion = new Criterion.Builder()
+            .withId("")
+            .withName(" ")
+            .withTags(Sets.newHashSet("type:hive"))
+            .build()
+
+        when:
+        this.load()
+
+        then: "The V3 query skips blank id, name and version"
+        this.service.findClustersAndCommandsForCriteria(
+            Lists.newArrayList(clusterCriterion),
+            commandCriterion
+        ).get() == [(this.prodCluster): "hive"]
+
+        and: "The V4 queries match them as is"
+        this.service.findClustersMatchingCriterion(clusterCriterion, true).get().isEmpty()
+        this.service.findCommandsMatchingCriterion(commandCriterion, true).get().isEmpty()
+    }
+
+    def "Incremental changes are applied to the index"() {
+        def updatedTestCluster = createCluster("test", "h2test", ClusterStatus.OUT_OF_SERVICE, "sched:test")
+        def criterion = new Criterion.Builder().withTags(Sets.newHashSet("type:yarn")).build()
+        this.load()
+
+        when:
+        this.service.refreshCluster("test")
+
+        then:
+        1 * this.clusterService.getCluster("test") >> updatedTestCluster
+        1 * this.clusterService.getCommandsForCluster("test", null) >> Lists.newArrayList()
+        this.service.findClustersMatchingCriterion(criterion, true).get() == Sets.newHashSet(this.prodCluster)
+
+        when:
+        this.service.refreshCommand("hive")
+
+        then:
+        1 * this.commandService.getCommand("hive") >> { throw new GenieNotFoundException("gone") }
+        this.service.findCommandsMatchingCriterion(
+            new Criterion.Builder().withTags(Sets.newHashSet("type:hive")).build(),
+            true
+        ).get().isEmpty()
+    }
+
+    def "Invalidation forces fallback until the next refresh"() {
+        def criterion = new Criterion.Builder().withTags(Sets.newHashSet("type:yarn")).build()
+
+        when:
+        this.load()
+
+        then:
+        this.service.findClustersMatchingCriterion(criterion, true).isPresent()
+
+        when:
+        this.service.invalidate()
+
+        then:
+        !this.service.findClustersMatchingCriterion(criterion, true).isPresent()
+
+        when:
+        Thread.sleep(5)
+        this.load()
+
+        then:
+        this.service.findClustersMatchingCriterion(criterion, true).isPresent()
+    }
+
+    def "Failed refresh keeps serving until stale"() {
+        def criterion = new Criterion.Builder().withTags(Sets.newHashSet("type:yarn")).build()
+        this.properties.setMaxStaleness(500)
+        this.load()
+
+        when:
+        this.service.refresh()
+
+        then:
+        1 * this.clusterService.getClusters(null, null, null, null, null, _ as Pageable) >> {
+            throw new RuntimeException("DB down")
+        }
+        noExceptionThrown()
+        this.service.findClustersMatchingCriterion(criterion, true).isPresent()
+
+        when:
+        Thread.sleep(600)
+
+        then:
+        !this.service.findClustersMatchingCriterion(criterion, true).isPresent()
+    }
+
+    private void load() {
+        this.service.refresh()
+    }
+
+    private static Cluster createCluster(String id, String name, ClusterStatus status, String... tags) {
+        return new Cluster(
+            id,
+            Instant.now(),
+            Instant.now(),
+            new ExecutionEnvironment(null, null, null),
+            new ClusterMetadata.Builder(name, "user", "1.0", status).withTags(Sets.newHashSet(tags)).build()
+        )
+    }
+
+    private static Command createCommand(String id, String name, CommandStatus status, String... tags) {
+        return new Command(
+            id,
+            Instant.now(),
+            Instant.now(),
+            new ExecutionEnvironment(null, null, null),
+            new CommandMetadata.Builder(name, "user", "1.0", status).withTags(Sets.newHashSet(tags)).build(),
+            Lists.newArrayList(name),
+            null,
+            100L,
+            null
+        )
+    }
+}
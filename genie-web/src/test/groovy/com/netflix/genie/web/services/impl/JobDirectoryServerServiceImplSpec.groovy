@@ -38,10 +38,12 @@ import com.netflix.genie.web.services.JobFileService
 import io.micrometer.core.instrument.MeterRegistry
 import org.springframework.core.io.Resource
 import org.springframework.core.io.ResourceLoader
+import org.springframework.http.HttpHeaders
 import org.springframework.http.MediaType
 import spock.lang.Specification
 import spock.lang.Unroll
 
+import javax.servlet.ServletOutputStream
 import javax.servlet.http.HttpServletRequest
 import javax.servlet.http.HttpServletResponse
 import java.nio.file.Paths
@@ -136,9 +138,9 @@ class JobDirectoryServerServiceImplSpec extends Specification {
         this.service.serveResource(JOB_ID, BASE_URL, REL_PATH, this.request, this.response)
 
         then:
-        1 * this.jobPersistenceService.getJobStatus(JOB_ID) >> JobStatus.RUNNING
-        1 * this.jobPersistenceService.isV4(JOB_ID) >> true
         1 * this.agentRoutingService.isAgentConnectionLocal(JOB_ID) >> true
+        0 * this.jobPersistenceService.getJobStatus(_)
+        0 * this.jobPersistenceService.isV4(_)
         1 * this.agentFileStreamService.getManifest(JOB_ID) >> Optional.empty()
         thrown(GenieServerUnavailableException)
 
@@ -148,9 +150,9 @@ class JobDirectoryServerServiceImplSpec extends Specification {
         service.serveResource(JOB_ID, BASE_URL, REL_PATH, this.request, this.response)
 
         then:
-        1 * this.jobPersistenceService.getJobStatus(JOB_ID) >> JobStatus.RUNNING
-        1 * this.jobPersistenceService.isV4(JOB_ID) >> true
         1 * this.agentRoutingService.isAgentConnectionLocal(JOB_ID) >> true
+        0 * this.jobPersistenceService.getJobStatus(_)
+        0 * this.jobPersistenceService.isV4(_)
         1 * this.agentFileStreamService.getManifest(JOB_ID) >> Optional.of(this.manifest)
         1 * this.manifest.getEntry(REL_PATH) >> Optional.empty()
         thrown(GenieNotFoundException)
@@ -159,17 +161,143 @@ class JobDirectoryServerServiceImplSpec extends Specification {
         this.service.serveResource(JOB_ID, BASE_URL, REL_PATH, this.request, this.response)
 
         then:
-        1 * this.jobPersistenceService.getJobStatus(JOB_ID) >> JobStatus.RUNNING
-        1 * this.jobPersistenceService.isV4(JOB_ID) >> true
+        1 * this.agentRoutingService.isAgentConnectionLocal(JOB_ID) >> true
+        0 * this.jobPersistenceService.getJobStatus(_)
+        0 * this.jobPersistenceService.isV4(_)
+        1 * this.agentFileStreamService.getManifest(JOB_ID) >> Optional.of(this.manifest)
+        1 * this.manifest.getEntry(REL_PATH) >> Optional.of(this.manifestEntry)
+        1 * this.manifestEntry.isDirectory() >> false
+        1 * this.manifestEntry.getPath() >> REL_PATH
+        1 * this.resourceLoader.getResource(EXPECTED_V4_FILE_URI.toString()) >> this.resource
+        1 * this.manifestEntry.getMimeType() >> Optional.of(MediaType.TEXT_PLAIN_VALUE)
+        1 * this.handlerFactory.get(MediaType.TEXT_PLAIN_VALUE, resource) >> this.handler
+        1 * this.handler.handleRequest(this.request, this.response)
+    }
+
+    def "ServeResource -- Active V4 job range request"() {
+        setup:
+        AgentFileStreamService.AgentFileResource agentFileResource = Mock(AgentFileStreamService.AgentFileResource)
+        byte[] data = "world".getBytes()
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+        ServletOutputStream servletOutputStream = Mock(ServletOutputStream) {
+            write(_ as byte[], _ as int, _ as int) >> { args ->
+                outputStream.write(args[0] as byte[], args[1] as int, args[2] as int)
+            }
+        }
+
+        when: "Tail of the file is requested"
+        this.service.serveResource(JOB_ID, BASE_URL, REL_PATH, this.request, this.response)
+
+        then: "Only the requested range is transferred from the agent"
+        1 * this.agentRoutingService.isAgentConnectionLocal(JOB_ID) >> true
+        0 * this.jobPersistenceService.getJobStatus(_)
+        0 * this.jobPersistenceService.isV4(_)
+        1 * this.agentFileStreamService.getManifest(JOB_ID) >> Optional.of(this.manifest)
+        1 * this.request.getHeader(HttpHeaders.RANGE) >> "bytes=-5"
+        1 * this.request.getHeader(HttpHeaders.IF_RANGE) >> null
+        1 * this.request.getMethod() >> "GET"
+        1 * this.manifest.getEntry(REL_PATH) >> Optional.of(this.manifestEntry)
+        1 * this.manifestEntry.isDirectory() >> false
+        1 * this.manifestEntry.getSize() >> 100L
+        _ * this.manifestEntry.getPath() >> REL_PATH
+        1 * this.agentFileStreamService.getResource(
+            JOB_ID,
+            Paths.get(REL_PATH),
+            EXPECTED_V4_FILE_URI,
+            95L,
+            100L
+        ) >> Optional.of(agentFileResource)
+        1 * agentFileResource.exists() >> true
+        1 * this.manifestEntry.getMimeType() >> Optional.of(MediaType.TEXT_PLAIN_VALUE)
+        1 * this.response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT)
+        1 * this.response.setContentType(MediaType.TEXT_PLAIN_VALUE)
+        1 * this.response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes")
+        1 * this.response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes 95-99/100")
+        1 * agentFileResource.lastModified() >> 12345L
+        1 * this.response.setDateHeader(HttpHeaders.LAST_MODIFIED, 12345L)
+        1 * agentFileResource.contentLength() >> 5L
+        1 * this.response.setContentLengthLong(5L)
+        1 * agentFileResource.getInputStream() >> new ByteArrayInputStream(data)
+        1 * this.response.getOutputStream() >> servletOutputStream
+        0 * this.resourceLoader.getResource(_)
+        0 * this.handlerFactory.get(_, _)
+        outputStream.toByteArray() == data
+
+        when: "The range can't be satisfied"
+        this.service.serveResource(JOB_ID, BASE_URL, REL_PATH, this.request, this.response)
+
+        then:
+        1 * this.agentRoutingService.isAgentConnectionLocal(JOB_ID) >> true
+        0 * this.jobPersistenceService.getJobStatus(_)
+        0 * this.jobPersistenceService.isV4(_)
+        1 * this.agentFileStreamService.getManifest(JOB_ID) >> Optional.of(this.manifest)
+        1 * this.request.getHeader(HttpHeaders.RANGE) >> "bytes=200-300"
+        1 * this.request.getHeader(HttpHeaders.IF_RANGE) >> null
+        1 * this.request.getMethod() >> "GET"
+        1 * this.manifest.getEntry(REL_PATH) >> Optional.of(this.manifestEntry)
+        1 * this.manifestEntry.isDirectory() >> false
+        1 * this.manifestEntry.getSize() >> 100L
+        1 * this.response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */100")
+        1 * this.response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE)
+        0 * this.agentFileStreamService.getResource(_, _, _, _, _)
+        0 * this.handlerFactory.get(_, _)
+
+        when: "The range starts at the end of the file"
+        this.service.serveResource(JOB_ID, BASE_URL, REL_PATH, this.request, this.response)
+
+        then:
         1 * this.agentRoutingService.isAgentConnectionLocal(JOB_ID) >> true
         1 * this.agentFileStreamService.getManifest(JOB_ID) >> Optional.of(this.manifest)
+        1 * this.request.getHeader(HttpHeaders.RANGE) >> "bytes=100-"
+        1 * this.request.getHeader(HttpHeaders.IF_RANGE) >> null
+        1 * this.request.getMethod() >> "GET"
         1 * this.manifest.getEntry(REL_PATH) >> Optional.of(this.manifestEntry)
         1 * this.manifestEntry.isDirectory() >> false
+        1 * this.manifestEntry.getSize() >> 100L
+        1 * this.response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */100")
+        1 * this.response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE)
+        0 * this.response.setStatus(_)
+        0 * this.agentFileStreamService.getResource(_, _, _, _, _)
+        0 * this.handlerFactory.get(_, _)
+
+        when: "A range of an empty file is requested"
+        this.service.serveResource(JOB_ID, BASE_URL, REL_PATH, this.request, this.response)
+
+        then:
+        1 * this.agentRoutingService.isAgentConnectionLocal(JOB_ID) >> true
+        1 * this.agentFileStreamService.getManifest(JOB_ID) >> Optional.of(this.manifest)
+        1 * this.request.getHeader(HttpHeaders.RANGE) >> "bytes=0-"
+        1 * this.request.getHeader(HttpHeaders.IF_RANGE) >> null
+        1 * this.request.getMethod() >> "GET"
+        1 * this.manifest.getEntry(REL_PATH) >> Optional.of(this.manifestEntry)
+        1 * this.manifestEntry.isDirectory() >> false
+        1 * this.manifestEntry.getSize() >> 0L
+        1 * this.response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */0")
+        1 * this.response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE)
+        0 * this.response.setStatus(_)
+        0 * this.agentFileStreamService.getResource(_, _, _, _, _)
+        0 * this.handlerFactory.get(_, _)
+
+        when: "Multiple ranges are requested"
+        this.service.serveResource(JOB_ID, BASE_URL, REL_PATH, this.request, this.response)
+
+        then: "The request is served by the generic handler"
+        1 * this.agentRoutingService.isAgentConnectionLocal(JOB_ID) >> true
+        0 * this.jobPersistenceService.getJobStatus(_)
+        0 * this.jobPersistenceService.isV4(_)
+        1 * this.agentFileStreamService.getManifest(JOB_ID) >> Optional.of(this.manifest)
+        1 * this.request.getHeader(HttpHeaders.RANGE) >> "bytes=0-9,20-29"
+        1 * this.request.getHeader(HttpHeaders.IF_RANGE) >> null
+        1 * this.request.getMethod() >> "GET"
+        2 * this.manifest.getEntry(REL_PATH) >> Optional.of(this.manifestEntry)
+        2 * this.manifestEntry.isDirectory() >> false
+        1 * this.manifestEntry.getSize() >> 100L
         1 * this.manifestEntry.getPath() >> REL_PATH
         1 * this.resourceLoader.getResource(EXPECTED_V4_FILE_URI.toString()) >> this.resource
         1 * this.manifestEntry.getMimeType() >> Optional.of(MediaType.TEXT_PLAIN_VALUE)
         1 * this.handlerFactory.get(MediaType.TEXT_PLAIN_VALUE, resource) >> this.handler
         1 * this.handler.handleRequest(this.request, this.response)
+        0 * this.agentFileStreamService.getResource(_, _, _, _, _)
     }
 
     def "ServeResource -- Active V3 job"() {
@@ -180,6 +308,7 @@ class JobDirectoryServerServiceImplSpec extends Specification {
         this.service.serveResource(JOB_ID, BASE_URL, REL_PATH, this.request, this.response)
 
         then:
+        1 * this.agentRoutingService.isAgentConnectionLocal(JOB_ID) >> false
         1 * this.jobPersistenceService.getJobStatus(JOB_ID) >> JobStatus.RUNNING
         1 * this.jobPersistenceService.isV4(JOB_ID) >> false
         1 * this.jobFileService.getJobFileAsResource(JOB_ID, "") >> resource
@@ -192,6 +321,7 @@ class JobDirectoryServerServiceImplSpec extends Specification {
         this.service.serveResource(JOB_ID, BASE_URL, REL_PATH, this.request, this.response)
 
         then:
+        1 * this.agentRoutingService.isAgentConnectionLocal(JOB_ID) >> false
         1 * this.jobPersistenceService.getJobStatus(JOB_ID) >> JobStatus.RUNNING
         1 * this.jobPersistenceService.isV4(JOB_ID) >> false
         1 * this.jobFileService.getJobFileAsResource(JOB_ID, "") >> resource
@@ -204,6 +334,7 @@ class JobDirectoryServerServiceImplSpec extends Specification {
         this.service.serveResource(JOB_ID, BASE_URL, REL_PATH, this.request, this.response)
 
         then:
+        1 * this.agentRoutingService.isAgentConnectionLocal(JOB_ID) >> false
         1 * this.jobPersistenceService.getJobStatus(JOB_ID) >> JobStatus.RUNNING
         1 * this.jobPersistenceService.isV4(JOB_ID) >> false
         1 * this.jobFileService.getJobFileAsResource(JOB_ID, "") >> resource
@@ -26,9 +26,13 @@ import com.netflix.genie.web.dtos.JobSubmission
 import com.netflix.genie.web.dtos.ResolvedJob
 import com.netflix.genie.web.exceptions.checked.AgentLaunchException
 import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException
+import com.netflix.genie.web.exceptions.checked.JobLaunchRejectedException
 import com.netflix.genie.web.exceptions.checked.SaveAttachmentException
+import com.netflix.genie.web.properties.JobLaunchProperties
 import com.netflix.genie.web.services.JobResolverService
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.core.task.TaskExecutor
+import org.springframework.core.task.TaskRejectedException
 import spock.lang.Specification
 
 /**
@@ -46,7 +50,14 @@ class JobLaunchServiceImplSpec extends Specification {
         def dataServices = Mock(DataServices) {
             getJobPersistenceService() >> jobPersistenceService
         }
-        def service = new JobLaunchServiceImpl(dataServices, jobResolverService, agentLauncher, registry)
+        def service = new JobLaunchServiceImpl(
+            dataServices,
+            jobResolverService,
+            agentLauncher,
+            new JobLaunchProperties(),
+            Mock(TaskExecutor),
+            registry
+        )
 
         def jobId = UUID.randomUUID().toString()
         def resolvedJob = Mock(ResolvedJob)
@@ -71,7 +82,14 @@ class JobLaunchServiceImplSpec extends Specification {
         def dataServices = Mock(DataServices) {
             getJobPersistenceService() >> jobPersistenceService
         }
-        def service = new JobLaunchServiceImpl(dataServices, jobResolverService, agentLauncher, registry)
+        def service = new JobLaunchServiceImpl(
+            dataServices,
+            jobResolverService,
+            agentLauncher,
+            new JobLaunchProperties(),
+            Mock(TaskExecutor),
+            registry
+        )
 
         def jobId = UUID.randomUUID().toString()
         def resolvedJob = Mock(ResolvedJob)
@@ -151,4 +169,121 @@ class JobLaunchServiceImplSpec extends Specification {
         1 * jobPersistenceService.updateJobStatus(jobId, JobStatus.ACCEPTED, JobStatus.FAILED, _ as String)
         thrown(AgentLaunchException)
     }
+
+    def "accepting a job launches synchronously unless async is enabled"() {
+        def jobPersistenceService = Mock(JobPersistenceService)
+        def jobResolverService = Mock(JobResolverService)
+        def agentLauncher = Mock(AgentLauncher)
+        def launchExecutor = Mock(TaskExecutor)
+        def dataServices = Mock(DataServices) {
+            getJobPersistenceService() >> jobPersistenceService
+        }
+        def service = new JobLaunchServiceImpl(
+            dataServices,
+            jobResolverService,
+            agentLauncher,
+            new JobLaunchProperties(),
+            launchExecutor,
+            new SimpleMeterRegistry()
+        )
+
+        def jobId = UUID.randomUUID().toString()
+        def resolvedJob = Mock(ResolvedJob)
+        def jobSubmission = Mock(JobSubmission)
+
+        when:
+        def savedJobId = service.acceptJob(jobSubmission)
+
+        then:
+        1 * jobPersistenceService.saveJobSubmission(jobSubmission) >> jobId
+        1 * jobResolverService.resolveJob(jobId) >> resolvedJob
+        1 * jobPersistenceService.updateJobStatus(jobId, JobStatus.RESOLVED, JobStatus.ACCEPTED, _ as String)
+        1 * agentLauncher.launchAgent(resolvedJob)
+        0 * launchExecutor.execute(_ as Runnable)
+        savedJobId == jobId
+    }
+
+    def "accepted jobs are launched in the background and excess submissions are rejected"() {
+        def jobPersistenceService = Mock(JobPersistenceService)
+        def jobResolverService = Mock(JobResolverService)
+        def agentLauncher = Mock(AgentLauncher)
+        def launchExecutor = Mock(TaskExecutor)
+        def registry = new SimpleMeterRegistry()
+        def dataServices = Mock(DataServices) {
+            getJobPersistenceService() >> jobPersistenceService
+        }
+        def properties = new JobLaunchProperties()
+        properties.setAsync(true)
+        properties.setMaxPendingLaunches(1)
+        def service = new JobLaunchServiceImpl(
+            dataServices,
+            jobResolverService,
+            agentLauncher,
+            properties,
+            launchExecutor,
+            registry
+        )
+
+        def jobId = UUID.randomUUID().toString()
+        def resolvedJob = Mock(ResolvedJob)
+        def jobSubmission = Mock(JobSubmission)
+        Runnable launch = null
+
+        when:
+        def savedJobId = service.acceptJob(jobSubmission)
+
+        then:
+        1 * jobPersistenceService.saveJobSubmission(jobSubmission) >> jobId
+        1 * launchExecutor.execute(_ as Runnable) >> { args -> launch = args[0] as Runnable }
+        0 * jobResolverService.resolveJob(_ as String)
+        0 * agentLauncher.launchAgent(_ as ResolvedJob)
+        savedJobId == jobId
+        launch != null
+        registry.get("genie.services.jobLaunch.pendingLaunches.gauge").gauge().value() == 1
+
+        when:
+        service.acceptJob(jobSubmission)
+
+        then:
+        0 * jobPersistenceService.saveJobSubmission(_ as JobSubmission)
+        0 * launchExecutor.execute(_ as Runnable)
+        thrown(JobLaunchRejectedException)
+        registry.get("genie.services.jobLaunch.rejected.counter").counter().count() == 1
+
+        when:
+        launch.run()
+
+        then:
+        1 * jobResolverService.resolveJob(jobId) >> resolvedJob
+        1 * jobPersistenceService.updateJobStatus(jobId, JobStatus.RESOLVED, JobStatus.ACCEPTED, _ as String)
+        1 * agentLauncher.launchAgent(resolvedJob) >> {
+            throw new AgentLaunchException("that didn't work")
+        }
+        1 * jobPersistenceService.updateJobStatus(jobId, JobStatus.ACCEPTED, JobStatus.FAILED, _ as String)
+        noExceptionThrown()
+        registry.get("genie.services.jobLaunch.pendingLaunches.gauge").gauge().value() == 0
+
+        when:
+        service.acceptJob(jobSubmission)
+
+        then:
+        1 * jobPersistenceService.saveJobSubmission(jobSubmission) >> {
+            throw new SaveAttachmentException("hmm that's not good")
+        }
+        0 * launchExecutor.execute(_ as Runnable)
+        thrown(SaveAttachmentException)
+        registry.get("genie.services.jobLaunch.pendingLaunches.gauge").gauge().value() == 0
+
+        when:
+        service.acceptJob(jobSubmission)
+
+        then:
+        1 * jobPersistenceService.saveJobSubmission(jobSubmission) >> jobId
+        1 * launchExecutor.execute(_ as Runnable) >> {
+            throw new TaskRejectedException("full")
+        }
+        1 * jobPersistenceService.updateJobStatus(jobId, JobStatus.RESERVED, JobStatus.FAILED, _ as String)
+        thrown(JobLaunchRejectedException)
+        registry.get("genie.services.jobLaunch.pendingLaunches.gauge").gauge().value() == 0
+    }
 }
@@ -48,6 +48,7 @@ import com.netflix.genie.web.exceptions.checked.ResourceSelectionException
 import com.netflix.genie.web.properties.JobsProperties
 import com.netflix.genie.web.selectors.ClusterSelector
 import com.netflix.genie.web.selectors.CommandSelector
+import com.netflix.genie.web.services.CriteriaIndexService
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import org.apache.commons.lang3.StringUtils
 import org.springframework.core.env.Environment
@@ -72,6 +73,7 @@ class JobResolverServiceImplSpec extends Specification {
     CommandSelector commandSelector
     JobsProperties jobsProperties
     Environment environment
+    CriteriaIndexService criteriaIndexService
 
     JobResolverServiceImpl service
 
@@ -84,6 +86,11 @@ class JobResolverServiceImplSpec extends Specification {
         this.jobService = Mock(JobPersistenceService)
         this.jobsProperties = JobsProperties.getJobsPropertiesDefaults()
         this.environment = Mock(Environment)
+        this.criteriaIndexService = Mock(CriteriaIndexService) {
+            findClustersMatchingCriterion(_ as Criterion, _ as boolean) >> Optional.empty()
+            findCommandsMatchingCriterion(_ as Criterion, _ as boolean) >> Optional.empty()
+            findClustersAndCommandsForCriteria(_ as List, _ as Criterion) >> Optional.empty()
+        }
         def dataServices = Mock(DataServices) {
             getApplicationPersistenceService() >> this.applicationService
             getClusterPersistenceService() >> this.clusterService
@@ -96,7 +103,8 @@ class JobResolverServiceImplSpec extends Specification {
             this.commandSelector,
             new SimpleMeterRegistry(),
             this.jobsProperties,
-            this.environment
+            this.environment,
+            this.criteriaIndexService
         )
     }
 
@@ -322,6 +330,9 @@ class JobResolverServiceImplSpec extends Specification {
         jobSpec.getCluster().getId() == cluster1Id
         jobSpec.getCommand().getId() == command0Id
         jobSpec.getApplications().isEmpty()
+        resolvedJob.getCluster() == Optional.of(cluster1)
+        resolvedJob.getCommand() == Optional.of(command0)
+        resolvedJob.getApplications().isEmpty()
         !jobSpec.isInteractive()
         jobSpec.getEnvironmentVariables().size() == 19
         jobSpec.getArchiveLocation() == Optional.of(requestedArchiveLocationPrefix + File.separator + jobId)
@@ -686,6 +697,67 @@ class JobResolverServiceImplSpec extends Specification {
         resolvedCommand == command0
     }
 
+    def "can resolve command and cluster from the criteria index"() {
+        def jobRequest = createJobRequest(Lists.newArrayList(UUID.randomUUID().toString()), null, null, null)
+        def jobId = UUID.randomUUID().toString()
+        def command = createCommand(UUID.randomUUID().toString(), Lists.newArrayList(UUID.randomUUID().toString()))
+        def cluster = createCluster(UUID.randomUUID().toString())
+        def commandCriterion = jobRequest.getCriteria().getCommandCriterion()
+
+        when: "The index can answer"
+        def resolvedCommand = this.service.resolveCommand(jobRequest, jobId)
+        def resolvedCluster = this.service.resolveCluster(command, jobRequest, jobId)
+
+        then: "The database isn't queried"
+        1 * this.criteriaIndexService.findCommandsMatchingCriterion(commandCriterion, true) >> Optional.of(
+            Sets.newHashSet(command)
+        )
+        1 * this.criteriaIndexService.findClustersMatchingCriterion(_ as Criterion, true) >> Optional.of(
+            Sets.newHashSet(cluster)
+        )
+        0 * this.commandService.findCommandsMatchingCriterion(_ as Criterion, _ as boolean)
+        0 * this.clusterService.findClustersMatchingCriterion(_ as Criterion, _ as boolean)
+        resolvedCommand == command
+        resolvedCluster == cluster
+
+        when: "The index can't answer"
+        resolvedCommand = this.service.resolveCommand(jobRequest, jobId)
+
+        then: "The database is queried"
+        1 * this.criteriaIndexService.findCommandsMatchingCriterion(commandCriterion, true) >> Optional.empty()
+        1 * this.commandService.findCommandsMatchingCriterion(commandCriterion, true) >> Sets.newHashSet(command)
+        resolvedCommand == command
+    }
+
+    def "can resolve command from the database when the criteria index is disabled"() {
+        def dataServices = Mock(DataServices) {
+            getApplicationPersistenceService() >> this.applicationService
+            getClusterPersistenceService() >> this.clusterService
+            getCommandPersistenceService() >> this.commandService
+            getJobPersistenceService() >> this.jobService
+        }
+        def service = new JobResolverServiceImpl(
+            dataServices,
+            Lists.newArrayList(this.clusterSelector),
+            this.commandSelector,
+            new SimpleMeterRegistry(),
+            this.jobsProperties,
+            this.environment,
+            null
+        )
+        def jobRequest = createJobRequest(Lists.newArrayList(UUID.randomUUID().toString()), null, null, null)
+        def jobId = UUID.randomUUID().toString()
+        def command = createCommand(UUID.randomUUID().toString(), Lists.newArrayList(UUID.randomUUID().toString()))
+        def commandCriterion = jobRequest.getCriteria().getCommandCriterion()
+
+        when:
+        def resolvedCommand = service.resolveCommand(jobRequest, jobId)
+
+        then:
+        1 * this.commandService.findCommandsMatchingCriterion(commandCriterion, true) >> Sets.newHashSet(command)
+        resolvedCommand == command
+    }
+
     def "Can resolve cluster"() {
         def command = Mock(Command)
         def cluster0 = createCluster(UUID.randomUUID().toString())
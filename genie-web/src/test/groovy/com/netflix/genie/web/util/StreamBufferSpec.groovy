@@ -22,7 +22,9 @@ import org.apache.commons.lang3.NotImplementedException
 import spock.lang.Specification
 import spock.lang.Timeout
 
+import java.util.concurrent.CountDownLatch
 import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
 
 class StreamBufferSpec extends Specification {
     StreamBuffer buffer
@@ -85,6 +87,152 @@ class StreamBufferSpec extends Specification {
         dataToWrite == dataRead
     }
 
+    def "Invalid capacity"() {
+        when:
+        new StreamBuffer(0)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "Buffer multiple chunks"() {
+        setup:
+        byte[] dataRead = new byte[30]
+        InputStream inputStream = this.buffer.getInputStream()
+
+        when:
+        this.buffer.write(ByteString.copyFromUtf8("0123456789"))
+        this.buffer.write(ByteString.copyFromUtf8("abcdefghij"))
+        this.buffer.write(ByteString.copyFromUtf8("ABCDEFGHIJ"))
+        this.buffer.closeForCompleted()
+
+        then:
+        inputStream.read(dataRead, 0, 5) == 5
+        inputStream.read(dataRead, 5, 30 - 5) == 5
+        inputStream.read(dataRead, 10, 30 - 10) == 10
+        inputStream.read(dataRead, 20, 30 - 20) == 10
+        inputStream.read(dataRead, 0, 30) == -1
+        new String(dataRead) == "0123456789abcdefghijABCDEFGHIJ"
+    }
+
+    @Timeout(value = 10)
+    def "Write blocks when capacity is reached"() {
+        setup:
+        this.buffer = new StreamBuffer(20)
+        byte[] dataRead = new byte[30]
+        InputStream inputStream = this.buffer.getInputStream()
+        CountDownLatch writeCompleted = new CountDownLatch(1)
+
+        when:
+        // Chunks larger than the capacity are accepted if the buffer is empty
+        this.buffer.write(ByteString.copyFromUtf8("0123456789abcdefghijABCDEFGHIJ"))
+        Thread writeThread = Thread.start {
+            buffer.write(ByteString.copyFromUtf8("!"))
+            writeCompleted.countDown()
+        }
+
+        then:
+        !writeCompleted.await(100, TimeUnit.MILLISECONDS)
+
+        when:
+        inputStream.read(dataRead, 0, 20)
+
+        then:
+        !writeCompleted.await(100, TimeUnit.MILLISECONDS)
+
+        when:
+        inputStream.read(dataRead, 20, 10)
+        writeThread.join()
+
+        then:
+        writeCompleted.getCount() == 0
+        inputStream.read(dataRead, 0, 30) == 1
+        dataRead[0] == (byte) '!'
+    }
+
+    def "Read after closing for error"() {
+        setup:
+        byte[] dataRead = new byte[30]
+        InputStream inputStream = this.buffer.getInputStream()
+        RuntimeException cause = new RuntimeException("...")
+
+        when:
+        this.buffer.write(ByteString.copyFromUtf8("Hello World!"))
+        this.buffer.closeForError(cause)
+
+        then:
+        inputStream.read(dataRead, 0, 30) == 12
+
+        when:
+        inputStream.read(dataRead, 0, 30)
+
+        then:
+        IOException e = thrown(IOException)
+        e.getCause() == cause
+    }
+
+    @Timeout(value = 10)
+    def "Interrupt blocked reader and writer"() {
+        setup:
+        this.buffer = new StreamBuffer(10)
+        InputStream inputStream = this.buffer.getInputStream()
+        Throwable readerException = null
+        Throwable writerException = null
+        boolean readerInterrupted = false
+
+        when:
+        Thread readThread = Thread.start {
+            try {
+                inputStream.read(new byte[10], 0, 10)
+            } catch (Throwable t) {
+                readerException = t
+                readerInterrupted = Thread.currentThread().isInterrupted()
+            }
+        }
+        Thread.sleep(100)
+        readThread.interrupt()
+        readThread.join()
+
+        then:
+        readerException instanceof InterruptedIOException
+        readerInterrupted
+
+        when:
+        this.buffer.write(ByteString.copyFromUtf8("0123456789"))
+        Thread writeThread = Thread.start {
+            try {
+                buffer.write(ByteString.copyFromUtf8("abcdefghij"))
+            } catch (Throwable t) {
+                writerException = t
+            }
+        }
+        Thread.sleep(100)
+        writeThread.interrupt()
+        writeThread.join()
+
+        then:
+        writerException instanceof InterruptedException
+    }
+
+    def "Transfer to output stream"() {
+        setup:
+        StreamBuffer.StreamBufferInputStream inputStream =
+            (StreamBuffer.StreamBufferInputStream) this.buffer.getInputStream()
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+        byte[] dataRead = new byte[5]
+
+        when:
+        this.buffer.write(ByteString.copyFromUtf8("0123456789"))
+        this.buffer.write(ByteString.copyFromUtf8("abcdefghij"))
+        this.buffer.closeForCompleted()
+        inputStream.read(dataRead, 0, 5)
+
+        then:
+        inputStream.transferTo(outputStream) == 15
+        outputStream.toString() == "56789abcdefghij"
+        inputStream.read(dataRead, 0, 5) == -1
+    }
+
     def "Write after closing"() {
 
         when:
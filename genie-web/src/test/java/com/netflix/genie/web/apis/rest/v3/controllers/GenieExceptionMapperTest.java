@@ -40,6 +40,7 @@ import com.netflix.genie.common.internal.exceptions.unchecked.GenieJobNotFoundEx
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieJobSpecificationNotFoundException;
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieRuntimeException;
 import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException;
+import com.netflix.genie.web.exceptions.checked.JobLaunchRejectedException;
 import com.netflix.genie.web.exceptions.checked.SaveAttachmentException;
 import com.netflix.genie.web.util.MetricsConstants;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -51,6 +52,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.core.MethodParameter;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -152,6 +154,28 @@ class GenieExceptionMapperTest {
             .increment();
     }
 
+    /**
+     * Test rejected asynchronous tasks.
+     */
+    @Test
+    void canHandleTaskRejectedExceptions() {
+        final TaskRejectedException exception = new TaskRejectedException("rejected");
+        final ResponseEntity<GenieServerUnavailableException> response
+            = this.mapper.handleTaskRejectedException(exception);
+        Assertions.assertThat(response.getStatusCode()).isEqualByComparingTo(HttpStatus.SERVICE_UNAVAILABLE);
+        Mockito
+            .verify(this.registry, Mockito.times(1))
+            .counter(
+                GenieExceptionMapper.CONTROLLER_EXCEPTION_COUNTER_NAME,
+                Sets.newHashSet(
+                    Tag.of(MetricsConstants.TagKeys.EXCEPTION_CLASS, exception.getClass().getCanonicalName())
+                )
+            );
+        Mockito
+            .verify(this.counter, Mockito.times(1))
+            .increment();
+    }
+
     /**
      * Test method argument not valid exceptions.
      */
@@ -225,6 +249,7 @@ class GenieExceptionMapperTest {
         exceptions.put(new GenieConversionException(), HttpStatus.INTERNAL_SERVER_ERROR);
         exceptions.put(new GenieCheckedException(), HttpStatus.INTERNAL_SERVER_ERROR);
         exceptions.put(new IdAlreadyExistsException(), HttpStatus.CONFLICT);
+        exceptions.put(new JobLaunchRejectedException(), HttpStatus.SERVICE_UNAVAILABLE);
         exceptions.put(new JobArchiveException(), HttpStatus.INTERNAL_SERVER_ERROR);
         exceptions.put(new SaveAttachmentException(), HttpStatus.INTERNAL_SERVER_ERROR);
 
@@ -21,14 +21,21 @@ import com.netflix.genie.web.data.entities.ClusterEntity;
 import com.netflix.genie.web.data.entities.CommandEntity;
 import com.netflix.genie.web.data.entities.JobEntity;
 import com.netflix.genie.web.data.entities.JobEntity_;
+import com.netflix.genie.web.data.entities.TagEntity;
+import com.netflix.genie.web.data.entities.TagEntity_;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
 import org.mockito.Mockito;
 
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Set;
@@ -59,8 +66,11 @@ class JpaJobSpecsTest {
     private static final String GROUPING_INSTANCE = UUID.randomUUID().toString();
 
     private Root<JobEntity> root;
+    private CriteriaQuery<?> cq;
     private CriteriaBuilder cb;
-    private String tagLikeStatement;
+    private Subquery<Long> taggedJobIds;
+    private Path<Long> jobIdPath;
+    private Path<String> tagPath;
 
     /**
      * Setup the mocks.
@@ -76,6 +86,7 @@ class JpaJobSpecsTest {
         STATUSES.add(JobStatus.FAILED.name());
 
         this.root = (Root<JobEntity>) Mockito.mock(Root.class);
+        this.cq = Mockito.mock(CriteriaQuery.class);
         this.cb = Mockito.mock(CriteriaBuilder.class);
 
         final Path<String> idPath = (Path<String>) Mockito.mock(Path.class);
@@ -124,12 +135,20 @@ class JpaJobSpecsTest {
         Mockito.when(this.root.get(JobEntity_.command)).thenReturn(commandIdPath);
         Mockito.when(this.cb.equal(clusterIdPath, COMMAND)).thenReturn(equalCommandIdPredicate);
 
-        final Path<String> tagPath = (Path<String>) Mockito.mock(Path.class);
-        final Predicate likeTagPredicate = Mockito.mock(Predicate.class);
-        Mockito.when(this.root.get(JobEntity_.tagSearchString)).thenReturn(tagPath);
-        Mockito.when(this.cb.like(Mockito.eq(tagPath), Mockito.any(String.class))).thenReturn(likeTagPredicate);
-
-        this.tagLikeStatement = JpaSpecificationUtils.getTagLikeString(TAGS);
+        this.jobIdPath = (Path<Long>) Mockito.mock(Path.class);
+        Mockito.when(this.root.get(JobEntity_.id)).thenReturn(this.jobIdPath);
+        this.taggedJobIds = (Subquery<Long>) Mockito.mock(Subquery.class, Answers.RETURNS_SELF);
+        Mockito.when(this.cq.subquery(Long.class)).thenReturn(this.taggedJobIds);
+        final Root<JobEntity> taggedJob = (Root<JobEntity>) Mockito.mock(Root.class);
+        Mockito.when(this.taggedJobIds.from(JobEntity.class)).thenReturn(taggedJob);
+        final Join<JobEntity, TagEntity> tagJoin = (Join<JobEntity, TagEntity>) Mockito.mock(Join.class);
+        Mockito.when(taggedJob.join(JobEntity_.tags)).thenReturn(tagJoin);
+        this.tagPath = (Path<String>) Mockito.mock(Path.class);
+        Mockito.when(tagJoin.get(TagEntity_.tag)).thenReturn(this.tagPath);
+        final Path<Long> taggedJobIdPath = (Path<Long>) Mockito.mock(Path.class);
+        Mockito.when(taggedJob.get(JobEntity_.id)).thenReturn(taggedJobIdPath);
+        final Expression<Long> taggedJobCount = (Expression<Long>) Mockito.mock(Expression.class);
+        Mockito.when(this.cb.count(taggedJobIdPath)).thenReturn(taggedJobCount);
 
         final Path<Instant> startedPath = (Path<Instant>) Mockito.mock(Path.class);
         final Predicate minStartedPredicate = Mockito.mock(Predicate.class);
@@ -173,6 +192,7 @@ class JpaJobSpecsTest {
     void testFindWithAll() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -201,9 +221,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.
-            verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -228,6 +247,7 @@ class JpaJobSpecsTest {
         final String newGroupingInstance = GROUPING_INSTANCE + "%";
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             newId,
             newName,
@@ -256,9 +276,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.commandName), newCommandName);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -276,6 +295,7 @@ class JpaJobSpecsTest {
     void testFindWithOutId() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             null,
             JOB_NAME,
@@ -305,9 +325,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -325,6 +344,7 @@ class JpaJobSpecsTest {
     void testFindWithOutJobName() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             null,
@@ -354,9 +374,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -374,6 +393,7 @@ class JpaJobSpecsTest {
     void testFindWithOutUserName() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -403,9 +423,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -423,6 +442,7 @@ class JpaJobSpecsTest {
     void testFindWithOutStatus() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -451,9 +471,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -471,6 +490,7 @@ class JpaJobSpecsTest {
     void testFindWithEmptyStatus() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -499,9 +519,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -519,6 +538,7 @@ class JpaJobSpecsTest {
     void testFindWithOutClusterName() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -548,9 +568,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -568,6 +587,7 @@ class JpaJobSpecsTest {
     void testFindWithOutClusterId() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -596,9 +616,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.never()).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -616,6 +635,7 @@ class JpaJobSpecsTest {
     void testFindWithOutCommandName() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -645,9 +665,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.never()).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.never()).like(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -665,6 +684,7 @@ class JpaJobSpecsTest {
     void testFindWithOutCommandId() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -693,9 +713,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.never()).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -713,6 +732,7 @@ class JpaJobSpecsTest {
     void testFindWithOutTags() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -741,7 +761,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.never()).like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.never()).subquery(Mockito.any());
+        Mockito.verify(this.jobIdPath, Mockito.never()).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -752,6 +773,63 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.groupingInstance), GROUPING_INSTANCE);
     }
 
+    /**
+     * Make sure blank tags aren't searched for in the jobs tags.
+     */
+    @Test
+    void testFindWithBlankTags() {
+        final Set<String> tags = Sets.newHashSet(TAG, " ", UUID.randomUUID().toString());
+        JpaJobSpecs.getFindPredicate(
+            this.root,
+            this.cq,
+            this.cb,
+            null,
+            null,
+            null,
+            null,
+            tags,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null
+        );
+
+        tags.remove(" ");
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(tags);
+        Mockito.verify(this.cb, Mockito.times(1)).equal(Mockito.any(Expression.class), Mockito.eq(2));
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
+
+        JpaJobSpecs.getFindPredicate(
+            this.root,
+            this.cq,
+            this.cb,
+            null,
+            null,
+            null,
+            null,
+            Sets.newHashSet(" "),
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null
+        );
+
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(Long.class);
+        Mockito.verify(this.cb, Mockito.times(1)).isNotEmpty(this.root.get(JobEntity_.tags));
+    }
+
     /**
      * Test the find specification.
      */
@@ -759,6 +837,7 @@ class JpaJobSpecsTest {
     void testFindWithOutMinStarted() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -787,9 +866,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.never()).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -807,6 +885,7 @@ class JpaJobSpecsTest {
     void testFindWithOutMaxStarted() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -835,9 +914,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.never()).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -855,6 +933,7 @@ class JpaJobSpecsTest {
     void testFindWithOutMinFinished() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -883,9 +962,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -903,6 +981,7 @@ class JpaJobSpecsTest {
     void testFindWithOutMaxFinished() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -931,9 +1010,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -952,6 +1030,7 @@ class JpaJobSpecsTest {
         TAGS.add("");
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -978,9 +1057,8 @@ class JpaJobSpecsTest {
         }
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.clusterName), CLUSTER_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -996,6 +1074,7 @@ class JpaJobSpecsTest {
     void testFindWithOutGrouping() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -1024,9 +1103,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -1044,6 +1122,7 @@ class JpaJobSpecsTest {
     void testFindWithOutGroupingInstance() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -1072,9 +1151,8 @@ class JpaJobSpecsTest {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito
-            .verify(this.cb, Mockito.times(1))
-            .like(this.root.get(JobEntity_.tagSearchString), this.tagLikeStatement);
+        Mockito.verify(this.tagPath, Mockito.times(1)).in(TAGS);
+        Mockito.verify(this.jobIdPath, Mockito.times(1)).in(this.taggedJobIds);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
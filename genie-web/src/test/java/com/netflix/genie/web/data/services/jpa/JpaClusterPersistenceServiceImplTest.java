@@ -48,6 +48,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Tests for the {@link JpaClusterPersistenceServiceImpl}.
@@ -117,8 +118,8 @@ class JpaClusterPersistenceServiceImplTest {
             .build();
 
         Mockito
-            .when(this.filePersistenceService.getFile(Mockito.anyString()))
-            .thenReturn(Optional.of(new FileEntity(UUID.randomUUID().toString())));
+            .when(this.filePersistenceService.createAndGetFiles(configs))
+            .thenReturn(configs.stream().map(FileEntity::new).collect(Collectors.toSet()));
         Mockito
             .when(this.jpaClusterRepository.save(Mockito.any(ClusterEntity.class)))
             .thenThrow(new DuplicateKeyException("Duplicate Key"));
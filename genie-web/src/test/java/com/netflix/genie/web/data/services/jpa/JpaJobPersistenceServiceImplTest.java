@@ -173,10 +173,9 @@ public class JpaJobPersistenceServiceImplTest {
 
         final TagEntity fooTag = new TagEntity();
         fooTag.setTag("foo");
-        Mockito.when(this.tagPersistenceService.getTag("foo")).thenReturn(Optional.of(fooTag));
         final TagEntity barTag = new TagEntity();
         barTag.setTag("bar");
-        Mockito.when(this.tagPersistenceService.getTag("bar")).thenReturn(Optional.of(barTag));
+        Mockito.when(this.tagPersistenceService.createAndGetTags(tags)).thenReturn(Sets.newHashSet(fooTag, barTag));
         final FileEntity setupFileEntity = new FileEntity();
         setupFileEntity.setFile(setupFile);
         Mockito.when(this.filePersistenceService.getFile(setupFile)).thenReturn(Optional.of(setupFileEntity));
@@ -267,12 +266,6 @@ public class JpaJobPersistenceServiceImplTest {
 
         final JobExecution execution = new JobExecution.Builder(UUID.randomUUID().toString()).build();
 
-        Mockito
-            .when(this.tagPersistenceService.getTag(Mockito.anyString()))
-            .thenReturn(Optional.of(new TagEntity(UUID.randomUUID().toString())));
-        Mockito
-            .when(this.filePersistenceService.getFile(Mockito.anyString()))
-            .thenReturn(Optional.of(new FileEntity(UUID.randomUUID().toString())));
         Mockito
             .when(this.jobRepository.save(Mockito.any(JobEntity.class)))
             .thenThrow(new DuplicateKeyException("Duplicate Key"));
@@ -543,6 +536,77 @@ public class JpaJobPersistenceServiceImplTest {
             );
     }
 
+    /**
+     * Make sure a job can be created along with its runtime environment in a single save.
+     *
+     * @throws GenieException For any problem
+     */
+    @Test
+    public void canCreateJobWithRuntimeEnvironment() throws GenieException {
+        final String clusterId = UUID.randomUUID().toString();
+        final String commandId = UUID.randomUUID().toString();
+        final String applicationId = UUID.randomUUID().toString();
+        final ClusterEntity clusterEntity = new ClusterEntity();
+        final CommandEntity commandEntity = new CommandEntity();
+        final ApplicationEntity applicationEntity = new ApplicationEntity();
+        Mockito.when(this.clusterRepository.findByUniqueId(clusterId)).thenReturn(Optional.of(clusterEntity));
+        Mockito.when(this.commandRepository.findByUniqueId(commandId)).thenReturn(Optional.of(commandEntity));
+        Mockito
+            .when(this.applicationRepository.findByUniqueId(applicationId))
+            .thenReturn(Optional.of(applicationEntity));
+
+        final ArgumentCaptor<JobEntity> argument = ArgumentCaptor.forClass(JobEntity.class);
+        this.jobPersistenceService.createJobWithRuntimeEnvironment(
+            new JobRequest.Builder(JOB_1_NAME, JOB_1_USER, JOB_1_VERSION, Lists.newArrayList(), Sets.newHashSet())
+                .withId(JOB_1_ID)
+                .build(),
+            new JobMetadata.Builder().withNumAttachments(0).withTotalSizeOfAttachments(0L).build(),
+            new Job.Builder(JOB_1_NAME, JOB_1_USER, JOB_1_VERSION).build(),
+            new JobExecution.Builder(UUID.randomUUID().toString()).build(),
+            clusterId,
+            commandId,
+            Lists.newArrayList(applicationId),
+            1_024
+        );
+        Mockito.verify(this.jobRepository, Mockito.times(1)).save(argument.capture());
+        Mockito.verify(this.jobRepository, Mockito.never()).findByUniqueId(Mockito.anyString());
+        final JobEntity jobEntity = argument.getValue();
+        Assertions.assertThat(jobEntity.getUniqueId()).isEqualTo(JOB_1_ID);
+        Assertions.assertThat(jobEntity.getCluster()).contains(clusterEntity);
+        Assertions.assertThat(jobEntity.getCommand()).contains(commandEntity);
+        Assertions.assertThat(jobEntity.getApplications()).containsExactly(applicationEntity);
+        Assertions.assertThat(jobEntity.getMemoryUsed()).contains(1_024);
+        Assertions.assertThat(jobEntity.isResolved()).isTrue();
+    }
+
+    /**
+     * Make sure a job isn't created if the resources of its runtime environment don't exist.
+     */
+    @Test
+    public void cantCreateJobWithRuntimeEnvironmentForNonExistentCluster() {
+        final String clusterId = UUID.randomUUID().toString();
+        final JobRequest jobRequest = new JobRequest
+            .Builder(JOB_1_NAME, JOB_1_USER, JOB_1_VERSION, Lists.newArrayList(), Sets.newHashSet())
+            .withId(JOB_1_ID)
+            .build();
+        Mockito.when(this.clusterRepository.findByUniqueId(clusterId)).thenReturn(Optional.empty());
+        Assertions
+            .assertThatExceptionOfType(GenieNotFoundException.class)
+            .isThrownBy(
+                () -> this.jobPersistenceService.createJobWithRuntimeEnvironment(
+                    jobRequest,
+                    new JobMetadata.Builder().withNumAttachments(0).withTotalSizeOfAttachments(0L).build(),
+                    new Job.Builder(JOB_1_NAME, JOB_1_USER, JOB_1_VERSION).build(),
+                    new JobExecution.Builder(UUID.randomUUID().toString()).build(),
+                    clusterId,
+                    UUID.randomUUID().toString(),
+                    Lists.newArrayList(),
+                    1
+                )
+            );
+        Mockito.verify(this.jobRepository, Mockito.never()).save(Mockito.any(JobEntity.class));
+    }
+
     /**
      * Make sure we can't update a job if it can't be found.
      */
@@ -51,9 +51,16 @@ class DatabaseCleanupPropertiesTest {
         Assertions.assertThat(this.properties.getJobCleanup().getRetention()).isEqualTo(90);
         Assertions.assertThat(this.properties.getJobCleanup().getMaxDeletedPerTransaction()).isEqualTo(1000);
         Assertions.assertThat(this.properties.getJobCleanup().getPageSize()).isEqualTo(1000);
+        Assertions.assertThat(this.properties.getJobCleanup().getWorkers()).isEqualTo(1);
+        Assertions.assertThat(this.properties.getJobCleanup().getPartitionHours()).isEqualTo(24);
+        Assertions.assertThat(this.properties.getJobCleanup().getMaxDeletedPerSecond()).isEqualTo(0);
         Assertions.assertThat(this.properties.getClusterCleanup().isSkip()).isFalse();
         Assertions.assertThat(this.properties.getTagCleanup().isSkip()).isFalse();
+        Assertions.assertThat(this.properties.getTagCleanup().getBatchSize()).isEqualTo(1000);
+        Assertions.assertThat(this.properties.getTagCleanup().getMaxRunTime()).isEqualTo(0L);
         Assertions.assertThat(this.properties.getFileCleanup().isSkip()).isFalse();
+        Assertions.assertThat(this.properties.getFileCleanup().getBatchSize()).isEqualTo(1000);
+        Assertions.assertThat(this.properties.getFileCleanup().getMaxRunTime()).isEqualTo(0L);
     }
 
     @Test
@@ -90,6 +97,16 @@ class DatabaseCleanupPropertiesTest {
         Assertions.assertThat(this.properties.getJobCleanup().getPageSize()).isEqualTo(size);
     }
 
+    @Test
+    void canSetJobCleanupParallelism() {
+        this.properties.getJobCleanup().setWorkers(4);
+        this.properties.getJobCleanup().setPartitionHours(6);
+        this.properties.getJobCleanup().setMaxDeletedPerSecond(2318);
+        Assertions.assertThat(this.properties.getJobCleanup().getWorkers()).isEqualTo(4);
+        Assertions.assertThat(this.properties.getJobCleanup().getPartitionHours()).isEqualTo(6);
+        Assertions.assertThat(this.properties.getJobCleanup().getMaxDeletedPerSecond()).isEqualTo(2318);
+    }
+
     @Test
     void canSetSkipJobCleanup() {
         this.properties.getJobCleanup().setSkip(true);
@@ -114,6 +131,22 @@ class DatabaseCleanupPropertiesTest {
         Assertions.assertThat(this.properties.getFileCleanup().isSkip()).isTrue();
     }
 
+    @Test
+    void canSetTagsCleanupBatching() {
+        this.properties.getTagCleanup().setBatchSize(2318);
+        this.properties.getTagCleanup().setMaxRunTime(60_000L);
+        Assertions.assertThat(this.properties.getTagCleanup().getBatchSize()).isEqualTo(2318);
+        Assertions.assertThat(this.properties.getTagCleanup().getMaxRunTime()).isEqualTo(60_000L);
+    }
+
+    @Test
+    void canSetFilesCleanupBatching() {
+        this.properties.getFileCleanup().setBatchSize(2318);
+        this.properties.getFileCleanup().setMaxRunTime(60_000L);
+        Assertions.assertThat(this.properties.getFileCleanup().getBatchSize()).isEqualTo(2318);
+        Assertions.assertThat(this.properties.getFileCleanup().getMaxRunTime()).isEqualTo(60_000L);
+    }
+
     @Test
     void canSetSkipApplicationsCleanup() {
         this.properties.getApplicationCleanup().setSkip(true);
@@ -17,6 +17,7 @@
  */
 package com.netflix.genie.web.services.impl;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.netflix.genie.common.dto.Job;
@@ -26,6 +27,7 @@ import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.common.exceptions.GenieConflictException;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.common.exceptions.GenieServerUnavailableException;
@@ -90,6 +92,11 @@ public class JobCoordinatorServiceImplTest {
     private static final String KILL_REASON = "Killed by test";
     private static final boolean ACTIVE_JOBS_LIMIT_ENABLED = false;
     private static final Set<Tag> SUCCESS_TIMER_TAGS = MetricsUtils.newSuccessTagsSet();
+    private static final Set<Tag> PERSIST_STAGE_SUCCESS_TAGS = ImmutableSet
+        .<Tag>builder()
+        .addAll(MetricsUtils.newSuccessTagsSet())
+        .add(Tag.of(JobCoordinatorServiceImpl.STAGE_TAG, JobCoordinatorServiceImpl.PERSIST_STAGE))
+        .build();
 
     private JobCoordinatorServiceImpl jobCoordinatorService;
     private JobPersistenceService jobPersistenceService;
@@ -103,7 +110,7 @@ public class JobCoordinatorServiceImplTest {
     private JobsProperties jobsProperties;
     private MeterRegistry registry;
     private Timer coordinationTimer;
-    private Timer setJobEnvironmentTimer;
+    private Timer stageTimer;
     private com.netflix.genie.common.external.dtos.v4.JobMetadata v4JobMetadata;
 
     /**
@@ -136,15 +143,15 @@ public class JobCoordinatorServiceImplTest {
                 )
             )
             .thenReturn(this.coordinationTimer);
-        this.setJobEnvironmentTimer = Mockito.mock(Timer.class);
+        this.stageTimer = Mockito.mock(Timer.class);
         Mockito
             .when(
                 this.registry.timer(
-                    Mockito.eq(JobCoordinatorServiceImpl.SET_JOB_ENVIRONMENT_TIMER_NAME),
+                    Mockito.eq(JobCoordinatorServiceImpl.COORDINATION_STAGE_TIMER_NAME),
                     Mockito.anySet()
                 )
             )
-            .thenReturn(this.setJobEnvironmentTimer);
+            .thenReturn(this.stageTimer);
 
         final DataServices dataServices = new DataServices(
             Mockito.mock(AgentConnectionPersistenceService.class),
@@ -196,11 +203,17 @@ public class JobCoordinatorServiceImplTest {
             )
             .thenThrow(new GenieJobResolutionException());
 
-        Mockito.verifyNoMoreInteractions(this.setJobEnvironmentTimer);
-
         try {
             this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
         } finally {
+            Mockito.verify(this.jobPersistenceService, Mockito.times(1))
+                .createJob(
+                    Mockito.eq(jobRequest),
+                    Mockito.eq(jobMetadata),
+                    Mockito.any(Job.class),
+                    Mockito.any(JobExecution.class)
+                );
+            Mockito.verify(this.jobStateService, Mockito.times(1)).init(JOB_1_ID);
             Mockito
                 .verify(this.coordinationTimer, Mockito.times(1))
                 .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
@@ -213,6 +226,66 @@ public class JobCoordinatorServiceImplTest {
         }
     }
 
+    /**
+     * Make sure a job which fails after resolution but before it is saved is still recorded as failed.
+     *
+     * @throws GenieCheckedException If there is any problem
+     * @throws GenieException        If there is any problem
+     */
+    @Test(expected = GenieNotFoundException.class)
+    public void cantCoordinateJobIfResolvedClusterCantBeFound() throws GenieException, GenieCheckedException {
+        final JobRequest jobRequest = this.getJobRequest(true, Sets.newHashSet(), null, null);
+        final JobMetadata jobMetadata = this.getJobMetadata();
+
+        final String clusterId = UUID.randomUUID().toString();
+        final JobSpecification jobSpecification = Mockito.mock(JobSpecification.class);
+        Mockito
+            .when(jobSpecification.getCluster())
+            .thenReturn(new JobSpecification.ExecutionResource(clusterId, new ExecutionEnvironment(null, null, null)));
+
+        Mockito
+            .when(
+                this.specificationService.resolveJob(
+                    Mockito.anyString(),
+                    Mockito.any(com.netflix.genie.common.external.dtos.v4.JobRequest.class),
+                    Mockito.eq(true)
+                )
+            )
+            .thenReturn(
+                new ResolvedJob(jobSpecification, Mockito.mock(JobEnvironment.class), this.v4JobMetadata)
+            );
+        final GenieNotFoundException notFoundException = new GenieNotFoundException("No cluster " + clusterId);
+        Mockito.when(this.clusterPersistenceService.getCluster(clusterId)).thenThrow(notFoundException);
+        Mockito.when(this.jobStateService.jobExists(JOB_1_ID)).thenReturn(true);
+
+        try {
+            this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
+        } finally {
+            Mockito.verify(this.jobPersistenceService, Mockito.never())
+                .createJobWithRuntimeEnvironment(
+                    Mockito.any(JobRequest.class),
+                    Mockito.any(JobMetadata.class),
+                    Mockito.any(Job.class),
+                    Mockito.any(JobExecution.class),
+                    Mockito.anyString(),
+                    Mockito.anyString(),
+                    Mockito.anyList(),
+                    Mockito.anyInt()
+                );
+            Mockito.verify(this.jobPersistenceService, Mockito.times(1))
+                .createJob(
+                    Mockito.eq(jobRequest),
+                    Mockito.eq(jobMetadata),
+                    Mockito.any(Job.class),
+                    Mockito.any(JobExecution.class)
+                );
+            Mockito.verify(this.jobStateService, Mockito.times(1)).init(JOB_1_ID);
+            Mockito.verify(this.jobStateService, Mockito.times(1)).done(JOB_1_ID);
+            Mockito.verify(this.jobPersistenceService, Mockito.times(1))
+                .updateJobStatus(JOB_1_ID, JobStatus.FAILED, notFoundException.getMessage());
+        }
+    }
+
     /**
      * Test the coordinate job method.
      *
@@ -233,23 +306,19 @@ public class JobCoordinatorServiceImplTest {
         final String clusterId = UUID.randomUUID().toString();
         final Cluster cluster = Mockito.mock(Cluster.class);
         Mockito.when(cluster.getId()).thenReturn(clusterId);
-        Mockito.when(this.clusterPersistenceService.getCluster(clusterId)).thenReturn(cluster);
 
         final String commandId = UUID.randomUUID().toString();
         final Command command = Mockito.mock(Command.class);
         Mockito.when(command.getId()).thenReturn(commandId);
         Mockito.when(command.getMemory()).thenReturn(Optional.empty());
-        Mockito.when(this.commandPersistenceService.getCommand(commandId)).thenReturn(command);
 
         final String application0Id = UUID.randomUUID().toString();
         final Application application0 = Mockito.mock(Application.class);
         Mockito.when(application0.getId()).thenReturn(application0Id);
-        Mockito.when(this.applicationPersistenceService.getApplication(application0Id)).thenReturn(application0);
 
         final String application1Id = UUID.randomUUID().toString();
         final Application application1 = Mockito.mock(Application.class);
         Mockito.when(application1.getId()).thenReturn(application1Id);
-        Mockito.when(this.applicationPersistenceService.getApplication(application1Id)).thenReturn(application1);
 
         final String archiveLocation = UUID.randomUUID().toString();
 
@@ -285,7 +354,14 @@ public class JobCoordinatorServiceImplTest {
             null
         );
         final JobEnvironment jobEnvironment = Mockito.mock(JobEnvironment.class);
-        final ResolvedJob resolvedJob = new ResolvedJob(jobSpecification, jobEnvironment, v4JobMetadata);
+        final ResolvedJob resolvedJob = new ResolvedJob(
+            jobSpecification,
+            jobEnvironment,
+            v4JobMetadata,
+            cluster,
+            command,
+            Lists.newArrayList(application0, application1)
+        );
 
         Mockito
             .when(
@@ -302,22 +378,36 @@ public class JobCoordinatorServiceImplTest {
         this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
 
         Mockito.verify(this.jobPersistenceService, Mockito.times(1))
+            .createJobWithRuntimeEnvironment(
+                Mockito.eq(jobRequest),
+                Mockito.eq(jobMetadata),
+                Mockito.any(Job.class),
+                Mockito.any(JobExecution.class),
+                Mockito.eq(clusterId),
+                Mockito.eq(commandId),
+                Mockito.eq(Lists.newArrayList(application0Id, application1Id)),
+                Mockito.eq(MEMORY)
+            );
+        Mockito.verify(this.jobPersistenceService, Mockito.never())
             .createJob(
                 Mockito.any(JobRequest.class),
                 Mockito.any(JobMetadata.class),
                 Mockito.any(Job.class),
                 Mockito.any(JobExecution.class)
             );
-
-        Mockito.verify(
-            this.jobPersistenceService,
-            Mockito.times(1)
-        ).updateJobWithRuntimeEnvironment(
-            JOB_1_ID,
-            clusterId,
-            commandId,
-            Lists.newArrayList(application0Id, application1Id),
-            MEMORY
+        Mockito.verify(this.jobPersistenceService, Mockito.never())
+            .updateJobWithRuntimeEnvironment(
+                Mockito.anyString(),
+                Mockito.anyString(),
+                Mockito.anyString(),
+                Mockito.anyList(),
+                Mockito.anyInt()
+            );
+        Mockito.verify(this.jobStateService, Mockito.times(1)).init(JOB_1_ID);
+        Mockito.verifyZeroInteractions(
+            this.clusterPersistenceService,
+            this.commandPersistenceService,
+            this.applicationPersistenceService
         );
 
         Mockito.verify(
@@ -339,11 +429,11 @@ public class JobCoordinatorServiceImplTest {
             .verify(this.registry, Mockito.times(1))
             .timer(JobCoordinatorServiceImpl.OVERALL_COORDINATION_TIMER_NAME, SUCCESS_TIMER_TAGS);
         Mockito
-            .verify(this.setJobEnvironmentTimer, Mockito.times(1))
+            .verify(this.stageTimer, Mockito.atLeast(2))
             .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
         Mockito
             .verify(this.registry, Mockito.times(1))
-            .timer(JobCoordinatorServiceImpl.SET_JOB_ENVIRONMENT_TIMER_NAME, SUCCESS_TIMER_TAGS);
+            .timer(JobCoordinatorServiceImpl.COORDINATION_STAGE_TIMER_NAME, PERSIST_STAGE_SUCCESS_TAGS);
     }
 
     /**
@@ -446,11 +536,11 @@ public class JobCoordinatorServiceImplTest {
                     MetricsUtils.newFailureTagsSetForException(new GeniePreconditionException("test"))
                 );
             Mockito
-                .verify(this.setJobEnvironmentTimer, Mockito.times(1))
+                .verify(this.stageTimer, Mockito.atLeast(2))
                 .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
             Mockito
                 .verify(this.registry, Mockito.times(1))
-                .timer(JobCoordinatorServiceImpl.SET_JOB_ENVIRONMENT_TIMER_NAME, SUCCESS_TIMER_TAGS);
+                .timer(JobCoordinatorServiceImpl.COORDINATION_STAGE_TIMER_NAME, PERSIST_STAGE_SUCCESS_TAGS);
         }
     }
 
@@ -567,11 +657,11 @@ public class JobCoordinatorServiceImplTest {
                     MetricsUtils.newFailureTagsSetForException(new GenieServerUnavailableException("test"))
                 );
             Mockito
-                .verify(this.setJobEnvironmentTimer, Mockito.times(1))
+                .verify(this.stageTimer, Mockito.atLeast(2))
                 .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
             Mockito
                 .verify(this.registry, Mockito.times(1))
-                .timer(JobCoordinatorServiceImpl.SET_JOB_ENVIRONMENT_TIMER_NAME, SUCCESS_TIMER_TAGS);
+                .timer(JobCoordinatorServiceImpl.COORDINATION_STAGE_TIMER_NAME, PERSIST_STAGE_SUCCESS_TAGS);
         }
     }
 
@@ -677,11 +767,11 @@ public class JobCoordinatorServiceImplTest {
             .verify(this.registry, Mockito.times(1))
             .timer(JobCoordinatorServiceImpl.OVERALL_COORDINATION_TIMER_NAME, SUCCESS_TIMER_TAGS);
         Mockito
-            .verify(this.setJobEnvironmentTimer, Mockito.times(1))
+            .verify(this.stageTimer, Mockito.atLeast(2))
             .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
         Mockito
             .verify(this.registry, Mockito.times(1))
-            .timer(JobCoordinatorServiceImpl.SET_JOB_ENVIRONMENT_TIMER_NAME, SUCCESS_TIMER_TAGS);
+            .timer(JobCoordinatorServiceImpl.COORDINATION_STAGE_TIMER_NAME, PERSIST_STAGE_SUCCESS_TAGS);
     }
 
     /**
@@ -803,11 +893,11 @@ public class JobCoordinatorServiceImplTest {
                     )
                 );
             Mockito
-                .verify(this.setJobEnvironmentTimer, Mockito.times(1))
+                .verify(this.stageTimer, Mockito.atLeast(2))
                 .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
             Mockito
                 .verify(this.registry, Mockito.times(1))
-                .timer(JobCoordinatorServiceImpl.SET_JOB_ENVIRONMENT_TIMER_NAME, SUCCESS_TIMER_TAGS);
+                .timer(JobCoordinatorServiceImpl.COORDINATION_STAGE_TIMER_NAME, PERSIST_STAGE_SUCCESS_TAGS);
             Mockito
                 .verify(limitExceededCounter, Mockito.times(1))
                 .increment();
@@ -936,11 +1026,11 @@ public class JobCoordinatorServiceImplTest {
                     MetricsUtils.newFailureTagsSetForException(new RuntimeException("test"))
                 );
             Mockito
-                .verify(this.setJobEnvironmentTimer, Mockito.times(1))
+                .verify(this.stageTimer, Mockito.atLeast(2))
                 .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
             Mockito
                 .verify(this.registry, Mockito.times(1))
-                .timer(JobCoordinatorServiceImpl.SET_JOB_ENVIRONMENT_TIMER_NAME, SUCCESS_TIMER_TAGS);
+                .timer(JobCoordinatorServiceImpl.COORDINATION_STAGE_TIMER_NAME, PERSIST_STAGE_SUCCESS_TAGS);
         }
     }
 
@@ -955,7 +1045,7 @@ public class JobCoordinatorServiceImplTest {
         Mockito.when(request.getId()).thenReturn(Optional.empty());
         Mockito.verifyNoMoreInteractions(
             this.coordinationTimer,
-            this.setJobEnvironmentTimer
+            this.stageTimer
         );
         this.jobCoordinatorService.coordinateJob(request, Mockito.mock(JobMetadata.class));
     }
@@ -963,27 +1053,62 @@ public class JobCoordinatorServiceImplTest {
     /**
      * Make sure if the job with id already exists.
      *
-     * @throws GenieException On error
+     * @throws GenieCheckedException On error
+     * @throws GenieException        On error
      */
     @Test(expected = GenieConflictException.class)
-    public void cantCoordinateIfJobAlreadyExists() throws GenieException {
+    public void cantCoordinateIfJobAlreadyExists() throws GenieException, GenieCheckedException {
         final JobRequest request = getJobRequest(false, Sets.newHashSet(), null, null);
         final JobMetadata metadata = Mockito.mock(JobMetadata.class);
+        final JobSpecification jobSpecification = Mockito.mock(JobSpecification.class);
+        Mockito.when(jobSpecification.getApplications()).thenReturn(Lists.newArrayList());
+        final Cluster cluster = Mockito.mock(Cluster.class);
+        Mockito.when(cluster.getId()).thenReturn(UUID.randomUUID().toString());
+        final Command command = Mockito.mock(Command.class);
+        Mockito.when(command.getId()).thenReturn(UUID.randomUUID().toString());
+        Mockito.when(command.getMemory()).thenReturn(Optional.empty());
+        Mockito
+            .when(
+                this.specificationService.resolveJob(
+                    Mockito.anyString(),
+                    Mockito.any(com.netflix.genie.common.external.dtos.v4.JobRequest.class),
+                    Mockito.eq(true)
+                )
+            )
+            .thenReturn(
+                new ResolvedJob(
+                    jobSpecification,
+                    Mockito.mock(JobEnvironment.class),
+                    this.v4JobMetadata,
+                    cluster,
+                    command,
+                    Lists.newArrayList()
+                )
+            );
         Mockito
             .doThrow(GenieConflictException.class)
             .when(jobPersistenceService)
-            .createJob(
+            .createJobWithRuntimeEnvironment(
                 Mockito.eq(request),
                 Mockito.eq(metadata),
                 Mockito.any(Job.class),
-                Mockito.any(JobExecution.class)
+                Mockito.any(JobExecution.class),
+                Mockito.anyString(),
+                Mockito.anyString(),
+                Mockito.anyList(),
+                Mockito.anyInt()
             );
 
-        Mockito.verifyNoMoreInteractions(this.setJobEnvironmentTimer);
-
         try {
             this.jobCoordinatorService.coordinateJob(request, metadata);
         } finally {
+            Mockito.verify(this.jobPersistenceService, Mockito.never())
+                .createJob(
+                    Mockito.any(JobRequest.class),
+                    Mockito.any(JobMetadata.class),
+                    Mockito.any(Job.class),
+                    Mockito.any(JobExecution.class)
+                );
             Mockito
                 .verify(this.coordinationTimer, Mockito.times(1))
                 .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
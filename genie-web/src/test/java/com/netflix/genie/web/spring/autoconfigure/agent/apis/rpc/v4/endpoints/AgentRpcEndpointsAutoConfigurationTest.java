@@ -33,6 +33,8 @@ import com.netflix.genie.web.agent.services.AgentJobService;
 import com.netflix.genie.web.agent.services.AgentRoutingService;
 import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.data.services.JobSearchService;
+import com.netflix.genie.web.properties.AgentFileStreamProperties;
+import com.netflix.genie.web.properties.AgentHeartBeatProperties;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -68,6 +70,8 @@ class AgentRpcEndpointsAutoConfigurationTest {
         this.contextRunner
             .run(
                 context -> {
+                    Assertions.assertThat(context).hasSingleBean(AgentFileStreamProperties.class);
+                    Assertions.assertThat(context).hasSingleBean(AgentHeartBeatProperties.class);
                     Assertions.assertThat(context.containsBean("heartBeatServiceTaskScheduler")).isTrue();
                     Assertions.assertThat(context).hasSingleBean(JobServiceProtoErrorComposer.class);
                     Assertions
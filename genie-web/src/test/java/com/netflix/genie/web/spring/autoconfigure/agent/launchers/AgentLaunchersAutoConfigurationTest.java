@@ -32,6 +32,7 @@ import org.mockito.Mockito;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.TaskScheduler;
 
 import java.util.UUID;
 
@@ -89,6 +90,11 @@ class AgentLaunchersAutoConfigurationTest {
             return dataServices;
         }
 
+        @Bean(name = "genieTaskScheduler")
+        TaskScheduler genieTaskScheduler() {
+            return Mockito.mock(TaskScheduler.class);
+        }
+
         @Bean
         MeterRegistry meterRegistry() {
             return new SimpleMeterRegistry();
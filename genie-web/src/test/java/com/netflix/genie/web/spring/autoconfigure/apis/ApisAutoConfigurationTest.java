@@ -18,6 +18,7 @@
 package com.netflix.genie.web.spring.autoconfigure.apis;
 
 import com.netflix.genie.web.properties.HttpProperties;
+import com.netflix.genie.web.properties.JobExportProperties;
 import com.netflix.genie.web.properties.JobsProperties;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -27,6 +28,7 @@ import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.io.File;
 import java.io.IOException;
@@ -69,6 +71,21 @@ class ApisAutoConfigurationTest {
             .isNotNull();
     }
 
+    /**
+     * Make sure the job export executor is bounded by the export properties.
+     */
+    @Test
+    void canGetJobExportTaskExecutor() {
+        final JobExportProperties jobExportProperties = new JobExportProperties();
+        jobExportProperties.setThreads(3);
+        final ThreadPoolTaskExecutor executor = this.apisAutoConfiguration.genieJobExportTaskExecutor(
+            jobExportProperties
+        );
+        Assertions.assertThat(executor.getCorePoolSize()).isEqualTo(3);
+        Assertions.assertThat(executor.getMaxPoolSize()).isEqualTo(3);
+        Assertions.assertThat(executor.getThreadNamePrefix()).isEqualTo("genie-job-export-");
+    }
+
     /**
      * Make sure the default implementation of a directory writer is used in this default configuration.
      */
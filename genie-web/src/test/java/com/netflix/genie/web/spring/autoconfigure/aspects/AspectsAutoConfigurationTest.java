@@ -17,14 +17,17 @@
  */
 package com.netflix.genie.web.spring.autoconfigure.aspects;
 
+import com.netflix.genie.web.aspects.CriteriaIndexAspect;
 import com.netflix.genie.web.aspects.DataServiceRetryAspect;
 import com.netflix.genie.web.aspects.HealthCheckMetricsAspect;
 import com.netflix.genie.web.aspects.SystemArchitecture;
 import com.netflix.genie.web.properties.DataServiceRetryProperties;
+import com.netflix.genie.web.services.CriteriaIndexService;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 import org.springframework.aop.aspectj.autoproxy.AspectJAwareAdvisorAutoProxyCreator;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
@@ -60,10 +63,23 @@ class AspectsAutoConfigurationTest {
                 Assertions.assertThat(context).hasSingleBean(DataServiceRetryAspect.class);
                 Assertions.assertThat(context).hasSingleBean(HealthCheckMetricsAspect.class);
                 Assertions.assertThat(context).hasSingleBean(SystemArchitecture.class);
+                Assertions.assertThat(context).doesNotHaveBean(CriteriaIndexAspect.class);
             }
         );
     }
 
+    /**
+     * Make sure the criteria index aspect is created when the index is enabled.
+     */
+    @Test
+    void criteriaIndexAspectCreatedWhenEnabled() {
+        this.contextRunner
+            .withPropertyValues("genie.services.criteria-index.enabled=true")
+            .run(
+                context -> Assertions.assertThat(context).hasSingleBean(CriteriaIndexAspect.class)
+            );
+    }
+
     /**
      * Dummy user configuration for tests.
      */
@@ -79,5 +95,15 @@ class AspectsAutoConfigurationTest {
         public MeterRegistry meterRegistry() {
             return new SimpleMeterRegistry();
         }
+
+        /**
+         * Dummy criteria index service.
+         *
+         * @return Mock {@link CriteriaIndexService} instance
+         */
+        @Bean
+        public CriteriaIndexService criteriaIndexService() {
+            return Mockito.mock(CriteriaIndexService.class);
+        }
     }
 }
@@ -59,6 +59,7 @@ import org.mockito.Mockito;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.task.TaskExecutor;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -171,6 +172,7 @@ public class ServicesAutoConfigurationTest {
                 Mockito.mock(FileTransferFactory.class),
                 cacheProperties,
                 Mockito.mock(LocalFileTransferImpl.class),
+                Mockito.mock(TaskExecutor.class),
                 Mockito.mock(MeterRegistry.class)
             )
         );
@@ -28,6 +28,7 @@ import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.data.services.FilePersistenceService;
 import com.netflix.genie.web.data.services.JobPersistenceService;
 import com.netflix.genie.web.data.services.TagPersistenceService;
+import com.netflix.genie.web.dtos.BatchDeletionResult;
 import com.netflix.genie.web.properties.DatabaseCleanupProperties;
 import com.netflix.genie.web.tasks.GenieTaskScheduleType;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
@@ -41,8 +42,12 @@ import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.support.CronTrigger;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Calendar;
 import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Unit tests for {@link DatabaseCleanupTask}.
@@ -146,6 +151,7 @@ class DatabaseCleanupTaskTest {
         final int days = 5;
         final int negativeDays = -1 * days;
         final int pageSize = 10;
+        final int batchSize = 100;
 
         Mockito.when(this.jobCleanupProperties.getRetention()).thenReturn(days).thenReturn(negativeDays);
         Mockito.when(this.jobCleanupProperties.getPageSize()).thenReturn(pageSize);
@@ -154,12 +160,26 @@ class DatabaseCleanupTaskTest {
         Mockito.when(this.commandDeactivationProperties.getJobCreationThreshold()).thenReturn(30);
         final ArgumentCaptor<Instant> argument = ArgumentCaptor.forClass(Instant.class);
 
+        Mockito.when(this.jobCleanupProperties.getWorkers()).thenReturn(2);
+        Mockito.when(this.jobCleanupProperties.getPartitionHours()).thenReturn(24);
+        Mockito
+            .when(
+                this.jobPersistenceService.getOldestJobCreatedBefore(
+                    Mockito.any(Instant.class),
+                    Mockito.eq(JobStatus.getActiveStatuses())
+                )
+            )
+            .thenAnswer(invocation -> Optional.of(invocation.<Instant>getArgument(0).minus(36L, ChronoUnit.HOURS)))
+            .thenReturn(Optional.empty());
+
+        // Whichever partition gets the first 0 is done, the other one keeps going until the second 0
         final long deletedCount1 = 6L;
         final long deletedCount2 = 18L;
         final long deletedCount3 = 2L;
         Mockito
             .when(
-                this.jobPersistenceService.deleteJobsCreatedBefore(
+                this.jobPersistenceService.deleteJobsCreatedBetween(
+                    Mockito.any(Instant.class),
                     Mockito.any(Instant.class),
                     Mockito.eq(JobStatus.getActiveStatuses()),
                     Mockito.eq(pageSize)
@@ -178,8 +198,30 @@ class DatabaseCleanupTaskTest {
                     Mockito.any(Instant.class)
                 )
             ).thenReturn(1L, 2L);
-        Mockito.when(this.filePersistenceService.deleteUnusedFiles(Mockito.any(Instant.class))).thenReturn(3L, 4L);
-        Mockito.when(this.tagPersistenceService.deleteUnusedTags(Mockito.any(Instant.class))).thenReturn(5L, 6L);
+        Mockito.when(this.fileCleanupProperties.getBatchSize()).thenReturn(batchSize);
+        Mockito
+            .when(
+                this.filePersistenceService.deleteUnusedFiles(
+                    Mockito.any(Instant.class),
+                    Mockito.anyLong(),
+                    Mockito.eq(batchSize)
+                )
+            )
+            .thenReturn(
+                new BatchDeletionResult(3L, 100L, false),
+                new BatchDeletionResult(4L, 150L, true),
+                new BatchDeletionResult(5L, 120L, true)
+            );
+        Mockito.when(this.tagCleanupProperties.getBatchSize()).thenReturn(batchSize);
+        Mockito
+            .when(
+                this.tagPersistenceService.deleteUnusedTags(
+                    Mockito.any(Instant.class),
+                    Mockito.anyLong(),
+                    Mockito.eq(batchSize)
+                )
+            )
+            .thenReturn(new BatchDeletionResult(5L, 10L, true), new BatchDeletionResult(6L, 20L, true));
         Mockito
             .when(this.applicationPersistenceService.deleteUnusedApplicationsCreatedBefore(Mockito.any(Instant.class)))
             .thenReturn(11L, 117L);
@@ -210,30 +252,53 @@ class DatabaseCleanupTaskTest {
 
         if (before.get(Calendar.DAY_OF_YEAR) == after.get(Calendar.DAY_OF_YEAR)) {
             Mockito
-                .verify(this.jobPersistenceService, Mockito.times(5))
-                .deleteJobsCreatedBefore(
-                    argument.capture(),
-                    Mockito.eq(JobStatus.getActiveStatuses()),
-                    Mockito.eq(pageSize)
-                );
+                .verify(this.jobPersistenceService, Mockito.times(2))
+                .getOldestJobCreatedBefore(argument.capture(), Mockito.eq(JobStatus.getActiveStatuses()));
             final Calendar date = Calendar.getInstance(JobConstants.UTC);
             date.set(Calendar.HOUR_OF_DAY, 0);
             date.set(Calendar.MINUTE, 0);
             date.set(Calendar.SECOND, 0);
             date.set(Calendar.MILLISECOND, 0);
             date.add(Calendar.DAY_OF_YEAR, negativeDays);
-            Assertions.assertThat(argument.getAllValues().get(0).toEpochMilli()).isEqualTo(date.getTime().getTime());
-            Assertions.assertThat(argument.getAllValues().get(1).toEpochMilli()).isEqualTo(date.getTime().getTime());
+            final Instant retentionLimit = date.toInstant();
+            Assertions.assertThat(argument.getAllValues().get(0)).isEqualTo(retentionLimit);
+            Mockito
+                .verify(this.jobPersistenceService, Mockito.times(5))
+                .deleteJobsCreatedBetween(
+                    Mockito.any(Instant.class),
+                    Mockito.any(Instant.class),
+                    Mockito.eq(JobStatus.getActiveStatuses()),
+                    Mockito.eq(pageSize)
+                );
+            Mockito
+                .verify(this.jobPersistenceService, Mockito.atLeastOnce())
+                .deleteJobsCreatedBetween(
+                    Mockito.eq(retentionLimit.minus(24L, ChronoUnit.HOURS)),
+                    Mockito.eq(retentionLimit),
+                    Mockito.eq(JobStatus.getActiveStatuses()),
+                    Mockito.eq(pageSize)
+                );
+            Mockito
+                .verify(this.jobPersistenceService, Mockito.atLeastOnce())
+                .deleteJobsCreatedBetween(
+                    Mockito.eq(retentionLimit.minus(48L, ChronoUnit.HOURS)),
+                    Mockito.eq(retentionLimit.minus(24L, ChronoUnit.HOURS)),
+                    Mockito.eq(JobStatus.getActiveStatuses()),
+                    Mockito.eq(pageSize)
+                );
             Mockito.verify(this.clusterPersistenceService, Mockito.times(2)).deleteUnusedClusters(
                 Mockito.eq(EnumSet.of(ClusterStatus.TERMINATED)),
                 Mockito.any(Instant.class)
             );
             Mockito
                 .verify(this.filePersistenceService, Mockito.times(2))
-                .deleteUnusedFiles(Mockito.any(Instant.class));
+                .deleteUnusedFiles(Mockito.any(Instant.class), Mockito.eq(0L), Mockito.eq(batchSize));
+            Mockito
+                .verify(this.filePersistenceService, Mockito.times(1))
+                .deleteUnusedFiles(Mockito.any(Instant.class), Mockito.eq(100L), Mockito.eq(batchSize));
             Mockito
                 .verify(this.tagPersistenceService, Mockito.times(2))
-                .deleteUnusedTags(Mockito.any(Instant.class));
+                .deleteUnusedTags(Mockito.any(Instant.class), Mockito.eq(0L), Mockito.eq(batchSize));
             Mockito
                 .verify(this.applicationPersistenceService, Mockito.times(2))
                 .deleteUnusedApplicationsCreatedBefore(Mockito.any(Instant.class));
@@ -263,9 +328,13 @@ class DatabaseCleanupTaskTest {
         Mockito.when(this.jobCleanupProperties.getRetention()).thenReturn(days).thenReturn(negativeDays);
         Mockito.when(this.jobCleanupProperties.getPageSize()).thenReturn(pageSize);
 
+        Mockito
+            .when(this.jobPersistenceService.getOldestJobCreatedBefore(Mockito.any(Instant.class), Mockito.anySet()))
+            .thenAnswer(invocation -> Optional.of(invocation.<Instant>getArgument(0).minus(1L, ChronoUnit.HOURS)));
         Mockito
             .when(
-                this.jobPersistenceService.deleteJobsCreatedBefore(
+                this.jobPersistenceService.deleteJobsCreatedBetween(
+                    Mockito.any(Instant.class),
                     Mockito.any(Instant.class),
                     Mockito.anySet(),
                     Mockito.anyInt()
@@ -320,7 +389,11 @@ class DatabaseCleanupTaskTest {
             );
         Mockito
             .verify(this.jobPersistenceService, Mockito.never())
-            .deleteJobsCreatedBefore(
+            .getOldestJobCreatedBefore(Mockito.any(Instant.class), Mockito.anySet());
+        Mockito
+            .verify(this.jobPersistenceService, Mockito.never())
+            .deleteJobsCreatedBetween(
+                Mockito.any(Instant.class),
                 Mockito.any(Instant.class),
                 Mockito.anySet(),
                 Mockito.anyInt()
@@ -330,9 +403,153 @@ class DatabaseCleanupTaskTest {
             .deleteUnusedClusters(Mockito.anySet(), Mockito.any(Instant.class));
         Mockito
             .verify(this.filePersistenceService, Mockito.never())
-            .deleteUnusedFiles(Mockito.any(Instant.class));
+            .deleteUnusedFiles(Mockito.any(Instant.class), Mockito.anyLong(), Mockito.anyInt());
         Mockito
             .verify(this.tagPersistenceService, Mockito.never())
-            .deleteUnusedTags(Mockito.any(Instant.class));
+            .deleteUnusedTags(Mockito.any(Instant.class), Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    /**
+     * Make sure every creation time range of the jobs to delete is emptied when the work is spread across workers.
+     */
+    @Test
+    void canDeleteJobsInParallel() {
+        this.skipAllButJobs();
+        this.environment.setProperty(DatabaseCleanupProperties.JobDatabaseCleanupProperties.PAGE_SIZE_PROPERTY, "10");
+        this.environment.setProperty(DatabaseCleanupProperties.JobDatabaseCleanupProperties.WORKERS_PROPERTY, "3");
+        this.environment.setProperty(
+            DatabaseCleanupProperties.JobDatabaseCleanupProperties.PARTITION_HOURS_PROPERTY,
+            "1"
+        );
+        this.environment.setProperty(
+            DatabaseCleanupProperties.JobDatabaseCleanupProperties.MAX_DELETED_PER_SECOND_PROPERTY,
+            "1000"
+        );
+        Mockito.when(this.jobCleanupProperties.getRetention()).thenReturn(90);
+
+        final ArgumentCaptor<Instant> argument = ArgumentCaptor.forClass(Instant.class);
+        Mockito
+            .when(this.jobPersistenceService.getOldestJobCreatedBefore(argument.capture(), Mockito.anySet()))
+            .thenAnswer(invocation -> Optional.of(invocation.<Instant>getArgument(0).minus(10L, ChronoUnit.HOURS)));
+        // Every range has a single batch of jobs to delete
+        final Set<Instant> emptiedPartitions = ConcurrentHashMap.newKeySet();
+        Mockito
+            .when(
+                this.jobPersistenceService.deleteJobsCreatedBetween(
+                    Mockito.any(Instant.class),
+                    Mockito.any(Instant.class),
+                    Mockito.eq(JobStatus.getActiveStatuses()),
+                    Mockito.eq(10)
+                )
+            )
+            .thenAnswer(invocation -> emptiedPartitions.add(invocation.getArgument(0)) ? 10L : 0L);
+
+        this.task.run();
+
+        final Instant retentionLimit = argument.getValue();
+        for (int i = 1; i <= 10; i++) {
+            final Instant partitionStart = retentionLimit.minus(i, ChronoUnit.HOURS);
+            Mockito
+                .verify(this.jobPersistenceService, Mockito.times(2))
+                .deleteJobsCreatedBetween(
+                    Mockito.eq(partitionStart),
+                    Mockito.eq(partitionStart.plus(1L, ChronoUnit.HOURS)),
+                    Mockito.eq(JobStatus.getActiveStatuses()),
+                    Mockito.eq(10)
+                );
+        }
+        Mockito
+            .verify(this.jobPersistenceService, Mockito.times(20))
+            .deleteJobsCreatedBetween(
+                Mockito.any(Instant.class),
+                Mockito.any(Instant.class),
+                Mockito.anySet(),
+                Mockito.anyInt()
+            );
+    }
+
+    /**
+     * Make sure file and tag cleanup stop once their time budget is spent and resume from there on the next run.
+     */
+    @Test
+    void canResumeAfterTimeBudget() {
+        this.environment.setProperty(
+            DatabaseCleanupProperties.ApplicationDatabaseCleanupProperties.SKIP_PROPERTY,
+            "true"
+        );
+        this.environment.setProperty(DatabaseCleanupProperties.CommandDatabaseCleanupProperties.SKIP_PROPERTY, "true");
+        this.environment.setProperty(
+            DatabaseCleanupProperties.CommandDeactivationDatabaseCleanupProperties.SKIP_PROPERTY,
+            "true"
+        );
+        this.environment.setProperty(DatabaseCleanupProperties.ClusterDatabaseCleanupProperties.SKIP_PROPERTY, "true");
+        this.environment.setProperty(DatabaseCleanupProperties.JobDatabaseCleanupProperties.SKIP_PROPERTY, "true");
+        this.environment.setProperty(DatabaseCleanupProperties.FileDatabaseCleanupProperties.BATCH_SIZE_PROPERTY, "50");
+        this.environment.setProperty(
+            DatabaseCleanupProperties.FileDatabaseCleanupProperties.MAX_RUN_TIME_PROPERTY,
+            "1"
+        );
+        this.environment.setProperty(DatabaseCleanupProperties.TagDatabaseCleanupProperties.BATCH_SIZE_PROPERTY, "20");
+        this.environment.setProperty(DatabaseCleanupProperties.TagDatabaseCleanupProperties.MAX_RUN_TIME_PROPERTY, "1");
+
+        Mockito
+            .when(
+                this.filePersistenceService.deleteUnusedFiles(
+                    Mockito.any(Instant.class),
+                    Mockito.anyLong(),
+                    Mockito.anyInt()
+                )
+            )
+            .thenAnswer(
+                invocation -> {
+                    Thread.sleep(5L);
+                    return new BatchDeletionResult(2L, invocation.<Long>getArgument(1) + 50L, false);
+                }
+            );
+        Mockito
+            .when(
+                this.tagPersistenceService.deleteUnusedTags(
+                    Mockito.any(Instant.class),
+                    Mockito.anyLong(),
+                    Mockito.anyInt()
+                )
+            )
+            .thenAnswer(
+                invocation -> {
+                    Thread.sleep(5L);
+                    return new BatchDeletionResult(1L, invocation.<Long>getArgument(1) + 20L, false);
+                }
+            );
+
+        this.task.run();
+        this.task.run();
+
+        Mockito
+            .verify(this.filePersistenceService, Mockito.times(1))
+            .deleteUnusedFiles(Mockito.any(Instant.class), Mockito.eq(0L), Mockito.eq(50));
+        Mockito
+            .verify(this.filePersistenceService, Mockito.times(1))
+            .deleteUnusedFiles(Mockito.any(Instant.class), Mockito.eq(50L), Mockito.eq(50));
+        Mockito
+            .verify(this.tagPersistenceService, Mockito.times(1))
+            .deleteUnusedTags(Mockito.any(Instant.class), Mockito.eq(0L), Mockito.eq(20));
+        Mockito
+            .verify(this.tagPersistenceService, Mockito.times(1))
+            .deleteUnusedTags(Mockito.any(Instant.class), Mockito.eq(20L), Mockito.eq(20));
+    }
+
+    private void skipAllButJobs() {
+        this.environment.setProperty(
+            DatabaseCleanupProperties.ApplicationDatabaseCleanupProperties.SKIP_PROPERTY,
+            "true"
+        );
+        this.environment.setProperty(DatabaseCleanupProperties.CommandDatabaseCleanupProperties.SKIP_PROPERTY, "true");
+        this.environment.setProperty(
+            DatabaseCleanupProperties.CommandDeactivationDatabaseCleanupProperties.SKIP_PROPERTY,
+            "true"
+        );
+        this.environment.setProperty(DatabaseCleanupProperties.ClusterDatabaseCleanupProperties.SKIP_PROPERTY, "true");
+        this.environment.setProperty(DatabaseCleanupProperties.FileDatabaseCleanupProperties.SKIP_PROPERTY, "true");
+        this.environment.setProperty(DatabaseCleanupProperties.TagDatabaseCleanupProperties.SKIP_PROPERTY, "true");
     }
 }